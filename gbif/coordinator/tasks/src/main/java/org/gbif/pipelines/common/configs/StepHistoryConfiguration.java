@@ -0,0 +1,44 @@
+package org.gbif.pipelines.common.configs;
+
+import com.beust.jcommander.Parameter;
+import javax.validation.constraints.Min;
+import lombok.ToString;
+
+/**
+ * Run history and the cost model used to choose runners and size Spark jobs, the history is
+ * disabled if the path is not set. Only the interpretation step (verbatim to interpreted) is
+ * recorded and estimated, other steps choose runners by their records and file size thresholds.
+ */
+@ToString
+public class StepHistoryConfiguration {
+
+  @Parameter(names = "--step-history-path")
+  public String path;
+
+  @Parameter(names = "--step-history-size")
+  @Min(1)
+  public int size = 10;
+
+  @Parameter(names = "--standalone-memory-mb")
+  @Min(1)
+  public int standaloneMemoryMb = 16 * 1024;
+
+  /**
+   * Threads of the standalone runner, the threads of its latest run in the history are used if not
+   * set
+   */
+  @Parameter(names = "--standalone-threads")
+  @Min(1)
+  public Integer standaloneThreads;
+
+  @Parameter(names = "--standalone-max-minutes")
+  @Min(1)
+  public int standaloneMaxMinutes = 30;
+
+  @Parameter(names = "--spark-target-minutes")
+  @Min(1)
+  public int sparkTargetMinutes = 20;
+
+  @Parameter(names = "--memory-headroom")
+  public double memoryHeadroom = 1.3d;
+}
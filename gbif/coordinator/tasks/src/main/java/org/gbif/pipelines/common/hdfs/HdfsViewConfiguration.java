@@ -2,6 +2,8 @@ package org.gbif.pipelines.common.hdfs;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParametersDelegate;
+import java.util.Collections;
+import java.util.Set;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import lombok.ToString;
@@ -36,6 +38,19 @@ public class HdfsViewConfiguration implements BaseConfiguration {
   @Parameter(names = "--hdfs-avro-expected-file-size-in-mb")
   public int hdfsAvroExpectedFileSizeInMb = 300;
 
+  /**
+   * Tables written as Parquet instead of Avro, like OCCURRENCE, MEASUREMENT_OR_FACT_TABLE or ALL.
+   * Parquet tables are stored in separate directories with the _parquet suffix
+   */
+  @Parameter(names = "--parquet-tables")
+  public Set<String> parquetTables = Collections.emptySet();
+
+  @Parameter(names = "--parquet-page-size-in-kb")
+  public Integer parquetPageSizeInKb;
+
+  @Parameter(names = "--parquet-row-group-size-in-mb")
+  public Integer parquetRowGroupSizeInMb;
+
   @Parameter(names = "--process-runner")
   @NotNull
   public String processRunner;
@@ -0,0 +1,177 @@
+package org.gbif.pipelines.common.history;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.api.model.pipelines.StepRunner;
+import org.gbif.pipelines.common.configs.SparkConfiguration;
+import org.gbif.pipelines.common.configs.StepHistoryConfiguration;
+
+/**
+ * Cost model of a step, fed by the {@link StepRun} history of the dataset. Only interpretation
+ * (VERBATIM_TO_INTERPRETED and VALIDATOR_VERBATIM_TO_INTERPRETED) runs are recorded and estimated,
+ * other steps use the records and file size thresholds of their handlers:
+ *
+ * <ul>
+ *   <li>The work ratio of the current run to a previous run is the maximum of records and verbatim
+ *       size ratios, the verbatim size grows with extension records
+ *   <li>Thread time is the wall time of a previous run multiplied by its threads and the work
+ *       ratio, the median of all runs is used
+ *   <li>Standalone peak memory is the peak memory of previous standalone runs multiplied by the
+ *       work ratio, the median of all standalone runs is used
+ *   <li>Spark executor memory is the memory of the latest Spark run, scaled by the work per
+ *       executor
+ * </ul>
+ */
+@Slf4j
+@AllArgsConstructor(staticName = "create")
+public class StepCostModel {
+
+  private static final long MB = 1024L * 1024L;
+
+  private final StepHistoryConfiguration config;
+
+  /** Estimate of the run or empty if there is no history */
+  public Optional<Estimate> estimate(List<StepRun> history, long records, long verbatimBytes) {
+    List<Double> threadMs = new ArrayList<>();
+    List<Double> memoryMb = new ArrayList<>();
+    StepRun lastSpark = null;
+    Integer standaloneThreads = null;
+    for (StepRun run : history) {
+      if (run.getRecords() <= 0 || run.getThreads() <= 0 || run.getWallTimeMs() <= 0) {
+        continue;
+      }
+      double ratio = workRatio(run, records, verbatimBytes);
+      threadMs.add(run.getWallTimeMs() * (double) run.getThreads() * ratio);
+      if (run.getExecutorMemoryGb() != null) {
+        lastSpark = run;
+      }
+      if (StepRunner.STANDALONE.name().equals(run.getRunner())) {
+        standaloneThreads = run.getThreads();
+        if (run.getPeakMemoryMb() != null) {
+          memoryMb.add(run.getPeakMemoryMb() * ratio);
+        }
+      }
+    }
+    if (threadMs.isEmpty()) {
+      return Optional.empty();
+    }
+
+    Long standaloneMemoryMb = memoryMb.isEmpty() ? null : (long) Math.ceil(median(memoryMb));
+    Estimate estimate =
+        new Estimate(
+            (long) Math.ceil(median(threadMs)),
+            standaloneMemoryMb,
+            standaloneThreads,
+            lastSpark,
+            records);
+    log.info("Estimate for {} records - {}", records, estimate);
+    return Optional.of(estimate);
+  }
+
+  /**
+   * Standalone runner if the predicted peak memory with headroom fits the standalone JVM and the
+   * predicted wall time is below the limit, empty if memory or standalone threads are unknown. The
+   * threads of the latest standalone run are used if they aren't configured, the balancer JVM
+   * doesn't run the step.
+   */
+  public Optional<StepRunner> chooseRunner(Estimate estimate) {
+    Integer threads =
+        Optional.ofNullable(config.standaloneThreads).orElse(estimate.getStandaloneThreads());
+    if (estimate.getStandaloneMemoryMb() == null || threads == null) {
+      return Optional.empty();
+    }
+    boolean fitsMemory =
+        estimate.getStandaloneMemoryMb() * config.memoryHeadroom <= config.standaloneMemoryMb;
+    boolean fitsTime =
+        predictWallTimeMs(estimate, threads) <= config.standaloneMaxMinutes * 60_000L;
+    return Optional.of(fitsMemory && fitsTime ? StepRunner.STANDALONE : StepRunner.DISTRIBUTED);
+  }
+
+  public long predictWallTimeMs(Estimate estimate, int threads) {
+    return estimate.getThreadMs() / Math.max(1, threads);
+  }
+
+  /** Number of executors to finish in the target time */
+  public int computeExecutorNumbers(SparkConfiguration sparkConfig, Estimate estimate) {
+    long targetMs = config.sparkTargetMinutes * 60_000L;
+    int executors =
+        (int) Math.ceil((double) estimate.getThreadMs() / (targetMs * sparkConfig.executorCores));
+    return clamp(executors, sparkConfig.executorNumbersMin, sparkConfig.executorNumbersMax);
+  }
+
+  /**
+   * Memory of the latest Spark run scaled by the work per executor, empty if there were no Spark
+   * runs
+   */
+  public Optional<Integer> computeExecutorMemoryGb(
+      SparkConfiguration sparkConfig, Estimate estimate, int executors) {
+    StepRun spark = estimate.getLastSpark();
+    if (spark == null) {
+      return Optional.empty();
+    }
+    int sparkExecutors = Math.max(1, spark.getThreads() / Math.max(1, sparkConfig.executorCores));
+    double perExecutorRatio =
+        (double) estimate.getRecords() / executors / ((double) spark.getRecords() / sparkExecutors);
+    int memoryGb = (int) Math.ceil(spark.getExecutorMemoryGb() * Math.max(1d, perExecutorRatio));
+    return Optional.of(
+        clamp(memoryGb, sparkConfig.executorMemoryGbMin, sparkConfig.executorMemoryGbMax));
+  }
+
+  /** Peak heap of the JVM after {@link #resetPeakMemory()}, in MB */
+  public static long getPeakMemoryMb() {
+    long bytes = 0L;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+        bytes += pool.getPeakUsage().getUsed();
+      }
+    }
+    return bytes / MB;
+  }
+
+  /** Resets peak heap usage of the JVM, see {@link StepRunTracker} for runs sharing the JVM */
+  public static void resetPeakMemory() {
+    ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+  }
+
+  private static double workRatio(StepRun run, long records, long verbatimBytes) {
+    double ratio = (double) records / run.getRecords();
+    if (verbatimBytes > 0 && run.getVerbatimBytes() > 0) {
+      ratio = Math.max(ratio, (double) verbatimBytes / run.getVerbatimBytes());
+    }
+    return ratio;
+  }
+
+  private static double median(List<Double> values) {
+    List<Double> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    int mid = sorted.size() / 2;
+    return sorted.size() % 2 == 1 ? sorted.get(mid) : (sorted.get(mid - 1) + sorted.get(mid)) / 2;
+  }
+
+  private static int clamp(int value, int min, int max) {
+    return Math.min(Math.max(value, min), max);
+  }
+
+  @Value
+  public static class Estimate {
+
+    /** Thread time of the whole run */
+    long threadMs;
+    /** Peak memory of the standalone JVM or null if there were no standalone runs */
+    Long standaloneMemoryMb;
+    /** Threads of the latest standalone run or null if there were no standalone runs */
+    Integer standaloneThreads;
+    /** The latest Spark run or null if there were no Spark runs */
+    StepRun lastSpark;
+    /** Records of the run */
+    long records;
+  }
+}
@@ -0,0 +1,82 @@
+package org.gbif.pipelines.common.history;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.gbif.pipelines.common.configs.StepHistoryConfiguration;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.core.utils.FsUtils;
+
+/**
+ * Keeps the latest {@link StepRun}s of a dataset and a step in one json file -
+ * "{historyPath}/{stepType}/{datasetId}.json". The history is best effort, read and write errors
+ * are logged and never fail a step.
+ */
+@Slf4j
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class StepHistoryStore {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final TypeReference<List<StepRun>> RUNS_TYPE =
+      new TypeReference<List<StepRun>>() {};
+
+  private final HdfsConfigs hdfsConfigs;
+  private final String historyPath;
+  private final int size;
+
+  /** Store or null if the history is disabled */
+  public static StepHistoryStore create(HdfsConfigs hdfsConfigs, StepHistoryConfiguration config) {
+    if (config == null || config.path == null || config.path.isEmpty()) {
+      return null;
+    }
+    return new StepHistoryStore(hdfsConfigs, config.path, config.size);
+  }
+
+  /** Runs from the oldest to the latest, empty if there is no history */
+  public List<StepRun> read(String datasetId, String stepType) {
+    String path = buildPath(datasetId, stepType);
+    try {
+      FileSystem fs = FsUtils.getFileSystem(hdfsConfigs, path);
+      if (!fs.exists(new Path(path))) {
+        return Collections.emptyList();
+      }
+      try (InputStream in = fs.open(new Path(path))) {
+        return MAPPER.readValue(in, RUNS_TYPE);
+      }
+    } catch (Exception ex) {
+      log.warn("Can't read step history {}", path, ex);
+      return Collections.emptyList();
+    }
+  }
+
+  /** Appends the run and removes the oldest runs above the history size */
+  public void append(StepRun run) {
+    List<StepRun> runs = new ArrayList<>(read(run.getDatasetId(), run.getStepType()));
+    runs.add(run);
+    if (runs.size() > size) {
+      runs = new ArrayList<>(runs.subList(runs.size() - size, runs.size()));
+    }
+    String path = buildPath(run.getDatasetId(), run.getStepType());
+    try {
+      FileSystem fs = FsUtils.createParentDirectories(hdfsConfigs, new Path(path));
+      try (OutputStream out = fs.create(new Path(path), true)) {
+        MAPPER.writeValue(out, runs);
+      }
+    } catch (Exception ex) {
+      log.warn("Can't write step history {}", path, ex);
+    }
+  }
+
+  private String buildPath(String datasetId, String stepType) {
+    return String.join("/", historyPath, stepType.toLowerCase(), datasetId + ".json");
+  }
+}
@@ -0,0 +1,41 @@
+package org.gbif.pipelines.common.history;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Measurements of one finished step run of a dataset attempt, predicted values are null if the cost
+ * model had no history for the dataset
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepRun {
+
+  private String datasetId;
+  private int attempt;
+  private String stepType;
+  private String runner;
+  private long records;
+  /** Size of verbatim avro, grows with the number of extension records */
+  private long verbatimBytes;
+  /** Standalone threads or Spark executors multiplied by executor cores */
+  private int threads;
+  /** Spark executor memory, null for standalone runs */
+  private Integer executorMemoryGb;
+
+  /** Wall time without the time a Spark application waited in the YARN queue */
+  private long wallTimeMs;
+  /** Time a Spark application waited in the YARN queue, null if it is unknown */
+  private Long queueTimeMs;
+
+  private Long predictedWallTimeMs;
+  /** Peak heap of the standalone JVM, null for Spark runs and runs which shared the JVM */
+  private Long peakMemoryMb;
+
+  private Long predictedPeakMemoryMb;
+  private long finished;
+}
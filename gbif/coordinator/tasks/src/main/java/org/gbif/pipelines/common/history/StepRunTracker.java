@@ -0,0 +1,185 @@
+package org.gbif.pipelines.common.history;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.api.model.pipelines.StepRunner;
+import org.gbif.pipelines.common.MainSparkSettings;
+import org.gbif.pipelines.common.configs.StepHistoryConfiguration;
+import org.gbif.pipelines.common.history.StepCostModel.Estimate;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+
+/**
+ * Measures one step run and appends it to the {@link StepHistoryStore} with the values predicted by
+ * the {@link StepCostModel}, so the model can be checked. Does nothing if the history is disabled.
+ *
+ * <p>Standalone runs share the JVM, the peak heap is recorded only for a run which didn't overlap
+ * with other standalone runs, the peak of overlapped runs is null. Spark wall time is counted from
+ * the moment the YARN application is running, see {@link #startSparkProcess(ProcessBuilder)}.
+ *
+ * <p>Usage: call {@link #startStandalone(int)} or {@link #startSpark(MainSparkSettings, int)}
+ * before the run, {@link #finish()} after the successful run and {@link #close()} after any run,
+ * failed runs aren't recorded.
+ */
+@Slf4j
+public class StepRunTracker implements AutoCloseable {
+
+  private static final String YARN_RUNNING_STATE = "(state: RUNNING)";
+  private static final Set<StepRunTracker> ACTIVE_STANDALONE = new HashSet<>();
+
+  private final StepHistoryStore store;
+  @Getter private final StepCostModel costModel;
+
+  @Getter(AccessLevel.PACKAGE)
+  private final StepRun run;
+
+  @Getter private final Optional<Estimate> estimate;
+
+  private long start;
+  private volatile long running;
+  private boolean overlapped;
+
+  private StepRunTracker(
+      StepHistoryConfiguration config,
+      HdfsConfigs hdfsConfigs,
+      StepRun run,
+      long records,
+      long verbatimBytes) {
+    this.store = StepHistoryStore.create(hdfsConfigs, config);
+    this.costModel = StepCostModel.create(config);
+    this.run = run;
+    List<StepRun> history =
+        store == null ? Collections.emptyList() : store.read(run.getDatasetId(), run.getStepType());
+    this.estimate = costModel.estimate(history, records, verbatimBytes);
+  }
+
+  /**
+   * @param records number of records of the run
+   * @param verbatimBytes size of verbatim avro or -1 if it is unknown
+   */
+  public static StepRunTracker create(
+      StepHistoryConfiguration config,
+      HdfsConfigs hdfsConfigs,
+      String datasetId,
+      int attempt,
+      String stepType,
+      long records,
+      long verbatimBytes) {
+    StepRun run =
+        StepRun.builder()
+            .datasetId(datasetId)
+            .attempt(attempt)
+            .stepType(stepType)
+            .records(records)
+            .verbatimBytes(Math.max(0L, verbatimBytes))
+            .build();
+    return new StepRunTracker(config, hdfsConfigs, run, records, verbatimBytes);
+  }
+
+  /** Peak heap is reset only if no other standalone run is active, it would lose its peak */
+  public void startStandalone(int threads) {
+    run.setRunner(StepRunner.STANDALONE.name());
+    run.setThreads(threads);
+    estimate.ifPresent(
+        e -> {
+          run.setPredictedWallTimeMs(costModel.predictWallTimeMs(e, threads));
+          run.setPredictedPeakMemoryMb(e.getStandaloneMemoryMb());
+        });
+    synchronized (ACTIVE_STANDALONE) {
+      if (ACTIVE_STANDALONE.isEmpty()) {
+        StepCostModel.resetPeakMemory();
+      } else {
+        overlapped = true;
+        ACTIVE_STANDALONE.forEach(t -> t.overlapped = true);
+      }
+      ACTIVE_STANDALONE.add(this);
+    }
+    start = System.currentTimeMillis();
+  }
+
+  public void startSpark(MainSparkSettings sparkSettings, int executorCores) {
+    int threads = sparkSettings.getExecutorNumbers() * executorCores;
+    String memory = sparkSettings.getExecutorMemory();
+    run.setRunner(StepRunner.DISTRIBUTED.name());
+    run.setThreads(threads);
+    run.setExecutorMemoryGb(Integer.valueOf(memory.substring(0, memory.length() - 1)));
+    estimate.ifPresent(e -> run.setPredictedWallTimeMs(costModel.predictWallTimeMs(e, threads)));
+    start = System.currentTimeMillis();
+  }
+
+  /**
+   * Starts the spark-submit process, YARN application reports of its output mark the moment the
+   * application leaves the YARN queue. The output is read and dropped, if there are no reports the
+   * queue time is unknown and is included in the wall time.
+   */
+  public Process startSparkProcess(ProcessBuilder builder) throws IOException {
+    builder.redirectErrorStream(true);
+    builder.redirectOutput(Redirect.PIPE);
+    Process process = builder.start();
+    Thread reader =
+        new Thread(() -> readApplicationReports(process.getInputStream()), "spark-submit-output");
+    reader.setDaemon(true);
+    reader.start();
+    return process;
+  }
+
+  public void finish() {
+    run.setFinished(System.currentTimeMillis());
+    long runStart = start;
+    if (running > 0) {
+      run.setQueueTimeMs(running - start);
+      runStart = running;
+    }
+    run.setWallTimeMs(run.getFinished() - runStart);
+    if (StepRunner.STANDALONE.name().equals(run.getRunner())) {
+      synchronized (ACTIVE_STANDALONE) {
+        if (!overlapped) {
+          run.setPeakMemoryMb(StepCostModel.getPeakMemoryMb());
+        }
+      }
+    }
+    log.info(
+        "Step run - wall time {} ms, queue time {} ms, predicted {} ms, peak memory {} MB, predicted {} MB",
+        run.getWallTimeMs(),
+        run.getQueueTimeMs(),
+        run.getPredictedWallTimeMs(),
+        run.getPeakMemoryMb(),
+        run.getPredictedPeakMemoryMb());
+    if (store != null) {
+      store.append(run);
+    }
+  }
+
+  /** Releases the run, must be called after failed runs too */
+  @Override
+  public void close() {
+    synchronized (ACTIVE_STANDALONE) {
+      ACTIVE_STANDALONE.remove(this);
+    }
+  }
+
+  private void readApplicationReports(InputStream output) {
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(output, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (running == 0 && line.contains(YARN_RUNNING_STATE)) {
+          running = System.currentTimeMillis();
+        }
+      }
+    } catch (IOException ex) {
+      log.warn("Can't read spark-submit output", ex);
+    }
+  }
+}
@@ -3,6 +3,8 @@ package org.gbif.pipelines.common.interpretation;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.pipelines.common.MainSparkSettings;
 import org.gbif.pipelines.common.configs.SparkConfiguration;
+import org.gbif.pipelines.common.history.StepCostModel;
+import org.gbif.pipelines.common.history.StepCostModel.Estimate;
 
 @Slf4j
 public class SparkSettings implements MainSparkSettings {
@@ -17,10 +19,30 @@ public class SparkSettings implements MainSparkSettings {
     this.executorMemory = computeExecutorMemory(sparkConfig, executorNumbers);
   }
 
+  private SparkSettings(
+      SparkConfiguration sparkConfig, StepCostModel costModel, Estimate estimate) {
+    this.executorNumbers = costModel.computeExecutorNumbers(sparkConfig, estimate);
+    this.parallelism = computeParallelism(sparkConfig, executorNumbers);
+    this.executorMemory =
+        costModel
+            .computeExecutorMemoryGb(sparkConfig, estimate, executorNumbers)
+            .map(gb -> gb + "G")
+            .orElseGet(() -> computeExecutorMemory(sparkConfig, executorNumbers));
+  }
+
   public static SparkSettings create(SparkConfiguration sparkConfig, long fileRecordsNumber) {
     return new SparkSettings(sparkConfig, fileRecordsNumber);
   }
 
+  /**
+   * Sizes executors by the history based estimate, the executor memory is computed the same way as
+   * without the estimate if there were no Spark runs
+   */
+  public static SparkSettings create(
+      SparkConfiguration sparkConfig, StepCostModel costModel, Estimate estimate) {
+    return new SparkSettings(sparkConfig, costModel, estimate);
+  }
+
   @Override
   public int getParallelism() {
     return parallelism;
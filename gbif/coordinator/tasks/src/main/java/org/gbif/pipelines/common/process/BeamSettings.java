@@ -36,7 +36,8 @@ public class BeamSettings {
       InterpreterConfiguration config,
       PipelinesVerbatimMessage message,
       String inputPath,
-      String defaultDateFormat) {
+      String defaultDateFormat,
+      Integer deltaAttempt) {
     return command -> {
       InterpretationCommon.builder()
           .command(command)
@@ -55,6 +56,11 @@ public class BeamSettings {
       Optional.ofNullable(defaultDateFormat)
           .ifPresent(x -> command.add("--defaultDateFormat=" + x));
 
+      Optional.ofNullable(config.standaloneStreamingBatchSize)
+          .ifPresent(x -> command.add("--streamingBatchSize=" + x));
+
+      Optional.ofNullable(deltaAttempt).ifPresent(x -> command.add("--deltaAttempt=" + x));
+
       if (isValidator(message.getPipelineSteps(), config.validatorOnly)) {
         command.add("--useMetadataWsCalls=false");
       }
@@ -163,6 +169,14 @@ public class BeamSettings {
       if (config.recordType == RecordType.EVENT) {
         command.add("--coreRecordType=EVENT");
       }
+
+      if (config.parquetTables != null && !config.parquetTables.isEmpty()) {
+        command.add("--parquetTables=" + String.join(",", config.parquetTables));
+      }
+      Optional.ofNullable(config.parquetPageSizeInKb)
+          .ifPresent(x -> command.add("--parquetPageSize=" + x * 1024));
+      Optional.ofNullable(config.parquetRowGroupSizeInMb)
+          .ifPresent(x -> command.add("--parquetRowGroupSize=" + x * 1024 * 1024));
     };
   }
 
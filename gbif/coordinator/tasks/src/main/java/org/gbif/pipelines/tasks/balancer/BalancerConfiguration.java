@@ -7,6 +7,7 @@ import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import lombok.ToString;
 import org.gbif.pipelines.common.configs.StepConfiguration;
+import org.gbif.pipelines.common.configs.StepHistoryConfiguration;
 
 /** Configuration required to start Balancer service */
 @ToString
@@ -14,6 +15,9 @@ public class BalancerConfiguration {
 
   @ParametersDelegate @Valid @NotNull public StepConfiguration stepConfig = new StepConfiguration();
 
+  @ParametersDelegate @Valid
+  public StepHistoryConfiguration historyConfig = new StepHistoryConfiguration();
+
   @Parameter(names = "--switch-files-number")
   @NotNull
   @Min(1)
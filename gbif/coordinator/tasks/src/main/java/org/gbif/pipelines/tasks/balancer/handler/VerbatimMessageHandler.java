@@ -5,6 +5,7 @@ import static org.gbif.pipelines.common.ValidatorPredicate.isValidator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import lombok.AccessLevel;
@@ -12,6 +13,7 @@ import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.api.model.pipelines.StepRunner;
+import org.gbif.api.model.pipelines.StepType;
 import org.gbif.api.vocabulary.DatasetType;
 import org.gbif.common.messaging.api.MessagePublisher;
 import org.gbif.common.messaging.api.messages.PipelinesBalancerMessage;
@@ -23,6 +25,9 @@ import org.gbif.pipelines.common.PipelinesVariables.Pipeline;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Conversion;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
 import org.gbif.pipelines.common.configs.StepConfiguration;
+import org.gbif.pipelines.common.history.StepCostModel;
+import org.gbif.pipelines.common.history.StepHistoryStore;
+import org.gbif.pipelines.common.history.StepRun;
 import org.gbif.pipelines.common.utils.HdfsUtils;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.tasks.balancer.BalancerConfiguration;
@@ -114,8 +119,9 @@ public class VerbatimMessageHandler {
   }
 
   /**
-   * Computes runner type: Strategy 1 - Chooses a runner type by number of records in a dataset
-   * Strategy 2 - Chooses a runner type by calculating verbatim.avro file size
+   * Computes runner type: Strategy 0 - Chooses a runner type by the cost model of the dataset step
+   * history, Strategy 1 - Chooses a runner type by number of records in a dataset Strategy 2 -
+   * Chooses a runner type by calculating verbatim.avro file size
    */
   private static StepRunner computeRunner(
       BalancerConfiguration config, PipelinesVerbatimMessage message, long recordsNumber)
@@ -126,6 +132,13 @@ public class VerbatimMessageHandler {
 
     StepRunner runner;
 
+    // Strategy 0: Chooses a runner type by the cost model of the dataset step history
+    Optional<StepRunner> historyRunner = computeHistoryRunner(config, message, recordsNumber);
+    if (historyRunner.isPresent()) {
+      log.info("Records number - {}, history Runner type - {}", recordsNumber, historyRunner.get());
+      return historyRunner.get();
+    }
+
     // Strategy 1: Chooses a runner type by number of records in a dataset
     if (recordsNumber > 0) {
       runner =
@@ -157,6 +170,42 @@ public class VerbatimMessageHandler {
     throw new IllegalStateException("Runner computation is failed " + datasetId);
   }
 
+  /**
+   * Predicts memory and wall time of the interpretation by the step history of the dataset, empty
+   * if the history is disabled or has no standalone runs
+   */
+  private static Optional<StepRunner> computeHistoryRunner(
+      BalancerConfiguration config, PipelinesVerbatimMessage message, long recordsNumber)
+      throws IOException {
+    StepConfiguration stepConfig = config.stepConfig;
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(stepConfig.hdfsSiteConfig, stepConfig.coreSiteConfig);
+    StepHistoryStore store = StepHistoryStore.create(hdfsConfigs, config.historyConfig);
+    if (store == null || recordsNumber <= 0) {
+      return Optional.empty();
+    }
+
+    boolean isValidator = isValidator(message.getPipelineSteps());
+    String repositoryPath =
+        isValidator ? config.validatorRepositoryPath : stepConfig.repositoryPath;
+    String verbatim = Conversion.FILE_NAME + Pipeline.AVRO_EXTENSION;
+    String verbatimPath =
+        String.join(
+            "/",
+            repositoryPath,
+            message.getDatasetUuid().toString(),
+            String.valueOf(message.getAttempt()),
+            verbatim);
+    StepType stepType =
+        isValidator ? StepType.VALIDATOR_VERBATIM_TO_INTERPRETED : StepType.VERBATIM_TO_INTERPRETED;
+
+    StepCostModel costModel = StepCostModel.create(config.historyConfig);
+    List<StepRun> history = store.read(message.getDatasetUuid().toString(), stepType.name());
+    return costModel
+        .estimate(history, recordsNumber, HdfsUtils.getFileSizeByte(hdfsConfigs, verbatimPath))
+        .flatMap(costModel::chooseRunner);
+  }
+
   /** Reads number of records from a archive-to-avro metadata file */
   private static long getRecordNumber(
       BalancerConfiguration config, PipelinesVerbatimMessage message) throws IOException {
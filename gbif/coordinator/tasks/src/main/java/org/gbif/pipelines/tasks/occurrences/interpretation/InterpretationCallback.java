@@ -9,6 +9,8 @@ import com.google.common.base.Strings;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Predicate;
@@ -29,6 +31,9 @@ import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.GbifApi;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Conversion;
+import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation;
+import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
+import org.gbif.pipelines.common.history.StepRunTracker;
 import org.gbif.pipelines.common.interpretation.RecordCountReader;
 import org.gbif.pipelines.common.interpretation.SparkSettings;
 import org.gbif.pipelines.common.process.BeamSettings;
@@ -36,6 +41,7 @@ import org.gbif.pipelines.common.process.ProcessRunnerBuilder;
 import org.gbif.pipelines.common.utils.HdfsUtils;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.ingest.java.pipelines.VerbatimToOccurrencePipeline;
+import org.gbif.pipelines.ingest.java.pipelines.interpretation.DeltaInterpretation;
 import org.gbif.pipelines.tasks.PipelinesCallback;
 import org.gbif.pipelines.tasks.StepHandler;
 import org.gbif.registry.ws.client.DatasetClient;
@@ -139,16 +145,17 @@ public class InterpretationCallback extends AbstractMessageCallback<PipelinesVer
               .sparkAppName(
                   getType(message) + "_" + message.getDatasetUuid() + "_" + message.getAttempt())
               .beamConfigFn(
-                  BeamSettings.occurrenceInterpretation(config, message, path, defaultDateFormat));
+                  BeamSettings.occurrenceInterpretation(
+                      config, message, path, defaultDateFormat, getDeltaAttempt(message)));
 
       Predicate<StepRunner> runnerPr = sr -> config.processRunner.equalsIgnoreCase(sr.name());
 
       log.info("Start the process. Message - {}", message);
       try {
         if (runnerPr.test(StepRunner.DISTRIBUTED)) {
-          runDistributed(message, builder);
+          runDistributed(message, builder, path);
         } else if (runnerPr.test(StepRunner.STANDALONE)) {
-          runLocal(builder);
+          runLocal(message, builder, path);
         }
 
         log.info("Deleting old attempts directories");
@@ -194,29 +201,124 @@ public class InterpretationCallback extends AbstractMessageCallback<PipelinesVer
         message.getDatasetType());
   }
 
-  private void runLocal(ProcessRunnerBuilder.ProcessRunnerBuilderBuilder builder) {
-    VerbatimToOccurrencePipeline.run(builder.build().buildOptions(), executor);
+  /**
+   * The latest previous attempt of the dataset with a fingerprint index, see {@link
+   * DeltaInterpretation}, null if delta interpretation can't be used
+   */
+  @SneakyThrows
+  private Integer getDeltaAttempt(PipelinesVerbatimMessage message) {
+    boolean isStandalone = StepRunner.STANDALONE.name().equalsIgnoreCase(config.processRunner);
+    boolean isStreaming =
+        config.standaloneStreamingBatchSize != null && config.standaloneStreamingBatchSize > 0;
+    if (!config.deltaInterpretation
+        || !isStandalone
+        || isStreaming
+        || isValidator(message.getPipelineSteps(), config.validatorOnly)
+        || !message.getInterpretTypes().contains(RecordType.ALL.name())) {
+      return null;
+    }
+
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(config.stepConfig.hdfsSiteConfig, config.stepConfig.coreSiteConfig);
+    String datasetPath =
+        String.join("/", config.stepConfig.repositoryPath, message.getDatasetUuid().toString());
+    List<Integer> attempts =
+        HdfsUtils.getSubDirList(hdfsConfigs, datasetPath).stream()
+            .map(status -> status.getPath().getName())
+            .filter(name -> name.matches("\\d+"))
+            .map(Integer::valueOf)
+            .filter(attempt -> attempt < message.getAttempt())
+            .sorted(Comparator.reverseOrder())
+            .collect(Collectors.toList());
+
+    for (Integer attempt : attempts) {
+      String indexPath =
+          String.join(
+              "/",
+              datasetPath,
+              attempt.toString(),
+              DwcTerm.Occurrence.simpleName().toLowerCase(),
+              DeltaInterpretation.FINGERPRINT_DIR,
+              Interpretation.FILE_NAME + DeltaInterpretation.FINGERPRINT_FILE);
+      if (HdfsUtils.exists(hdfsConfigs, indexPath)) {
+        log.info("Delta interpretation against attempt {}", attempt);
+        return attempt;
+      }
+    }
+    return null;
+  }
+
+  private void runLocal(
+      PipelinesVerbatimMessage message,
+      ProcessRunnerBuilder.ProcessRunnerBuilderBuilder builder,
+      String verbatimPath)
+      throws IOException {
+
+    // Records number is required only for the step history
+    StepRunTracker tracker = null;
+    if (config.historyConfig.path != null) {
+      long recordsNumber = RecordCountReader.get(config.stepConfig, message);
+      tracker = createTracker(message, verbatimPath, recordsNumber);
+      tracker.startStandalone(
+          Optional.ofNullable(config.standaloneNumberThreads)
+              .orElse(Runtime.getRuntime().availableProcessors()));
+    }
+
+    try {
+      VerbatimToOccurrencePipeline.run(builder.build().buildOptions(), executor);
+      if (tracker != null) {
+        tracker.finish();
+      }
+    } finally {
+      if (tracker != null) {
+        tracker.close();
+      }
+    }
   }
 
   private void runDistributed(
-      PipelinesVerbatimMessage message, ProcessRunnerBuilder.ProcessRunnerBuilderBuilder builder)
+      PipelinesVerbatimMessage message,
+      ProcessRunnerBuilder.ProcessRunnerBuilderBuilder builder,
+      String verbatimPath)
       throws IOException, InterruptedException {
 
     long recordsNumber = RecordCountReader.get(config.stepConfig, message);
-    SparkSettings sparkSettings = SparkSettings.create(config.sparkConfig, recordsNumber);
+    StepRunTracker tracker = createTracker(message, verbatimPath, recordsNumber);
+    SparkSettings sparkSettings =
+        tracker
+            .getEstimate()
+            .map(e -> SparkSettings.create(config.sparkConfig, tracker.getCostModel(), e))
+            .orElseGet(() -> SparkSettings.create(config.sparkConfig, recordsNumber));
 
     builder.sparkSettings(sparkSettings);
+    tracker.startSpark(sparkSettings, config.sparkConfig.executorCores);
 
-    // Assembles a terminal java process and runs it
-    int exitValue = builder.build().get().start().waitFor();
+    // Assembles a terminal java process and runs it, the tracker reads YARN application reports
+    int exitValue = tracker.startSparkProcess(builder.build().get()).waitFor();
 
     if (exitValue != 0) {
       throw new IllegalStateException("Process has been finished with exit value - " + exitValue);
     } else {
       log.info("Process has been finished with exit value - {}", exitValue);
+      tracker.finish();
     }
   }
 
+  private StepRunTracker createTracker(
+      PipelinesVerbatimMessage message, String verbatimPath, long recordsNumber)
+      throws IOException {
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(config.stepConfig.hdfsSiteConfig, config.stepConfig.coreSiteConfig);
+    return StepRunTracker.create(
+        config.historyConfig,
+        hdfsConfigs,
+        message.getDatasetUuid().toString(),
+        message.getAttempt(),
+        getType(message).name(),
+        recordsNumber,
+        HdfsUtils.getFileSizeByte(hdfsConfigs, verbatimPath));
+  }
+
   /** Checks if the directory exists */
   @SneakyThrows
   private boolean pathExists(PipelinesVerbatimMessage message) {
@@ -22,6 +22,9 @@ public class InterpreterConfiguration implements BaseConfiguration {
   @ParametersDelegate @Valid @NotNull
   public AvroWriteConfiguration avroConfig = new AvroWriteConfiguration();
 
+  @ParametersDelegate @Valid
+  public StepHistoryConfiguration historyConfig = new StepHistoryConfiguration();
+
   @Parameter(names = "--meta-file-name")
   public String metaFileName = Pipeline.VERBATIM_TO_OCCURRENCE + ".yml";
 
@@ -33,6 +36,9 @@ public class InterpreterConfiguration implements BaseConfiguration {
   @Parameter(names = "--standalone-number-threads")
   public Integer standaloneNumberThreads;
 
+  @Parameter(names = "--standalone-streaming-batch-size")
+  public Integer standaloneStreamingBatchSize;
+
   @Parameter(names = "--process-runner")
   @NotNull
   public String processRunner;
@@ -52,6 +58,10 @@ public class InterpreterConfiguration implements BaseConfiguration {
   @Parameter(names = "--use-beam-deprecated-read")
   public boolean useBeamDeprecatedRead = true;
 
+  /** Standalone runner only, interprets only records changed since the previous attempt */
+  @Parameter(names = "--delta-interpretation")
+  public boolean deltaInterpretation = false;
+
   @Parameter(names = "--fail-if-duplicate-id-percent")
   public int failIfDuplicateIdPercent = 5;
 
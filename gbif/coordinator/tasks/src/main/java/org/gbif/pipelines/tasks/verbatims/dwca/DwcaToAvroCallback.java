@@ -5,6 +5,7 @@ import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretati
 import static org.gbif.pipelines.common.ValidatorPredicate.isValidator;
 import static org.gbif.pipelines.common.utils.PathUtil.buildDwcaInputPath;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashSet;
@@ -12,6 +13,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 import lombok.Builder;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -143,6 +145,7 @@ public class DwcaToAvroCallback extends AbstractMessageCallback<PipelinesDwcaMes
           HdfsConfigs.create(config.stepConfig.hdfsSiteConfig, config.stepConfig.coreSiteConfig);
       // Run main conversion process
       DwcaToAvroConverter.create()
+          .parallelism(computeParallelism(inputPath))
           .codecFactory(CodecFactory.fromString(config.avroConfig.compressionType))
           .syncInterval(config.avroConfig.syncInterval)
           .hdfsConfigs(hdfsConfigs)
@@ -154,6 +157,29 @@ public class DwcaToAvroCallback extends AbstractMessageCallback<PipelinesDwcaMes
     };
   }
 
+  /**
+   * One reading thread per dwcaReaderBytesPerThread bytes of the archive, but not more than
+   * dwcaReaderMaxParallelism threads
+   */
+  @SneakyThrows
+  private int computeParallelism(Path inputPath) {
+    if (config.dwcaReaderMaxParallelism <= 1 || config.dwcaReaderBytesPerThread <= 0) {
+      return 1;
+    }
+    long size;
+    if (Files.isDirectory(inputPath)) {
+      try (Stream<Path> files = Files.walk(inputPath)) {
+        size = files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+      }
+    } else {
+      size = Files.size(inputPath);
+    }
+    long threads = Math.max(1L, size / config.dwcaReaderBytesPerThread);
+    int parallelism = (int) Math.min(config.dwcaReaderMaxParallelism, threads);
+    log.info("Archive size is {} bytes, DwC-A reader parallelism - {}", size, parallelism);
+    return parallelism;
+  }
+
   @SneakyThrows
   @Override
   public PipelinesVerbatimMessage createOutgoingMessage(PipelinesDwcaMessage message) {
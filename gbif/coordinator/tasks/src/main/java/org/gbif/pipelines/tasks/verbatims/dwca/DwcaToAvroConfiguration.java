@@ -5,6 +5,7 @@ import com.beust.jcommander.ParametersDelegate;
 import java.util.Collections;
 import java.util.Set;
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import lombok.ToString;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline;
@@ -44,6 +45,14 @@ public class DwcaToAvroConfiguration implements BaseConfiguration {
   @Parameter(names = "--add-event-steps")
   public boolean addEventSteps = false;
 
+  @Parameter(names = "--dwca-reader-max-parallelism")
+  @Min(1)
+  public int dwcaReaderMaxParallelism = 1;
+
+  @Parameter(names = "--dwca-reader-bytes-per-thread")
+  @Min(1)
+  public long dwcaReaderBytesPerThread = 256L * 1024L * 1024L;
+
   @Override
   public String getHdfsSiteConfig() {
     return stepConfig.hdfsSiteConfig;
@@ -97,7 +97,7 @@ public class FragmenterCallback extends AbstractMessageCallback<PipelinesInterpr
 
       log.info("Running fragmenter in asych mode: {} ...", useSync);
 
-      long result =
+      FragmentPersister persister =
           FragmentPersister.builder()
               .strategy(strategy)
               .endpointType(message.getEndpointType())
@@ -113,13 +113,16 @@ public class FragmenterCallback extends AbstractMessageCallback<PipelinesInterpr
               .useSyncMode(useSync)
               .backPressure(config.backPressure)
               .batchSize(config.batchSize)
+              .hbaseGetBatchSize(config.hbaseGetBatchSize)
               .generateIdIfAbsent(config.generateIdIfAbsent)
-              .build()
-              .persist();
+              .build();
 
-      createMetafile(datasetId.toString(), attempt.toString(), result);
+      long result = persister.persist();
+      long unchanged = persister.getUnchangedCount();
 
-      log.info("Result - {} records", result);
+      createMetafile(datasetId.toString(), attempt.toString(), result, unchanged);
+
+      log.info("Result - {} records, {} unchanged records skipped", result, unchanged);
     };
   }
 
@@ -140,7 +143,8 @@ public class FragmenterCallback extends AbstractMessageCallback<PipelinesInterpr
   }
 
   /** Create yaml file with total number of converted records */
-  private void createMetafile(String datasetId, String attempt, long numberOfRecords) {
+  private void createMetafile(
+      String datasetId, String attempt, long numberOfRecords, long numberOfUnchanged) {
     try {
       org.apache.hadoop.fs.Path path =
           buildOutputPath(
@@ -148,7 +152,15 @@ public class FragmenterCallback extends AbstractMessageCallback<PipelinesInterpr
       HdfsConfigs hdfsConfigs =
           HdfsConfigs.create(config.getHdfsSiteConfig(), config.getCoreSiteConfig());
       FileSystem fs = FileSystemFactory.getInstance(hdfsConfigs).getFs(path.toString());
-      String info = Metrics.FRAGMENTER_COUNT + ": " + numberOfRecords + "\n";
+      String info =
+          Metrics.FRAGMENTER_COUNT
+              + ": "
+              + numberOfRecords
+              + "\n"
+              + Metrics.FRAGMENTER_UNCHANGED_COUNT
+              + ": "
+              + numberOfUnchanged
+              + "\n";
       FsUtils.createFile(fs, path, info);
     } catch (IOException ex) {
       log.error(ex.getMessage(), ex);
@@ -57,6 +57,9 @@ public class FragmenterConfiguration implements BaseConfiguration {
   @Parameter(names = "--batch-size")
   public int batchSize = 100;
 
+  @Parameter(names = "--hbase-get-batch-size")
+  public int hbaseGetBatchSize = 1_000;
+
   @Parameter(names = "--back-pressure")
   public Integer backPressure;
 
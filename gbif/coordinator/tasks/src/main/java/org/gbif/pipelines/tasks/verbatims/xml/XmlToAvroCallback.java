@@ -116,6 +116,7 @@ public class XmlToAvroCallback extends AbstractMessageCallback<PipelinesXmlMessa
       boolean isConverted =
           XmlToAvroConverter.create()
               .executor(executor)
+              .useDigester(config.useDigester)
               .codecFactory(CodecFactory.fromString(config.avroConfig.compressionType))
               .syncInterval(config.avroConfig.syncInterval)
               .hdfsConfigs(hdfsConfigs)
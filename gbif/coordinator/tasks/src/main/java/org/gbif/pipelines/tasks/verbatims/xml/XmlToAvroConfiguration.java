@@ -31,6 +31,9 @@ public class XmlToAvroConfiguration implements BaseConfiguration {
   @Min(1)
   public Integer xmlReaderParallelism;
 
+  @Parameter(names = "--xml-reader-use-digester")
+  public boolean useDigester = false;
+
   @Parameter(names = "--archive-repository")
   @NotNull
   public String archiveRepository;
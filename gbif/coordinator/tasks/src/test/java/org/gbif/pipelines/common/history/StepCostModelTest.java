@@ -0,0 +1,169 @@
+package org.gbif.pipelines.common.history;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.gbif.api.model.pipelines.StepRunner;
+import org.gbif.pipelines.common.configs.SparkConfiguration;
+import org.gbif.pipelines.common.configs.StepHistoryConfiguration;
+import org.gbif.pipelines.common.history.StepCostModel.Estimate;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StepCostModelTest {
+
+  @Test
+  public void emptyHistoryTest() {
+
+    // State
+    StepCostModel model = StepCostModel.create(createConfig());
+
+    // When
+    Optional<Estimate> estimate = model.estimate(Collections.emptyList(), 1_000L, -1L);
+
+    // Should
+    Assert.assertFalse(estimate.isPresent());
+  }
+
+  @Test
+  public void standaloneRunnerTest() {
+
+    // State
+    StepCostModel model = StepCostModel.create(createConfig());
+    List<StepRun> history =
+        Arrays.asList(standalone(1_000L, 60_000L, 1_000L), standalone(1_000L, 80_000L, 1_200L));
+
+    // When
+    Estimate estimate = model.estimate(history, 2_000L, -1L).get();
+    Optional<StepRunner> runner = model.chooseRunner(estimate);
+
+    // Should
+    Assert.assertEquals(140_000L * 4, estimate.getThreadMs());
+    Assert.assertEquals(Long.valueOf(2_200L), estimate.getStandaloneMemoryMb());
+    Assert.assertEquals(140_000L, model.predictWallTimeMs(estimate, 4));
+    Assert.assertEquals(Optional.of(StepRunner.STANDALONE), runner);
+  }
+
+  @Test
+  public void standaloneThreadsFromHistoryTest() {
+
+    // State
+    StepHistoryConfiguration config = createConfig();
+    config.standaloneThreads = null;
+    StepCostModel model = StepCostModel.create(config);
+    StepRun run = standalone(1_000L, 60_000L, 1_000L);
+    run.setThreads(2);
+
+    // When
+    Estimate estimate = model.estimate(Collections.singletonList(run), 1_000L, -1L).get();
+    Estimate sparkOnly =
+        model
+            .estimate(
+                Collections.singletonList(
+                    StepRun.builder()
+                        .records(1_000L)
+                        .threads(2)
+                        .wallTimeMs(60_000L)
+                        .peakMemoryMb(1_000L)
+                        .build()),
+                1_000L,
+                -1L)
+            .get();
+
+    // Should, the threads of the latest standalone run are used
+    Assert.assertEquals(Integer.valueOf(2), estimate.getStandaloneThreads());
+    Assert.assertEquals(Optional.of(StepRunner.STANDALONE), model.chooseRunner(estimate));
+    Assert.assertFalse(model.chooseRunner(sparkOnly).isPresent());
+  }
+
+  @Test
+  public void standaloneMemoryOnlyTest() {
+
+    // State
+    StepCostModel model = StepCostModel.create(createConfig());
+    StepRun distributed = standalone(1_000L, 60_000L, 8_000L);
+    distributed.setRunner(StepRunner.DISTRIBUTED.name());
+    List<StepRun> history = Arrays.asList(standalone(1_000L, 60_000L, 1_000L), distributed);
+
+    // When
+    Estimate estimate = model.estimate(history, 1_000L, -1L).get();
+
+    // Should, peak memory of runs which are not standalone is ignored
+    Assert.assertEquals(Long.valueOf(1_000L), estimate.getStandaloneMemoryMb());
+  }
+
+  @Test
+  public void distributedRunnerByMemoryTest() {
+
+    // State
+    StepCostModel model = StepCostModel.create(createConfig());
+    StepRun run = standalone(1_000L, 1_000L, 3_000L);
+    run.setVerbatimBytes(1_000L);
+    List<StepRun> history = Collections.singletonList(run);
+
+    // When
+    Estimate estimate = model.estimate(history, 1_000L, 2_000L).get();
+
+    // Should, the verbatim size is doubled, so memory is doubled too
+    Assert.assertEquals(Long.valueOf(6_000L), estimate.getStandaloneMemoryMb());
+    Assert.assertEquals(Optional.of(StepRunner.DISTRIBUTED), model.chooseRunner(estimate));
+  }
+
+  @Test
+  public void sparkSizingTest() {
+
+    // State
+    StepHistoryConfiguration config = createConfig();
+    SparkConfiguration sparkConfig = createSparkConfig();
+    StepCostModel model = StepCostModel.create(config);
+    StepRun spark =
+        StepRun.builder()
+            .runner(StepRunner.DISTRIBUTED.name())
+            .records(1_000_000L)
+            .threads(20)
+            .executorMemoryGb(4)
+            .wallTimeMs(30 * 60_000L)
+            .build();
+
+    // When
+    Estimate estimate = model.estimate(Collections.singletonList(spark), 2_000_000L, -1L).get();
+    int executors = model.computeExecutorNumbers(sparkConfig, estimate);
+    Optional<Integer> memoryGb = model.computeExecutorMemoryGb(sparkConfig, estimate, executors);
+
+    // Should, 20 thread hours are run by 12 executors of 2 cores in 50 minutes, an executor gets
+    // 1.67 times more records than before
+    Assert.assertFalse(model.chooseRunner(estimate).isPresent());
+    Assert.assertEquals(12, executors);
+    Assert.assertEquals(Optional.of(7), memoryGb);
+  }
+
+  private static StepRun standalone(long records, long wallTimeMs, long peakMemoryMb) {
+    return StepRun.builder()
+        .runner(StepRunner.STANDALONE.name())
+        .records(records)
+        .threads(4)
+        .wallTimeMs(wallTimeMs)
+        .peakMemoryMb(peakMemoryMb)
+        .build();
+  }
+
+  private static StepHistoryConfiguration createConfig() {
+    StepHistoryConfiguration config = new StepHistoryConfiguration();
+    config.standaloneMemoryMb = 4_096;
+    config.standaloneThreads = 4;
+    config.standaloneMaxMinutes = 10;
+    config.sparkTargetMinutes = 50;
+    return config;
+  }
+
+  private static SparkConfiguration createSparkConfig() {
+    SparkConfiguration sparkConfig = new SparkConfiguration();
+    sparkConfig.executorCores = 2;
+    sparkConfig.executorNumbersMin = 1;
+    sparkConfig.executorNumbersMax = 100;
+    sparkConfig.executorMemoryGbMin = 1;
+    sparkConfig.executorMemoryGbMax = 16;
+    return sparkConfig;
+  }
+}
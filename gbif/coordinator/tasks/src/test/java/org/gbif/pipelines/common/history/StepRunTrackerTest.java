@@ -0,0 +1,39 @@
+package org.gbif.pipelines.common.history;
+
+import org.gbif.pipelines.common.configs.StepHistoryConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StepRunTrackerTest {
+
+  @Test
+  public void overlappedStandaloneRunsTest() {
+
+    // State
+    StepRunTracker first = create();
+    StepRunTracker second = create();
+    StepRunTracker third = create();
+
+    // When
+    first.startStandalone(1);
+    second.startStandalone(1);
+    first.finish();
+    first.close();
+    second.finish();
+    second.close();
+
+    third.startStandalone(1);
+    third.finish();
+    third.close();
+
+    // Should, the peak of overlapped runs is unknown
+    Assert.assertNull(first.getRun().getPeakMemoryMb());
+    Assert.assertNull(second.getRun().getPeakMemoryMb());
+    Assert.assertNotNull(third.getRun().getPeakMemoryMb());
+  }
+
+  private static StepRunTracker create() {
+    return StepRunTracker.create(
+        new StepHistoryConfiguration(), null, "datasetId", 1, "VERBATIM_TO_INTERPRETED", 10L, -1L);
+  }
+}
@@ -262,6 +262,79 @@ public class ProcessRunnerBuilderTest {
     assertEquals(expected, result);
   }
 
+  @Test
+  public void testHdfsViewParquetCommand() {
+    // When
+    String expected =
+        "spark2-submit --name=HDFS_VIEW_de7ffb5e-c07b-42dc-8a88-f67a4465fe3d_1 --conf spark.default.parallelism=1 --conf spark.executor.memoryOverhead=1 "
+            + "--conf spark.dynamicAllocation.enabled=false --conf spark.yarn.am.waitTime=360s "
+            + "--class org.gbif.Test --master yarn --deploy-mode cluster --executor-memory 1G --executor-cores 1 --num-executors 1 "
+            + "--driver-memory 4G java.jar --datasetId=de7ffb5e-c07b-42dc-8a88-f67a4465fe3d --attempt=1 --runner=SparkRunner "
+            + "--metaFileName=occurrence-to-hdfs.yml --inputPath=tmp --targetPath=target --hdfsSiteConfig=hdfs.xml "
+            + "--coreSiteConfig=core.xml --properties=/path/ws.config --numberOfShards=10 --interpretationTypes=OCCURRENCE "
+            + "--experiments=use_deprecated_read --parquetTables=OCCURRENCE --parquetPageSize=524288 "
+            + "--parquetRowGroupSize=268435456";
+
+    HdfsViewConfiguration config = new HdfsViewConfiguration();
+    config.distributedConfig.jarPath = "java.jar";
+    config.distributedConfig.mainClass = "org.gbif.Test";
+    config.sparkConfig.executorMemoryGbMax = 10;
+    config.sparkConfig.executorMemoryGbMin = 1;
+    config.sparkConfig.executorCores = 1;
+    config.sparkConfig.executorNumbersMin = 1;
+    config.sparkConfig.executorNumbersMax = 2;
+    config.sparkConfig.memoryOverhead = 1;
+    config.sparkConfig.driverMemory = "4G";
+    config.distributedConfig.deployMode = "cluster";
+    config.processRunner = StepRunner.DISTRIBUTED.name();
+    config.pipelinesConfig = "/path/ws.config";
+    config.repositoryTargetPath = "target";
+    config.stepConfig.coreSiteConfig = "core.xml";
+    config.stepConfig.hdfsSiteConfig = "hdfs.xml";
+    config.stepConfig.repositoryPath = "tmp";
+    config.parquetTables = Collections.singleton(OCCURRENCE.name());
+    config.parquetPageSizeInKb = 512;
+    config.parquetRowGroupSizeInMb = 256;
+
+    UUID datasetId = UUID.fromString("de7ffb5e-c07b-42dc-8a88-f67a4465fe3d");
+    int attempt = 1;
+    Set<String> steps = Collections.singleton(RecordType.ALL.name());
+    ValidationResult vr = new ValidationResult();
+
+    PipelinesInterpretedMessage message =
+        new PipelinesInterpretedMessage(
+            datasetId,
+            attempt,
+            steps,
+            null,
+            null,
+            null,
+            false,
+            null,
+            null,
+            null,
+            EndpointType.DWC_ARCHIVE,
+            vr,
+            Collections.singleton(OCCURRENCE.name()),
+            null);
+
+    // Expected
+    ProcessBuilder builder =
+        ProcessRunnerBuilder.builder()
+            .distributedConfig(config.distributedConfig)
+            .sparkConfig(config.sparkConfig)
+            .sparkSettings(TestSparkSettings.create(1, "1G", 1))
+            .sparkAppName("HDFS_VIEW_de7ffb5e-c07b-42dc-8a88-f67a4465fe3d_1")
+            .beamConfigFn(BeamSettings.occurrenceHdfsView(config, message, 10))
+            .build()
+            .get();
+
+    String result = builder.command().get(2);
+
+    // Should
+    assertEquals(expected, result);
+  }
+
   @Test
   public void testHdfsViewSparkRunnerCommandFull() {
     // When
@@ -691,7 +764,7 @@ public class ProcessRunnerBuilderTest {
             .sparkSettings(TestSparkSettings.create(1, "1G", 1))
             .sparkAppName("VERBATIM_TO_INTERPRETED_de7ffb5e-c07b-42dc-8a88-f67a4465fe3d_1")
             .beamConfigFn(
-                BeamSettings.occurrenceInterpretation(config, message, "verbatim.avro", null))
+                BeamSettings.occurrenceInterpretation(config, message, "verbatim.avro", null, null))
             .build()
             .get();
 
@@ -762,7 +835,7 @@ public class ProcessRunnerBuilderTest {
             .sparkAppName(
                 "VALIDATOR_VERBATIM_TO_INTERPRETED_de7ffb5e-c07b-42dc-8a88-f67a4465fe3d_1")
             .beamConfigFn(
-                BeamSettings.occurrenceInterpretation(config, message, "verbatim.avro", null))
+                BeamSettings.occurrenceInterpretation(config, message, "verbatim.avro", null, null))
             .build()
             .get();
 
@@ -837,7 +910,7 @@ public class ProcessRunnerBuilderTest {
             .sparkSettings(TestSparkSettings.create(1, "1G", 1))
             .sparkAppName("VERBATIM_TO_INTERPRETED_de7ffb5e-c07b-42dc-8a88-f67a4465fe3d_1")
             .beamConfigFn(
-                BeamSettings.occurrenceInterpretation(config, message, "verbatim.avro", null))
+                BeamSettings.occurrenceInterpretation(config, message, "verbatim.avro", null, null))
             .build()
             .get();
 
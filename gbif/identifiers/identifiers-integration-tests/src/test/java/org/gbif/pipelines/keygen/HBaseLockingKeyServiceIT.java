@@ -11,9 +11,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Put;
@@ -93,6 +96,105 @@ public class HBaseLockingKeyServiceIT {
     assertEquals(1000, result.getKey());
   }
 
+  @Test
+  public void testGenerateKeys() {
+    // State
+    List<Set<String>> uniqueIds = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      uniqueIds.add(Collections.singleton(String.valueOf(i)));
+    }
+    // existing key and a record sharing a lookup key with another record
+    KeyLookupResult existing =
+        HBASE_SERVER.keyService.generateKey(Collections.singleton("existing"), "boo");
+    uniqueIds.add(new HashSet<>(Arrays.asList("existing", "new")));
+    uniqueIds.add(Collections.singleton("0"));
+
+    // When
+    List<KeyLookupResult> result = HBASE_SERVER.keyService.generateKeys(uniqueIds, "boo");
+
+    // Should
+    assertEquals(12, result.size());
+    for (int i = 0; i < 10; i++) {
+      assertTrue(result.get(i).isCreated());
+      assertEquals(
+          result.get(i).getKey(),
+          HBASE_SERVER.keyService.findKey(uniqueIds.get(i), "boo").get().getKey());
+    }
+    assertEquals(existing.getKey(), result.get(10).getKey());
+    assertFalse(result.get(10).isCreated());
+    assertEquals(result.get(0).getKey(), result.get(11).getKey());
+    assertFalse(result.get(11).isCreated());
+    assertEquals(
+        existing.getKey(),
+        HBASE_SERVER.keyService.findKey(Collections.singleton("new"), "boo").get().getKey());
+  }
+
+  @Test
+  public void testConcurrentGenerateKeys() throws InterruptedException {
+    // State
+    List<Set<String>> uniqueIds = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      uniqueIds.add(new HashSet<>(Arrays.asList("occ" + i, "triplet" + i)));
+    }
+    Map<Set<String>, Set<Long>> keys = new ConcurrentHashMap<>();
+    List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+
+    // When, bulk and per-record writers allocate keys of the same records concurrently
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 6; t++) {
+      boolean bulk = t % 2 == 0;
+      List<Set<String>> shuffled = new ArrayList<>(uniqueIds);
+      Collections.shuffle(shuffled, new Random(t));
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  for (int from = 0; from < shuffled.size(); from += 10) {
+                    List<Set<String>> chunk = shuffled.subList(from, from + 10);
+                    List<KeyLookupResult> results =
+                        bulk
+                            ? HBASE_SERVER.keyService.generateKeys(chunk, "boo")
+                            : generateOneByOne(chunk);
+                    for (int i = 0; i < chunk.size(); i++) {
+                      keys.computeIfAbsent(chunk.get(i), k -> ConcurrentHashMap.newKeySet())
+                          .add(results.get(i).getKey());
+                    }
+                  }
+                } catch (Throwable ex) {
+                  errors.add(ex);
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // Should
+    assertTrue(errors.toString(), errors.isEmpty());
+    Set<Long> distinct = new HashSet<>();
+    for (Set<String> record : uniqueIds) {
+      Set<Long> recordKeys = keys.get(record);
+      assertEquals(record.toString(), 1, recordKeys.size());
+      long key = recordKeys.iterator().next();
+      assertTrue(distinct.add(key));
+      for (String uniqueId : record) {
+        assertEquals(
+            key,
+            HBASE_SERVER.keyService.findKey(Collections.singleton(uniqueId), "boo").get().getKey());
+      }
+    }
+  }
+
+  private static List<KeyLookupResult> generateOneByOne(List<Set<String>> uniqueIds) {
+    List<KeyLookupResult> results = new ArrayList<>(uniqueIds.size());
+    for (Set<String> ids : uniqueIds) {
+      results.add(HBASE_SERVER.keyService.generateKey(ids, "boo"));
+    }
+    return results;
+  }
+
   @Test
   public void testResumeCountAfterFailure() {
     KeyLookupResult result = null;
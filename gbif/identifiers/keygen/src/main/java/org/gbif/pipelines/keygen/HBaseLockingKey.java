@@ -1,7 +1,10 @@
 package org.gbif.pipelines.keygen;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.gbif.pipelines.keygen.api.KeyLookupResult;
 
 public interface HBaseLockingKey {
@@ -10,6 +13,15 @@ public interface HBaseLockingKey {
 
   KeyLookupResult generateKey(Set<String> uniqueStrings);
 
+  /** Retrieves or creates keys for many records, the result has the same order as uniqueStrings */
+  default List<KeyLookupResult> generateKeys(Collection<Set<String>> uniqueStrings, String scope) {
+    return uniqueStrings.stream().map(u -> generateKey(u, scope)).collect(Collectors.toList());
+  }
+
+  default List<KeyLookupResult> generateKeys(Collection<Set<String>> uniqueStrings) {
+    return uniqueStrings.stream().map(this::generateKey).collect(Collectors.toList());
+  }
+
   Optional<KeyLookupResult> findKey(Set<String> uniqueStrings, String scope);
 
   Optional<KeyLookupResult> findKey(Set<String> uniqueStrings);
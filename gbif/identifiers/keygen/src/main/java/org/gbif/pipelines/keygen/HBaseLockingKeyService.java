@@ -6,6 +6,9 @@ import com.google.common.annotations.VisibleForTesting;
 import java.io.Serializable;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -17,7 +20,9 @@ import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
+import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Connection;
@@ -69,6 +74,9 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
 
   private static final int HBASE_CLIENT_CACHING = 200;
 
+  // The max number of gets in one multi-get request of generateKeys
+  private static final int MULTI_GET_SIZE = 1000;
+
   private final Connection connection;
   private final TableName lookupTableName;
   private final HBaseStore<Long> occurrenceTableStore;
@@ -259,6 +267,181 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
     return generateKey(uniqueStrings, datasetId);
   }
 
+  /**
+   * Bulk version of {@link #generateKey(Set, String)}, the result list has the same order as
+   * uniqueStrings.
+   *
+   * <p>All lookup keys are read using multi-get requests, free lookup keys are locked with one lock
+   * id, new keys are taken from one contiguous range reserved with a single counter increment, and
+   * keys are written and locks released using batch requests. Records with contended lookup keys
+   * (locked by somebody else, or shared with another record of the same call) fall back to {@link
+   * #generateKey(Set, String)} with its lock and retry protocol.
+   *
+   * @throws IllegalStateException if lookup keys of a record point to different occurrence keys
+   */
+  @Override
+  public List<KeyLookupResult> generateKeys(Collection<Set<String>> uniqueStrings, String scope) {
+    List<Set<String>> records = new ArrayList<>(uniqueStrings);
+    List<Set<String>> recordLookupKeys =
+        records.stream()
+            .map(u -> OccurrenceKeyBuilder.buildKeys(u, scope))
+            .collect(Collectors.toList());
+
+    Map<String, Integer> lookupKeyUsage = new HashMap<>();
+    recordLookupKeys.forEach(keys -> keys.forEach(k -> lookupKeyUsage.merge(k, 1, Integer::sum)));
+
+    Map<String, Result> rows = lookupTableStore.getRows(lookupKeyUsage.keySet(), MULTI_GET_SIZE);
+
+    KeyLookupResult[] results = new KeyLookupResult[records.size()];
+    List<Integer> contended = new ArrayList<>();
+    List<PendingRecord> pending = new ArrayList<>();
+
+    for (int i = 0; i < records.size(); i++) {
+      Set<String> lookupKeys = recordLookupKeys.get(i);
+      if (lookupKeys.isEmpty() || lookupKeys.stream().anyMatch(k -> lookupKeyUsage.get(k) > 1)) {
+        contended.add(i);
+        continue;
+      }
+
+      Map<String, Long> existingKeyMap = new TreeMap<>();
+      List<String> freeKeys = new ArrayList<>();
+      Long foundKey = null;
+      boolean locked = false;
+      for (String lookupKey : lookupKeys) {
+        Result row = rows.get(lookupKey);
+        KeyStatus status = null;
+        byte[] existingLock = null;
+        Long key = null;
+        if (row != null) {
+          String rawStatus =
+              ResultReader.getString(
+                  row, Columns.OCCURRENCE_COLUMN_FAMILY, Columns.LOOKUP_STATUS_COLUMN, null);
+          if (rawStatus != null) {
+            status = KeyStatus.valueOf(rawStatus);
+          }
+          existingLock =
+              ResultReader.getBytes(
+                  row, Columns.OCCURRENCE_COLUMN_FAMILY, Columns.LOOKUP_LOCK_COLUMN, null);
+          key =
+              ResultReader.getLong(
+                  row, Columns.OCCURRENCE_COLUMN_FAMILY, Columns.LOOKUP_KEY_COLUMN, null);
+        }
+
+        if (status == KeyStatus.ALLOCATED) {
+          existingKeyMap.put(lookupKey, key);
+          if (foundKey == null) {
+            foundKey = key;
+          } else if (foundKey.longValue() != key.longValue()) {
+            failWithConflictingLookup(existingKeyMap);
+          }
+        } else if (existingLock == null) {
+          freeKeys.add(lookupKey);
+        } else {
+          // current or stale lock, the per-record protocol knows how to deal with both
+          locked = true;
+        }
+      }
+
+      if (locked) {
+        contended.add(i);
+      } else if (freeKeys.isEmpty()) {
+        results[i] = new KeyLookupResult(foundKey, false);
+      } else {
+        pending.add(new PendingRecord(i, foundKey, freeKeys));
+      }
+    }
+
+    // lock free lookup keys, HBase has no batch checkAndPut, so one request per lookup key
+    byte[] lockId = Bytes.toBytes(UUID.randomUUID().toString());
+    long now = System.currentTimeMillis();
+    List<String> heldLocks = new ArrayList<>();
+    List<PendingRecord> lockedRecords = new ArrayList<>(pending.size());
+    for (PendingRecord record : pending) {
+      List<String> recordLocks = new ArrayList<>(record.freeKeys.size());
+      boolean gotLocks = true;
+      for (String lookupKey : record.freeKeys) {
+        boolean gotLock =
+            lookupTableStore.checkAndPut(
+                lookupKey,
+                Columns.LOOKUP_LOCK_COLUMN,
+                lockId,
+                Columns.LOOKUP_LOCK_COLUMN,
+                null,
+                now);
+        if (!gotLock) {
+          gotLocks = false;
+          break;
+        }
+        recordLocks.add(lookupKey);
+      }
+      heldLocks.addAll(recordLocks);
+      if (gotLocks) {
+        lockedRecords.add(record);
+      } else {
+        log.debug("Failed to grab free lock for record [{}], using per-record protocol", record);
+        contended.add(record.index);
+      }
+    }
+
+    try {
+      // another writer could have allocated a key and released its lock between the multi-get and
+      // our checkAndPut, re-read locked lookup keys and use keys allocated meanwhile
+      Map<String, Result> lockedRows = lookupTableStore.getRows(heldLocks, MULTI_GET_SIZE);
+      for (PendingRecord record : lockedRecords) {
+        record.useAllocatedKeys(lockedRows);
+      }
+
+      // reserve one contiguous range for all new keys
+      long newKeys = lockedRecords.stream().filter(r -> r.foundKey == null).count();
+      long nextKey = 0L;
+      if (newKeys > 0) {
+        nextKey =
+            counterTableStore.incrementColumnValue(COUNTER_ROW, Columns.COUNTER_COLUMN, newKeys)
+                - newKeys
+                + 1;
+      }
+
+      Map<String, Long> allocations = new HashMap<>();
+      for (PendingRecord record : lockedRecords) {
+        KeyLookupResult result;
+        if (record.foundKey == null) {
+          result = new KeyLookupResult(nextKey++, true);
+        } else {
+          result = new KeyLookupResult(record.foundKey, false);
+        }
+        record.freeKeys.forEach(k -> allocations.put(k, result.getKey()));
+        results[record.index] = result;
+      }
+
+      // write the keys and update status to ALLOCATED
+      lookupTableStore.putLongStrings(
+          allocations,
+          Columns.LOOKUP_KEY_COLUMN,
+          Columns.LOOKUP_STATUS_COLUMN,
+          KeyStatus.ALLOCATED.toString());
+    } finally {
+      lookupTableStore.delete(heldLocks, Columns.LOOKUP_LOCK_COLUMN);
+    }
+
+    log.debug(
+        "Bulk generateKeys: {} records, {} fall back to the per-record protocol",
+        records.size(),
+        contended.size());
+
+    // contended records, one by one
+    for (Integer index : contended) {
+      results[index] = generateKey(records.get(index), scope);
+    }
+
+    return Arrays.asList(results);
+  }
+
+  /** Bulk version of {@link #generateKey(Set)} */
+  @Override
+  public List<KeyLookupResult> generateKeys(Collection<Set<String>> uniqueStrings) {
+    return generateKeys(uniqueStrings, datasetId);
+  }
+
   /**
    * Provides the next available key. Because throughput of an incrementColumnValue is limited by
    * HBase to a few thousand calls per second, this implementation reserves a batch of IDs at a
@@ -491,6 +674,48 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
         .forEach(entry -> lookupTableStore.delete(entry.getKey(), Columns.LOOKUP_LOCK_COLUMN));
   }
 
+  /** Record of a bulk request which needs locks for its free lookup keys */
+  @ToString
+  @AllArgsConstructor
+  private static class PendingRecord {
+    private final int index;
+    private Long foundKey;
+    private final List<String> freeKeys;
+
+    /**
+     * Uses keys of free lookup keys which were allocated after they were read, those lookup keys
+     * aren't written again
+     */
+    private void useAllocatedKeys(Map<String, Result> rows) {
+      Map<String, Long> allocatedKeyMap = new TreeMap<>();
+      for (String lookupKey : freeKeys) {
+        Result row = rows.get(lookupKey);
+        if (row == null) {
+          continue;
+        }
+        String rawStatus =
+            ResultReader.getString(
+                row, Columns.OCCURRENCE_COLUMN_FAMILY, Columns.LOOKUP_STATUS_COLUMN, null);
+        if (rawStatus != null && KeyStatus.valueOf(rawStatus) == KeyStatus.ALLOCATED) {
+          allocatedKeyMap.put(
+              lookupKey,
+              ResultReader.getLong(
+                  row, Columns.OCCURRENCE_COLUMN_FAMILY, Columns.LOOKUP_KEY_COLUMN, null));
+        }
+      }
+      for (Map.Entry<String, Long> allocated : allocatedKeyMap.entrySet()) {
+        log.debug("Lookup key [{}] was allocated meanwhile [{}]", allocated.getKey(), this);
+        if (foundKey != null && foundKey.longValue() != allocated.getValue().longValue()) {
+          Map<String, Long> existingKeyMap = new TreeMap<>(allocatedKeyMap);
+          existingKeyMap.put("found", foundKey);
+          failWithConflictingLookup(existingKeyMap);
+        }
+        foundKey = allocated.getValue();
+        freeKeys.remove(allocated.getKey());
+      }
+    }
+  }
+
   public enum KeyStatus {
     ALLOCATING,
     ALLOCATED
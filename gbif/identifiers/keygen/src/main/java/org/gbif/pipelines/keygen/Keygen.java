@@ -1,7 +1,10 @@
 package org.gbif.pipelines.keygen;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import lombok.AccessLevel;
@@ -72,6 +75,85 @@ public class Keygen {
     return keyResult.map(KeyLookupResult::getKey);
   }
 
+  /**
+   * Batch version of {@link #getKey(HBaseLockingKey, boolean, boolean, boolean, OccurrenceRecord)},
+   * the result has the same order as records. Keys which are not found are generated using one
+   * {@link HBaseLockingKey#generateKeys(Collection)} call for the whole batch. A record which
+   * lookup fails gets the error key, the rest of the batch isn't affected.
+   */
+  public static List<Optional<Long>> getKeys(
+      HBaseLockingKey keygenService,
+      boolean useTriplet,
+      boolean useOccurrenceId,
+      boolean generateIfAbsent,
+      List<OccurrenceRecord> records) {
+
+    List<Optional<Long>> result = new ArrayList<>(records.size());
+    List<Integer> absentIndexes = new ArrayList<>();
+    List<Set<String>> absentUniqueStrings = new ArrayList<>();
+
+    for (OccurrenceRecord record : records) {
+      // Finds keys, postpones generation
+      Optional<Long> key;
+      try {
+        key = getKey(keygenService, useTriplet, useOccurrenceId, false, record);
+      } catch (RuntimeException ex) {
+        // A failed lookup loses only its own record
+        log.error(ex.getMessage(), ex);
+        result.add(Optional.of(ERROR_KEY));
+        continue;
+      }
+      if (!key.isPresent() && generateIfAbsent) {
+        absentIndexes.add(result.size());
+        absentUniqueStrings.add(getUniqueStrings(useTriplet, useOccurrenceId, record));
+      }
+      result.add(key);
+    }
+
+    if (absentUniqueStrings.isEmpty()) {
+      return result;
+    }
+
+    log.info("GBIF IDs weren't found, generating {} new keys", absentUniqueStrings.size());
+    List<KeyLookupResult> generated;
+    try {
+      generated = keygenService.generateKeys(absentUniqueStrings);
+    } catch (RuntimeException ex) {
+      log.warn("Bulk key generation failed, generating keys one by one - {}", ex.getMessage());
+      generated = new ArrayList<>(absentUniqueStrings.size());
+      for (Set<String> uniqueStrings : absentUniqueStrings) {
+        try {
+          generated.add(keygenService.generateKey(uniqueStrings));
+        } catch (RuntimeException e) {
+          log.error(e.getMessage(), e);
+          generated.add(new KeyLookupResult(ERROR_KEY, false));
+        }
+      }
+    }
+
+    for (int i = 0; i < absentIndexes.size(); i++) {
+      result.set(absentIndexes.get(i), Optional.of(generated.get(i).getKey()));
+    }
+    return result;
+  }
+
+  /**
+   * Unique strings used to generate a key for a record which is not found, the same as {@link
+   * #getKey(HBaseLockingKey, boolean, boolean, boolean, OccurrenceRecord)} uses: occurrenceId if
+   * present, otherwise the triplet
+   */
+  private static Set<String> getUniqueStrings(
+      boolean useTriplet, boolean useOccurrenceId, OccurrenceRecord record) {
+    Set<String> uniqueStrings = new HashSet<>(2);
+    if (useOccurrenceId) {
+      record.getOccurrenceId().ifPresent(uniqueStrings::add);
+    }
+    if (useTriplet && uniqueStrings.isEmpty()) {
+      record.getTriplet().ifPresent(uniqueStrings::add);
+    }
+    return uniqueStrings;
+  }
+
   public static String getSaltedKey(Long key) {
     long salt = key % 100;
     String result = salt + ":" + key;
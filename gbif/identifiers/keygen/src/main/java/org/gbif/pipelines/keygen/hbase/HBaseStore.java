@@ -5,6 +5,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Connection;
@@ -175,6 +180,63 @@ public class HBaseStore<T> {
     return row;
   }
 
+  /**
+   * Returns HBase Result objects for the given keys using multi-get requests of up to batchSize
+   * gets. Keys of absent rows are not in the result map.
+   *
+   * @param keys the primary keys of the requested rows
+   * @param batchSize the max number of gets in one request
+   * @return key to HBase Result map
+   * @throws ServiceUnavailableException if there are errors when communicating with HBase
+   */
+  public Map<T, Result> getRows(Collection<T> keys, int batchSize) {
+    checkNotNull(keys, "keys can't be null");
+    checkArgument(batchSize > 0, "batchSize must be >0");
+
+    List<T> keyList = new ArrayList<>(keys);
+    Map<T, Result> rows = new HashMap<>(keyList.size());
+    try (Table table = connection.getTable(tableName)) {
+      for (int from = 0; from < keyList.size(); from += batchSize) {
+        List<T> chunk = keyList.subList(from, Math.min(from + batchSize, keyList.size()));
+        List<Get> gets = new ArrayList<>(chunk.size());
+        for (T key : chunk) {
+          gets.add(new Get(convertKey(key)));
+        }
+        Result[] results = table.get(gets);
+        for (int i = 0; i < results.length; i++) {
+          if (results[i] != null && !results[i].isEmpty()) {
+            rows.put(chunk.get(i), results[i]);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new ServiceUnavailableException(HBASE_READ_ERROR_MSG, e);
+    }
+
+    return rows;
+  }
+
+  /** Batch version of {@link #putLongString(Object, String, long, String, String)} */
+  public void putLongStrings(
+      Map<T, Long> values, String columnName, String columnName2, String value2) {
+    checkNotNull(values, "values can't be null");
+    if (values.isEmpty()) {
+      return;
+    }
+    try (Table table = connection.getTable(tableName)) {
+      List<Put> puts = new ArrayList<>(values.size());
+      for (Map.Entry<T, Long> entry : values.entrySet()) {
+        Put put = new Put(convertKey(entry.getKey()));
+        put.addColumn(cfBytes, Bytes.toBytes(columnName), Bytes.toBytes(entry.getValue()));
+        put.addColumn(cfBytes, Bytes.toBytes(columnName2), Bytes.toBytes(value2));
+        puts.add(put);
+      }
+      table.put(puts);
+    } catch (IOException e) {
+      throw new ServiceUnavailableException(HBASE_READ_ERROR_MSG, e);
+    }
+  }
+
   /**
    * Do an HBase checkAndPut - a put that will only be attempted if the checkColumn contains the
    * expected checkValue.
@@ -238,6 +300,28 @@ public class HBaseStore<T> {
     }
   }
 
+  /** Batch version of {@link #delete(Object, String...)} */
+  public void delete(Collection<T> keys, String... columns) {
+    checkNotNull(keys, "keys can't be null");
+    checkArgument(columns.length > 0, "columns can't be empty");
+    if (keys.isEmpty()) {
+      return;
+    }
+    try (Table table = connection.getTable(tableName)) {
+      List<Delete> deletes = new ArrayList<>(keys.size());
+      for (T key : keys) {
+        Delete delete = new Delete(convertKey(key));
+        for (String column : columns) {
+          delete.addColumn(cfBytes, Bytes.toBytes(column));
+        }
+        deletes.add(delete);
+      }
+      table.delete(deletes);
+    } catch (IOException e) {
+      throw new ServiceUnavailableException(HBASE_READ_ERROR_MSG, e);
+    }
+  }
+
   public byte[] convertKey(T key) {
     if (salted) {
       return saltKey(String.valueOf(key), numberOfBuckets);
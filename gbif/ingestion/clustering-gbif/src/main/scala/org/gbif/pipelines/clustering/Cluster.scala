@@ -11,7 +11,7 @@ import org.apache.spark.Partitioner
 import org.apache.spark.sql.catalyst.encoders.RowEncoder
 import org.apache.spark.sql.types.{LongType, StringType, StructField, StructType}
 import org.apache.spark.sql.{Row, SparkSession}
-import org.gbif.pipelines.core.parsers.clustering.{OccurrenceRelationships, RelationshipAssertion}
+import org.gbif.pipelines.core.parsers.clustering.{BlockingConfig, CandidateBlocking, OccurrenceRelationships, RelationshipAssertion}
 
 import scala.collection.JavaConversions._
 
@@ -41,12 +41,13 @@ object Cluster {
       [--hbase-table tableName] \
       [--hbase-regions numberOfRegions] \
       [--hbase-zk zookeeperEnsemble] \
-      [--hfile-dir directoryForHFiles]
+      [--hfile-dir directoryForHFiles] \
+      [--blocking-max-block-size maxRecordsInCandidateGroup] (optional)
   """
 
   def main(args: Array[String]): Unit = {
     val parsedArgs = checkArgs(args) // sanitize input
-    assert(parsedArgs.size==8, usage)
+    assert(parsedArgs.size==8 || parsedArgs.size==9, usage)
     System.err.println("Configuration: " + parsedArgs) // Oozie friendly logging use
 
     val hiveDatabase = parsedArgs.get('hiveDatabase).get
@@ -57,6 +58,8 @@ object Cluster {
     val hbaseRegions = parsedArgs.get('hbaseRegions).get.toInt
     val hbaseZK = parsedArgs.get('hbaseZK).get
     val hfileDir = parsedArgs.get('hfileDir).get
+    // spatial grid and identifier LSH blocking, oversized candidate groups are split instead of dropped
+    val blockingMaxBlockSize = parsedArgs.get('blockingMaxBlockSize).map(_.toInt)
 
     val warehouseLocation = new File("spark-warehouse").getAbsolutePath
 
@@ -194,23 +197,76 @@ object Cluster {
         records
       })(hashEncoder).toDF()
 
-      val deduplicatedHashedRecords = hashAll.union(hashSpecimenIds).dropDuplicates()
+      val blocking = blockingMaxBlockSize.map(size => CandidateBlocking.create(BlockingConfig.builder().maxBlockSize(size).build()))
+      val occurrenceFeatures = sql(SQL_OCCURRENCE_BLOCKING)
+
+      // species, grid cell and date blocks, and blocks of similar identifiers
+      val hashBlocks = blocking match {
+        case Some(b) => occurrenceFeatures.flatMap(r => {
+          b.blockKeys(new RowOccurrenceFeatures(r)).map(key =>
+            Row(
+              r.getAs[Long]("gbifId"),
+              r.getAs[String]("datasetKey"),
+              key.getKey
+            ))
+        })(hashEncoder).toDF()
+        case None => spark.createDataFrame(spark.sparkContext.emptyRDD[Row], schema)
+      }
+
+      val deduplicatedHashedRecords = hashAll.union(hashSpecimenIds).union(hashBlocks).dropDuplicates()
 
       // persist for debugging, enable for further processing in SQL
       deduplicatedHashedRecords.write.saveAsTable(hiveTableHashed + "_all") // for diagnostics in hive
       deduplicatedHashedRecords.createOrReplaceTempView("DF_hashed_all")
 
-      // defend against NxN runtime issues by capping the number of records in a candidate group to 10000
+      // defend against NxN runtime issues by capping the number of records in a candidate group to 10000,
+      // or with blocking by splitting larger groups into blocks of the max block size
+      val maxGroupSize = blockingMaxBlockSize.getOrElse(10000)
       val hashCounts = deduplicatedHashedRecords.groupBy("hash").count().withColumnRenamed("count", "c");
       hashCounts.createOrReplaceTempView("DF_hash_counts")
-      val hashedFiltered = sql("""
+      val hashedWithinLimit = sql("""
           SELECT t1.gbifID, t1.datasetKey, t1.hash
           FROM DF_hashed_all t1 JOIN DF_hash_counts t2 ON t1.hash=t2.hash
-          WHERE t2.c <= 10000
-          """)
+          WHERE t2.c <= """ + maxGroupSize)
+
+      val hashedFiltered = blocking match {
+        case Some(b) =>
+          occurrenceFeatures.createOrReplaceTempView("DF_occurrence_features")
+          var oversized = sql("""
+            SELECT t1.hash, o.*
+            FROM DF_hashed_all t1
+              JOIN DF_hash_counts t2 ON t1.hash=t2.hash
+              JOIN DF_occurrence_features o ON t1.gbifId=o.gbifId
+            WHERE t2.c > """ + maxGroupSize)
+
+          // oversized groups are split level by level, each record is moved to its finer block key on its own
+          // so that hotspot groups are never collected on one executor, records without a finer level are dropped
+          var splitBlocks = spark.createDataFrame(spark.sparkContext.emptyRDD[Row], schema)
+          while (oversized.head(1).nonEmpty) {
+            val refined = oversized.flatMap(r => {
+              val next = b.nextLevelKey(r.getAs[String]("hash"), new RowOccurrenceFeatures(r))
+              if (next.isPresent) Some(Row.fromSeq(next.get +: r.toSeq.tail)) else None
+            })(RowEncoder(oversized.schema)).persist()
+            val counts = refined.groupBy("hash").count().withColumnRenamed("count", "c")
+            val refinedCounts = refined.join(counts, "hash")
+            splitBlocks = splitBlocks.union(refinedCounts.where("c <= " + maxGroupSize).select("gbifId", "datasetKey", "hash"))
+            oversized = refinedCounts.where("c > " + maxGroupSize).drop("c")
+          }
+          hashedWithinLimit.union(splitBlocks)
+        case None => hashedWithinLimit
+      }
       hashedFiltered.write.saveAsTable(hiveTableHashed) // for diagnostics in hive
       hashedFiltered.createOrReplaceTempView("DF_hashed")
 
+      if (blocking.isDefined) {
+        // records and pairs to compare per block, for diagnostics in hive
+        sql("""
+          SELECT hash, count(*) AS records, count(*) * (count(*) - 1) / 2 AS pairs
+          FROM DF_hashed
+          GROUP BY hash
+          """).write.saveAsTable(hiveTableHashed + "_blocks")
+      }
+
       // Cross join to distinct pairs of records spanning 2 datasets
       val candidates = sql("""
       SELECT t1.gbifId as id1, t1.datasetKey as ds1, t2.gbifId as id2, t2.datasetKey as ds2
@@ -361,7 +417,7 @@ object Cluster {
    * Sanitizes application arguments.
    */
   private def checkArgs(args: Array[String]) : Map[Symbol, String] = {
-    assert(args != null && args.length==16, usage)
+    assert(args != null && (args.length==16 || args.length==18), usage)
 
     def nextOption(map : Map[Symbol, String], list: List[String]) : Map[Symbol, String] = {
       def isSwitch(s : String) = (s(0) == '-')
@@ -383,6 +439,8 @@ object Cluster {
           nextOption(map ++ Map('hbaseZK -> value), tail)
         case "--hfile-dir" :: value :: tail =>
           nextOption(map ++ Map('hfileDir -> value), tail)
+        case "--blocking-max-block-size" :: value :: tail =>
+          nextOption(map ++ Map('blockingMaxBlockSize -> value), tail)
         case option :: tail => println("Unknown option "+option)
           System.exit(1)
           map
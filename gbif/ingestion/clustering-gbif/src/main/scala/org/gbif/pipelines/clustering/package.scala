@@ -22,6 +22,17 @@ SELECT
   recordedBy, recordedByID,
   ext_multimedia
 FROM occurrence
+"""
+
+  // SQL to extract fields necessary for spatial grid and identifier LSH blocks, taxa keys are Strings as in OccurrenceFeatures
+  val SQL_OCCURRENCE_BLOCKING = """
+SELECT
+  CAST(gbifId AS String) AS id, gbifId, datasetKey,
+  CAST(speciesKey AS String) AS speciesKey, CAST(taxonKey AS String) AS taxonKey,
+  decimalLatitude, decimalLongitude, year, month, day,
+  recordNumber, fieldNumber, occurrenceID, otherCatalogNumbers, institutionCode, collectionCode, catalogNumber,
+  recordedBy
+FROM occurrence
 """
 
   case class SimpleOccurrence(gbifID: String, decimalLatitude: Double)
@@ -51,6 +51,7 @@ import org.gbif.pipelines.common.beam.metrics.MetricsHandler;
 import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.core.io.ParquetSettings;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
 import org.gbif.pipelines.core.utils.HdfsViewUtils;
@@ -170,6 +171,7 @@ public class HdfsViewPipeline {
     String datasetId = options.getDatasetId();
     Integer attempt = options.getAttempt();
     Integer numberOfShards = options.getNumberOfShards();
+    ParquetSettings parquetSettings = HdfsViewAvroUtils.getParquetSettings(options);
     Set<String> types = options.getInterpretationTypes();
     RecordType recordType = options.getCoreRecordType();
     DwcTerm coreTerm = HdfsViewUtils.getCoreTerm(recordType);
@@ -308,26 +310,35 @@ public class HdfsViewPipeline {
             .metadataView(metadataView)
             .build();
 
-    KeyedPCollectionTuple
-        // Core
-        .of(basicTransform.getTag(), basicCollection)
-        .and(idTransform.getTag(), idCollection)
-        .and(clusteringTransform.getTag(), clusteringCollection)
-        .and(temporalTransform.getTag(), temporalCollection)
-        .and(locationTransform.getTag(), locationCollection)
-        .and(taxonomyTransform.getTag(), taxonCollection)
-        .and(grscicollTransform.getTag(), grscicollCollection)
-        .and(eventCoreTransform.getTag(), eventCoreCollection)
-        // Extension
-        .and(multimediaTransform.getTag(), multimediaCollection)
-        .and(imageTransform.getTag(), imageCollection)
-        .and(audubonTransform.getTag(), audubonCollection)
-        // Raw
-        .and(verbatimTransform.getTag(), verbatimCollection)
-        // Apply
-        .apply("Group hdfs objects", CoGroupByKey.create())
-        .apply("Merge to HdfsRecord", hdfsRecordTransform.converter())
-        .apply(hdfsRecordTransform.write(pathFn.apply(recordType), numberOfShards));
+    PCollection<OccurrenceHdfsRecord> hdfsRecordCollection =
+        KeyedPCollectionTuple
+            // Core
+            .of(basicTransform.getTag(), basicCollection)
+            .and(idTransform.getTag(), idCollection)
+            .and(clusteringTransform.getTag(), clusteringCollection)
+            .and(temporalTransform.getTag(), temporalCollection)
+            .and(locationTransform.getTag(), locationCollection)
+            .and(taxonomyTransform.getTag(), taxonCollection)
+            .and(grscicollTransform.getTag(), grscicollCollection)
+            .and(eventCoreTransform.getTag(), eventCoreCollection)
+            // Extension
+            .and(multimediaTransform.getTag(), multimediaCollection)
+            .and(imageTransform.getTag(), imageCollection)
+            .and(audubonTransform.getTag(), audubonCollection)
+            // Raw
+            .and(verbatimTransform.getTag(), verbatimCollection)
+            // Apply
+            .apply("Group hdfs objects", CoGroupByKey.create())
+            .apply("Merge to HdfsRecord", hdfsRecordTransform.converter());
+
+    if (parquetSettings.isParquet(recordType)) {
+      hdfsRecordCollection.apply(
+          hdfsRecordTransform.writeParquet(
+              pathFn.apply(recordType), numberOfShards, parquetSettings));
+    } else {
+      hdfsRecordCollection.apply(
+          hdfsRecordTransform.write(pathFn.apply(recordType), numberOfShards));
+    }
 
     // Table records
     PCollection<KV<String, CoGbkResult>> tableCollection =
@@ -346,6 +357,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(AMPLIFICATION_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     IdentificationTableTransform.builder()
@@ -356,6 +368,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(IDENTIFICATION_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     MeasurementOrFactTableTransform.builder()
@@ -366,6 +379,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(MEASUREMENT_OR_FACT_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     ResourceRelationshipTableTransform.builder()
@@ -376,6 +390,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(RESOURCE_RELATIONSHIP_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     CloningTableTransform.builder()
@@ -386,6 +401,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(CLONING_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     GelImageTableTransform.builder()
@@ -396,6 +412,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(GEL_IMAGE_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     LoanTableTransform.builder()
@@ -406,6 +423,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(LOAN_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     MaterialSampleTableTransform.builder()
@@ -416,6 +434,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(MATERIAL_SAMPLE_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     PermitTableTransform.builder()
@@ -426,6 +445,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(PERMIT_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     PreparationTableTransform.builder()
@@ -436,6 +456,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(PREPARATION_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     PreservationTableTransform.builder()
@@ -446,6 +467,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(PRESERVATION_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     GermplasmMeasurementScoreTableTransform.builder()
@@ -456,6 +478,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(GERMPLASM_MEASUREMENT_SCORE_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     GermplasmMeasurementTraitTableTransform.builder()
@@ -466,6 +489,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(GERMPLASM_MEASUREMENT_TRAIT_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     GermplasmMeasurementTrialTableTransform.builder()
@@ -476,6 +500,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(GERMPLASM_MEASUREMENT_TRIAL_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     GermplasmAccessionTableTransform.builder()
@@ -486,6 +511,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(GERMPLASM_ACCESSION_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     ExtendedMeasurementOrFactTableTransform.builder()
@@ -496,6 +522,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(EXTENDED_MEASUREMENT_OR_FACT_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     ChronometricAgeTableTransform.builder()
@@ -506,6 +533,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(CHRONOMETRIC_AGE_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     ReferenceTableTransform.builder()
@@ -516,6 +544,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(REFERENCE_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     IdentifierTableTransform.builder()
@@ -526,6 +555,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(IDENTIFIER_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     DnaDerivedDataTableTransform.builder()
@@ -536,6 +566,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(DNA_DERIVED_DATA_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     AudubonTableTransform.builder()
@@ -546,6 +577,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(AUDUBON_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     MultimediaTableTransform.builder()
@@ -556,6 +588,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(MULTIMEDIA_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     ImageTableTransform.builder()
@@ -566,6 +599,7 @@ public class HdfsViewPipeline {
         .path(pathFn.apply(IMAGE_TABLE))
         .types(types)
         .build()
+        .setParquetSettings(parquetSettings)
         .write(tableCollection);
 
     log.info("Running the pipeline");
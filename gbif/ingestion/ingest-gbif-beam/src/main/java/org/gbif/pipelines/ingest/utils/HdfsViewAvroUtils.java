@@ -1,8 +1,12 @@
 package org.gbif.pipelines.ingest.utils;
 
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.AVRO_EXTENSION;
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType.EVENT;
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType.OCCURRENCE;
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.PARQUET_EXTENSION;
 
+import java.util.Collections;
+import java.util.Optional;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +14,7 @@ import org.gbif.api.vocabulary.Extension;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
 import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.core.io.ParquetSettings;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
 
@@ -17,9 +22,22 @@ import org.gbif.pipelines.core.utils.FsUtils;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class HdfsViewAvroUtils {
 
+  /** Suffix of table directories of Parquet files, Avro and Parquet files never share a table */
+  public static final String PARQUET_TABLE_SUFFIX = "_parquet";
+
+  /** Parquet settings of HDFS view tables, see {@link ParquetSettings} */
+  public static ParquetSettings getParquetSettings(InterpretationPipelineOptions options) {
+    return ParquetSettings.builder()
+        .tables(Optional.ofNullable(options.getParquetTables()).orElse(Collections.emptySet()))
+        .pageSize(options.getParquetPageSize())
+        .rowGroupSize(options.getParquetRowGroupSize())
+        .build();
+  }
+
   /**
    * Copies all occurrence records into the directory from targetPath. Deletes pre-existing data of
-   * the dataset being processed.
+   * the dataset being processed. Tables written as Parquet, see {@link #getParquetSettings}, are
+   * copied into separate directories with the {@link #PARQUET_TABLE_SUFFIX} suffix.
    */
   public static void move(InterpretationPipelineOptions options) {
     if (options.getInterpretationTypes().size() == 1
@@ -111,7 +129,7 @@ public class HdfsViewAvroUtils {
 
   private static void move(InterpretationPipelineOptions options, RecordType recordType) {
     String path = recordType.name().toLowerCase();
-    move(options, recordType, path, path);
+    move(options, recordType, recordType, path, path);
   }
 
   private static void move(
@@ -121,27 +139,39 @@ public class HdfsViewAvroUtils {
       Extension extension) {
     String from = extensionRecordType.name().toLowerCase();
     String to = extension.name().toLowerCase().replace("_", "") + "table";
-    move(options, recordType, from, to);
+    move(options, recordType, extensionRecordType, from, to);
   }
 
   private static void move(
-      InterpretationPipelineOptions options, RecordType recordType, String from, String to) {
+      InterpretationPipelineOptions options,
+      RecordType recordType,
+      RecordType tableRecordType,
+      String from,
+      String to) {
     String targetPath = options.getTargetPath();
     HdfsConfigs hdfsConfigs =
         HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
 
-    String deletePath =
-        PathBuilder.buildPath(
-                targetPath, recordType.name().toLowerCase(), to, options.getDatasetId() + "_*")
-            .toString();
-    log.info("Deleting avro files {}", deletePath);
-    FsUtils.deleteByPattern(hdfsConfigs, targetPath, deletePath);
+    // Deletes data of the dataset in both formats, the format of a table can change between runs
+    String parquetTo = to + PARQUET_TABLE_SUFFIX;
+    for (String table : new String[] {to, parquetTo}) {
+      String deletePath =
+          PathBuilder.buildPath(
+                  targetPath, recordType.name().toLowerCase(), table, options.getDatasetId() + "_*")
+              .toString();
+      log.info("Deleting files {}", deletePath);
+      FsUtils.deleteByPattern(hdfsConfigs, targetPath, deletePath);
+    }
 
+    boolean isParquet = getParquetSettings(options).isParquet(tableRecordType);
+    String extension = isParquet ? PARQUET_EXTENSION : AVRO_EXTENSION;
     String filter =
-        PathBuilder.buildFilePathViewUsingInputPath(options, recordType, from, "*.avro");
+        PathBuilder.buildFilePathViewUsingInputPath(options, recordType, from, "*" + extension);
 
     String movePath =
-        PathBuilder.buildPath(targetPath, recordType.name().toLowerCase(), to).toString();
+        PathBuilder.buildPath(
+                targetPath, recordType.name().toLowerCase(), isParquet ? parquetTo : to)
+            .toString();
     log.info("Moving files with pattern {} to {}", filter, movePath);
     FsUtils.moveDirectory(hdfsConfigs, movePath, filter);
     log.info("Files moved to {} directory", movePath);
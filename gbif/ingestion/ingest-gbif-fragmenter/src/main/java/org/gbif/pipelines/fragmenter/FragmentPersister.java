@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -14,6 +15,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import lombok.Builder;
 import lombok.NonNull;
@@ -24,7 +26,9 @@ import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.Table;
 import org.gbif.api.vocabulary.EndpointType;
 import org.gbif.converters.parser.xml.parsing.validators.UniquenessValidator;
+import org.gbif.pipelines.common.PipelinesException;
 import org.gbif.pipelines.fragmenter.common.HbaseStore;
+import org.gbif.pipelines.fragmenter.common.HbaseStore.StoredRow;
 import org.gbif.pipelines.fragmenter.common.RawRecord;
 import org.gbif.pipelines.fragmenter.record.OccurrenceRecordConverter;
 import org.gbif.pipelines.fragmenter.strategy.DwcaStrategy;
@@ -40,8 +44,10 @@ import org.gbif.pipelines.keygen.config.KeygenConfig;
  *
  * <p>Processing workflow: 1. Read a dwca/xml archive 2. Collect raw records into small batches
  * (batch size is configurable) 3. Get or create GBIF id for each element of the batch and create
- * keys (salt + ":" + GBIF id) 4. Get **dateCreated** from the table using GBIF id, if a record is
- * exist 5. Create HBase put(create new or update existing) records and upload them into HBase
+ * keys (salt + ":" + GBIF id) 4. Get **hashValue** and **dateCreated** from the table for the whole
+ * batch using multi-get requests (hbaseGetBatchSize keys per request) and skip records with the
+ * same hash value 5. Create HBase put(create new or update existing) records and upload them into
+ * HBase
  *
  * <pre>{@code
  * long recordsProcessed = FragmentsUploader.dwcaBuilder()
@@ -83,6 +89,8 @@ public class FragmentPersister {
 
   @Builder.Default private int batchSize = 100;
 
+  @Builder.Default private int hbaseGetBatchSize = HbaseStore.DEFAULT_GET_BATCH_SIZE;
+
   @Builder.Default private boolean useSyncMode = true;
 
   @Builder.Default private boolean generateIdIfAbsent = false;
@@ -93,6 +101,8 @@ public class FragmentPersister {
 
   private Connection hbaseConnection;
 
+  private final AtomicLong unchangedCounter = new AtomicLong(0);
+
   public static FragmentPersisterBuilder xmlBuilder() {
     return FragmentPersister.builder().strategy(XmlStrategy.create());
   }
@@ -131,10 +141,14 @@ public class FragmentPersister {
                 OccurrenceRecordConverter.convert(
                     keygenService, validator, useTriplet, useOccurrenceId, generateIdIfAbsent, l);
 
-            map = HbaseStore.filterRecordsByHash(table, map);
+            Map<String, StoredRow> storedRows = getStoredRows(table, map.keySet());
+            int converted = map.size();
+
+            map = HbaseStore.filterRecordsByHash(map, storedRows);
+            unchangedCounter.addAndGet(converted - map.size());
 
             if (!map.isEmpty()) {
-              HbaseStore.putRecords(table, datasetKey, attempt, endpointType, map);
+              HbaseStore.putRecords(table, datasetKey, attempt, endpointType, map, storedRows);
 
               int recordsReturned = occurrenceCounter.addAndGet(map.size());
               if (recordsReturned % 10_000 == 0) {
@@ -181,9 +195,16 @@ public class FragmentPersister {
       phaser.arriveAndAwaitAdvance();
     }
 
+    log.info("{}_{}: Skipped [{}] unchanged records", datasetKey, attempt, unchangedCounter.get());
+
     return occurrenceCounter.get();
   }
 
+  /** Number of records skipped by {@link #persist()}, because their hash value is not changed */
+  public long getUnchangedCount() {
+    return unchangedCounter.get();
+  }
+
   /** Close HBase connection */
   public void close() {
     try {
@@ -193,6 +214,14 @@ public class FragmentPersister {
     }
   }
 
+  private Map<String, StoredRow> getStoredRows(Table table, Set<String> keys) {
+    try {
+      return HbaseStore.getStoredRows(table, keys, hbaseGetBatchSize);
+    } catch (IOException ex) {
+      throw new PipelinesException(ex);
+    }
+  }
+
   /**
    * If the mode is async, check back pressure, the number of running async tasks must be less than
    * backPressure setting
@@ -4,22 +4,25 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.gbif.api.vocabulary.EndpointType;
-import org.gbif.pipelines.common.PipelinesException;
 
 @Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -36,6 +39,9 @@ public class HbaseStore {
   private static final byte[] DUQ_BYTES = Bytes.toBytes("dateUpdated");
   private static final byte[] HVQ_BYTES = Bytes.toBytes("hashValue");
 
+  /** Number of gets in one multi-get request, if a batch size is not provided */
+  public static final int DEFAULT_GET_BATCH_SIZE = 1_000;
+
   @SneakyThrows
   public static void putRecords(
       Table table,
@@ -43,8 +49,23 @@ public class HbaseStore {
       Integer attempt,
       EndpointType endpointType,
       Map<String, RawRecord> fragmentsMap) {
+    Map<String, StoredRow> storedRows =
+        getStoredRows(table, fragmentsMap.keySet(), DEFAULT_GET_BATCH_SIZE);
+    putRecords(table, datasetKey, attempt, endpointType, fragmentsMap, storedRows);
+  }
 
-    Map<String, Long> dateMap = getCreatedDateMap(table, fragmentsMap);
+  /**
+   * Puts records, dateCreated of existing rows is taken from storedRows, use {@link
+   * #getStoredRows(Table, Collection, int)} to read them
+   */
+  @SneakyThrows
+  public static void putRecords(
+      Table table,
+      String datasetKey,
+      Integer attempt,
+      EndpointType endpointType,
+      Map<String, RawRecord> fragmentsMap,
+      Map<String, StoredRow> storedRows) {
 
     List<Put> putList =
         fragmentsMap.entrySet().stream()
@@ -56,7 +77,9 @@ public class HbaseStore {
                         endpointType.name(),
                         es.getKey(),
                         es.getValue(),
-                        dateMap.get(es.getKey())))
+                        Optional.ofNullable(storedRows.get(es.getKey()))
+                            .map(StoredRow::getDateCreated)
+                            .orElse(null)))
             .collect(Collectors.toList());
 
     table.put(putList);
@@ -65,42 +88,66 @@ public class HbaseStore {
   @SneakyThrows
   public static Map<String, RawRecord> filterRecordsByHash(
       Table table, Map<String, RawRecord> fragmentsMap) {
+    Map<String, StoredRow> storedRows =
+        getStoredRows(table, fragmentsMap.keySet(), DEFAULT_GET_BATCH_SIZE);
+    return filterRecordsByHash(fragmentsMap, storedRows);
+  }
 
-    BiPredicate<String, RawRecord> prFn =
+  /** Removes records which have the same hash value as the stored rows */
+  public static Map<String, RawRecord> filterRecordsByHash(
+      Map<String, RawRecord> fragmentsMap, Map<String, StoredRow> storedRows) {
+    Map<String, RawRecord> result = new HashMap<>(fragmentsMap.size());
+    fragmentsMap.forEach(
         (key, raw) -> {
-          try {
-            Get get = createHashValueGet(key);
-            byte[] value = table.get(get).value();
-            if (value != null) {
-              return !raw.getHashValue().equals(new String(value, UTF_8));
-            }
-            return true;
-          } catch (IOException ex) {
-            throw new PipelinesException(ex);
+          StoredRow row = storedRows.get(key);
+          if (row == null
+              || row.getHashValue() == null
+              || !raw.getHashValue().equals(row.getHashValue())) {
+            result.put(key, raw);
           }
-        };
-
-    return fragmentsMap
-        .entrySet()
-        .parallelStream()
-        .filter(es -> prFn.test(es.getKey(), es.getValue()))
-        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (x, y) -> y));
+        });
+    return result;
   }
 
-  private static Map<String, Long> getCreatedDateMap(
-      Table table, Map<String, RawRecord> fragmentsMap) throws IOException {
+  /**
+   * Reads hashValue and dateCreated of existing rows using multi-get requests, one request per
+   * getBatchSize keys. Keys are sorted first, so every request covers a continuous key range and
+   * touches as few regions as possible. Keys of absent rows are not in the result map.
+   */
+  public static Map<String, StoredRow> getStoredRows(
+      Table table, Collection<String> keys, int getBatchSize) throws IOException {
 
-    Map<String, Long> createdDateMap = new HashMap<>();
+    if (getBatchSize < 1) {
+      throw new IllegalArgumentException("HBase get batch size must be greater than 0");
+    }
 
-    for (String key : fragmentsMap.keySet()) {
-      Get get = createCreatedDateGet(key);
-      byte[] value = table.get(get).value();
-      if (value != null) {
-        createdDateMap.put(key, Bytes.toLong(value));
+    List<String> sortedKeys = new ArrayList<>(keys);
+    Collections.sort(sortedKeys);
+
+    Map<String, StoredRow> storedRows = new HashMap<>(sortedKeys.size());
+    for (int from = 0; from < sortedKeys.size(); from += getBatchSize) {
+      List<String> chunk =
+          sortedKeys.subList(from, Math.min(from + getBatchSize, sortedKeys.size()));
+
+      List<Get> gets =
+          chunk.stream().map(HbaseStore::createStoredRowGet).collect(Collectors.toList());
+
+      Result[] results = table.get(gets);
+      for (int i = 0; i < results.length; i++) {
+        Result result = results[i];
+        if (result != null && !result.isEmpty()) {
+          byte[] hash = result.getValue(FF_BYTES, HVQ_BYTES);
+          byte[] created = result.getValue(FF_BYTES, DCQ_BYTES);
+          storedRows.put(
+              chunk.get(i),
+              new StoredRow(
+                  hash != null ? new String(hash, UTF_8) : null,
+                  created != null ? Bytes.toLong(created) : null));
+        }
       }
     }
 
-    return createdDateMap;
+    return storedRows;
   }
 
   private static Put createFragmentPut(
@@ -126,15 +173,10 @@ public class HbaseStore {
     return put;
   }
 
-  private static Get createCreatedDateGet(String key) {
-    Get get = new Get(Bytes.toBytes(key));
-    get.addColumn(FF_BYTES, DCQ_BYTES);
-    return get;
-  }
-
-  private static Get createHashValueGet(String key) {
+  private static Get createStoredRowGet(String key) {
     Get get = new Get(Bytes.toBytes(key));
     get.addColumn(FF_BYTES, HVQ_BYTES);
+    get.addColumn(FF_BYTES, DCQ_BYTES);
     return get;
   }
 
@@ -169,4 +211,11 @@ public class HbaseStore {
   public static byte[] getHashValueQualifier() {
     return HVQ_BYTES;
   }
+
+  /** Hash value and dateCreated of an existing row */
+  @Value
+  public static class StoredRow {
+    String hashValue;
+    Long dateCreated;
+  }
 }
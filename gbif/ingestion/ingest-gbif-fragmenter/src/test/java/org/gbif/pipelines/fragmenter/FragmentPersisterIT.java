@@ -450,7 +450,7 @@ public class FragmentPersisterIT {
             .build()
             .persist();
 
-    long resultSecond =
+    FragmentPersister persisterSecond =
         FragmentPersister.xmlBuilder()
             .tableName(HbaseServer.FRAGMENT_TABLE_NAME)
             .keygenConfig(HbaseServer.CFG)
@@ -461,14 +461,16 @@ public class FragmentPersisterIT {
             .attempt(attemptSecond)
             .endpointType(endpointType)
             .batchSize(1)
+            .hbaseGetBatchSize(1)
             .hbaseConnection(HBASE_SERVER.getConnection())
             .generateIdIfAbsent(true)
-            .build()
-            .persist();
+            .build();
+    long resultSecond = persisterSecond.persist();
 
     // Should
     Assert.assertEquals(expSize, resultFirst);
     Assert.assertEquals(0, resultSecond); // Data mustn't be updated
+    Assert.assertEquals(expSize, persisterSecond.getUnchangedCount());
     TableAssert.assertTable(
         HBASE_SERVER.getConnection(),
         expSize,
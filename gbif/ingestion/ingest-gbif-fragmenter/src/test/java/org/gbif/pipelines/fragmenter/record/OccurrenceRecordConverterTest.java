@@ -0,0 +1,98 @@
+package org.gbif.pipelines.fragmenter.record;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.gbif.converters.parser.xml.parsing.validators.UniquenessValidator;
+import org.gbif.pipelines.fragmenter.common.RawRecord;
+import org.gbif.pipelines.keygen.HBaseLockingKey;
+import org.gbif.pipelines.keygen.Keygen;
+import org.gbif.pipelines.keygen.OccurrenceRecord;
+import org.gbif.pipelines.keygen.SimpleOccurrenceRecord;
+import org.gbif.pipelines.keygen.api.KeyLookupResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OccurrenceRecordConverterTest {
+
+  private static final String BROKEN = "broken";
+
+  @Test
+  public void failedLookupTest() {
+
+    // State
+    Map<String, Long> keys = new HashMap<>();
+    keys.put("1", 101L);
+    HBaseLockingKey keygenService = new StubKeyService(keys);
+
+    List<OccurrenceRecord> records =
+        Arrays.asList(record("1"), record(BROKEN), record("3"), record("4"));
+
+    // When
+    Map<String, RawRecord> result;
+    try (UniquenessValidator validator = UniquenessValidator.getNewInstance()) {
+      result =
+          OccurrenceRecordConverter.convert(keygenService, validator, false, true, true, records);
+    }
+
+    // Should
+    Assert.assertEquals(3, result.size());
+    Assert.assertTrue(result.containsKey(Keygen.getSaltedKey(101L)));
+    Assert.assertTrue(result.containsKey(Keygen.getSaltedKey(1_000L)));
+    Assert.assertTrue(result.containsKey(Keygen.getSaltedKey(1_001L)));
+    Assert.assertFalse(result.containsKey(Keygen.getErrorKey().toString()));
+  }
+
+  private static OccurrenceRecord record(String occurrenceId) {
+    SimpleOccurrenceRecord record = SimpleOccurrenceRecord.create();
+    record.setOccurrenceId(occurrenceId);
+    return record;
+  }
+
+  /** Finds keys of the map, the lookup of {@link #BROKEN} fails, new keys start from 1000 */
+  private static class StubKeyService implements HBaseLockingKey {
+
+    private final Map<String, Long> keys;
+    private final AtomicLong next = new AtomicLong(1_000L);
+
+    private StubKeyService(Map<String, Long> keys) {
+      this.keys = keys;
+    }
+
+    @Override
+    public KeyLookupResult generateKey(Set<String> uniqueStrings, String scope) {
+      return generateKey(uniqueStrings);
+    }
+
+    @Override
+    public KeyLookupResult generateKey(Set<String> uniqueStrings) {
+      return new KeyLookupResult(next.getAndIncrement(), true);
+    }
+
+    @Override
+    public Optional<KeyLookupResult> findKey(Set<String> uniqueStrings, String scope) {
+      return findKey(uniqueStrings);
+    }
+
+    @Override
+    public Optional<KeyLookupResult> findKey(Set<String> uniqueStrings) {
+      if (uniqueStrings.contains(BROKEN)) {
+        throw new IllegalStateException("HBase is unavailable");
+      }
+      return uniqueStrings.stream()
+          .map(keys::get)
+          .filter(k -> k != null)
+          .findFirst()
+          .map(k -> new KeyLookupResult(k, false));
+    }
+
+    @Override
+    public void close() {
+      // NOP
+    }
+  }
+}
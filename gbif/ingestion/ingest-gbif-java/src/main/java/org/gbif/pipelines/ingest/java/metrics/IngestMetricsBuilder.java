@@ -9,6 +9,7 @@ import static org.gbif.pipelines.common.PipelinesVariables.Metrics.CHRONOMETRIC_
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.CLONING_TABLE_RECORDS_COUNT;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.DUPLICATE_GBIF_IDS_COUNT;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.DUPLICATE_IDS_COUNT;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.ES_FAILED_DOCUMENTS_COUNT;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.EXTENDED_MEASUREMENT_OR_FACT_TABLE_RECORDS_COUNT;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.FILTER_ER_BASED_ON_GBIF_ID;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.GEL_IMAGE_TABLE_RECORDS_COUNT;
@@ -37,6 +38,8 @@ import static org.gbif.pipelines.common.PipelinesVariables.Metrics.PRESERVATION_
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.REFERENCE_TABLE_RECORDS_COUNT;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.RESOURCE_RELATIONSHIP_TABLE_RECORDS_COUNT;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.TAXON_RECORDS_COUNT;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.TEMPORAL_PARSER_CACHE_HITS;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.TEMPORAL_PARSER_CACHE_MISSES;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.TEMPORAL_RECORDS_COUNT;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.UNIQUE_GBIF_IDS_COUNT;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.UNIQUE_IDS_COUNT;
@@ -45,6 +48,7 @@ import static org.gbif.pipelines.common.PipelinesVariables.Metrics.VERBATIM_RECO
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.gbif.pipelines.common.beam.metrics.IngestMetrics;
+import org.gbif.pipelines.core.io.ElasticsearchWriter;
 import org.gbif.pipelines.ingest.java.pipelines.VerbatimToOccurrencePipeline;
 import org.gbif.pipelines.transforms.common.FilterRecordsTransform;
 import org.gbif.pipelines.transforms.common.UniqueGbifIdTransform;
@@ -95,6 +99,8 @@ public class IngestMetricsBuilder {
         .addMetric(TaxonomyTransform.class, TAXON_RECORDS_COUNT)
         .addMetric(GrscicollTransform.class, GRSCICOLL_RECORDS_COUNT)
         .addMetric(TemporalTransform.class, TEMPORAL_RECORDS_COUNT)
+        .addMetric(TemporalTransform.class, TEMPORAL_PARSER_CACHE_HITS)
+        .addMetric(TemporalTransform.class, TEMPORAL_PARSER_CACHE_MISSES)
         .addMetric(VerbatimTransform.class, VERBATIM_RECORDS_COUNT)
         .addMetric(AudubonTransform.class, AUDUBON_RECORDS_COUNT)
         .addMetric(ImageTransform.class, IMAGE_RECORDS_COUNT)
@@ -116,7 +122,9 @@ public class IngestMetricsBuilder {
    * org.gbif.pipelines.ingest.java.pipelines.InterpretedToEsIndexExtendedPipeline}
    */
   public static IngestMetrics createInterpretedToEsIndexMetrics() {
-    return IngestMetrics.create().addMetric(OccurrenceJsonTransform.class, AVRO_TO_JSON_COUNT);
+    return IngestMetrics.create()
+        .addMetric(OccurrenceJsonTransform.class, AVRO_TO_JSON_COUNT)
+        .addMetric(ElasticsearchWriter.class, ES_FAILED_DOCUMENTS_COUNT);
   }
 
   /** {@link IngestMetrics} for hdfs tables */
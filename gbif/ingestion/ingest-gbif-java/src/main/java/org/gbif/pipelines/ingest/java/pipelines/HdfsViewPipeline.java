@@ -26,9 +26,11 @@ import static org.gbif.pipelines.common.PipelinesVariables.Metrics.RESOURCE_RELA
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.AVRO_EXTENSION;
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType.*;
 import static org.gbif.pipelines.ingest.java.transforms.InterpretedAvroReader.readAvroAsFuture;
+import static org.gbif.pipelines.ingest.java.transforms.InterpretedAvroReader.readSorted;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,6 +43,9 @@ import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.beam.sdk.transforms.SerializableFunction;
 import org.gbif.api.model.pipelines.StepType;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.InterpretationType;
@@ -73,10 +78,14 @@ import org.gbif.pipelines.core.converters.PreparationTableConverter;
 import org.gbif.pipelines.core.converters.PreservationTableConverter;
 import org.gbif.pipelines.core.converters.ReferenceTableConverter;
 import org.gbif.pipelines.core.converters.ResourceRelationshipTableConverter;
+import org.gbif.pipelines.core.io.JoinedRecords;
+import org.gbif.pipelines.core.io.SortMergeJoin;
+import org.gbif.pipelines.core.pojo.ErIdrMdrContainer;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
 import org.gbif.pipelines.core.utils.HdfsViewUtils;
 import org.gbif.pipelines.ingest.java.metrics.IngestMetricsBuilder;
+import org.gbif.pipelines.ingest.java.transforms.JoinedTableWriter;
 import org.gbif.pipelines.ingest.java.transforms.OccurrenceHdfsRecordConverter;
 import org.gbif.pipelines.ingest.java.transforms.TableConverter;
 import org.gbif.pipelines.ingest.java.transforms.TableRecordWriter;
@@ -245,6 +254,12 @@ public class HdfsViewPipeline {
 
     log.info("Creating pipeline");
 
+    if (options.getSortedAvro()) {
+      writeJoinedTables(options, executor, metrics, pathFn);
+      moveFiles(options, metrics);
+      return;
+    }
+
     // Reading all avro files in parallel
     CompletableFuture<Map<String, MetadataRecord>> metadataMapFeature =
         readAvroAsFuture(options, coreTerm, executor, MetadataTransform.builder().create());
@@ -852,6 +867,299 @@ public class HdfsViewPipeline {
         .build()
         .write();
 
+    moveFiles(options, metrics);
+  }
+
+  /**
+   * Joins interpreted avro files, written with {@link
+   * InterpretationPipelineOptions#getSortedAvro()}, by {@link SortMergeJoin} and writes all tables
+   * in one pass, only one record per file and a batch of joined records are kept in memory
+   */
+  @SneakyThrows
+  private static void writeJoinedTables(
+      InterpretationPipelineOptions options,
+      ExecutorService executor,
+      IngestMetrics metrics,
+      Function<InterpretationType, String> pathFn) {
+
+    RecordType recordType = options.getCoreRecordType();
+    DwcTerm coreTerm = HdfsViewUtils.getCoreTerm(recordType);
+
+    MetadataRecord metadataRecord =
+        readAvroAsFuture(options, coreTerm, executor, MetadataTransform.builder().create())
+            .get()
+            .values()
+            .iterator()
+            .next();
+
+    // The core table is always written
+    Set<String> types = new HashSet<>(options.getInterpretationTypes());
+    types.add(recordType.name());
+
+    SortMergeJoin join =
+        SortMergeJoin.create(
+                IdentifierRecord.class,
+                readSorted(options, coreTerm, GbifIdTransform.builder().create()))
+            .join(ExtendedRecord.class, readSorted(options, coreTerm, VerbatimTransform.create()))
+            .join(
+                TemporalRecord.class,
+                readSorted(options, coreTerm, TemporalTransform.builder().create()))
+            .join(
+                LocationRecord.class,
+                readSorted(options, coreTerm, LocationTransform.builder().create()))
+            .join(
+                TaxonRecord.class,
+                readSorted(options, coreTerm, TaxonomyTransform.builder().create()))
+            .join(
+                MultimediaRecord.class,
+                readSorted(options, coreTerm, MultimediaTransform.builder().create()))
+            .join(
+                ImageRecord.class, readSorted(options, coreTerm, ImageTransform.builder().create()))
+            .join(
+                AudubonRecord.class,
+                readSorted(options, coreTerm, AudubonTransform.builder().create()));
+
+    if (OCCURRENCE == recordType) {
+      join.join(BasicRecord.class, readSorted(options, coreTerm, BasicTransform.builder().create()))
+          .join(
+              GrscicollRecord.class,
+              readSorted(options, coreTerm, GrscicollTransform.builder().create()))
+          .join(
+              ClusteringRecord.class,
+              readSorted(options, coreTerm, ClusteringTransform.builder().create()));
+    }
+
+    if (RecordType.EVENT == recordType) {
+      join.join(
+          EventCoreRecord.class,
+          readSorted(options, coreTerm, EventCoreTransform.builder().create()));
+    }
+
+    OccurrenceHdfsRecordConverter occurrenceConverter =
+        OccurrenceHdfsRecordConverter.builder().metrics(metrics).metadata(metadataRecord).build();
+
+    try (SortMergeJoin records = join) {
+      JoinedTableWriter.builder()
+          .options(options)
+          .records(records)
+          .targetPathFn(pathFn)
+          .executor(executor)
+          .types(types)
+          .table(
+              JoinedTableWriter.Table.create(
+                  recordType,
+                  OccurrenceHdfsRecord.getClassSchema(),
+                  occurrenceConverter.getJoinedFn()))
+          .table(
+              joinedTable(
+                  MEASUREMENT_OR_FACT_TABLE,
+                  MeasurementOrFactTable.getClassSchema(),
+                  MeasurementOrFactTableConverter::convert,
+                  MEASUREMENT_OR_FACT_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  IDENTIFICATION_TABLE,
+                  IdentificationTable.getClassSchema(),
+                  IdentificationTableConverter::convert,
+                  IDENTIFICATION_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  RESOURCE_RELATIONSHIP_TABLE,
+                  ResourceRelationshipTable.getClassSchema(),
+                  ResourceRelationshipTableConverter::convert,
+                  RESOURCE_RELATIONSHIP_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  AMPLIFICATION_TABLE,
+                  AmplificationTable.getClassSchema(),
+                  AmplificationTableConverter::convert,
+                  AMPLIFICATION_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  CLONING_TABLE,
+                  CloningTable.getClassSchema(),
+                  CloningTableConverter::convert,
+                  CLONING_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  GEL_IMAGE_TABLE,
+                  GelImageTable.getClassSchema(),
+                  GelImageTableConverter::convert,
+                  GEL_IMAGE_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  LOAN_TABLE,
+                  LoanTable.getClassSchema(),
+                  LoanTableConverter::convert,
+                  LOAN_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  MATERIAL_SAMPLE_TABLE,
+                  MaterialSampleTable.getClassSchema(),
+                  MaterialSampleTableConverter::convert,
+                  MATERIAL_SAMPLE_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  PERMIT_TABLE,
+                  PermitTable.getClassSchema(),
+                  PermitTableConverter::convert,
+                  PERMIT_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  PREPARATION_TABLE,
+                  PreparationTable.getClassSchema(),
+                  PreparationTableConverter::convert,
+                  PREPARATION_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  PRESERVATION_TABLE,
+                  PreservationTable.getClassSchema(),
+                  PreservationTableConverter::convert,
+                  PRESERVATION_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  GERMPLASM_MEASUREMENT_SCORE_TABLE,
+                  GermplasmMeasurementScoreTable.getClassSchema(),
+                  GermplasmMeasurementScoreTableConverter::convert,
+                  MEASUREMENT_SCORE_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  GERMPLASM_MEASUREMENT_TRAIT_TABLE,
+                  GermplasmMeasurementTraitTable.getClassSchema(),
+                  GermplasmMeasurementTraitTableConverter::convert,
+                  MEASUREMENT_TRAIT_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  GERMPLASM_MEASUREMENT_TRIAL_TABLE,
+                  GermplasmMeasurementTrialTable.getClassSchema(),
+                  GermplasmMeasurementTrialTableConverter::convert,
+                  MEASUREMENT_TRIAL_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  GERMPLASM_ACCESSION_TABLE,
+                  GermplasmAccessionTable.getClassSchema(),
+                  GermplasmAccessionTableConverter::convert,
+                  GERMPLASM_ACCESSION_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  EXTENDED_MEASUREMENT_OR_FACT_TABLE,
+                  ExtendedMeasurementOrFactTable.getClassSchema(),
+                  ExtendedMeasurementOrFactTableConverter::convert,
+                  EXTENDED_MEASUREMENT_OR_FACT_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  CHRONOMETRIC_AGE_TABLE,
+                  ChronometricAgeTable.getClassSchema(),
+                  ChronometricAgeTableConverter::convert,
+                  CHRONOMETRIC_AGE_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  REFERENCE_TABLE,
+                  ReferenceTable.getClassSchema(),
+                  ReferenceTableConverter::convert,
+                  REFERENCE_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  IDENTIFIER_TABLE,
+                  IdentifierTable.getClassSchema(),
+                  IdentifierTableConverter::convert,
+                  IDENTIFIER_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  DNA_DERIVED_DATA_TABLE,
+                  DnaDerivedDataTable.getClassSchema(),
+                  DnaDerivedDataTableConverter::convert,
+                  DNA_DERIVED_DATA_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  AUDUBON_TABLE,
+                  AudubonTable.getClassSchema(),
+                  AudubonTableConverter::convert,
+                  AUDUBON_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  IMAGE_TABLE,
+                  ImageTable.getClassSchema(),
+                  ImageTableConverter::convert,
+                  IMAGE_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .table(
+              joinedTable(
+                  MULTIMEDIA_TABLE,
+                  MultimediaTable.getClassSchema(),
+                  MultimediaTableConverter::convert,
+                  MULTIMEDIA_TABLE_RECORDS_COUNT,
+                  metrics,
+                  metadataRecord))
+          .build()
+          .write();
+    }
+  }
+
+  private static <T extends SpecificRecordBase> JoinedTableWriter.Table<T> joinedTable(
+      InterpretationType recordType,
+      Schema schema,
+      SerializableFunction<ErIdrMdrContainer, List<T>> converterFn,
+      String counterName,
+      IngestMetrics metrics,
+      MetadataRecord metadataRecord) {
+    Function<JoinedRecords, List<T>> fn =
+        TableConverter.<T>builder()
+            .metrics(metrics)
+            .converterFn(converterFn)
+            .metadataRecord(metadataRecord)
+            .counterName(counterName)
+            .build()
+            .getJoinedFn();
+    return JoinedTableWriter.Table.create(recordType, schema, fn);
+  }
+
+  /** Moves the produced files to the HDFS view directory and saves metrics */
+  @SneakyThrows
+  private static void moveFiles(InterpretationPipelineOptions options, IngestMetrics metrics) {
     // Move files
     Mutex.Action action = () -> HdfsViewAvroUtils.move(options);
     if (options.getTestMode()) {
@@ -860,8 +1168,11 @@ public class HdfsViewPipeline {
       SharedLockUtils.doHdfsPrefixLock(options, action);
     }
     // Delete root directory of table records
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
     FsUtils.deleteIfExist(
-        hdfsConfigs, PathBuilder.buildFilePathViewUsingInputPath(options, recordType));
+        hdfsConfigs,
+        PathBuilder.buildFilePathViewUsingInputPath(options, options.getCoreRecordType()));
 
     MetricsHandler.saveCountersToInputPathFile(options, metrics.getMetricsResult());
     log.info("Pipeline has been finished - {}", LocalDateTime.now());
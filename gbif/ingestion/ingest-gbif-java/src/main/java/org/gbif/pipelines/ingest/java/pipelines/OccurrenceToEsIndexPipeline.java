@@ -1,6 +1,7 @@
 package org.gbif.pipelines.ingest.java.pipelines;
 
 import static org.gbif.pipelines.ingest.java.transforms.InterpretedAvroReader.readAvroAsFuture;
+import static org.gbif.pipelines.ingest.java.transforms.InterpretedAvroReader.readSorted;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -20,6 +21,8 @@ import org.gbif.pipelines.common.beam.metrics.MetricsHandler;
 import org.gbif.pipelines.common.beam.options.EsIndexingPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
 import org.gbif.pipelines.core.io.ElasticsearchWriter;
+import org.gbif.pipelines.core.io.JoinedRecords;
+import org.gbif.pipelines.core.io.SortMergeJoin;
 import org.gbif.pipelines.ingest.java.metrics.IngestMetricsBuilder;
 import org.gbif.pipelines.ingest.java.transforms.IndexRequestConverter;
 import org.gbif.pipelines.io.avro.AudubonRecord;
@@ -131,6 +134,14 @@ public class OccurrenceToEsIndexPipeline {
     IngestMetrics metrics = IngestMetricsBuilder.createInterpretedToEsIndexMetrics();
 
     log.info("Creating pipeline");
+
+    if (options.getSortedAvro()) {
+      indexJoined(options, executor, metrics);
+      MetricsHandler.saveCountersToTargetPathFile(options, metrics.getMetricsResult());
+      log.info("Pipeline has been finished - {}", LocalDateTime.now());
+      return;
+    }
+
     log.info("Reading avro files...");
     // Reading all avro files in parallel
     CompletableFuture<Map<String, MetadataRecord>> metadataMapFeature =
@@ -198,10 +209,86 @@ public class OccurrenceToEsIndexPipeline {
         .indexRequestFn(indexRequestFn)
         .records(idMapFeature.get().values())
         .backPressure(options.getBackPressure())
+        .esFailFast(options.getEsFailFast())
+        .counterFn(metrics::incMetric)
         .build()
         .write();
 
     MetricsHandler.saveCountersToTargetPathFile(options, metrics.getMetricsResult());
     log.info("Pipeline has been finished - {}", LocalDateTime.now());
   }
+
+  /**
+   * Joins interpreted avro files, written with {@link EsIndexingPipelineOptions#getSortedAvro()},
+   * by {@link SortMergeJoin} and pushes documents without loading all records into maps
+   */
+  @SneakyThrows
+  private static void indexJoined(
+      EsIndexingPipelineOptions options, ExecutorService executor, IngestMetrics metrics) {
+
+    MetadataRecord metadataRecord =
+        readAvroAsFuture(options, CORE_TERM, executor, MetadataTransform.builder().create())
+            .get()
+            .values()
+            .iterator()
+            .next();
+
+    Function<JoinedRecords, IndexRequest> indexRequestFn =
+        IndexRequestConverter.builder()
+            .metrics(metrics)
+            .esIndexName(options.getEsIndexName())
+            .esDocumentId(options.getEsDocumentId())
+            .metadata(metadataRecord)
+            .build()
+            .getJoinedFn();
+
+    log.info("Pushing joined data into Elasticsearch");
+    try (SortMergeJoin join =
+        SortMergeJoin.create(
+                IdentifierRecord.class,
+                readSorted(options, CORE_TERM, GbifIdTransform.builder().create()))
+            .join(ExtendedRecord.class, readSorted(options, CORE_TERM, VerbatimTransform.create()))
+            .join(
+                ClusteringRecord.class,
+                readSorted(options, CORE_TERM, ClusteringTransform.builder().create()))
+            .join(
+                BasicRecord.class,
+                readSorted(options, CORE_TERM, BasicTransform.builder().create()))
+            .join(
+                TemporalRecord.class,
+                readSorted(options, CORE_TERM, TemporalTransform.builder().create()))
+            .join(
+                LocationRecord.class,
+                readSorted(options, CORE_TERM, LocationTransform.builder().create()))
+            .join(
+                TaxonRecord.class,
+                readSorted(options, CORE_TERM, TaxonomyTransform.builder().create()))
+            .join(
+                GrscicollRecord.class,
+                readSorted(options, CORE_TERM, GrscicollTransform.builder().create()))
+            .join(
+                MultimediaRecord.class,
+                readSorted(options, CORE_TERM, MultimediaTransform.builder().create()))
+            .join(
+                ImageRecord.class,
+                readSorted(options, CORE_TERM, ImageTransform.builder().create()))
+            .join(
+                AudubonRecord.class,
+                readSorted(options, CORE_TERM, AudubonTransform.builder().create()))) {
+
+      ElasticsearchWriter.<JoinedRecords>builder()
+          .esHosts(options.getEsHosts())
+          .esMaxBatchSize(options.getEsMaxBatchSize())
+          .esMaxBatchSizeBytes(options.getEsMaxBatchSizeBytes())
+          .executor(executor)
+          .syncModeThreshold(options.getSyncThreshold())
+          .indexRequestFn(indexRequestFn)
+          .records(() -> join)
+          .backPressure(options.getBackPressure())
+          .esFailFast(options.getEsFailFast())
+          .counterFn(metrics::incMetric)
+          .build()
+          .write();
+    }
+  }
 }
@@ -2,12 +2,14 @@ package org.gbif.pipelines.ingest.java.pipelines;
 
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType.IDENTIFIER_ABSENT;
 import static org.gbif.pipelines.ingest.java.transforms.InterpretedAvroWriter.createAvroWriter;
+import static org.gbif.pipelines.ingest.java.transforms.InterpretedAvroWriter.createShardedAvroWriter;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -16,6 +18,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import lombok.AccessLevel;
 import lombok.Cleanup;
@@ -30,8 +33,11 @@ import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
 import org.gbif.pipelines.core.io.AvroReader;
+import org.gbif.pipelines.core.kvs.CachedKeyValueStore;
+import org.gbif.pipelines.core.kvs.KvCacheStats;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
+import org.gbif.pipelines.ingest.java.pipelines.interpretation.DeltaInterpretation;
 import org.gbif.pipelines.ingest.java.pipelines.interpretation.Shutdown;
 import org.gbif.pipelines.ingest.java.pipelines.interpretation.TransformsFactory;
 import org.gbif.pipelines.ingest.java.transforms.InterpretedAvroReader;
@@ -96,6 +102,11 @@ import org.slf4j.MDC;
  * --metaFileName=verbatim-to-occurrence.yml
  *
  * }</pre>
+ *
+ * <p>Use --streamingBatchSize to run {@link VerbatimToOccurrenceStreamingPipeline} for big datasets
+ *
+ * <p>Use --deltaAttempt=${PREVIOUS_ATTEMPT} to interpret only new and changed records, see {@link
+ * DeltaInterpretation}
  */
 @SuppressWarnings("all")
 @Slf4j
@@ -129,8 +140,18 @@ public class VerbatimToOccurrencePipeline {
 
   public static void run(InterpretationPipelineOptions options, ExecutorService executor) {
 
+    if (options.getStreamingBatchSize() > 0) {
+      if (options.getDeltaAttempt() != null) {
+        log.warn("Streaming pipeline doesn't support delta interpretation, all records are used");
+      }
+      VerbatimToOccurrenceStreamingPipeline.run(options, executor);
+      return;
+    }
+
     log.info("Pipeline has been started - {}", LocalDateTime.now());
     TransformsFactory transformsFactory = TransformsFactory.create(options);
+    // KV store cache counters are JVM-wide, only the counters of this run are saved
+    List<KvCacheStats> kvCacheStats = CachedKeyValueStore.getStats();
 
     String datasetId = options.getDatasetId();
     Integer attempt = options.getAttempt();
@@ -244,6 +265,10 @@ public class VerbatimToOccurrencePipeline {
               .build()
               .run();
 
+      DeltaInterpretation delta =
+          DeltaInterpretation.create(
+              options, transformsFactory.getConfig(), CORE_TERM, mdr, erExtMap.values());
+
       log.info("Starting rest of interpretations...");
 
       if (useGbifIdWriteIO(types) || useAbsentGbifIdReadIO(types)) {
@@ -251,19 +276,21 @@ public class VerbatimToOccurrencePipeline {
             hdfsConfigs, targetPath, datasetId, attempt, CORE_TERM, gbifIdTr.getAllNames());
       }
 
-      try (var gbifIdWriter = createAvroWriter(options, gbifIdTr, CORE_TERM, postfix);
-          var verbatimWriter = createAvroWriter(options, verbatimTr, CORE_TERM, postfix);
-          var clusteringWriter = createAvroWriter(options, clusteringTr, CORE_TERM, postfix);
-          var basicWriter = createAvroWriter(options, basicTr, CORE_TERM, postfix);
-          var temporalWriter = createAvroWriter(options, temporalTr, CORE_TERM, postfix);
-          var multimediaWriter = createAvroWriter(options, multimediaTr, CORE_TERM, postfix);
-          var imageWriter = createAvroWriter(options, imageTr, CORE_TERM, postfix);
-          var audubonWriter = createAvroWriter(options, audubonTr, CORE_TERM, postfix);
-          var taxonWriter = createAvroWriter(options, taxonomyTr, CORE_TERM, postfix);
-          var grscicollWriter = createAvroWriter(options, grscicollTr, CORE_TERM, postfix);
-          var locationWriter = createAvroWriter(options, locationTr, CORE_TERM, postfix);
+      try (var gbifIdWriter = createShardedAvroWriter(options, gbifIdTr, CORE_TERM, postfix);
+          var verbatimWriter = createShardedAvroWriter(options, verbatimTr, CORE_TERM, postfix);
+          var clusteringWriter =
+              createShardedAvroWriter(options, clusteringTr, CORE_TERM, postfix);
+          var basicWriter = createShardedAvroWriter(options, basicTr, CORE_TERM, postfix);
+          var temporalWriter = createShardedAvroWriter(options, temporalTr, CORE_TERM, postfix);
+          var multimediaWriter =
+              createShardedAvroWriter(options, multimediaTr, CORE_TERM, postfix);
+          var imageWriter = createShardedAvroWriter(options, imageTr, CORE_TERM, postfix);
+          var audubonWriter = createShardedAvroWriter(options, audubonTr, CORE_TERM, postfix);
+          var taxonWriter = createShardedAvroWriter(options, taxonomyTr, CORE_TERM, postfix);
+          var grscicollWriter = createShardedAvroWriter(options, grscicollTr, CORE_TERM, postfix);
+          var locationWriter = createShardedAvroWriter(options, locationTr, CORE_TERM, postfix);
           var gbifIdInvalidWriter =
-              createAvroWriter(
+              createShardedAvroWriter(
                   options, gbifIdTr, CORE_TERM, postfix, gbifIdTr.getBaseInvalidName())) {
 
         // Create interpretation function
@@ -289,6 +316,10 @@ public class VerbatimToOccurrencePipeline {
                 if (verbatimTr.checkType(types)) {
                   verbatimWriter.append(er);
                 }
+                // Interpreted records of unchanged records are copied from the delta attempt
+                if (delta.isUnchanged(er.getId())) {
+                  return;
+                }
                 if (basicTr.checkType(types)) {
                   basicTr.processElement(er).ifPresent(basicWriter::append);
                 }
@@ -347,12 +378,33 @@ public class VerbatimToOccurrencePipeline {
                   .map(v -> CompletableFuture.runAsync(() -> interpretAllFn.accept(v), executor));
         }
 
+        // Copy interpreted records of unchanged records from the delta attempt
+        Predicate<String> validIdFn =
+            id ->
+                gbifIdTransform.getIdInvalidMap().get(id) == null
+                    && gbifIdTransform.getErIdMap().get(id) != null;
+        Stream<CompletableFuture<Void>> streamDelta =
+            Stream.<Runnable>of(
+                    () -> delta.copy(basicTr, basicWriter::append, validIdFn),
+                    () -> delta.copy(temporalTr, temporalWriter::append, validIdFn),
+                    () -> delta.copy(multimediaTr, multimediaWriter::append, validIdFn),
+                    () -> delta.copy(imageTr, imageWriter::append, validIdFn),
+                    () -> delta.copy(audubonTr, audubonWriter::append, validIdFn),
+                    () -> delta.copy(taxonomyTr, taxonWriter::append, validIdFn),
+                    () -> delta.copy(grscicollTr, grscicollWriter::append, validIdFn),
+                    () -> delta.copy(locationTr, locationWriter::append, validIdFn))
+                .map(r -> CompletableFuture.runAsync(r, executor));
+
         // Wait for all features
         CompletableFuture<?>[] futures =
-            Stream.concat(streamIds, streamAll).toArray(CompletableFuture[]::new);
+            Stream.of(streamIds, streamAll, streamDelta)
+                .flatMap(Function.identity())
+                .toArray(CompletableFuture[]::new);
         CompletableFuture.allOf(futures).get();
       }
 
+      delta.writeIndex();
+
     } catch (Exception e) {
       log.error("Failed performing conversion on {}", e.getMessage());
       throw new IllegalStateException("Failed performing conversion on ", e);
@@ -365,7 +417,11 @@ public class VerbatimToOccurrencePipeline {
         PathBuilder.buildDatasetAttemptPath(options, options.getMetaFileName(), false);
     if (!FsUtils.fileExists(hdfsConfigs, metadataPath) || useGbifIdWriteIO(types)) {
       MetricsHandler.saveCountersToTargetPathFile(
-          options, transformsFactory.getMetrics().getMetricsResult());
+          options,
+          transformsFactory
+              .getMetrics()
+              .addKvCacheStats(CachedKeyValueStore.getStatsSince(kvCacheStats))
+              .getMetricsResult());
     }
 
     log.info("Pipeline has been finished - {}", LocalDateTime.now());
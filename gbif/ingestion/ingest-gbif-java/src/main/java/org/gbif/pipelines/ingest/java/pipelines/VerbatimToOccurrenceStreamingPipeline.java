@@ -0,0 +1,448 @@
+package org.gbif.pipelines.ingest.java.pipelines;
+
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.INVALID_GBIF_ID_COUNT;
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.AVRO_EXTENSION;
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType.IDENTIFIER_ABSENT;
+import static org.gbif.pipelines.ingest.java.transforms.InterpretedAvroWriter.createAvroWriter;
+import static org.gbif.pipelines.ingest.java.transforms.InterpretedAvroWriter.createShardedAvroWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.AccessLevel;
+import lombok.Cleanup;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.var;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.gbif.api.model.pipelines.StepType;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
+import org.gbif.pipelines.common.beam.metrics.MetricsHandler;
+import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
+import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.core.io.AvroReader;
+import org.gbif.pipelines.core.io.SyncDataFileWriter;
+import org.gbif.pipelines.core.io.SyncDataFileWriterBuilder;
+import org.gbif.pipelines.core.kvs.CachedKeyValueStore;
+import org.gbif.pipelines.core.kvs.KvCacheStats;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.core.utils.FsUtils;
+import org.gbif.pipelines.ingest.java.pipelines.interpretation.Shutdown;
+import org.gbif.pipelines.ingest.java.pipelines.interpretation.TransformsFactory;
+import org.gbif.pipelines.ingest.java.transforms.InterpretedAvroReader;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.IdentifierRecord;
+import org.gbif.pipelines.io.avro.MetadataRecord;
+import org.gbif.pipelines.transforms.common.ExtensionFilterTransform;
+import org.gbif.pipelines.transforms.core.BasicTransform;
+import org.gbif.pipelines.transforms.core.GrscicollTransform;
+import org.gbif.pipelines.transforms.core.LocationTransform;
+import org.gbif.pipelines.transforms.core.TaxonomyTransform;
+import org.gbif.pipelines.transforms.core.TemporalTransform;
+import org.gbif.pipelines.transforms.core.VerbatimTransform;
+import org.gbif.pipelines.transforms.extension.AudubonTransform;
+import org.gbif.pipelines.transforms.extension.ImageTransform;
+import org.gbif.pipelines.transforms.extension.MultimediaTransform;
+import org.gbif.pipelines.transforms.java.DefaultValuesTransform;
+import org.gbif.pipelines.transforms.java.OccurrenceExtensionTransform;
+import org.gbif.pipelines.transforms.java.UniqueExtendedRecordIndex;
+import org.gbif.pipelines.transforms.java.UniqueGbifIdIndex;
+import org.gbif.pipelines.transforms.metadata.MetadataTransform;
+import org.gbif.pipelines.transforms.specific.ClusteringTransform;
+import org.gbif.pipelines.transforms.specific.GbifIdAbsentTransform;
+import org.gbif.pipelines.transforms.specific.GbifIdTransform;
+import org.slf4j.MDC;
+
+/**
+ * Bounded memory version of {@link VerbatimToOccurrencePipeline}, used when {@link
+ * InterpretationPipelineOptions#getStreamingBatchSize()} is greater than 0. Records are never
+ * collected into maps, heap usage depends on the batch size, not on the dataset size.
+ *
+ * <p>Pipeline sequence:
+ *
+ * <pre>
+ *    1) Reads verbatim.avro file and indexes hashes of ids and records off-heap to find duplicates
+ *    2) Reads verbatim.avro file in batches, filters duplicates, applies extension and default
+ *    values transforms, interprets GBIF ids and spills records with valid GBIF ids to a local
+ *    temporary directory, GBIF id hashes are indexed off-heap to find GBIF id collisions
+ *    3) Reads spilled records in batches, filters GBIF id collisions, interprets and writes data to
+ *    independent files, the same as {@link VerbatimToOccurrencePipeline}
+ * </pre>
+ *
+ * <p>How to run:
+ *
+ * <pre>{@code
+ * java -cp target/ingest-gbif-java-BUILD_VERSION-shaded.jar org.gbif.pipelines.ingest.java.pipelines.VerbatimToOccurrencePipeline \
+ * --streamingBatchSize=10000 \
+ * ... the same parameters as for VerbatimToOccurrencePipeline
+ *
+ * }</pre>
+ */
+@SuppressWarnings("all")
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class VerbatimToOccurrenceStreamingPipeline {
+
+  private static final DwcTerm CORE_TERM = DwcTerm.Occurrence;
+  private static final String SPILL_ER = "verbatim" + AVRO_EXTENSION;
+  private static final String SPILL_ID = "identifier" + AVRO_EXTENSION;
+
+  public static void run(InterpretationPipelineOptions options, ExecutorService executor) {
+
+    log.info("Pipeline has been started - {}", LocalDateTime.now());
+    TransformsFactory transformsFactory = TransformsFactory.create(options);
+    // KV store cache counters are JVM-wide, only the counters of this run are saved
+    List<KvCacheStats> kvCacheStats = CachedKeyValueStore.getStats();
+
+    String datasetId = options.getDatasetId();
+    Integer attempt = options.getAttempt();
+    Set<String> types = options.getInterpretationTypes();
+    String targetPath = options.getTargetPath();
+    int batchSize = options.getStreamingBatchSize();
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+
+    // Remove directories with avro files for expected interpretation, except IDENTIFIER
+    Set<String> deleteTypes = new HashSet<>(types);
+    deleteTypes.remove(IDENTIFIER_ABSENT.name());
+    FsUtils.deleteInterpretIfExist(
+        hdfsConfigs, targetPath, datasetId, attempt, CORE_TERM, deleteTypes);
+
+    MDC.put("datasetKey", datasetId);
+    MDC.put("attempt", attempt.toString());
+    MDC.put("step", StepType.VERBATIM_TO_INTERPRETED.name());
+
+    String postfix = Long.toString(LocalDateTime.now().toEpochSecond(ZoneOffset.UTC));
+
+    log.info("Creating pipelines transforms");
+    // Core
+    MetadataTransform metadataTr = transformsFactory.createMetadataTransform();
+    GbifIdTransform gbifIdTr = transformsFactory.createGbifIdTransform();
+    GbifIdAbsentTransform gbifIdAbsentTr = transformsFactory.createGbifIdAbsentTransform();
+    ClusteringTransform clusteringTr = transformsFactory.createClusteringTransform();
+    BasicTransform basicTr = transformsFactory.createBasicTransform();
+    TaxonomyTransform taxonomyTr = transformsFactory.createTaxonomyTransform();
+    VerbatimTransform verbatimTr = transformsFactory.createVerbatimTransform();
+    GrscicollTransform grscicollTr = transformsFactory.createGrscicollTransform();
+    LocationTransform locationTr = transformsFactory.createLocationTransform();
+    TemporalTransform temporalTr = transformsFactory.createTemporalTransform();
+    MultimediaTransform multimediaTr = transformsFactory.createMultimediaTransform();
+    AudubonTransform audubonTr = transformsFactory.createAudubonTransform();
+    ImageTransform imageTr = transformsFactory.createImageTransform();
+    OccurrenceExtensionTransform occExtensionTr =
+        transformsFactory.createOccurrenceExtensionTransform();
+    ExtensionFilterTransform extensionFilterTr = transformsFactory.createExtensionFilterTransform();
+    DefaultValuesTransform defaultValuesTr = transformsFactory.createDefaultValuesTransform();
+
+    File spillDir = createSpillDirectory();
+
+    try {
+
+      // Create or read MetadataRecord
+      MetadataRecord mdr;
+      if (useMetadataRecordWriteIO(types)) {
+        mdr =
+            metadataTr
+                .processElement(options.getDatasetId())
+                .orElseThrow(() -> new IllegalArgumentException("MetadataRecord can't be null"));
+
+        @Cleanup
+        var metadataWriter = createAvroWriter(options, metadataTr, DwcTerm.Occurrence, postfix);
+        metadataWriter.append(mdr);
+      } else if (useMetadataRecordReadIO(types)) {
+        mdr =
+            InterpretedAvroReader.readAvroUseTargetPath(options, CORE_TERM, metadataTr)
+                .get(options.getDatasetId());
+      } else {
+        mdr = null;
+      }
+
+      log.info("Indexing verbatim records to find duplicates...");
+      UniqueExtendedRecordIndex erIndex = new UniqueExtendedRecordIndex();
+      AvroReader.readBatches(
+          hdfsConfigs,
+          ExtendedRecord.class,
+          options.getInputPath(),
+          batchSize,
+          batch -> batch.forEach(erIndex::add));
+      erIndex.build();
+
+      boolean useSyncMode = options.getSyncThreshold() > erIndex.size();
+
+      // Skip interpretation and use avro reader when partial intepretation is activated
+      Function<ExtendedRecord, Optional<IdentifierRecord>> idFn;
+      if (useGbifIdWriteIO(types)) {
+        log.info("Interpreting GBIF IDs records...");
+        idFn = gbifIdTr::processElement;
+      } else {
+        log.info("Skip GBIF IDs interpretation and reading GBIF IDs from avro files...");
+        Map<String, IdentifierRecord> idRecordMap =
+            InterpretedAvroReader.readAvroUseTargetPath(options, CORE_TERM, gbifIdTr);
+        Map<String, IdentifierRecord> absentIdRecordMap = new HashMap<>();
+
+        if (useAbsentGbifIdReadIO(types)) {
+          InterpretedAvroReader.readAvroUseTargetPath(
+                  options, gbifIdTr, CORE_TERM, gbifIdTr.getAbsentName())
+              .forEach(
+                  (k, v) -> {
+                    Consumer<IdentifierRecord> fn = ir -> absentIdRecordMap.put(k, ir);
+                    gbifIdAbsentTr.processElement(v).ifPresent(fn);
+                  });
+        }
+
+        idFn =
+            er -> {
+              IdentifierRecord ir =
+                  Optional.ofNullable(idRecordMap.get(er.getId()))
+                      .orElse(absentIdRecordMap.get(er.getId()));
+              return Optional.ofNullable(ir);
+            };
+      }
+
+      if (useGbifIdWriteIO(types) || useAbsentGbifIdReadIO(types)) {
+        FsUtils.deleteInterpretIfExist(
+            hdfsConfigs, targetPath, datasetId, attempt, CORE_TERM, gbifIdTr.getAllNames());
+      }
+
+      boolean writeIds = useGbifIdWriteIO(types) || useAbsentGbifIdReadIO(types);
+      boolean skipTransform = options.isUseExtendedRecordId();
+      UniqueGbifIdIndex gbifIdIndex = new UniqueGbifIdIndex(transformsFactory.getIncMetricFn());
+
+      try (var gbifIdWriter = createShardedAvroWriter(options, gbifIdTr, CORE_TERM, postfix);
+          var verbatimWriter = createShardedAvroWriter(options, verbatimTr, CORE_TERM, postfix);
+          var clusteringWriter =
+              createShardedAvroWriter(options, clusteringTr, CORE_TERM, postfix);
+          var basicWriter = createShardedAvroWriter(options, basicTr, CORE_TERM, postfix);
+          var temporalWriter = createShardedAvroWriter(options, temporalTr, CORE_TERM, postfix);
+          var multimediaWriter =
+              createShardedAvroWriter(options, multimediaTr, CORE_TERM, postfix);
+          var imageWriter = createShardedAvroWriter(options, imageTr, CORE_TERM, postfix);
+          var audubonWriter = createShardedAvroWriter(options, audubonTr, CORE_TERM, postfix);
+          var taxonWriter = createShardedAvroWriter(options, taxonomyTr, CORE_TERM, postfix);
+          var grscicollWriter = createShardedAvroWriter(options, grscicollTr, CORE_TERM, postfix);
+          var locationWriter = createShardedAvroWriter(options, locationTr, CORE_TERM, postfix);
+          var gbifIdInvalidWriter =
+              createShardedAvroWriter(
+                  options, gbifIdTr, CORE_TERM, postfix, gbifIdTr.getBaseInvalidName())) {
+
+        log.info("Interpreting GBIF IDs and spilling records in batches of {}...", batchSize);
+        try (SyncDataFileWriter<ExtendedRecord> erSpillWriter =
+                createSpillWriter(options, spillDir, SPILL_ER, ExtendedRecord.getClassSchema());
+            SyncDataFileWriter<IdentifierRecord> idSpillWriter =
+                createSpillWriter(options, spillDir, SPILL_ID, IdentifierRecord.getClassSchema())) {
+
+          AvroReader.readBatches(
+              hdfsConfigs,
+              ExtendedRecord.class,
+              options.getInputPath(),
+              batchSize,
+              batch -> {
+                // Filter duplicates and replace default values
+                Map<String, ExtendedRecord> erMap = new LinkedHashMap<>(batch.size());
+                batch.stream().filter(erIndex::accept).forEach(er -> erMap.put(er.getId(), er));
+                Map<String, ExtendedRecord> erExtMap = occExtensionTr.transform(erMap);
+                erExtMap = extensionFilterTr.transform(erExtMap);
+                defaultValuesTr.replaceDefaultValues(erExtMap);
+
+                List<ExtendedRecord> erList = new ArrayList<>(erExtMap.values());
+                List<Optional<IdentifierRecord>> idList =
+                    mapBatch(erList, idFn, executor, useSyncMode);
+
+                for (int i = 0; i < erList.size(); i++) {
+                  ExtendedRecord er = erList.get(i);
+                  Optional<IdentifierRecord> id = idList.get(i);
+
+                  // Can be absent if there are GBIF id collisstions and identifiers stage dropped
+                  // duplicates
+                  if (!id.isPresent()) {
+                    log.warn(
+                        "OccurrenceID {} doesn't have correlated GBIF id (identifiers stage dropped duplicates)",
+                        er.getId());
+                  } else if (skipTransform || id.get().getInternalId() != null) {
+                    if (!skipTransform) {
+                      gbifIdIndex.add(id.get());
+                    }
+                    erSpillWriter.append(er);
+                    idSpillWriter.append(id.get());
+                  } else {
+                    transformsFactory.getIncMetricFn().accept(INVALID_GBIF_ID_COUNT);
+                    log.error("GBIF ID is null, occurrenceId - {}", id.get().getId());
+                    gbifIdInvalidWriter.append(id.get());
+                  }
+                }
+              });
+        }
+        gbifIdIndex.build();
+
+        // Create interpretation function
+        BiConsumer<ExtendedRecord, IdentifierRecord> interpretAllFn =
+            (er, id) -> {
+              if (clusteringTr.checkType(types)) {
+                clusteringTr.processElement(id).ifPresent(clusteringWriter::append);
+              }
+              if (verbatimTr.checkType(types)) {
+                verbatimWriter.append(er);
+              }
+              if (basicTr.checkType(types)) {
+                basicTr.processElement(er).ifPresent(basicWriter::append);
+              }
+              if (temporalTr.checkType(types)) {
+                temporalTr.processElement(er).ifPresent(temporalWriter::append);
+              }
+              if (multimediaTr.checkType(types)) {
+                multimediaTr.processElement(er).ifPresent(multimediaWriter::append);
+              }
+              if (imageTr.checkType(types)) {
+                imageTr.processElement(er).ifPresent(imageWriter::append);
+              }
+              if (audubonTr.checkType(types)) {
+                audubonTr.processElement(er).ifPresent(audubonWriter::append);
+              }
+              if (taxonomyTr.checkType(types)) {
+                taxonomyTr.processElement(er).ifPresent(taxonWriter::append);
+              }
+              if (grscicollTr.checkType(types)) {
+                grscicollTr.processElement(er, mdr).ifPresent(grscicollWriter::append);
+              }
+              if (locationTr.checkType(types)) {
+                locationTr.processElement(er, mdr).ifPresent(locationWriter::append);
+              }
+            };
+
+        log.info("Starting rest of interpretations in batches of {}...", batchSize);
+        String erSpillPath = new File(spillDir, SPILL_ER).getAbsolutePath();
+        try (DataFileReader<IdentifierRecord> idSpillReader =
+            new DataFileReader<>(
+                new File(spillDir, SPILL_ID), new SpecificDatumReader<>(IdentifierRecord.class))) {
+
+          AvroReader.readBatches(
+              HdfsConfigs.nullConfig(),
+              ExtendedRecord.class,
+              erSpillPath,
+              batchSize,
+              batch -> {
+                List<ExtendedRecord> validErList = new ArrayList<>(batch.size());
+                List<IdentifierRecord> validIdList = new ArrayList<>(batch.size());
+                for (ExtendedRecord er : batch) {
+                  // Spilled identifiers have the same order as spilled records
+                  IdentifierRecord id = idSpillReader.next();
+                  if (skipTransform || gbifIdIndex.accept(id)) {
+                    if (writeIds) {
+                      gbifIdWriter.append(id);
+                    }
+                    validErList.add(er);
+                    validIdList.add(id);
+                  } else {
+                    gbifIdInvalidWriter.append(id);
+                  }
+                }
+                List<Integer> indexes =
+                    IntStream.range(0, validErList.size()).boxed().collect(Collectors.toList());
+                mapBatch(
+                    indexes,
+                    i -> {
+                      interpretAllFn.accept(validErList.get(i), validIdList.get(i));
+                      return i;
+                    },
+                    executor,
+                    useSyncMode);
+              });
+        }
+      }
+
+    } catch (Exception e) {
+      log.error("Failed performing conversion on {}", e.getMessage());
+      throw new IllegalStateException("Failed performing conversion on ", e);
+    } finally {
+      FsUtils.removeTmpDirectory(spillDir.getAbsolutePath());
+      Shutdown.doOnExit(basicTr, locationTr, taxonomyTr, grscicollTr, gbifIdTr);
+    }
+
+    log.info("Save metrics into the file and set files owner");
+    String metadataPath =
+        PathBuilder.buildDatasetAttemptPath(options, options.getMetaFileName(), false);
+    if (!FsUtils.fileExists(hdfsConfigs, metadataPath) || useGbifIdWriteIO(types)) {
+      MetricsHandler.saveCountersToTargetPathFile(
+          options,
+          transformsFactory
+              .getMetrics()
+              .addKvCacheStats(CachedKeyValueStore.getStatsSince(kvCacheStats))
+              .getMetricsResult());
+    }
+
+    log.info("Pipeline has been finished - {}", LocalDateTime.now());
+  }
+
+  /** Applies the function to every element of the batch and waits, keeps the order of elements */
+  @SneakyThrows
+  private static <T, R> List<R> mapBatch(
+      List<T> batch, Function<T, R> fn, ExecutorService executor, boolean useSyncMode) {
+    List<R> result = new ArrayList<>(batch.size());
+    if (useSyncMode) {
+      batch.forEach(x -> result.add(fn.apply(x)));
+    } else {
+      List<CompletableFuture<R>> futures = new ArrayList<>(batch.size());
+      batch.forEach(x -> futures.add(CompletableFuture.supplyAsync(() -> fn.apply(x), executor)));
+      for (CompletableFuture<R> future : futures) {
+        result.add(future.get());
+      }
+    }
+    return result;
+  }
+
+  @SneakyThrows
+  private static File createSpillDirectory() {
+    return Files.createTempDirectory("verbatim-to-occurrence-").toFile();
+  }
+
+  private static <T> SyncDataFileWriter<T> createSpillWriter(
+      InterpretationPipelineOptions options, File spillDir, String name, Schema schema)
+      throws IOException {
+    return SyncDataFileWriterBuilder.builder()
+        .schema(schema)
+        .codec(options.getAvroCompressionType())
+        .outputStream(new FileOutputStream(new File(spillDir, name)))
+        .syncInterval(options.getAvroSyncInterval())
+        .build()
+        .createSyncDataFileWriter();
+  }
+
+  private static boolean useGbifIdWriteIO(Set<String> types) {
+    return types.contains(RecordType.IDENTIFIER.name()) || types.contains(RecordType.ALL.name());
+  }
+
+  private static boolean useAbsentGbifIdReadIO(Set<String> types) {
+    return types.contains(RecordType.IDENTIFIER_ABSENT.name());
+  }
+
+  private static boolean useMetadataRecordWriteIO(Set<String> types) {
+    return types.contains(RecordType.METADATA.name()) || types.contains(RecordType.ALL.name());
+  }
+
+  private static boolean useMetadataRecordReadIO(Set<String> types) {
+    return types.contains(RecordType.LOCATION.name())
+        || types.contains(RecordType.GRSCICOLL.name());
+  }
+}
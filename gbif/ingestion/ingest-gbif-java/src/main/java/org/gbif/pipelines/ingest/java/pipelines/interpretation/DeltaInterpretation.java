@@ -0,0 +1,312 @@
+package org.gbif.pipelines.ingest.java.pipelines.interpretation;
+
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.ALL_AVRO;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
+import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
+import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.core.config.model.GeocodeLayerConfig;
+import org.gbif.pipelines.core.config.model.KvConfig;
+import org.gbif.pipelines.core.config.model.PipelinesConfig;
+import org.gbif.pipelines.core.config.model.VocabularyConfig;
+import org.gbif.pipelines.core.io.AvroReader;
+import org.gbif.pipelines.core.io.FingerprintIndex;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.core.utils.FsUtils;
+import org.gbif.pipelines.core.utils.HashConverter;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.MetadataRecord;
+import org.gbif.pipelines.io.avro.Record;
+import org.gbif.pipelines.transforms.Transform;
+
+/**
+ * Delta interpretation, when {@link InterpretationPipelineOptions#getDeltaAttempt()} is set,
+ * records with the same {@link FingerprintIndex} fingerprint as in the delta attempt aren't
+ * interpreted, their interpreted records are copied from the delta attempt.
+ *
+ * <p>The fingerprint index of all records is written to the "fingerprint" directory of the attempt
+ * when ALL types are interpreted. The context of the index is a fingerprint of everything else the
+ * interpretation depends on: the version of pipelines, the metadata record, versions of the
+ * backbone, geocode, grscicoll and vocabulary data and the interpretation config. If any of them
+ * was changed, all records are interpreted. If any version is unknown, the index isn't written and
+ * all records are interpreted.
+ */
+@Slf4j
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class DeltaInterpretation {
+
+  public static final String FINGERPRINT_DIR = "fingerprint";
+  public static final String FINGERPRINT_FILE = "index.idx";
+  /** Filtered by maven, used if the jar manifest has no Implementation-Version */
+  static final String VERSION_PROPERTIES = "ingest-gbif-java.properties";
+
+  private static final int COPY_BATCH_SIZE = 10_000;
+
+  private final InterpretationPipelineOptions options;
+  private final DwcTerm coreTerm;
+  private final FingerprintIndex index;
+  private final Set<String> unchangedIds;
+
+  /**
+   * @param config interpretation config
+   * @param mdr metadata record of the dataset, can be null if ALL types aren't interpreted
+   * @param records all records of the attempt
+   */
+  public static DeltaInterpretation create(
+      InterpretationPipelineOptions options,
+      PipelinesConfig config,
+      DwcTerm coreTerm,
+      MetadataRecord mdr,
+      Collection<ExtendedRecord> records) {
+    if (!options.getInterpretationTypes().contains(RecordType.ALL.name()) || mdr == null) {
+      return new DeltaInterpretation(options, coreTerm, null, Collections.emptySet());
+    }
+
+    Optional<Long> context = getContext(options, config, mdr);
+    if (!context.isPresent()) {
+      return new DeltaInterpretation(options, coreTerm, null, Collections.emptySet());
+    }
+
+    FingerprintIndex index = new FingerprintIndex(context.get());
+    Optional<FingerprintIndex> deltaIndex = readDeltaIndex(options, coreTerm, index.getContext());
+    Set<String> unchangedIds = new HashSet<>();
+    for (ExtendedRecord er : records) {
+      long fingerprint = FingerprintIndex.fingerprint(er);
+      index.add(er.getId(), fingerprint);
+      if (deltaIndex.isPresent() && deltaIndex.get().contains(er.getId(), fingerprint)) {
+        unchangedIds.add(er.getId());
+      }
+    }
+
+    if (deltaIndex.isPresent()) {
+      log.info(
+          "Delta interpretation, {} of {} records are unchanged since attempt {}",
+          unchangedIds.size(),
+          records.size(),
+          options.getDeltaAttempt());
+    }
+    return new DeltaInterpretation(options, coreTerm, index, unchangedIds);
+  }
+
+  /** The record is unchanged, interpreted records must be copied from the delta attempt */
+  public boolean isUnchanged(String id) {
+    return unchangedIds.contains(id);
+  }
+
+  /**
+   * Copies interpreted records of unchanged records from the delta attempt, counters of the
+   * transform are incremented as if the records were interpreted
+   *
+   * @param idFilter filters ids of records to copy
+   */
+  public <T extends SpecificRecordBase & Record> void copy(
+      Transform<?, T> transform, Consumer<T> writer, Predicate<String> idFilter) {
+    if (unchangedIds.isEmpty() || !transform.checkType(options.getInterpretationTypes())) {
+      return;
+    }
+    String path =
+        PathBuilder.buildPathInterpretUsingTargetPath(
+            options, options.getDeltaAttempt(), coreTerm, transform.getBaseName(), ALL_AVRO);
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+    // Shards are created on the first record, the directory is absent if there were no records
+    if (!FsUtils.fileExists(hdfsConfigs, new Path(path).getParent().toString())) {
+      return;
+    }
+    log.info("Copying unchanged records from {}", path);
+    AvroReader.readBatches(
+        hdfsConfigs,
+        transform.getReturnClazz(),
+        path,
+        COPY_BATCH_SIZE,
+        batch ->
+            batch.stream()
+                .filter(r -> isUnchanged(r.getId()) && idFilter.test(r.getId()))
+                .forEach(
+                    r -> {
+                      writer.accept(r);
+                      transform.incCounter();
+                    }));
+  }
+
+  /** Writes the fingerprint index of the attempt, the next attempt can use it as a delta */
+  @SneakyThrows
+  public void writeIndex() {
+    if (index == null) {
+      return;
+    }
+    String path =
+        PathBuilder.buildPathInterpretUsingTargetPath(
+            options, coreTerm, FINGERPRINT_DIR, FINGERPRINT_FILE);
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+    FileSystem fs = FsUtils.createParentDirectories(hdfsConfigs, new Path(path));
+    try (OutputStream out = fs.create(new Path(path))) {
+      index.write(out);
+    }
+    log.info("Fingerprint index of {} records has been written to {}", index.size(), path);
+  }
+
+  @SneakyThrows
+  private static Optional<FingerprintIndex> readDeltaIndex(
+      InterpretationPipelineOptions options, DwcTerm coreTerm, long context) {
+    Integer deltaAttempt = options.getDeltaAttempt();
+    if (deltaAttempt == null) {
+      return Optional.empty();
+    }
+    if (deltaAttempt.equals(options.getAttempt())) {
+      log.warn("Delta attempt is the same as the attempt, all records are interpreted");
+      return Optional.empty();
+    }
+    String path =
+        PathBuilder.buildPathInterpretUsingTargetPath(
+            options, deltaAttempt, coreTerm, FINGERPRINT_DIR, FINGERPRINT_FILE);
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+    if (!FsUtils.fileExists(hdfsConfigs, path)) {
+      log.warn("Fingerprint index {} doesn't exist, all records are interpreted", path);
+      return Optional.empty();
+    }
+    FingerprintIndex deltaIndex;
+    try (InputStream in = FsUtils.getFileSystem(hdfsConfigs, path).open(new Path(path))) {
+      deltaIndex = FingerprintIndex.read(in);
+    }
+    if (deltaIndex.getContext() != context) {
+      log.info("Metadata, lookup data or config were changed, all records are interpreted");
+      return Optional.empty();
+    }
+    return Optional.of(deltaIndex);
+  }
+
+  /**
+   * Fingerprint of everything besides the record the interpretation depends on, empty if the
+   * version of pipelines or of used lookup data is unknown. Metadata fields which change every
+   * crawl are excluded.
+   */
+  @SneakyThrows
+  static Optional<Long> getContext(
+      InterpretationPipelineOptions options, PipelinesConfig config, MetadataRecord mdr) {
+    Optional<String> version = getPipelinesVersion();
+    if (!version.isPresent()) {
+      log.warn("Pipelines version is unknown, delta interpretation is disabled");
+      return Optional.empty();
+    }
+
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+    List<String> context = new ArrayList<>();
+    context.add(version.get());
+    context.add(
+        MetadataRecord.newBuilder(mdr)
+            .setCreated(null)
+            .setLastCrawled(null)
+            .setCrawlId(null)
+            .build()
+            .toString());
+    context.add(String.valueOf(options.getDefaultDateFormat()));
+    context.add(config.toString());
+
+    // Lookup data can change without any change of the config
+    boolean useGeocodeLayers =
+        config.getGeocodeLayers() != null && !config.getGeocodeLayers().isEmpty();
+    Map<String, KvConfig> kvConfigs = new TreeMap<>();
+    kvConfigs.put("nameUsageMatch", config.getNameUsageMatch());
+    kvConfigs.put("grscicollLookup", config.getGrscicollLookup());
+    if (!useGeocodeLayers) {
+      kvConfigs.put("geocode", config.getGeocode());
+    }
+    for (Map.Entry<String, KvConfig> kv : kvConfigs.entrySet()) {
+      if (kv.getValue() != null) {
+        if (kv.getValue().getDataVersion() == null) {
+          log.warn("Data version of {} is unknown, all records are interpreted", kv.getKey());
+          return Optional.empty();
+        }
+        context.add(kv.getKey() + "=" + kv.getValue().getDataVersion());
+      }
+    }
+
+    // Shapefiles of the embedded geocoder are local files
+    if (useGeocodeLayers) {
+      for (GeocodeLayerConfig layer : config.getGeocodeLayers()) {
+        File shp = new File(layer.getPath() + ".shp");
+        if (!shp.exists()) {
+          log.warn("Geocode layer {} doesn't exist, all records are interpreted", shp);
+          return Optional.empty();
+        }
+        context.add(shp + "=" + shp.lastModified() + "/" + shp.length());
+      }
+    }
+
+    List<String> files = new ArrayList<>();
+    // A relative image path is a resource of pipelines, it is covered by the version
+    Optional.ofNullable(config.getImageCachePath())
+        .filter(ip -> new Path(ip).isAbsolute())
+        .ifPresent(files::add);
+    Optional.ofNullable(config.getRasterIndexPath()).ifPresent(files::add);
+    VocabularyConfig vocabularyConfig = config.getVocabularyConfig();
+    if (vocabularyConfig != null) {
+      vocabularyConfig.getVocabulariesNames().values().stream()
+          .sorted()
+          .map(
+              name ->
+                  String.join(
+                      Path.SEPARATOR, vocabularyConfig.getVocabulariesPath(), name + ".json"))
+          .forEach(files::add);
+    }
+    for (String file : files) {
+      if (!FsUtils.fileExists(hdfsConfigs, file)) {
+        log.warn("Lookup file {} doesn't exist, all records are interpreted", file);
+        return Optional.empty();
+      }
+      FileStatus status = FsUtils.getFileSystem(hdfsConfigs, file).getFileStatus(new Path(file));
+      context.add(file + "=" + status.getModificationTime() + "/" + status.getLen());
+    }
+
+    return Optional.of(HashConverter.getSha1Long(String.join("|", context)));
+  }
+
+  /**
+   * Version of pipelines from the jar manifest, or from {@link #VERSION_PROPERTIES} if the manifest
+   * has no Implementation-Version, empty if neither is set
+   */
+  @SneakyThrows
+  static Optional<String> getPipelinesVersion() {
+    String version = DeltaInterpretation.class.getPackage().getImplementationVersion();
+    if (version == null) {
+      try (InputStream in =
+          DeltaInterpretation.class.getClassLoader().getResourceAsStream(VERSION_PROPERTIES)) {
+        if (in != null) {
+          Properties properties = new Properties();
+          properties.load(in);
+          version = properties.getProperty("pipelines.version");
+        }
+      }
+    }
+    // An unfiltered resource isn't a version
+    return Optional.ofNullable(version).filter(v -> !v.isEmpty() && !v.startsWith("${"));
+  }
+}
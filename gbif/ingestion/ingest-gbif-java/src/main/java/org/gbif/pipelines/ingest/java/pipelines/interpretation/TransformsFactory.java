@@ -53,7 +53,7 @@ public class TransformsFactory {
   @Getter private final SerializableConsumer<String> incMetricFn = metrics::incMetric;
   private final InterpretationPipelineOptions options;
   private final HdfsConfigs hdfsConfigs;
-  private final PipelinesConfig config;
+  @Getter private final PipelinesConfig config;
   private final List<DateComponentOrdering> dateComponentOrdering;
 
   private TransformsFactory(InterpretationPipelineOptions options) {
@@ -12,6 +12,8 @@ import org.elasticsearch.action.index.IndexRequest;
 import org.gbif.pipelines.common.beam.metrics.IngestMetrics;
 import org.gbif.pipelines.core.converters.MultimediaConverter;
 import org.gbif.pipelines.core.converters.OccurrenceJsonConverter;
+import org.gbif.pipelines.core.io.JoinedRecords;
+import org.gbif.pipelines.core.io.SortMergeJoin;
 import org.gbif.pipelines.io.avro.AudubonRecord;
 import org.gbif.pipelines.io.avro.BasicRecord;
 import org.gbif.pipelines.io.avro.ClusteringRecord;
@@ -35,65 +37,100 @@ public class IndexRequestConverter {
   @NonNull private final String esIndexName;
 
   @NonNull private final MetadataRecord metadata;
-  @NonNull private final Map<String, ExtendedRecord> verbatimMap;
-  @NonNull private final Map<String, BasicRecord> basicMap;
-  @NonNull private final Map<String, ClusteringRecord> clusteringMap;
-  @NonNull private final Map<String, TemporalRecord> temporalMap;
-  @NonNull private final Map<String, LocationRecord> locationMap;
-  @NonNull private final Map<String, TaxonRecord> taxonMap;
-  @NonNull private final Map<String, GrscicollRecord> grscicollMap;
-  @NonNull private final Map<String, MultimediaRecord> multimediaMap;
-  @NonNull private final Map<String, ImageRecord> imageMap;
-  @NonNull private final Map<String, AudubonRecord> audubonMap;
+  /** Maps aren't used by {@link #getJoinedFn()} */
+  private final Map<String, ExtendedRecord> verbatimMap;
+
+  private final Map<String, BasicRecord> basicMap;
+  private final Map<String, ClusteringRecord> clusteringMap;
+  private final Map<String, TemporalRecord> temporalMap;
+  private final Map<String, LocationRecord> locationMap;
+  private final Map<String, TaxonRecord> taxonMap;
+  private final Map<String, GrscicollRecord> grscicollMap;
+  private final Map<String, MultimediaRecord> multimediaMap;
+  private final Map<String, ImageRecord> imageMap;
+  private final Map<String, AudubonRecord> audubonMap;
 
   /** Join all records, convert into string json and IndexRequest for ES */
   public Function<IdentifierRecord, IndexRequest> getFn() {
     return id -> {
       String k = id.getId();
-      // Core
-      ExtendedRecord er = verbatimMap.getOrDefault(k, ExtendedRecord.newBuilder().setId(k).build());
-      ClusteringRecord cr =
-          clusteringMap.getOrDefault(k, ClusteringRecord.newBuilder().setId(k).build());
-      BasicRecord br = basicMap.getOrDefault(k, BasicRecord.newBuilder().setId(k).build());
-      TemporalRecord tr = temporalMap.getOrDefault(k, TemporalRecord.newBuilder().setId(k).build());
-      LocationRecord lr = locationMap.getOrDefault(k, LocationRecord.newBuilder().setId(k).build());
-      TaxonRecord txr = taxonMap.getOrDefault(k, TaxonRecord.newBuilder().setId(k).build());
-      GrscicollRecord gr =
-          grscicollMap.getOrDefault(k, GrscicollRecord.newBuilder().setId(k).build());
-      // Extension
-      MultimediaRecord mr =
-          multimediaMap.getOrDefault(k, MultimediaRecord.newBuilder().setId(k).build());
-      ImageRecord ir = imageMap.getOrDefault(k, ImageRecord.newBuilder().setId(k).build());
-      AudubonRecord ar = audubonMap.getOrDefault(k, AudubonRecord.newBuilder().setId(k).build());
+      return convert(
+          JoinedRecords.create(k)
+              .put(IdentifierRecord.class, id)
+              .put(ExtendedRecord.class, verbatimMap.get(k))
+              .put(ClusteringRecord.class, clusteringMap.get(k))
+              .put(BasicRecord.class, basicMap.get(k))
+              .put(TemporalRecord.class, temporalMap.get(k))
+              .put(LocationRecord.class, locationMap.get(k))
+              .put(TaxonRecord.class, taxonMap.get(k))
+              .put(GrscicollRecord.class, grscicollMap.get(k))
+              .put(MultimediaRecord.class, multimediaMap.get(k))
+              .put(ImageRecord.class, imageMap.get(k))
+              .put(AudubonRecord.class, audubonMap.get(k)));
+    };
+  }
 
-      MultimediaRecord mmr = MultimediaConverter.merge(mr, ir, ar);
-      OccurrenceJsonRecord json =
-          OccurrenceJsonConverter.builder()
-              .metadata(metadata)
-              .identifier(id)
-              .clustering(cr)
-              .basic(br)
-              .temporal(tr)
-              .location(lr)
-              .taxon(txr)
-              .grscicoll(gr)
-              .multimedia(mmr)
-              .verbatim(er)
-              .build()
-              .convert();
+  /** Converts records joined by {@link SortMergeJoin} */
+  public Function<JoinedRecords, IndexRequest> getJoinedFn() {
+    return this::convert;
+  }
 
-      metrics.incMetric(AVRO_TO_JSON_COUNT);
+  private IndexRequest convert(JoinedRecords jr) {
+    String k = jr.getId();
+    IdentifierRecord id = jr.get(IdentifierRecord.class);
+    // Core
+    ExtendedRecord er =
+        jr.getOrDefault(ExtendedRecord.class, () -> ExtendedRecord.newBuilder().setId(k).build());
+    ClusteringRecord cr =
+        jr.getOrDefault(
+            ClusteringRecord.class, () -> ClusteringRecord.newBuilder().setId(k).build());
+    BasicRecord br =
+        jr.getOrDefault(BasicRecord.class, () -> BasicRecord.newBuilder().setId(k).build());
+    TemporalRecord tr =
+        jr.getOrDefault(TemporalRecord.class, () -> TemporalRecord.newBuilder().setId(k).build());
+    LocationRecord lr =
+        jr.getOrDefault(LocationRecord.class, () -> LocationRecord.newBuilder().setId(k).build());
+    TaxonRecord txr =
+        jr.getOrDefault(TaxonRecord.class, () -> TaxonRecord.newBuilder().setId(k).build());
+    GrscicollRecord gr =
+        jr.getOrDefault(GrscicollRecord.class, () -> GrscicollRecord.newBuilder().setId(k).build());
+    // Extension
+    MultimediaRecord mr =
+        jr.getOrDefault(
+            MultimediaRecord.class, () -> MultimediaRecord.newBuilder().setId(k).build());
+    ImageRecord ir =
+        jr.getOrDefault(ImageRecord.class, () -> ImageRecord.newBuilder().setId(k).build());
+    AudubonRecord ar =
+        jr.getOrDefault(AudubonRecord.class, () -> AudubonRecord.newBuilder().setId(k).build());
 
-      IndexRequest indexRequest = new IndexRequest(esIndexName).source(json.toString(), JSON);
+    MultimediaRecord mmr = MultimediaConverter.merge(mr, ir, ar);
+    OccurrenceJsonRecord json =
+        OccurrenceJsonConverter.builder()
+            .metadata(metadata)
+            .identifier(id)
+            .clustering(cr)
+            .basic(br)
+            .temporal(tr)
+            .location(lr)
+            .taxon(txr)
+            .grscicoll(gr)
+            .multimedia(mmr)
+            .verbatim(er)
+            .build()
+            .convert();
 
-      // Ignore gbifID as ES doc ID, useful for validator
-      if (esDocumentId != null && !esDocumentId.isEmpty()) {
-        String docId =
-            esDocumentId.equals(GBIF_ID) ? id.getInternalId() : json.get(esDocumentId).toString();
-        indexRequest = indexRequest.id(docId);
-      }
+    metrics.incMetric(AVRO_TO_JSON_COUNT);
 
-      return indexRequest;
-    };
+    IndexRequest indexRequest =
+        new IndexRequest(esIndexName).source(OccurrenceJsonConverter.toJsonBytes(json), JSON);
+
+    // Ignore gbifID as ES doc ID, useful for validator
+    if (esDocumentId != null && !esDocumentId.isEmpty()) {
+      String docId =
+          esDocumentId.equals(GBIF_ID) ? id.getInternalId() : json.get(esDocumentId).toString();
+      indexRequest = indexRequest.id(docId);
+    }
+
+    return indexRequest;
   }
 }
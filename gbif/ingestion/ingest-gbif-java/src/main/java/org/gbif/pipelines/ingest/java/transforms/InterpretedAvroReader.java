@@ -12,6 +12,7 @@ import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
 import org.gbif.pipelines.core.io.AvroReader;
+import org.gbif.pipelines.core.io.SortedMergeIterator;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.io.avro.Record;
 import org.gbif.pipelines.transforms.Transform;
@@ -38,6 +39,21 @@ public class InterpretedAvroReader {
         executor);
   }
 
+  /**
+   * Read avro files written with {@link InterpretationPipelineOptions#getSortedAvro()} as one
+   * iterator sorted by id, see {@link org.gbif.pipelines.core.io.SortMergeJoin}
+   */
+  public static <T extends SpecificRecordBase & Record> SortedMergeIterator<T> readSorted(
+      InterpretationPipelineOptions options, DwcTerm coreTerm, Transform<?, T> transform) {
+    String path =
+        PathBuilder.buildPathInterpretUsingInputPath(
+            options, coreTerm, transform.getBaseName(), ALL_AVRO);
+    return AvroReader.readSorted(
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig()),
+        transform.getReturnClazz(),
+        path);
+  }
+
   /** Read avro files and return as Map<ID, Clazz> */
   public static <T extends SpecificRecordBase & Record> Map<String, T> readAvroUseTargetPath(
       InterpretationPipelineOptions options, DwcTerm coreTerm, Transform<?, T> transform) {
@@ -3,6 +3,7 @@ package org.gbif.pipelines.ingest.java.transforms;
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.AVRO_EXTENSION;
 import static org.gbif.pipelines.core.utils.FsUtils.createParentDirectories;
 
+import java.util.Comparator;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
@@ -12,6 +13,7 @@ import org.apache.hadoop.fs.Path;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.core.io.ShardedDataFileWriter;
 import org.gbif.pipelines.core.io.SyncDataFileWriter;
 import org.gbif.pipelines.core.io.SyncDataFileWriterBuilder;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
@@ -48,4 +50,57 @@ public class InterpretedAvroWriter {
       InterpretationPipelineOptions options, Transform<?, T> transform, DwcTerm term, String id) {
     return createAvroWriter(options, transform, term, id, transform.getBaseName());
   }
+
+  /**
+   * Create an AVRO file writer for many threads, every shard is written to a separate file, like
+   * interpret-ID-0.avro, interpret-ID-1.avro. The number of shards is {@link
+   * InterpretationPipelineOptions#getNumberOfShards()}, by default the number of processors.
+   *
+   * <p>If {@link InterpretationPipelineOptions#getSortedAvro()} is enabled, records are sorted by
+   * id, sorted runs are spilled to local files and merged into the shard file on close, see {@link
+   * ShardedDataFileWriter}.
+   */
+  @SneakyThrows
+  public static <T extends SpecificRecordBase & Record>
+      ShardedDataFileWriter<T> createShardedAvroWriter(
+          InterpretationPipelineOptions options,
+          Transform<?, T> transform,
+          DwcTerm term,
+          String id,
+          String baseName) {
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+    ShardedDataFileWriter.ShardedDataFileWriterBuilder<T> builder =
+        ShardedDataFileWriter.<T>builder();
+    if (options.getSortedAvro()) {
+      builder
+          .comparator(Comparator.comparing(Record::getId))
+          .sortBufferSize(options.getSortedAvroBufferSize());
+    }
+    return builder
+        .schema(transform.getAvroSchema())
+        .codec(options.getAvroCompressionType())
+        .syncInterval(options.getAvroSyncInterval())
+        .maxShards(options.getNumberOfShards())
+        .name(baseName)
+        .outputStreamFactory(
+            shard -> {
+              String pathString =
+                  PathBuilder.buildPathInterpretUsingTargetPath(
+                      options, term, baseName, id + "-" + shard + AVRO_EXTENSION);
+              Path path = new Path(pathString);
+              FileSystem fs = createParentDirectories(hdfsConfigs, path);
+              return fs.create(path);
+            })
+        .create();
+  }
+
+  public static <T extends SpecificRecordBase & Record>
+      ShardedDataFileWriter<T> createShardedAvroWriter(
+          InterpretationPipelineOptions options,
+          Transform<?, T> transform,
+          DwcTerm term,
+          String id) {
+    return createShardedAvroWriter(options, transform, term, id, transform.getBaseName());
+  }
 }
@@ -0,0 +1,102 @@
+package org.gbif.pipelines.ingest.java.transforms;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.SneakyThrows;
+import org.apache.avro.Schema;
+import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.InterpretationType;
+import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
+import org.gbif.pipelines.core.io.JoinedRecords;
+import org.gbif.pipelines.core.io.SortMergeJoin;
+import org.gbif.pipelines.core.io.SyncRecordWriter;
+import org.gbif.pipelines.transforms.common.CheckTransforms;
+
+/**
+ * Writes tables of records joined by {@link SortMergeJoin} in one pass, unlike {@link
+ * TableRecordWriter} which needs all records in memory. Joined records are converted in parallel in
+ * batches of {@code batchSize}, only one batch is kept in memory.
+ */
+@Builder
+public class JoinedTableWriter {
+
+  @NonNull private final InterpretationPipelineOptions options;
+  @NonNull private final Iterator<JoinedRecords> records;
+  @NonNull private final Function<InterpretationType, String> targetPathFn;
+  @NonNull private final ExecutorService executor;
+  @NonNull private final Set<String> types;
+  @Singular private final List<Table<?>> tables;
+  @Builder.Default private final int batchSize = 10_000;
+
+  @SneakyThrows
+  public void write() {
+    List<TableSink<?>> sinks = new ArrayList<>();
+    try {
+      for (Table<?> table : tables) {
+        if (CheckTransforms.checkRecordType(types, table.recordType)) {
+          sinks.add(table.open(options, targetPathFn));
+        }
+      }
+
+      List<JoinedRecords> batch = new ArrayList<>(batchSize);
+      while (records.hasNext()) {
+        batch.add(records.next());
+        if (batch.size() >= batchSize) {
+          writeBatch(batch, sinks);
+          batch = new ArrayList<>(batchSize);
+        }
+      }
+      if (!batch.isEmpty()) {
+        writeBatch(batch, sinks);
+      }
+    } finally {
+      for (TableSink<?> sink : sinks) {
+        sink.writer.close();
+      }
+    }
+  }
+
+  @SneakyThrows
+  private void writeBatch(List<JoinedRecords> batch, List<TableSink<?>> sinks) {
+    CompletableFuture<?>[] futures =
+        batch.stream()
+            .map(jr -> CompletableFuture.runAsync(() -> sinks.forEach(s -> s.write(jr)), executor))
+            .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(futures).get();
+  }
+
+  /** Table of the record type, written if the type is in {@code types} */
+  @AllArgsConstructor(staticName = "create")
+  public static class Table<T> {
+
+    private final InterpretationType recordType;
+    private final Schema schema;
+    private final Function<JoinedRecords, List<T>> recordFunction;
+
+    private TableSink<T> open(
+        InterpretationPipelineOptions options, Function<InterpretationType, String> targetPathFn) {
+      SyncRecordWriter<T> writer =
+          TableRecordWriter.createWriter(options, schema, recordType, targetPathFn);
+      return new TableSink<>(writer, recordFunction);
+    }
+  }
+
+  @AllArgsConstructor
+  private static class TableSink<T> {
+
+    private final SyncRecordWriter<T> writer;
+    private final Function<JoinedRecords, List<T>> recordFunction;
+
+    private void write(JoinedRecords jr) {
+      recordFunction.apply(jr).forEach(writer::append);
+    }
+  }
+}
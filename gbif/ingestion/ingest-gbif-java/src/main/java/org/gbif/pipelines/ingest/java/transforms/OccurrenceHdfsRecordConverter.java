@@ -11,6 +11,8 @@ import lombok.Builder;
 import lombok.NonNull;
 import org.gbif.pipelines.common.beam.metrics.IngestMetrics;
 import org.gbif.pipelines.core.converters.MultimediaConverter;
+import org.gbif.pipelines.core.io.JoinedRecords;
+import org.gbif.pipelines.core.io.SortMergeJoin;
 import org.gbif.pipelines.io.avro.AudubonRecord;
 import org.gbif.pipelines.io.avro.BasicRecord;
 import org.gbif.pipelines.io.avro.ClusteringRecord;
@@ -26,42 +28,81 @@ import org.gbif.pipelines.io.avro.TaxonRecord;
 import org.gbif.pipelines.io.avro.TemporalRecord;
 import org.gbif.pipelines.io.avro.grscicoll.GrscicollRecord;
 
+/**
+ * Joins records by id and converts them into {@link OccurrenceHdfsRecord}, records are looked up in
+ * maps of all records or come joined by {@link SortMergeJoin}, in this case maps aren't used.
+ */
 @Builder
 public class OccurrenceHdfsRecordConverter {
 
   private final IngestMetrics metrics;
 
   @NonNull private final MetadataRecord metadata;
-  @NonNull private final Map<String, ExtendedRecord> verbatimMap;
+  private final Map<String, ExtendedRecord> verbatimMap;
   private Map<String, ClusteringRecord> clusteringMap;
   private Map<String, BasicRecord> basicMap;
-  @NonNull private final Map<String, TemporalRecord> temporalMap;
-  @NonNull private final Map<String, LocationRecord> locationMap;
-  @NonNull private final Map<String, TaxonRecord> taxonMap;
+  private final Map<String, TemporalRecord> temporalMap;
+  private final Map<String, LocationRecord> locationMap;
+  private final Map<String, TaxonRecord> taxonMap;
   private Map<String, GrscicollRecord> grscicollMap;
-  @NonNull private final Map<String, MultimediaRecord> multimediaMap;
-  @NonNull private final Map<String, ImageRecord> imageMap;
-  @NonNull private final Map<String, AudubonRecord> audubonMap;
+  private final Map<String, MultimediaRecord> multimediaMap;
+  private final Map<String, ImageRecord> imageMap;
+  private final Map<String, AudubonRecord> audubonMap;
   private Map<String, EventCoreRecord> eventCoreRecordMap;
 
   public Function<IdentifierRecord, List<OccurrenceHdfsRecord>> getFn() {
     return id -> Collections.singletonList(convert(id));
   }
 
+  /** Converts records joined by {@link SortMergeJoin} */
+  public Function<JoinedRecords, List<OccurrenceHdfsRecord>> getJoinedFn() {
+    return jr -> Collections.singletonList(convert(jr));
+  }
+
   /** Join all records, convert into OccurrenceHdfsRecord and save as an avro file */
   public OccurrenceHdfsRecord convert(IdentifierRecord idr) {
     String k = idr.getId();
+    JoinedRecords jr =
+        JoinedRecords.create(k)
+            .put(IdentifierRecord.class, idr)
+            .put(ExtendedRecord.class, verbatimMap.get(k))
+            .put(TemporalRecord.class, temporalMap.get(k))
+            .put(LocationRecord.class, locationMap.get(k))
+            .put(TaxonRecord.class, taxonMap.get(k))
+            .put(MultimediaRecord.class, multimediaMap.get(k))
+            .put(ImageRecord.class, imageMap.get(k))
+            .put(AudubonRecord.class, audubonMap.get(k));
+
+    Optional.ofNullable(basicMap).ifPresent(bm -> jr.put(BasicRecord.class, bm.get(k)));
+    Optional.ofNullable(clusteringMap).ifPresent(cm -> jr.put(ClusteringRecord.class, cm.get(k)));
+    Optional.ofNullable(grscicollMap).ifPresent(gm -> jr.put(GrscicollRecord.class, gm.get(k)));
+    Optional.ofNullable(eventCoreRecordMap)
+        .ifPresent(em -> jr.put(EventCoreRecord.class, em.get(k)));
+
+    return convert(jr);
+  }
+
+  /** Convert joined records into OccurrenceHdfsRecord, records of joined inputs can be absent */
+  public OccurrenceHdfsRecord convert(JoinedRecords jr) {
+    String k = jr.getId();
     // Core
-    ExtendedRecord er = verbatimMap.getOrDefault(k, ExtendedRecord.newBuilder().setId(k).build());
-    TemporalRecord tr = temporalMap.getOrDefault(k, TemporalRecord.newBuilder().setId(k).build());
-    LocationRecord lr = locationMap.getOrDefault(k, LocationRecord.newBuilder().setId(k).build());
-    TaxonRecord txr = taxonMap.getOrDefault(k, TaxonRecord.newBuilder().setId(k).build());
+    ExtendedRecord er =
+        jr.getOrDefault(ExtendedRecord.class, () -> ExtendedRecord.newBuilder().setId(k).build());
+    TemporalRecord tr =
+        jr.getOrDefault(TemporalRecord.class, () -> TemporalRecord.newBuilder().setId(k).build());
+    LocationRecord lr =
+        jr.getOrDefault(LocationRecord.class, () -> LocationRecord.newBuilder().setId(k).build());
+    TaxonRecord txr =
+        jr.getOrDefault(TaxonRecord.class, () -> TaxonRecord.newBuilder().setId(k).build());
 
     // Extension
     MultimediaRecord mr =
-        multimediaMap.getOrDefault(k, MultimediaRecord.newBuilder().setId(k).build());
-    ImageRecord ir = imageMap.getOrDefault(k, ImageRecord.newBuilder().setId(k).build());
-    AudubonRecord ar = audubonMap.getOrDefault(k, AudubonRecord.newBuilder().setId(k).build());
+        jr.getOrDefault(
+            MultimediaRecord.class, () -> MultimediaRecord.newBuilder().setId(k).build());
+    ImageRecord ir =
+        jr.getOrDefault(ImageRecord.class, () -> ImageRecord.newBuilder().setId(k).build());
+    AudubonRecord ar =
+        jr.getOrDefault(AudubonRecord.class, () -> AudubonRecord.newBuilder().setId(k).build());
 
     MultimediaRecord mmr = MultimediaConverter.merge(mr, ir, ar);
 
@@ -71,7 +112,7 @@ public class OccurrenceHdfsRecordConverter {
             .OccurrenceHdfsRecordConverterBuilder
         hdfsRecord =
             org.gbif.pipelines.core.converters.OccurrenceHdfsRecordConverter.builder()
-                .identifierRecord(idr)
+                .identifierRecord(jr.get(IdentifierRecord.class))
                 .metadataRecord(metadata)
                 .temporalRecord(tr)
                 .locationRecord(lr)
@@ -79,29 +120,28 @@ public class OccurrenceHdfsRecordConverter {
                 .multimediaRecord(mmr)
                 .extendedRecord(er);
 
-    Optional.ofNullable(basicMap)
-        .ifPresent(
-            bm ->
-                hdfsRecord.basicRecord(
-                    bm.getOrDefault(k, BasicRecord.newBuilder().setId(k).build())));
-
-    Optional.ofNullable(clusteringMap)
-        .ifPresent(
-            cm ->
-                hdfsRecord.clusteringRecord(
-                    cm.getOrDefault(k, ClusteringRecord.newBuilder().setId(k).build())));
-
-    Optional.ofNullable(grscicollMap)
-        .ifPresent(
-            gm ->
-                hdfsRecord.grscicollRecord(
-                    gm.getOrDefault(k, GrscicollRecord.newBuilder().setId(k).build())));
-
-    Optional.ofNullable(eventCoreRecordMap)
-        .ifPresent(
-            em ->
-                hdfsRecord.eventCoreRecord(
-                    em.getOrDefault(k, EventCoreRecord.newBuilder().setId(k).build())));
+    if (jr.contains(BasicRecord.class)) {
+      hdfsRecord.basicRecord(
+          jr.getOrDefault(BasicRecord.class, () -> BasicRecord.newBuilder().setId(k).build()));
+    }
+
+    if (jr.contains(ClusteringRecord.class)) {
+      hdfsRecord.clusteringRecord(
+          jr.getOrDefault(
+              ClusteringRecord.class, () -> ClusteringRecord.newBuilder().setId(k).build()));
+    }
+
+    if (jr.contains(GrscicollRecord.class)) {
+      hdfsRecord.grscicollRecord(
+          jr.getOrDefault(
+              GrscicollRecord.class, () -> GrscicollRecord.newBuilder().setId(k).build()));
+    }
+
+    if (jr.contains(EventCoreRecord.class)) {
+      hdfsRecord.eventCoreRecord(
+          jr.getOrDefault(
+              EventCoreRecord.class, () -> EventCoreRecord.newBuilder().setId(k).build()));
+    }
 
     return hdfsRecord.build().convert();
   }
@@ -8,6 +8,8 @@ import lombok.NonNull;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.beam.sdk.transforms.SerializableFunction;
 import org.gbif.pipelines.common.beam.metrics.IngestMetrics;
+import org.gbif.pipelines.core.io.JoinedRecords;
+import org.gbif.pipelines.core.io.SortMergeJoin;
 import org.gbif.pipelines.core.pojo.ErIdrMdrContainer;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 import org.gbif.pipelines.io.avro.IdentifierRecord;
@@ -22,7 +24,8 @@ public class TableConverter<T extends SpecificRecordBase> {
 
   @NonNull private final MetadataRecord metadataRecord;
 
-  @NonNull private final Map<String, ExtendedRecord> verbatimMap;
+  /** Isn't used by {@link #getJoinedFn()} */
+  private final Map<String, ExtendedRecord> verbatimMap;
 
   @NonNull private final SerializableFunction<ErIdrMdrContainer, List<T>> converterFn;
 
@@ -32,12 +35,25 @@ public class TableConverter<T extends SpecificRecordBase> {
       String k = id.getId();
       // Core
       ExtendedRecord er = verbatimMap.getOrDefault(k, ExtendedRecord.newBuilder().setId(k).build());
+      return convert(er, id);
+    };
+  }
+
+  /** Converts records joined by {@link SortMergeJoin} */
+  public Function<JoinedRecords, List<T>> getJoinedFn() {
+    return jr -> {
+      ExtendedRecord er =
+          jr.getOrDefault(
+              ExtendedRecord.class, () -> ExtendedRecord.newBuilder().setId(jr.getId()).build());
+      return convert(er, jr.get(IdentifierRecord.class));
+    };
+  }
 
-      List<T> table = converterFn.apply(ErIdrMdrContainer.create(er, id, metadataRecord));
+  private List<T> convert(ExtendedRecord er, IdentifierRecord id) {
+    List<T> table = converterFn.apply(ErIdrMdrContainer.create(er, id, metadataRecord));
 
-      table.forEach(x -> metrics.incMetric(counterName));
+    table.forEach(x -> metrics.incMetric(counterName));
 
-      return table;
-    };
+    return table;
   }
 }
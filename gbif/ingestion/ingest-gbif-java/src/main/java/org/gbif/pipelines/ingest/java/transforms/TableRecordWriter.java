@@ -1,5 +1,7 @@
 package org.gbif.pipelines.ingest.java.transforms;
 
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.AVRO_EXTENSION;
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.PARQUET_EXTENSION;
 import static org.gbif.pipelines.core.utils.FsUtils.createParentDirectories;
 
 import java.util.Collection;
@@ -16,9 +18,12 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.InterpretationType;
 import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
-import org.gbif.pipelines.core.io.SyncDataFileWriter;
+import org.gbif.pipelines.core.io.ParquetSettings;
 import org.gbif.pipelines.core.io.SyncDataFileWriterBuilder;
+import org.gbif.pipelines.core.io.SyncParquetWriterBuilder;
+import org.gbif.pipelines.core.io.SyncRecordWriter;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.ingest.utils.HdfsViewAvroUtils;
 import org.gbif.pipelines.io.avro.IdentifierRecord;
 import org.gbif.pipelines.transforms.common.CheckTransforms;
 
@@ -37,7 +42,7 @@ public class TableRecordWriter<T> {
   @SneakyThrows
   public void write() {
     if (CheckTransforms.checkRecordType(types, recordType)) {
-      try (SyncDataFileWriter<T> writer = createWriter(options)) {
+      try (SyncRecordWriter<T> writer = createWriter(options)) {
         boolean useSyncMode = options.getSyncThreshold() > identifierRecords.size();
         if (useSyncMode) {
           syncWrite(writer);
@@ -49,7 +54,7 @@ public class TableRecordWriter<T> {
     }
   }
 
-  private CompletableFuture<?>[] asyncWrite(SyncDataFileWriter<T> writer) {
+  private CompletableFuture<?>[] asyncWrite(SyncRecordWriter<T> writer) {
     return identifierRecords.stream()
         .map(recordFunction)
         .flatMap(List::stream)
@@ -57,17 +62,49 @@ public class TableRecordWriter<T> {
         .toArray(CompletableFuture[]::new);
   }
 
-  private void syncWrite(SyncDataFileWriter<T> writer) {
+  private void syncWrite(SyncRecordWriter<T> writer) {
     identifierRecords.stream().map(recordFunction).flatMap(List::stream).forEach(writer::append);
   }
 
-  /** Create an AVRO file writer */
+  /** Create an AVRO or Parquet file writer */
+  private SyncRecordWriter<T> createWriter(InterpretationPipelineOptions options) {
+    return createWriter(options, schema, recordType, targetPathFn);
+  }
+
+  /**
+   * Create an AVRO file writer, or a Parquet file writer if the table is set in {@link
+   * InterpretationPipelineOptions#getParquetTables()}
+   */
   @SneakyThrows
-  private SyncDataFileWriter<T> createWriter(InterpretationPipelineOptions options) {
-    Path path = new Path(targetPathFn.apply(recordType));
-    FileSystem verbatimFs =
-        createParentDirectories(
-            HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig()), path);
+  static <T> SyncRecordWriter<T> createWriter(
+      InterpretationPipelineOptions options,
+      Schema schema,
+      InterpretationType recordType,
+      Function<InterpretationType, String> targetPathFn) {
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+    String targetPath = targetPathFn.apply(recordType);
+
+    ParquetSettings parquetSettings = HdfsViewAvroUtils.getParquetSettings(options);
+    if (parquetSettings.isParquet(recordType)) {
+      if (targetPath.endsWith(AVRO_EXTENSION)) {
+        targetPath =
+            targetPath.substring(0, targetPath.length() - AVRO_EXTENSION.length())
+                + PARQUET_EXTENSION;
+      }
+      Path path = new Path(targetPath);
+      FileSystem fs = createParentDirectories(hdfsConfigs, path);
+      return SyncParquetWriterBuilder.builder()
+          .schema(schema)
+          .settings(parquetSettings)
+          .path(path)
+          .configuration(fs.getConf())
+          .build()
+          .createSyncParquetWriter();
+    }
+
+    Path path = new Path(targetPath);
+    FileSystem verbatimFs = createParentDirectories(hdfsConfigs, path);
     return SyncDataFileWriterBuilder.builder()
         .schema(schema)
         .codec(options.getAvroCompressionType())
@@ -0,0 +1,19 @@
+package org.gbif.pipelines.ingest.java.pipelines.interpretation;
+
+import java.util.Optional;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeltaInterpretationTest {
+
+  @Test
+  public void pipelinesVersionTest() {
+
+    // When, classes aren't packaged into a jar, so there is no manifest version
+    Optional<String> version = DeltaInterpretation.getPipelinesVersion();
+
+    // Should
+    Assert.assertTrue(version.isPresent());
+    Assert.assertFalse(version.get().contains("${"));
+  }
+}
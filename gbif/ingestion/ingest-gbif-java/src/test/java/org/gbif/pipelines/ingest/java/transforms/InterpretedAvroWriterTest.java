@@ -9,6 +9,7 @@ import org.apache.avro.specific.SpecificDatumReader;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
+import org.gbif.pipelines.core.io.ShardedDataFileWriter;
 import org.gbif.pipelines.core.io.SyncDataFileWriter;
 import org.gbif.pipelines.io.avro.BasicRecord;
 import org.gbif.pipelines.transforms.core.BasicTransform;
@@ -62,4 +63,51 @@ public class InterpretedAvroWriterTest {
 
     Files.deleteIfExists(result.toPath());
   }
+
+  @Test
+  public void shardedWriterTest() throws IOException {
+
+    // State
+    BasicTransform basicTransform = BasicTransform.builder().create();
+    BasicRecord basicRecord = BasicRecord.newBuilder().setId("1").build();
+
+    String id = "id";
+
+    String outputFile =
+        getClass().getResource("/").getFile() + "/" + CORE_TERM.simpleName().toLowerCase();
+
+    String[] args = {
+      "--datasetId=d596fccb-2319-42eb-b13b-986c932780ad",
+      "--attempt=147",
+      "--interpretationTypes=ALL",
+      "--runner=SparkRunner",
+      "--numberOfShards=1",
+      "--targetPath=" + outputFile
+    };
+    InterpretationPipelineOptions options = PipelinesOptionsFactory.createInterpretation(args);
+
+    // When
+    try (ShardedDataFileWriter<BasicRecord> writer =
+        InterpretedAvroWriter.createShardedAvroWriter(options, basicTransform, CORE_TERM, id)) {
+      writer.append(basicRecord);
+    }
+
+    // Deserialize BasicRecord from disk
+    File result =
+        new File(
+            outputFile
+                + "/d596fccb-2319-42eb-b13b-986c932780ad/147/occurrence/basic/interpret-id-0.avro");
+    DatumReader<BasicRecord> datumReader = new SpecificDatumReader<>(BasicRecord.class);
+    int count = 0;
+    try (DataFileReader<BasicRecord> dataFileReader = new DataFileReader<>(result, datumReader)) {
+      while (dataFileReader.hasNext()) {
+        BasicRecord record = dataFileReader.next();
+        Assert.assertEquals(basicRecord.getId(), record.getId());
+        count++;
+      }
+    }
+    Assert.assertEquals(1, count);
+
+    Files.deleteIfExists(result.toPath());
+  }
 }
@@ -16,5 +16,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 public class ClusteringCandidates {
 
   @Nullable String hashKey;
+  // hash key of the group, differs from the hash key of blocks split from the group
+  @Nullable String groupKey;
   @Nullable List<HashKeyOccurrence> candidates;
 }
@@ -0,0 +1,316 @@
+package au.org.ala.clustering;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Metrics;
+import org.apache.beam.sdk.transforms.Distinct;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.GroupByKey;
+import org.apache.beam.sdk.transforms.MapElements;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.SimpleFunction;
+import org.apache.beam.sdk.transforms.join.CoGbkResult;
+import org.apache.beam.sdk.transforms.join.CoGroupByKey;
+import org.apache.beam.sdk.transforms.join.KeyedPCollectionTuple;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.TupleTag;
+import org.gbif.pipelines.io.avro.OccurrenceHashKeys;
+import org.gbif.pipelines.io.avro.Relationship;
+import org.gbif.pipelines.io.avro.Relationships;
+
+/**
+ * Transforms of the incremental clustering. The hash keys and a fingerprint of the features of
+ * every record are kept between runs as {@link OccurrenceHashKeys}. A record is changed if it is
+ * added, deleted, or its fingerprint or hash keys differ from the previous run. Only the candidate
+ * groups of the previous and current hash keys of changed records are compared again. All
+ * relationships found in a group are kept between runs per group, see {@link #groupState}, and the
+ * relationships of groups without changed records are reused, so an incremental run finds the same
+ * relationships as a full run.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class IncrementalClustering {
+
+  private static final String CHANGED_RECORDS = "changedRecords";
+
+  /** Hash of the clustering features of the record, the hash key isn't a feature */
+  public static String fingerprint(HashKeyOccurrence o) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    put(hasher, o.getId());
+    put(hasher, o.getDatasetKey());
+    put(hasher, o.getSpeciesKey());
+    put(hasher, o.getTaxonKey());
+    put(hasher, o.getBasisOfRecord());
+    put(hasher, o.getDecimalLatitude());
+    put(hasher, o.getDecimalLongitude());
+    put(hasher, o.getYear());
+    put(hasher, o.getMonth());
+    put(hasher, o.getDay());
+    put(hasher, o.getEventDate());
+    put(hasher, o.getScientificName());
+    put(hasher, o.getCountryCode());
+    put(hasher, o.getTypeStatus());
+    put(hasher, o.getOccurrenceID());
+    put(hasher, o.getRecordedBy());
+    put(hasher, o.getFieldNumber());
+    put(hasher, o.getRecordNumber());
+    put(hasher, o.getCatalogNumber());
+    put(hasher, o.getOtherCatalogNumbers());
+    put(hasher, o.getInstitutionCode());
+    put(hasher, o.getCollectionCode());
+    return hasher.hash().toString();
+  }
+
+  /** Hash keys of every record */
+  public static PCollection<OccurrenceHashKeys> hashKeys(PCollection<HashKeyOccurrence> hashAll) {
+    return hashAll
+        .apply(
+            "Key occurrences by id",
+            MapElements.via(
+                new SimpleFunction<HashKeyOccurrence, KV<String, HashKeyOccurrence>>() {
+                  @Override
+                  public KV<String, HashKeyOccurrence> apply(HashKeyOccurrence input) {
+                    return KV.of(input.getId(), input);
+                  }
+                }))
+        .apply("Group occurrences by id", GroupByKey.create())
+        .apply(
+            "Create hash keys",
+            MapElements.via(
+                new SimpleFunction<KV<String, Iterable<HashKeyOccurrence>>, OccurrenceHashKeys>() {
+                  @Override
+                  public OccurrenceHashKeys apply(KV<String, Iterable<HashKeyOccurrence>> input) {
+                    TreeSet<String> keys = new TreeSet<>();
+                    HashKeyOccurrence first = null;
+                    for (HashKeyOccurrence o : input.getValue()) {
+                      first = first == null ? o : first;
+                      keys.add(o.getHashKey());
+                    }
+                    return OccurrenceHashKeys.newBuilder()
+                        .setId(input.getKey())
+                        .setFingerprint(fingerprint(Objects.requireNonNull(first)))
+                        .setHashKeys(new ArrayList<>(keys))
+                        .build();
+                  }
+                }));
+  }
+
+  /**
+   * Records added, deleted or changed since the previous run, with hash keys of both runs
+   *
+   * @param current hash keys of this run
+   * @param previous hash keys of the previous run
+   */
+  public static PCollection<OccurrenceHashKeys> changes(
+      PCollection<OccurrenceHashKeys> current, PCollection<OccurrenceHashKeys> previous) {
+
+    TupleTag<OccurrenceHashKeys> currentTag = new TupleTag<OccurrenceHashKeys>() {};
+    TupleTag<OccurrenceHashKeys> previousTag = new TupleTag<OccurrenceHashKeys>() {};
+
+    return KeyedPCollectionTuple.of(currentTag, byId(current, "current"))
+        .and(previousTag, byId(previous, "previous"))
+        .apply("Join hash keys by id", CoGroupByKey.create())
+        .apply(
+            "Find changed records",
+            ParDo.of(
+                new DoFn<KV<String, CoGbkResult>, OccurrenceHashKeys>() {
+
+                  private final Counter changedRecords =
+                      Metrics.counter(IncrementalClustering.class, CHANGED_RECORDS);
+
+                  @ProcessElement
+                  public void processElement(
+                      @Element KV<String, CoGbkResult> source,
+                      OutputReceiver<OccurrenceHashKeys> out) {
+                    OccurrenceHashKeys c = source.getValue().getOnly(currentTag, null);
+                    OccurrenceHashKeys p = source.getValue().getOnly(previousTag, null);
+
+                    boolean changed =
+                        c == null
+                            || p == null
+                            || !c.getFingerprint().equals(p.getFingerprint())
+                            || !c.getHashKeys().equals(p.getHashKeys());
+
+                    if (changed) {
+                      TreeSet<String> keys = new TreeSet<>();
+                      if (c != null) {
+                        keys.addAll(c.getHashKeys());
+                      }
+                      if (p != null) {
+                        keys.addAll(p.getHashKeys());
+                      }
+                      changedRecords.inc();
+                      out.output(
+                          OccurrenceHashKeys.newBuilder()
+                              .setId(source.getKey())
+                              .setFingerprint(c != null ? c.getFingerprint() : "")
+                              .setHashKeys(new ArrayList<>(keys))
+                              .build());
+                    }
+                  }
+                }));
+  }
+
+  /**
+   * Hash keys of the previous and current candidate groups of changed records
+   *
+   * @param changes changed records
+   */
+  public static PCollection<KV<String, Boolean>> touchedKeys(
+      PCollection<OccurrenceHashKeys> changes) {
+    return changes
+        .apply(
+            "Touched hash keys",
+            ParDo.of(
+                new DoFn<OccurrenceHashKeys, String>() {
+                  @ProcessElement
+                  public void processElement(
+                      @Element OccurrenceHashKeys source, OutputReceiver<String> out) {
+                    source.getHashKeys().forEach(out::output);
+                  }
+                }))
+        .apply("Distinct touched hash keys", Distinct.create())
+        .apply("Key touched hash keys", MapElements.via(new ToKey()));
+  }
+
+  /**
+   * Candidate groups of the hash keys touched by changed records
+   *
+   * @param occurrences occurrences keyed by hash key
+   * @param touched hash keys of {@link #touchedKeys}
+   */
+  public static PCollection<KV<String, Iterable<HashKeyOccurrence>>> touchedGroups(
+      PCollection<KV<String, HashKeyOccurrence>> occurrences,
+      PCollection<KV<String, Boolean>> touched) {
+
+    TupleTag<HashKeyOccurrence> occurrenceTag = new TupleTag<HashKeyOccurrence>() {};
+    TupleTag<Boolean> touchedTag = new TupleTag<Boolean>() {};
+
+    return KeyedPCollectionTuple.of(occurrenceTag, occurrences)
+        .and(touchedTag, touched)
+        .apply("Join touched hash keys", CoGroupByKey.create())
+        .apply(
+            "Filter touched groups",
+            ParDo.of(
+                new DoFn<KV<String, CoGbkResult>, KV<String, Iterable<HashKeyOccurrence>>>() {
+                  @ProcessElement
+                  public void processElement(
+                      @Element KV<String, CoGbkResult> source,
+                      OutputReceiver<KV<String, Iterable<HashKeyOccurrence>>> out) {
+                    if (source.getValue().getAll(touchedTag).iterator().hasNext()) {
+                      List<HashKeyOccurrence> group = new ArrayList<>();
+                      source.getValue().getAll(occurrenceTag).forEach(group::add);
+                      if (!group.isEmpty()) {
+                        out.output(KV.of(source.getKey(), group));
+                      }
+                    }
+                  }
+                }));
+  }
+
+  /**
+   * All relationships of every group, the state of the next incremental run
+   *
+   * @param relationships relationships keyed by the hash key of the group
+   */
+  public static PCollection<Relationships> groupState(
+      PCollection<KV<String, Relationship>> relationships) {
+    return relationships
+        .apply("Group relationships by hash key", GroupByKey.create())
+        .apply(
+            "Create group relationships",
+            MapElements.via(
+                new SimpleFunction<KV<String, Iterable<Relationship>>, Relationships>() {
+                  @Override
+                  public Relationships apply(KV<String, Iterable<Relationship>> input) {
+                    Set<Relationship> set = new HashSet<>();
+                    input.getValue().forEach(set::add);
+                    return Relationships.newBuilder()
+                        .setId(input.getKey())
+                        .setRelationships(new ArrayList<>(set))
+                        .build();
+                  }
+                }));
+  }
+
+  /**
+   * Relationships of the previous run of groups without changed records, keyed by the hash key of
+   * the group as the relationships of a run
+   *
+   * @param previous relationships of groups of the previous run, see {@link #groupState}
+   * @param touched hash keys of {@link #touchedKeys}
+   */
+  public static PCollection<KV<String, Relationship>> keptRelationships(
+      PCollection<Relationships> previous, PCollection<KV<String, Boolean>> touched) {
+
+    PCollection<KV<String, Relationship>> byHashKey =
+        previous.apply(
+            "Previous relationships",
+            ParDo.of(
+                new DoFn<Relationships, KV<String, Relationship>>() {
+                  @ProcessElement
+                  public void processElement(
+                      @Element Relationships source, OutputReceiver<KV<String, Relationship>> out) {
+                    for (Relationship r : source.getRelationships()) {
+                      out.output(KV.of(source.getId(), r));
+                    }
+                  }
+                }));
+
+    TupleTag<Relationship> relationshipTag = new TupleTag<Relationship>() {};
+    TupleTag<Boolean> touchedTag = new TupleTag<Boolean>() {};
+
+    return KeyedPCollectionTuple.of(relationshipTag, byHashKey)
+        .and(touchedTag, touched)
+        .apply("Join previous relationships and touched hash keys", CoGroupByKey.create())
+        .apply(
+            "Filter touched groups of previous relationships",
+            ParDo.of(
+                new DoFn<KV<String, CoGbkResult>, KV<String, Relationship>>() {
+                  @ProcessElement
+                  public void processElement(
+                      @Element KV<String, CoGbkResult> source,
+                      OutputReceiver<KV<String, Relationship>> out) {
+                    if (!source.getValue().getAll(touchedTag).iterator().hasNext()) {
+                      for (Relationship r : source.getValue().getAll(relationshipTag)) {
+                        out.output(KV.of(source.getKey(), r));
+                      }
+                    }
+                  }
+                }));
+  }
+
+  private static PCollection<KV<String, OccurrenceHashKeys>> byId(
+      PCollection<OccurrenceHashKeys> hashKeys, String name) {
+    return hashKeys.apply(
+        "Key " + name + " hash keys by id",
+        MapElements.via(
+            new SimpleFunction<OccurrenceHashKeys, KV<String, OccurrenceHashKeys>>() {
+              @Override
+              public KV<String, OccurrenceHashKeys> apply(OccurrenceHashKeys input) {
+                return KV.of(input.getId(), input);
+              }
+            }));
+  }
+
+  private static void put(Hasher hasher, Object value) {
+    hasher.putString(String.valueOf(value), StandardCharsets.UTF_8).putChar('\u0000');
+  }
+
+  private static class ToKey extends SimpleFunction<String, KV<String, Boolean>> {
+    @Override
+    public KV<String, Boolean> apply(String input) {
+      return KV.of(input, Boolean.TRUE);
+    }
+  }
+}
@@ -34,4 +34,6 @@ public class DistributionLayer {
   private String wmsurl;
   private String family;
   private int geom_idx;
+  // WKT, only if requested with nowkt=false
+  private String geometry;
 }
@@ -0,0 +1,123 @@
+package au.org.ala.distribution;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.gbif.pipelines.core.parsers.clustering.Haversine;
+import org.locationtech.jts.algorithm.locate.IndexedPointInAreaLocator;
+import org.locationtech.jts.algorithm.locate.PointOnGeometryLocator;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.index.strtree.ItemDistance;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.locationtech.jts.operation.distance.DistanceOp;
+
+/**
+ * Expert distribution layers of a species, polygons of all layers are indexed by an STR-tree.
+ *
+ * <p>Distances are in metres, like the distances of the spatial service outliers: 0 - inside a
+ * layer, -1 - the species has no layers, otherwise the distance to the closest polygon. The closest
+ * point is found in degrees, the distance to it is the great circle distance.
+ *
+ * <p>The index is built eagerly, so one instance can be shared by all threads.
+ */
+@Slf4j
+public class ExpertDistribution {
+
+  public static final double INSIDE = 0d;
+  public static final double NO_DISTRIBUTION = -1d;
+
+  /** Species without expert distribution layers */
+  public static final ExpertDistribution EMPTY = new ExpertDistribution(new ArrayList<>());
+
+  private static final GeometryFactory FACTORY = new GeometryFactory();
+
+  /** Distance between polygons and the point in degrees */
+  private static final ItemDistance DISTANCE =
+      (a, b) -> ((Area) a.getItem()).geometry.distance(((Area) b.getItem()).geometry);
+
+  private final STRtree index = new STRtree();
+  private final int size;
+  private final int numPoints;
+
+  private ExpertDistribution(List<Geometry> polygons) {
+    int points = 0;
+    for (Geometry polygon : polygons) {
+      index.insert(
+          polygon.getEnvelopeInternal(), new Area(polygon, new IndexedPointInAreaLocator(polygon)));
+      points += polygon.getNumPoints();
+    }
+    index.build();
+    this.size = polygons.size();
+    this.numPoints = points;
+  }
+
+  /** Polygons of the WKT geometry of every layer, layers without polygons are skipped */
+  public static ExpertDistribution create(List<DistributionLayer> layers) {
+    if (layers == null || layers.isEmpty()) {
+      return EMPTY;
+    }
+    WKTReader reader = new WKTReader(FACTORY);
+    List<Geometry> polygons = new ArrayList<>();
+    for (DistributionLayer layer : layers) {
+      if (StringUtils.isEmpty(layer.getGeometry())) {
+        log.warn(
+            "Expert distribution layer {} of {} has no geometry", layer.getGid(), layer.getLsid());
+        continue;
+      }
+      try {
+        Geometry geometry = reader.read(layer.getGeometry());
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+          Geometry g = geometry.getGeometryN(i);
+          if (g instanceof Polygonal && !g.isEmpty()) {
+            polygons.add(g);
+          }
+        }
+      } catch (ParseException ex) {
+        throw new IllegalArgumentException(
+            "Invalid geometry of expert distribution layer " + layer.getGid(), ex);
+      }
+    }
+    return new ExpertDistribution(polygons);
+  }
+
+  /** @return distance to the closest polygon in metres, 0 if the point is inside a polygon */
+  public double distance(double latitude, double longitude) {
+    if (size == 0) {
+      return NO_DISTRIBUTION;
+    }
+    Coordinate coordinate = new Coordinate(longitude, latitude);
+    Envelope envelope = new Envelope(coordinate);
+
+    for (Object item : index.query(envelope)) {
+      if (((Area) item).locator.locate(coordinate) != Location.EXTERIOR) {
+        return INSIDE;
+      }
+    }
+
+    Area point = new Area(FACTORY.createPoint(coordinate), null);
+    Area nearest = (Area) index.nearestNeighbour(envelope, point, DISTANCE);
+    Coordinate closest = DistanceOp.nearestPoints(nearest.geometry, point.geometry)[0];
+    return Haversine.distance(latitude, longitude, closest.y, closest.x) * 1000d;
+  }
+
+  /** Number of coordinates of all polygons, the weight of the distribution in a cache */
+  public int getNumPoints() {
+    return numPoints;
+  }
+
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  private static class Area {
+    private final Geometry geometry;
+    private final PointOnGeometryLocator locator;
+  }
+}
@@ -0,0 +1,44 @@
+package au.org.ala.distribution;
+
+import au.org.ala.pipelines.options.DistributionOutlierPipelineOptions;
+import au.org.ala.pipelines.util.VersionInfo;
+import au.org.ala.utils.CombinedYamlConfiguration;
+import java.nio.file.Paths;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.gbif.pipelines.common.PipelinesException;
+import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
+
+/**
+ * Exports expert distribution layers of the spatial service to the expertDistributionPath, so the
+ * outliers are calculated without requests to the spatial service.
+ *
+ * <p>Example: java au.org.ala.distribution.ExpertDistributionExport
+ * --config=/data/la-pipelines/config/la-pipelines.yaml
+ * --expertDistributionPath=/data/pipelines-distribution
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ExpertDistributionExport {
+
+  public static void main(String[] args) throws Exception {
+    VersionInfo.print();
+    CombinedYamlConfiguration conf = new CombinedYamlConfiguration(args);
+    String[] combinedArgs = conf.toArgs("general", "outlier");
+    DistributionOutlierPipelineOptions options =
+        PipelinesOptionsFactory.create(DistributionOutlierPipelineOptions.class, combinedArgs);
+    run(options);
+    System.exit(0);
+  }
+
+  public static void run(DistributionOutlierPipelineOptions options) throws Exception {
+    if (StringUtils.isEmpty(options.getExpertDistributionPath())) {
+      throw new PipelinesException("expertDistributionPath is required to export distributions");
+    }
+    ExpertDistributionStore.export(
+        DistributionServiceImpl.init(options.getBaseUrl()),
+        Paths.get(options.getExpertDistributionPath()));
+  }
+}
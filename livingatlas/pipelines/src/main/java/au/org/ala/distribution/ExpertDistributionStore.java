@@ -0,0 +1,171 @@
+package au.org.ala.distribution;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Builder;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.gbif.pipelines.common.PipelinesException;
+
+/**
+ * Expert distributions by species LSID, so outliers are calculated in-process instead of posting
+ * every point of a species to the spatial service.
+ *
+ * <p>Layers of a species are loaded once, from a local export if exportPath is set, otherwise from
+ * the spatial service by {@link DistributionServiceImpl#findLayersByLsid(String)}. Distributions
+ * are cached up to cacheSize coordinates of polygons, concurrent loads of a species are coalesced.
+ *
+ * <p>The export lists its species in {@link #SPECIES_FILE}, which is written last. A species which
+ * isn't listed has no distribution, a missing file of a listed species or a missing list is a
+ * failure to load, like an unavailable spatial service.
+ */
+@Slf4j
+public class ExpertDistributionStore {
+
+  public static final String SPECIES_FILE = "species.txt";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final TypeReference<List<DistributionLayer>> LAYERS =
+      new TypeReference<List<DistributionLayer>>() {};
+
+  private final DistributionServiceImpl service;
+  private final Path exportPath;
+  /** LSIDs of the export, null if the export isn't complete */
+  private final Set<String> exportedSpecies;
+
+  private final Cache<String, ExpertDistribution> cache;
+  /** Species which failed to load are skipped, instead of requesting them for every record */
+  private final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+  @Builder(buildMethodName = "create")
+  private ExpertDistributionStore(String baseUrl, String exportPath, long cacheSize) {
+    this.exportPath = StringUtils.isEmpty(exportPath) ? null : Paths.get(exportPath);
+    this.exportedSpecies = this.exportPath != null ? readSpecies(this.exportPath) : null;
+    this.service =
+        this.exportPath == null && baseUrl != null ? DistributionServiceImpl.init(baseUrl) : null;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(Math.max(cacheSize, 1L))
+            .weigher((String k, ExpertDistribution v) -> Math.max(v.getNumPoints(), 1))
+            .build();
+    if (this.exportPath != null) {
+      log.info("Loading expert distributions from {}", exportPath);
+    } else {
+      log.info("Loading expert distributions from {}", baseUrl);
+    }
+  }
+
+  /**
+   * @return distribution of the species, {@link ExpertDistribution#EMPTY} if the species has no
+   *     expert distribution layers, or null if the layers can't be loaded
+   */
+  public ExpertDistribution get(String lsid) {
+    if (failed.contains(lsid)) {
+      return null;
+    }
+    try {
+      return cache.get(lsid, this::load);
+    } catch (RuntimeException ex) {
+      if (failed.add(lsid)) {
+        log.error("Unable to load expert distribution of the species {}", lsid, ex);
+      }
+      return null;
+    }
+  }
+
+  /** Checked exceptions are wrapped, so they are handled by {@link #get(String)} */
+  private ExpertDistribution load(String lsid) {
+    try {
+      return ExpertDistribution.create(loadLayers(lsid));
+    } catch (IOException | ExpertDistributionException ex) {
+      throw new PipelinesException(ex);
+    }
+  }
+
+  private List<DistributionLayer> loadLayers(String lsid)
+      throws IOException, ExpertDistributionException {
+    if (exportPath != null) {
+      if (exportedSpecies == null) {
+        throw new ExpertDistributionException(
+            "Expert distribution export " + exportPath + " has no " + SPECIES_FILE);
+      }
+      if (!exportedSpecies.contains(lsid)) {
+        return Collections.emptyList();
+      }
+      Path file = exportPath.resolve(fileName(lsid));
+      if (!Files.exists(file)) {
+        throw new ExpertDistributionException("Expert distribution export file is missing " + file);
+      }
+      return MAPPER.readValue(file.toFile(), LAYERS);
+    }
+    if (service != null) {
+      return service.findLayersByLsid(lsid);
+    }
+    return Collections.emptyList();
+  }
+
+  /** @return LSIDs of the export, null if the species file is missing */
+  @SneakyThrows
+  private static Set<String> readSpecies(Path exportPath) {
+    Path file = exportPath.resolve(SPECIES_FILE);
+    if (!Files.exists(file)) {
+      log.error("{} is missing, expert distributions of {} can't be loaded", file, exportPath);
+      return null;
+    }
+    return new HashSet<>(Files.readAllLines(file, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Writes layers of all species of the spatial service to the directory, a file of layers with
+   * geometries per LSID, and the list of LSIDs when all files are written.
+   *
+   * @return number of species written
+   */
+  public static int export(DistributionServiceImpl service, Path directory)
+      throws IOException, ExpertDistributionException {
+    Files.createDirectories(directory);
+    Files.deleteIfExists(directory.resolve(SPECIES_FILE));
+    Set<String> lsids = distinctLsids(service.getLayers());
+    int count = 0;
+    for (String lsid : lsids) {
+      List<DistributionLayer> layers = service.findLayersByLsid(lsid);
+      MAPPER.writeValue(directory.resolve(fileName(lsid)).toFile(), layers);
+      count++;
+    }
+    Files.write(directory.resolve(SPECIES_FILE), lsids, StandardCharsets.UTF_8);
+    log.info("Exported expert distributions of {} species to {}", count, directory);
+    return count;
+  }
+
+  private static Set<String> distinctLsids(List<DistributionLayer> layers) {
+    Set<String> lsids = new TreeSet<>();
+    if (layers != null) {
+      layers.stream()
+          .map(DistributionLayer::getLsid)
+          .filter(StringUtils::isNotEmpty)
+          .forEach(lsids::add);
+    }
+    return lsids;
+  }
+
+  /** @return name of the export file of the species */
+  @SneakyThrows
+  public static String fileName(String lsid) {
+    return URLEncoder.encode(lsid, StandardCharsets.UTF_8.name()) + ".json";
+  }
+}
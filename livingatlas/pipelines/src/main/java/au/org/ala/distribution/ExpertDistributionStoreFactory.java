@@ -0,0 +1,32 @@
+package au.org.ala.distribution;
+
+/** Factory to get singleton instance of {@link ExpertDistributionStore}, shared by all threads */
+public class ExpertDistributionStoreFactory {
+
+  private static volatile ExpertDistributionStoreFactory instance;
+
+  private final ExpertDistributionStore store;
+
+  private static final Object MUTEX = new Object();
+
+  private ExpertDistributionStoreFactory(String baseUrl, String exportPath, long cacheSize) {
+    this.store =
+        ExpertDistributionStore.builder()
+            .baseUrl(baseUrl)
+            .exportPath(exportPath)
+            .cacheSize(cacheSize)
+            .create();
+  }
+
+  public static ExpertDistributionStore getInstance(
+      String baseUrl, String exportPath, long cacheSize) {
+    if (instance == null) {
+      synchronized (MUTEX) {
+        if (instance == null) {
+          instance = new ExpertDistributionStoreFactory(baseUrl, exportPath, cacheSize);
+        }
+      }
+    }
+    return instance.store;
+  }
+}
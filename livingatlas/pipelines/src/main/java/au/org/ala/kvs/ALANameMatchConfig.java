@@ -11,4 +11,19 @@ import lombok.NoArgsConstructor;
 public class ALANameMatchConfig implements Serializable {
 
   private Boolean matchOnTaxonID = true;
+
+  /**
+   * Directory of the persistent match cache shared by pipeline runs on the machine, the cache is
+   * disabled if the path or the index version is null
+   */
+  private String cachePath;
+
+  /** Version of the name index, the persistent cache is cleared when the version changes */
+  private String indexVersion;
+
+  /** Max number of names of a batch sent by one request thread */
+  private int batchSize = 100;
+
+  /** Number of request threads matching batches, single names are matched by the caller */
+  private int parallelism = 8;
 }
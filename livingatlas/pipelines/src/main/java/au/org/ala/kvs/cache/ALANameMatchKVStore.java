@@ -0,0 +1,210 @@
+package au.org.ala.kvs.cache;
+
+import au.org.ala.names.ws.api.NameSearch;
+import au.org.ala.names.ws.api.NameUsageMatch;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.kvs.KeyValueStore;
+import org.gbif.kvs.hbase.Command;
+import org.gbif.pipelines.common.PipelinesException;
+import org.gbif.pipelines.core.config.model.RetryConfig;
+
+/**
+ * Name matching store which resolves names by batches instead of one record at a time.
+ *
+ * <ul>
+ *   <li>{@link #getAll(Collection)} takes distinct names of a batch of records, names which aren't
+ *       cached are split into chunks of batchSize and matched by parallelism threads
+ *   <li>{@link #get(NameSearch)} matches a name which isn't cached in the calling thread, so
+ *       concurrent Beam workers aren't limited by the request threads
+ *   <li>Concurrent lookups of the same name are coalesced, only one request is sent
+ *   <li>Matches are cached on the heap and in the {@link NameMatchDiskCache}, if it is configured,
+ *       so a re-interpretation doesn't query names matched by previous runs
+ *   <li>Failed requests are retried with exponential backoff by the request threads, the callers
+ *       only wait for the result
+ * </ul>
+ */
+@Slf4j
+public class ALANameMatchKVStore implements KeyValueStore<NameSearch, NameUsageMatch> {
+
+  /** Remote match of one name, like {@code NameMatchService#match} */
+  @FunctionalInterface
+  public interface Matcher {
+    NameUsageMatch match(NameSearch search) throws Exception;
+  }
+
+  private final Matcher matcher;
+  private final Command closeHandler;
+  private final NameMatchDiskCache diskCache;
+  private final Cache<NameSearch, Optional<NameUsageMatch>> memoryCache;
+  private final Map<NameSearch, CompletableFuture<NameUsageMatch>> inFlight =
+      new ConcurrentHashMap<>();
+  private final ExecutorService executor;
+  private final int batchSize;
+  private final RetryConfig retryConfig;
+
+  @Builder(buildMethodName = "create")
+  private ALANameMatchKVStore(
+      @NonNull Matcher matcher,
+      Command closeHandler,
+      NameMatchDiskCache diskCache,
+      long memoryCacheSize,
+      int batchSize,
+      int parallelism,
+      RetryConfig retryConfig) {
+    this.matcher = matcher;
+    this.closeHandler = closeHandler;
+    this.diskCache = diskCache;
+    this.memoryCache = Caffeine.newBuilder().maximumSize(Math.max(memoryCacheSize, 0L)).build();
+    this.batchSize = Math.max(batchSize, 1);
+    this.retryConfig = retryConfig != null ? retryConfig : new RetryConfig();
+    this.executor = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+  }
+
+  @Override
+  public NameUsageMatch get(NameSearch key) {
+    Optional<NameUsageMatch> cached = getCached(key);
+    if (cached != null) {
+      return cached.orElse(null);
+    }
+    CompletableFuture<NameUsageMatch> future = new CompletableFuture<>();
+    CompletableFuture<NameUsageMatch> loading = inFlight.putIfAbsent(key, future);
+    if (loading != null) {
+      return join(loading);
+    }
+    complete(key, future);
+    return join(future);
+  }
+
+  /**
+   * Matches distinct names of the collection, waits for all names to be matched
+   *
+   * @return matches by names, a name without a match is mapped to null
+   */
+  public Map<NameSearch, NameUsageMatch> getAll(Collection<NameSearch> keys) {
+    Map<NameSearch, NameUsageMatch> result = new HashMap<>();
+    Map<NameSearch, CompletableFuture<NameUsageMatch>> waiting = new HashMap<>();
+    Map<NameSearch, CompletableFuture<NameUsageMatch>> chunk = new LinkedHashMap<>();
+
+    for (NameSearch key : new LinkedHashSet<>(keys)) {
+      Optional<NameUsageMatch> cached = getCached(key);
+      if (cached != null) {
+        result.put(key, cached.orElse(null));
+        continue;
+      }
+
+      CompletableFuture<NameUsageMatch> future = new CompletableFuture<>();
+      CompletableFuture<NameUsageMatch> loading = inFlight.putIfAbsent(key, future);
+      if (loading != null) {
+        waiting.put(key, loading);
+        continue;
+      }
+      waiting.put(key, future);
+      chunk.put(key, future);
+      if (chunk.size() >= batchSize) {
+        submit(chunk);
+        chunk = new LinkedHashMap<>();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      submit(chunk);
+    }
+
+    waiting.forEach((k, f) -> result.put(k, join(f)));
+    return result;
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+    if (diskCache != null) {
+      diskCache.close();
+    }
+    if (closeHandler != null) {
+      closeHandler.execute();
+    }
+  }
+
+  /** Returns null if the name is not cached */
+  private Optional<NameUsageMatch> getCached(NameSearch key) {
+    Optional<NameUsageMatch> cached = memoryCache.getIfPresent(key);
+    if (cached == null && diskCache != null) {
+      cached = diskCache.get(key);
+      if (cached != null) {
+        memoryCache.put(key, cached);
+      }
+    }
+    return cached;
+  }
+
+  /** Matches names of the chunk one by one in a request thread */
+  private void submit(Map<NameSearch, CompletableFuture<NameUsageMatch>> chunk) {
+    executor.execute(
+        () -> {
+          for (Entry<NameSearch, CompletableFuture<NameUsageMatch>> e : chunk.entrySet()) {
+            complete(e.getKey(), e.getValue());
+          }
+        });
+  }
+
+  /** Matches the name, caches the match and completes the in-flight future of the name */
+  private void complete(NameSearch key, CompletableFuture<NameUsageMatch> future) {
+    try {
+      NameUsageMatch match = match(key);
+      memoryCache.put(key, Optional.ofNullable(match));
+      if (diskCache != null) {
+        diskCache.put(key, match);
+      }
+      future.complete(match);
+    } catch (Exception ex) {
+      future.completeExceptionally(ex);
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  private NameUsageMatch match(NameSearch key) throws InterruptedException {
+    Exception ex = null;
+    double delay = retryConfig.getInitialIntervalMillis();
+    for (int attempt = 1; attempt <= retryConfig.getMaxAttempts(); attempt++) {
+      try {
+        return matcher.match(key);
+      } catch (Exception e) {
+        log.error("Exception contacting the species match service with key: " + key, e);
+        ex = e;
+        if (attempt < retryConfig.getMaxAttempts()) {
+          TimeUnit.MILLISECONDS.sleep((long) delay);
+          delay *= retryConfig.getMultiplier();
+        }
+      }
+    }
+    throw new PipelinesException(ex);
+  }
+
+  private static NameUsageMatch join(CompletableFuture<NameUsageMatch> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new PipelinesException(ex.getCause());
+    }
+  }
+}
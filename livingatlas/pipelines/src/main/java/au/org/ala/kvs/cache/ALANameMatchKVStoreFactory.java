@@ -1,18 +1,16 @@
 package au.org.ala.kvs.cache;
 
+import au.org.ala.kvs.ALANameMatchConfig;
 import au.org.ala.kvs.ALAPipelinesConfig;
-import au.org.ala.names.ws.api.NameMatchService;
 import au.org.ala.names.ws.api.NameSearch;
 import au.org.ala.names.ws.api.NameUsageMatch;
 import au.org.ala.names.ws.client.ALANameUsageMatchServiceClient;
 import au.org.ala.utils.WsUtils;
 import au.org.ala.ws.ClientConfiguration;
-import au.org.ala.ws.ClientException;
 import java.io.IOException;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.kvs.KeyValueStore;
-import org.gbif.kvs.cache.KeyValueCache;
 import org.gbif.kvs.hbase.Command;
 import org.gbif.pipelines.common.PipelinesException;
 import org.gbif.pipelines.core.config.model.WsConfig;
@@ -21,7 +19,7 @@ import org.gbif.pipelines.core.functions.SerializableSupplier;
 @Slf4j
 public class ALANameMatchKVStoreFactory {
 
-  private final KeyValueStore<NameSearch, NameUsageMatch> kvStore;
+  private final ALANameMatchKVStore kvStore;
   private static volatile ALANameMatchKVStoreFactory instance;
   private static final Object MUTEX = new Object();
 
@@ -30,7 +28,7 @@ public class ALANameMatchKVStoreFactory {
     this.kvStore = create(config);
   }
 
-  public static KeyValueStore<NameSearch, NameUsageMatch> getInstance(ALAPipelinesConfig config) {
+  public static ALANameMatchKVStore getInstance(ALAPipelinesConfig config) {
     if (instance == null) {
       synchronized (MUTEX) {
         if (instance == null) {
@@ -44,11 +42,11 @@ public class ALANameMatchKVStoreFactory {
   /**
    * Returns ala name matching key value store.
    *
-   * @return A key value store backed by a {@link ALANameUsageMatchServiceClient}
+   * @return A batching key value store backed by a {@link ALANameUsageMatchServiceClient} and the
+   *     persistent match cache, if it is configured
    * @throws IOException if unable to build the client
    */
-  public static KeyValueStore<NameSearch, NameUsageMatch> create(ALAPipelinesConfig config)
-      throws IOException {
+  public static ALANameMatchKVStore create(ALAPipelinesConfig config) throws IOException {
     WsConfig ws = config.getAlaNameMatch();
     ClientConfiguration clientConfiguration = WsUtils.createConfiguration(ws);
     ALANameUsageMatchServiceClient wsClient =
@@ -63,51 +61,21 @@ public class ALANameMatchKVStoreFactory {
           }
         };
 
-    return cache2kBackedKVStore(wsClient, closeHandler, config);
-  }
-
-  /** Builds a KV Store backed by the rest client. */
-  private static KeyValueStore<NameSearch, NameUsageMatch> cache2kBackedKVStore(
-      NameMatchService nameMatchService, Command closeHandler, ALAPipelinesConfig config) {
-
-    KeyValueStore<NameSearch, NameUsageMatch> kvs =
-        new KeyValueStore<NameSearch, NameUsageMatch>() {
-          @Override
-          public NameUsageMatch get(NameSearch key) {
-            Exception ex = null;
-            try {
-              for (int i = 0; i < config.getAlaNameMatch().getRetryConfig().getMaxAttempts(); i++) {
-                try {
-                  return nameMatchService.match(key);
-                } catch (ClientException exception) {
-                  log.error(
-                      "ClientException contacting the species match service with key: "
-                          + key.toString(),
-                      exception);
-                  ex = exception;
-                  Thread.sleep(
-                      config.getAlaNameMatch().getRetryConfig().getInitialIntervalMillis());
-                } catch (Exception ex1) {
-                  log.error(
-                      "Exception contacting the species match service with key: " + key.toString(),
-                      ex1);
-                  ex = ex1;
-                  Thread.sleep(5000);
-                }
-              }
-            } catch (InterruptedException ie) {
-              // NOP
-            }
-            throw new PipelinesException(ex);
-          }
+    ALANameMatchConfig matchConfig =
+        config.getAlaNameMatchConfig() != null
+            ? config.getAlaNameMatchConfig()
+            : new ALANameMatchConfig();
 
-          @Override
-          public void close() {
-            closeHandler.execute();
-          }
-        };
-    return KeyValueCache.cache(
-        kvs, config.getAlaNameMatch().getCacheSizeMb(), NameSearch.class, NameUsageMatch.class);
+    return ALANameMatchKVStore.builder()
+        .matcher(wsClient::match)
+        .closeHandler(closeHandler)
+        .diskCache(NameMatchDiskCache.open(matchConfig))
+        // Roughly 1 KB per match on the heap
+        .memoryCacheSize(ws.getCacheSizeMb() * 1024L)
+        .batchSize(matchConfig.getBatchSize())
+        .parallelism(matchConfig.getParallelism())
+        .retryConfig(ws.getRetryConfig())
+        .create();
   }
 
   public static SerializableSupplier<KeyValueStore<NameSearch, NameUsageMatch>> getInstanceSupplier(
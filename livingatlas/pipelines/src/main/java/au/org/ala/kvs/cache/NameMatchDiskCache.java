@@ -0,0 +1,122 @@
+package au.org.ala.kvs.cache;
+
+import au.org.ala.kvs.ALANameMatchConfig;
+import au.org.ala.names.ws.api.NameSearch;
+import au.org.ala.names.ws.api.NameUsageMatch;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.mapdb.Atomic;
+import org.mapdb.DB;
+import org.mapdb.DBException;
+import org.mapdb.DBMaker;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+
+/**
+ * Name matches kept in a memory mapped MapDB file, so the matches survive pipeline runs and are
+ * shared by all runs on the machine one after another. Keys and values are stored as JSON, a
+ * missing match is stored as an empty array.
+ *
+ * <p>The cache is cleared when the configured name index version changes. A file locked by another
+ * JVM or a broken file can't be used, the broken file is recreated.
+ */
+@Slf4j
+class NameMatchDiskCache implements Closeable {
+
+  private static final String FILE_NAME = "name-match.db";
+  private static final byte[] NULL_VALUE = new byte[0];
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper()
+          .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+          .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private final DB db;
+  private final HTreeMap<byte[], byte[]> map;
+
+  private NameMatchDiskCache(DB db, String indexVersion) {
+    this.db = db;
+    this.map = db.hashMap("matches", Serializer.BYTE_ARRAY, Serializer.BYTE_ARRAY).createOrOpen();
+
+    Atomic.String version = db.atomicString("indexVersion").createOrOpen();
+    if (!indexVersion.equals(version.get())) {
+      log.info(
+          "Name index version has changed from {} to {}, clearing {} cached matches",
+          version.get(),
+          indexVersion,
+          map.sizeLong());
+      map.clear();
+      version.set(indexVersion);
+    } else {
+      log.info("Name match cache of index version {} has {} matches", indexVersion, map.sizeLong());
+    }
+  }
+
+  /** Returns null if the cache is disabled by the config or the file can't be used */
+  static NameMatchDiskCache open(ALANameMatchConfig config) throws IOException {
+    if (config.getCachePath() == null || config.getIndexVersion() == null) {
+      return null;
+    }
+    File dir = new File(config.getCachePath());
+    Files.createDirectories(dir.toPath());
+    File file = new File(dir, FILE_NAME);
+    try {
+      return new NameMatchDiskCache(make(file), config.getIndexVersion());
+    } catch (DBException.FileLocked ex) {
+      log.warn("Name match cache {} is used by another process, the cache is disabled", file);
+      return null;
+    } catch (DBException ex) {
+      log.warn("Name match cache {} is broken and will be recreated - {}", file, ex.getMessage());
+      Files.deleteIfExists(file.toPath());
+      return new NameMatchDiskCache(make(file), config.getIndexVersion());
+    }
+  }
+
+  private static DB make(File file) {
+    return DBMaker.fileDB(file)
+        .fileMmapEnableIfSupported()
+        .fileMmapPreclearDisable()
+        .closeOnJvmShutdown()
+        .make();
+  }
+
+  /** Returns null if the key is not cached, or {@link Optional#empty()} for a missing match */
+  @SneakyThrows
+  Optional<NameUsageMatch> get(NameSearch key) {
+    byte[] value = map.get(MAPPER.writeValueAsBytes(key));
+    if (value == null) {
+      return null;
+    }
+    return value.length == 0
+        ? Optional.empty()
+        : Optional.of(MAPPER.readValue(value, NameUsageMatch.class));
+  }
+
+  @SneakyThrows
+  void put(NameSearch key, NameUsageMatch value) {
+    map.put(
+        MAPPER.writeValueAsBytes(key),
+        value == null ? NULL_VALUE : MAPPER.writeValueAsBytes(value));
+  }
+
+  long size() {
+    return map.sizeLong();
+  }
+
+  @Override
+  public void close() {
+    if (!db.isClosed()) {
+      db.close();
+    }
+  }
+}
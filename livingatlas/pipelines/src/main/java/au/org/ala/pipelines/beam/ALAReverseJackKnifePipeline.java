@@ -1,21 +1,28 @@
 package au.org.ala.pipelines.beam;
 
-import au.org.ala.pipelines.jackknife.JackKnife;
+import au.org.ala.pipelines.jackknife.JackKnifeColumns;
 import au.org.ala.pipelines.options.JackKnifePipelineOptions;
 import au.org.ala.pipelines.transforms.JackKnifeOutlierTransform;
 import au.org.ala.pipelines.util.VersionInfo;
+import au.org.ala.sampling.SampleIndex;
+import au.org.ala.sampling.SampleIndexFactory;
 import au.org.ala.utils.ALAFsUtils;
 import au.org.ala.utils.CombinedYamlConfiguration;
 import au.org.ala.utils.ValidationUtils;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
+import org.apache.beam.sdk.coders.AtomicCoder;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
 import org.apache.beam.sdk.extensions.joinlibrary.Join;
 import org.apache.beam.sdk.io.AvroIO;
 import org.apache.beam.sdk.metrics.Counter;
@@ -23,6 +30,7 @@ import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.GroupByKey;
 import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.util.VarInt;
 import org.apache.beam.sdk.values.*;
 import org.apache.commons.lang.StringUtils;
 import org.gbif.pipelines.common.beam.metrics.MetricsHandler;
@@ -80,14 +88,7 @@ public class ALAReverseJackKnifePipeline {
       return;
     }
 
-    Integer minSampleThreshold = options.getMinSampleThreshold();
-
-    // Load Samples
-    String samplingPath =
-        String.join("/", ALAFsUtils.buildPathSamplingUsingTargetPath(options), "*.avro");
-    log.info("Loading sampling from {}", samplingPath);
-    PCollection<SampleRecord> sampleRecords =
-        pipeline.apply(AvroIO.read(SampleRecord.class).from(samplingPath));
+    int minSampleThreshold = options.getMinSampleThreshold();
 
     // Load IndexRecords
     PCollection<IndexRecord> indexRecordsCollection =
@@ -97,72 +98,84 @@ public class ALAReverseJackKnifePipeline {
                     String.join(
                         "/", options.getAllDatasetsInputPath(), "index-record", "*/*.avro")));
 
-    // Convert to KV <LatLng, KV<ID, taxonID>>
-    PCollection<KV<String, KV<String, String>>> recordsWithCoordinatesKeyedLatng =
-        indexRecordsCollection.apply(
-            ParDo.of(
-                new DoFn<IndexRecord, KV<String, KV<String, String>>>() {
-                  @ProcessElement
-                  public void processElement(ProcessContext c) {
-                    IndexRecord e = c.element();
-                    String taxonID = e.getTaxonID();
-                    String latlng = e.getLatLng();
-                    if (latlng != null && taxonID != null) {
-                      c.output(KV.of(latlng, KV.of(e.getId(), taxonID)));
-                    }
-                  }
-                }));
+    // KV <taxonID, KV<ID, ArrayOfLayerValues>>
+    PCollection<KV<String, KV<String, double[]>>> recordsKeyedTaxonID;
 
-    // Convert to KV <LatLng, ArrayOfLayerValues>
-    PCollection<KV<String, Double[]>> sampleRecordsKeyedLatng =
-        sampleRecords.apply(
-            ParDo.of(
-                new DoFn<SampleRecord, KV<String, Double[]>>() {
-                  @ProcessElement
-                  public void processElement(ProcessContext c) {
-                    SampleRecord e = c.element();
-                    Double[] values = new Double[layers.length];
-                    int countNull = 0;
-                    for (int i = 0; i < layers.length; i++) {
-                      values[i] = e.getDoubles().getOrDefault(layers[i], Double.NaN);
-                      if (values[i] == null) {
-                        countNull++;
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+    String sampleIndexPath = ALAFsUtils.buildPathSampleIndexUsingTargetPath(options);
+    String samplingPath = ALAFsUtils.buildPathSamplingUsingTargetPath(options);
+
+    if (SampleIndexFactory.isUpToDate(hdfsConfigs, sampleIndexPath, samplingPath)) {
+      // Lookup samples of the records, instead of joining all records and samples by LatLng
+      log.info("Loading sampling by a lookup in {}", sampleIndexPath);
+      recordsKeyedTaxonID =
+          indexRecordsCollection.apply(
+              ParDo.of(new SampleLookupFn(hdfsConfigs, sampleIndexPath, layers)));
+    } else {
+      // Load Samples
+      String samplingAvroPath = String.join("/", samplingPath, "*.avro");
+      log.info("Loading sampling from {}", samplingAvroPath);
+      PCollection<SampleRecord> sampleRecords =
+          pipeline.apply(AvroIO.read(SampleRecord.class).from(samplingAvroPath));
+
+      // Convert to KV <LatLng, KV<ID, taxonID>>
+      PCollection<KV<String, KV<String, String>>> recordsWithCoordinatesKeyedLatng =
+          indexRecordsCollection.apply(
+              ParDo.of(
+                  new DoFn<IndexRecord, KV<String, KV<String, String>>>() {
+                    @ProcessElement
+                    public void processElement(ProcessContext c) {
+                      IndexRecord e = c.element();
+                      String taxonID = e.getTaxonID();
+                      String latlng = e.getLatLng();
+                      if (latlng != null && taxonID != null) {
+                        c.output(KV.of(latlng, KV.of(e.getId(), taxonID)));
                       }
                     }
-                    String latlng = e.getLatLng();
-                    if (latlng != null && countNull < layers.length) {
-                      c.output(KV.of(latlng, values));
-                    }
-                  }
-                }));
-
-    // Join collections by LatLng string
-    PCollection<KV<String, KV<KV<String, String>, Double[]>>> results =
-        Join.innerJoin(recordsWithCoordinatesKeyedLatng, sampleRecordsKeyedLatng);
+                  }));
+
+      // Convert to KV <LatLng, ArrayOfLayerValues>
+      PCollection<KV<String, double[]>> sampleRecordsKeyedLatng =
+          sampleRecords
+              .apply(
+                  ParDo.of(
+                      new DoFn<SampleRecord, KV<String, double[]>>() {
+                        @ProcessElement
+                        public void processElement(ProcessContext c) {
+                          SampleRecord e = c.element();
+                          double[] values = toValues(e, layers);
+                          String latlng = e.getLatLng();
+                          if (latlng != null && values != null) {
+                            c.output(KV.of(latlng, values));
+                          }
+                        }
+                      }))
+              .setCoder(KvCoder.of(StringUtf8Coder.of(), DoubleArrayCoder.of()));
+
+      // Join collections by LatLng string and key by taxonID
+      recordsKeyedTaxonID =
+          Join.innerJoin(recordsWithCoordinatesKeyedLatng, sampleRecordsKeyedLatng)
+              .apply(
+                  ParDo.of(
+                      new DoFn<
+                          KV<String, KV<KV<String, String>, double[]>>,
+                          KV<String, KV<String, double[]>>>() {
+                        @ProcessElement
+                        public void processElement(ProcessContext c) {
+                          KV<KV<String, String>, double[]> e = c.element().getValue();
+                          KV<String, String> ir = e.getKey();
+                          c.output(KV.of(ir.getValue(), KV.of(ir.getKey(), e.getValue())));
+                        }
+                      }));
+    }
 
     // Group by speciesID
-    PCollection<KV<String, Iterable<KV<String, Double[]>>>> groups =
-        results
-            .apply(
-                ParDo.of(
-                    new DoFn<
-                        KV<String, KV<KV<String, String>, Double[]>>,
-                        KV<String, KV<String, Double[]>>>() {
-                      @ProcessElement
-                      public void processElement(ProcessContext c) {
-                        KV<String, KV<KV<String, String>, Double[]>> e = c.element();
-                        try {
-                          Double[] sampling = e.getValue().getValue();
-                          KV<String, String> ir = e.getValue().getKey();
-
-                          String recordID = ir.getKey();
-                          String speciesID = ir.getValue();
-                          c.output(KV.of(speciesID, KV.of(recordID, sampling)));
-                        } catch (Exception ex) {
-
-                        }
-                      }
-                    }))
+    PCollection<KV<String, Iterable<KV<String, double[]>>>> groups =
+        recordsKeyedTaxonID
+            .setCoder(
+                KvCoder.of(
+                    StringUtf8Coder.of(), KvCoder.of(StringUtf8Coder.of(), DoubleArrayCoder.of())))
             .apply(GroupByKey.create());
 
     // Calculate and apply JackKnife for each SpeciesID
@@ -174,7 +187,7 @@ public class ALAReverseJackKnifePipeline {
     PCollectionTuple jackknife =
         groups.apply(
             ParDo.of(
-                    new DoFn<KV<String, Iterable<KV<String, Double[]>>>, JackKnifeModelRecord>() {
+                    new DoFn<KV<String, Iterable<KV<String, double[]>>>, JackKnifeModelRecord>() {
 
                       private final Counter counterModels =
                           Metrics.counter(
@@ -184,93 +197,44 @@ public class ALAReverseJackKnifePipeline {
 
                       @ProcessElement
                       public void processElement(ProcessContext c) {
-                        // Build jacknife model.
+                        KV<String, Iterable<KV<String, double[]>>> e = c.element();
 
-                        KV<String, Iterable<KV<String, Double[]>>> e = c.element();
-                        Iterator<KV<String, Double[]>> valuesIter = e.getValue().iterator();
-
-                        // Values for each layer.
-                        List<Double>[] values = new ArrayList[layers.length];
-                        for (int i = 0; i < layers.length; i++) {
-                          values[i] = new ArrayList<>();
-                        }
-
-                        // Record IDs.
-                        List<String> ids = new ArrayList<>();
-
-                        // Remap IDs and layer values.
-                        while (valuesIter.hasNext()) {
-                          KV<String, Double[]> v = valuesIter.next();
-                          ids.add(v.getKey());
-                          for (int i = 0; i < layers.length; i++) {
-                            values[i].add(v.getValue()[i]);
-                          }
+                        // Columns of layer values of all records of the species.
+                        JackKnifeColumns columns = new JackKnifeColumns(layers, minSampleThreshold);
+                        for (KV<String, double[]> v : e.getValue()) {
+                          columns.add(v.getKey(), v.getValue());
                         }
 
                         // Generate jacknife models for each layer.
-                        List<double[]> jackKnifeModels = new ArrayList<>(layers.length);
+                        JackKnifeColumns.Model[] models = columns.models();
                         for (int i = 0; i < layers.length; i++) {
-                          double[] model = null;
-                          try {
-                            model =
-                                JackKnife.jackknife(
-                                    values[i].toArray(new Double[0]), minSampleThreshold);
-                            if (model != null) {
-                              JackKnifeModelRecord jkmr =
-                                  JackKnifeModelRecord.newBuilder()
-                                      .setTaxonId(e.getKey())
-                                      .setFeature(layers[i])
-                                      .setMin(model[0])
-                                      .setMax(model[1])
-                                      .setCount(
-                                          (int)
-                                              values[i].stream()
-                                                  .filter(v -> !Double.isNaN(v))
-                                                  .count())
-                                      .build();
-                              c.output(jackKnifeModelRecordTag, jkmr);
-                              counterModels.inc();
-                            }
-                          } catch (Exception ex) {
-                            log.error(
-                                "Failed to build jackknife model for "
-                                    + e.getKey()
-                                    + " "
-                                    + layers[i],
-                                ex.getMessage());
-                          } finally {
-                            jackKnifeModels.add(model);
-                          }
-                        }
-
-                        // Apply jacknife model to produce ID -> list of outliers
-                        for (int i = 0; i < ids.size(); i++) {
-                          List<String> outliers = null;
-
-                          for (int j = 0; j < layers.length; j++) {
-                            double[] model = jackKnifeModels.get(j);
-                            if (model != null) {
-                              Double v = values[j].get(i);
-                              if (v != null && (model[0] > v || model[1] < v)) {
-                                if (outliers == null) {
-                                  outliers = new ArrayList<>();
-                                }
-                                outliers.add(layers[j]);
-                              }
-                            }
-                          }
-
-                          // Collect only IDs containing outlier layers.
-                          if (outliers != null) {
-                            JackKnifeOutlierRecord jor =
-                                JackKnifeOutlierRecord.newBuilder()
-                                    .setItems(outliers)
-                                    .setId(ids.get(i))
+                          if (models[i] != null) {
+                            JackKnifeModelRecord jkmr =
+                                JackKnifeModelRecord.newBuilder()
+                                    .setTaxonId(e.getKey())
+                                    .setFeature(layers[i])
+                                    .setMin(models[i].getMin())
+                                    .setMax(models[i].getMax())
+                                    .setCount(models[i].getCount())
                                     .build();
-                            c.output(jackKnifeOutlierRecordTag, jor);
-                            counterOutliers.inc();
+                            c.output(jackKnifeModelRecordTag, jkmr);
+                            counterModels.inc();
                           }
                         }
+
+                        // Apply jacknife models to produce ID -> list of outliers, only IDs
+                        // containing outlier layers are collected.
+                        columns.outliers(
+                            models,
+                            (id, outliers) -> {
+                              JackKnifeOutlierRecord jor =
+                                  JackKnifeOutlierRecord.newBuilder()
+                                      .setItems(outliers)
+                                      .setId(id)
+                                      .build();
+                              c.output(jackKnifeOutlierRecordTag, jor);
+                              counterOutliers.inc();
+                            });
                       }
                     })
                 .withOutputTags(
@@ -297,9 +261,7 @@ public class ALAReverseJackKnifePipeline {
     result.waitUntilFinish();
 
     MetricsHandler.saveCountersToFile(
-        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig()),
-        jackknifePath + "/metrics.yaml",
-        result.metrics());
+        hdfsConfigs, jackknifePath + "/metrics.yaml", result.metrics());
 
     log.info("3. Pipeline has been finished");
   }
@@ -315,4 +277,90 @@ public class ALAReverseJackKnifePipeline {
     // delete metrics
     FsUtils.deleteIfExist(hdfsConfigs, jackknifePath + "/metrics.yaml");
   }
+  /**
+   * Values of the layers, Double.NaN indicates absence.
+   *
+   * @return null if the sample has none of the layers
+   */
+  private static double[] toValues(SampleRecord sampleRecord, String[] layers) {
+    Map<String, Double> doubles = sampleRecord.getDoubles();
+    if (doubles == null) {
+      return null;
+    }
+    double[] values = new double[layers.length];
+    int countMissing = 0;
+    for (int i = 0; i < layers.length; i++) {
+      Double value = doubles.get(layers[i]);
+      values[i] = value == null ? Double.NaN : value;
+      if (Double.isNaN(values[i])) {
+        countMissing++;
+      }
+    }
+    return countMissing < layers.length ? values : null;
+  }
+
+  /** Keys layer values from the {@link SampleIndex} of the record coordinates by taxonID */
+  private static class SampleLookupFn extends DoFn<IndexRecord, KV<String, KV<String, double[]>>> {
+
+    private final HdfsConfigs hdfsConfigs;
+    private final String sampleIndexPath;
+    private final String[] layers;
+    private transient SampleIndex sampleIndex;
+
+    private SampleLookupFn(HdfsConfigs hdfsConfigs, String sampleIndexPath, String[] layers) {
+      this.hdfsConfigs = hdfsConfigs;
+      this.sampleIndexPath = sampleIndexPath;
+      this.layers = layers;
+    }
+
+    @Setup
+    public void setup() {
+      sampleIndex = SampleIndexFactory.getInstance(hdfsConfigs, sampleIndexPath);
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element IndexRecord e, OutputReceiver<KV<String, KV<String, double[]>>> out) {
+      String taxonID = e.getTaxonID();
+      String latlng = e.getLatLng();
+      if (latlng == null || taxonID == null) {
+        return;
+      }
+      SampleRecord sampleRecord = sampleIndex.get(latlng);
+      double[] values = sampleRecord != null ? toValues(sampleRecord, layers) : null;
+      if (values != null) {
+        out.output(KV.of(taxonID, KV.of(e.getId(), values)));
+      }
+    }
+  }
+
+  /** Layer values are shuffled as primitives, instead of serialized boxed arrays */
+  private static class DoubleArrayCoder extends AtomicCoder<double[]> {
+
+    private static final DoubleArrayCoder INSTANCE = new DoubleArrayCoder();
+
+    static DoubleArrayCoder of() {
+      return INSTANCE;
+    }
+
+    @Override
+    public void encode(double[] value, OutputStream outStream) throws IOException {
+      DataOutputStream out = new DataOutputStream(outStream);
+      VarInt.encode(value.length, out);
+      for (double v : value) {
+        out.writeDouble(v);
+      }
+      out.flush();
+    }
+
+    @Override
+    public double[] decode(InputStream inStream) throws IOException {
+      DataInputStream in = new DataInputStream(inStream);
+      double[] value = new double[VarInt.decodeInt(in)];
+      for (int i = 0; i < value.length; i++) {
+        value[i] = in.readDouble();
+      }
+      return value;
+    }
+  }
 }
@@ -17,13 +17,22 @@ import org.apache.avro.file.CodecFactory;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.io.AvroIO;
 import org.apache.beam.sdk.io.TextIO;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Distribution;
+import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.transforms.*;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionList;
 import org.apache.directory.api.util.Strings;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
+import org.gbif.pipelines.core.parsers.clustering.BlockingConfig;
+import org.gbif.pipelines.core.parsers.clustering.CandidateBlock;
+import org.gbif.pipelines.core.parsers.clustering.CandidateBlocking;
+import org.gbif.pipelines.core.parsers.clustering.CompiledOccurrenceFeatures;
 import org.gbif.pipelines.core.parsers.clustering.OccurrenceFeatures;
 import org.gbif.pipelines.core.parsers.clustering.OccurrenceRelationships;
 import org.gbif.pipelines.core.parsers.clustering.RelationshipAssertion;
@@ -60,6 +69,16 @@ public class ClusteringPipeline {
 
   private static final CodecFactory BASE_CODEC = CodecFactory.snappyCodec();
 
+  private static final String BLOCK_PAIRS = "candidateBlockPairs";
+  private static final String SPLIT_BLOCKS = "splitCandidateBlocks";
+  private static final String DROPPED_RECORDS = "droppedCandidateRecords";
+
+  private static final Comparator<Relationship> RELATIONSHIP_ORDER =
+      Comparator.comparing(Relationship::getRepId)
+          .thenComparing(Relationship::getRepDataset)
+          .thenComparing(Relationship::getDupDataset)
+          .thenComparing(Relationship::getJustification);
+
   public static void main(String[] args) throws IOException {
     VersionInfo.print();
     String[] combinedArgs = new CombinedYamlConfiguration(args).toArgs("general", "clustering");
@@ -86,14 +105,24 @@ public class ClusteringPipeline {
     log.info("Creating a pipeline from options");
     Pipeline pipeline = Pipeline.create(options);
 
-    // clear previous runs
-    clearPreviousClustering(options);
+    // keep the previous run as the base of an incremental run, otherwise clear it
+    final boolean incremental = movePreviousClustering(options);
+    if (!incremental) {
+      clearPreviousClustering(options);
+    }
 
     // read index records
     PCollection<IndexRecord> indexRecords = ALAFsUtils.loadIndexRecords(options, pipeline);
 
     final Integer candidatesCutoff = options.getCandidatesCutoff();
 
+    // groups are split to blocks smaller than the cutoff
+    final CandidateBlocking blocking =
+        Boolean.TRUE.equals(options.isUseBlocking())
+            ? CandidateBlocking.create(
+                BlockingConfig.builder().maxBlockSize(candidatesCutoff - 1).build())
+            : null;
+
     // create hashes for everything
     PCollection<HashKeyOccurrence> hashAll =
         indexRecords.apply(
@@ -233,65 +262,59 @@ public class ClusteringPipeline {
                         out.output(builder.withHashKey(taxonKey + "|" + year + "|" + r).build());
                       }
                     }
+
+                    // 4. spatial grid and identifier LSH blocks
+                    if (blocking != null) {
+                      blocking
+                          .blockKeys(builder.build())
+                          .forEach(key -> out.output(builder.withHashKey(key.getKey()).build()));
+                    }
                   }
                 }));
 
     // convert to hashkey -> OccurrenceHash
-    PCollection<ClusteringCandidates> candidates =
-        hashAll
-            .apply(
-                MapElements.via(
-                    new SimpleFunction<HashKeyOccurrence, KV<String, HashKeyOccurrence>>() {
-                      @Override
-                      public KV<String, HashKeyOccurrence> apply(HashKeyOccurrence input) {
-                        return KV.of(input.getHashKey(), input);
-                      }
-                    }))
-            .apply(GroupByKey.create())
-            .apply(
-                ParDo.of(
-                    new DoFn<KV<String, Iterable<HashKeyOccurrence>>, ClusteringCandidates>() {
-                      @ProcessElement
-                      public void processElement(
-                          @Element KV<String, Iterable<HashKeyOccurrence>> source,
-                          OutputReceiver<ClusteringCandidates> out) {
-
-                        List<HashKeyOccurrence> result = new ArrayList<>();
-                        source.getValue().iterator().forEachRemaining(result::add);
-
-                        if (result.size() > 1) {
-                          out.output(
-                              ClusteringCandidates.builder()
-                                  .hashKey(source.getKey())
-                                  .candidates(result)
-                                  .build());
-                        }
-                      }
-                    }));
-
-    // need to Group by UUID
-    PCollection<KV<String, Relationship>> relationships =
-        candidates.apply(
-            ParDo.of(
-                new DoFn<ClusteringCandidates, KV<String, Relationship>>() {
-                  @ProcessElement
-                  public void processElement(
-                      @Element ClusteringCandidates source,
-                      OutputReceiver<KV<String, Relationship>> out) {
-
-                    log.info("Candidates: {}", source.getCandidates().size());
-                    if (source.getCandidates().size() < candidatesCutoff) {
-                      List<KV<String, Relationship>> output =
-                          createRelationships(source, candidatesCutoff);
-                      log.info(
-                          "Candidates: {}, Relationships {}",
-                          source.getCandidates().size(),
-                          output.size());
-                      output.forEach(out::output);
-                    }
+    PCollection<KV<String, HashKeyOccurrence>> hashKeyed =
+        hashAll.apply(
+            MapElements.via(
+                new SimpleFunction<HashKeyOccurrence, KV<String, HashKeyOccurrence>>() {
+                  @Override
+                  public KV<String, HashKeyOccurrence> apply(HashKeyOccurrence input) {
+                    return KV.of(input.getHashKey(), input);
                   }
                 }));
 
+    // hash keys are kept for the next incremental run
+    PCollection<OccurrenceHashKeys> changes = null;
+    if (Boolean.TRUE.equals(options.isIncremental())) {
+      PCollection<OccurrenceHashKeys> hashKeys = IncrementalClustering.hashKeys(hashAll);
+      hashKeys.apply(
+          AvroIO.write(OccurrenceHashKeys.class)
+              .to(options.getClusteringPath() + "/state/hashkeys/hashkeys")
+              .withSuffix(".avro")
+              .withCodec(BASE_CODEC));
+
+      if (incremental) {
+        PCollection<OccurrenceHashKeys> previousHashKeys =
+            pipeline.apply(
+                AvroIO.read(OccurrenceHashKeys.class)
+                    .from(options.getClusteringPath() + "/previous/state/hashkeys/*.avro"));
+        changes = IncrementalClustering.changes(hashKeys, previousHashKeys);
+      }
+    }
+
+    // only groups touched by changed records are compared in an incremental run
+    PCollection<KV<String, Boolean>> touched =
+        changes != null ? IncrementalClustering.touchedKeys(changes) : null;
+    PCollection<KV<String, Iterable<HashKeyOccurrence>>> groups =
+        touched != null
+            ? IncrementalClustering.touchedGroups(hashKeyed, touched)
+            : hashKeyed.apply(GroupByKey.create());
+
+    PCollection<ClusteringCandidates> candidates = candidates(groups, blocking, candidatesCutoff);
+
+    PCollection<KV<String, Relationship>> relationships =
+        groupRelationships(candidates, candidatesCutoff);
+
     if (options.isOutputDebugAvro()) {
       outputDebugHashKeys(options, hashAll);
       outputDebugCandidates(options, candidates);
@@ -299,70 +322,29 @@ public class ClusteringPipeline {
       outputDebugRelationshipsUngrouped(options, relationships);
     }
 
-    // group by record ID
-    PCollection<Relationships> relationshipsGrouped =
-        relationships
-            .apply(GroupByKey.create())
-            .apply(
-                MapElements.via(
-                    new SimpleFunction<KV<String, Iterable<Relationship>>, Relationships>() {
-                      @Override
-                      public Relationships apply(KV<String, Iterable<Relationship>> input) {
-                        Set<Relationship> list = new HashSet<>();
-                        // we are only support one duplicate relationship
-                        list.add(input.getValue().iterator().next());
-                        return Relationships.newBuilder()
-                            .setId(input.getKey())
-                            .setRelationships(new ArrayList<>(list))
-                            .build();
-                      }
-                    }))
-            .apply(
-                ParDo.of(
-                    new DoFn<Relationships, Relationships>() {
-                      @ProcessElement
-                      public void processElement(
-                          @Element Relationships duplicateRelationship,
-                          OutputReceiver<Relationships> out) {
-
-                        Relationship r = duplicateRelationship.getRelationships().iterator().next();
-
-                        // create a relationship for the representative record
-                        Relationships representativeRelationship =
-                            Relationships.newBuilder()
-                                .setId(r.getRepId())
-                                .setRelationships(duplicateRelationship.getRelationships())
-                                .build();
-
-                        out.output(representativeRelationship);
-                        out.output(duplicateRelationship);
-                      }
-                    }))
-            .apply(
-                MapElements.via(
-                    new SimpleFunction<Relationships, KV<String, Relationships>>() {
-                      @Override
-                      public KV<String, Relationships> apply(Relationships input) {
-                        return KV.of(input.getId(), input);
-                      }
-                    }))
-            .apply(GroupByKey.create())
-            .apply(
-                MapElements.via(
-                    new SimpleFunction<KV<String, Iterable<Relationships>>, Relationships>() {
-                      @Override
-                      public Relationships apply(KV<String, Iterable<Relationships>> input) {
-
-                        Set<Relationship> set = new HashSet<>();
-                        for (Relationships rs : input.getValue()) {
-                          set.addAll(rs.getRelationships());
-                        }
-                        return Relationships.newBuilder()
-                            .setId(input.getKey())
-                            .setRelationships(new ArrayList<>(set))
-                            .build();
-                      }
-                    }));
+    // add previous relationships of groups without changed records
+    if (touched != null) {
+      PCollection<Relationships> previousRelationships =
+          pipeline.apply(
+              AvroIO.read(Relationships.class)
+                  .from(options.getClusteringPath() + "/previous/state/relationships/*.avro"));
+      relationships =
+          PCollectionList.of(relationships)
+              .and(IncrementalClustering.keptRelationships(previousRelationships, touched))
+              .apply(Flatten.pCollections());
+    }
+
+    // all relationships of every group are kept for the next incremental run
+    if (Boolean.TRUE.equals(options.isIncremental())) {
+      IncrementalClustering.groupState(relationships)
+          .apply(
+              AvroIO.write(Relationships.class)
+                  .to(options.getClusteringPath() + "/state/relationships/relationships")
+                  .withSuffix(".avro")
+                  .withCodec(BASE_CODEC));
+    }
+
+    PCollection<Relationships> relationshipsGrouped = relationshipsPerRecord(relationships);
 
     // write out to AVRO for debug
     relationshipsGrouped.apply(
@@ -373,6 +355,201 @@ public class ClusteringPipeline {
 
     // write candidates out to disk ??
     pipeline.run().waitUntilFinish();
+
+    if (incremental) {
+      FileSystem fs =
+          FsUtils.getFileSystem(
+              HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig()),
+              options.getInputPath());
+      ALAFsUtils.deleteIfExist(fs, options.getClusteringPath() + "/previous");
+    }
+  }
+
+  /**
+   * Candidates to compare of every group, oversized groups are split into blocks if blocking is
+   * enabled
+   *
+   * @param blocking blocking of oversized groups, null if disabled
+   */
+  public static PCollection<ClusteringCandidates> candidates(
+      PCollection<KV<String, Iterable<HashKeyOccurrence>>> groups,
+      CandidateBlocking blocking,
+      Integer candidatesCutoff) {
+    return groups.apply(
+        "Create candidates",
+        ParDo.of(
+            new DoFn<KV<String, Iterable<HashKeyOccurrence>>, ClusteringCandidates>() {
+
+              private final Distribution blockPairs =
+                  Metrics.distribution(ClusteringPipeline.class, BLOCK_PAIRS);
+              private final Counter splitBlocks =
+                  Metrics.counter(ClusteringPipeline.class, SPLIT_BLOCKS);
+              private final Counter droppedRecords =
+                  Metrics.counter(ClusteringPipeline.class, DROPPED_RECORDS);
+
+              @ProcessElement
+              public void processElement(
+                  @Element KV<String, Iterable<HashKeyOccurrence>> source,
+                  OutputReceiver<ClusteringCandidates> out) {
+
+                List<HashKeyOccurrence> result = new ArrayList<>();
+                source.getValue().iterator().forEachRemaining(result::add);
+
+                if (blocking != null) {
+                  boolean oversized = result.size() >= candidatesCutoff;
+                  if (oversized) {
+                    splitBlocks.inc();
+                  }
+                  List<CandidateBlock<HashKeyOccurrence>> blocks =
+                      blocking.split(source.getKey(), result);
+                  // records of oversized blocks without a finer level aren't compared
+                  long dropped = oversized ? result.size() : 0;
+                  for (CandidateBlock<HashKeyOccurrence> block : blocks) {
+                    dropped -= oversized ? block.getRecords().size() : 0;
+                    blockPairs.update(block.getPairs());
+                    out.output(
+                        ClusteringCandidates.builder()
+                            .hashKey(block.getKey())
+                            .groupKey(source.getKey())
+                            .candidates(block.getRecords())
+                            .build());
+                  }
+                  droppedRecords.inc(dropped);
+                } else if (result.size() > 1) {
+                  out.output(
+                      ClusteringCandidates.builder()
+                          .hashKey(source.getKey())
+                          .groupKey(source.getKey())
+                          .candidates(result)
+                          .build());
+                }
+              }
+            }));
+  }
+
+  /** Relationships of candidates keyed by the hash key of the group of the candidates */
+  public static PCollection<KV<String, Relationship>> groupRelationships(
+      PCollection<ClusteringCandidates> candidates, Integer candidatesCutoff) {
+    return candidates.apply(
+        "Create relationships",
+        ParDo.of(
+            new DoFn<ClusteringCandidates, KV<String, Relationship>>() {
+              @ProcessElement
+              public void processElement(
+                  @Element ClusteringCandidates source,
+                  OutputReceiver<KV<String, Relationship>> out) {
+
+                log.info("Candidates: {}", source.getCandidates().size());
+                if (source.getCandidates().size() < candidatesCutoff) {
+                  List<KV<String, Relationship>> output =
+                      createRelationships(source, candidatesCutoff);
+                  log.info(
+                      "Candidates: {}, Relationships {}",
+                      source.getCandidates().size(),
+                      output.size());
+                  output.forEach(kv -> out.output(KV.of(source.getGroupKey(), kv.getValue())));
+                }
+              }
+            }));
+  }
+
+  /**
+   * Relationships of every duplicate and representative record, one relationship is kept per
+   * duplicate, see {@link #selectRelationship}
+   *
+   * @param relationships relationships of {@link #groupRelationships}
+   */
+  public static PCollection<Relationships> relationshipsPerRecord(
+      PCollection<KV<String, Relationship>> relationships) {
+    return relationships
+        .apply(
+            "Key relationships by duplicate id",
+            MapElements.via(
+                new SimpleFunction<KV<String, Relationship>, KV<String, Relationship>>() {
+                  @Override
+                  public KV<String, Relationship> apply(KV<String, Relationship> input) {
+                    return KV.of(input.getValue().getDupId(), input.getValue());
+                  }
+                }))
+        .apply("Group relationships by duplicate id", GroupByKey.create())
+        .apply(
+            "Select a relationship per duplicate",
+            MapElements.via(
+                new SimpleFunction<KV<String, Iterable<Relationship>>, Relationships>() {
+                  @Override
+                  public Relationships apply(KV<String, Iterable<Relationship>> input) {
+                    // we are only support one duplicate relationship
+                    List<Relationship> list = new ArrayList<>();
+                    list.add(selectRelationship(input.getValue()));
+                    return Relationships.newBuilder()
+                        .setId(input.getKey())
+                        .setRelationships(list)
+                        .build();
+                  }
+                }))
+        .apply(
+            "Add representative relationships",
+            ParDo.of(
+                new DoFn<Relationships, Relationships>() {
+                  @ProcessElement
+                  public void processElement(
+                      @Element Relationships duplicateRelationship,
+                      OutputReceiver<Relationships> out) {
+
+                    Relationship r = duplicateRelationship.getRelationships().iterator().next();
+
+                    // create a relationship for the representative record
+                    Relationships representativeRelationship =
+                        Relationships.newBuilder()
+                            .setId(r.getRepId())
+                            .setRelationships(duplicateRelationship.getRelationships())
+                            .build();
+
+                    out.output(representativeRelationship);
+                    out.output(duplicateRelationship);
+                  }
+                }))
+        .apply(
+            "Key relationships by id",
+            MapElements.via(
+                new SimpleFunction<Relationships, KV<String, Relationships>>() {
+                  @Override
+                  public KV<String, Relationships> apply(Relationships input) {
+                    return KV.of(input.getId(), input);
+                  }
+                }))
+        .apply("Group relationships by id", GroupByKey.create())
+        .apply(
+            "Merge relationships",
+            MapElements.via(
+                new SimpleFunction<KV<String, Iterable<Relationships>>, Relationships>() {
+                  @Override
+                  public Relationships apply(KV<String, Iterable<Relationships>> input) {
+
+                    Set<Relationship> set = new HashSet<>();
+                    for (Relationships rs : input.getValue()) {
+                      set.addAll(rs.getRelationships());
+                    }
+                    return Relationships.newBuilder()
+                        .setId(input.getKey())
+                        .setRelationships(new ArrayList<>(set))
+                        .build();
+                  }
+                }));
+  }
+
+  /**
+   * The relationship kept of a duplicate found in several groups, independent of the order of the
+   * relationships, so incremental and full runs keep the same one
+   */
+  public static Relationship selectRelationship(Iterable<Relationship> relationships) {
+    Relationship selected = null;
+    for (Relationship r : relationships) {
+      if (selected == null || RELATIONSHIP_ORDER.compare(r, selected) < 0) {
+        selected = r;
+      }
+    }
+    return selected;
   }
 
   private static void outputDebugRelationshipsUngrouped(
@@ -522,23 +699,23 @@ public class ClusteringPipeline {
     List<KV<String, Relationship>> output = new ArrayList<>();
     if (source.getCandidates().size() < candidatesCutoff) {
 
-      List<HashKeyOccurrence> candidates = source.getCandidates();
+      // features are compiled once per candidate, not once per pair
+      List<CompiledOccurrenceFeatures<HashKeyOccurrence>> candidates =
+          CompiledOccurrenceFeatures.compile(source.getCandidates());
       List<ClusterPair> pairs = new ArrayList<>();
-      List<HashKeyOccurrence> processed = new ArrayList<>();
-
-      for (HashKeyOccurrence o1 : candidates) {
-
-        processed.add(o1);
 
-        for (HashKeyOccurrence o2 : candidates) {
-
-          if (!processed.contains(o2)) {
-            RelationshipAssertion<HashKeyOccurrence> assertion =
-                OccurrenceRelationships.generate(o1, o2);
-
-            if (assertion != null) {
-              pairs.add(ClusterPair.builder().o1(o1).o2(o2).assertion(assertion).build());
-            }
+      for (int i = 0; i < candidates.size(); i++) {
+        for (int j = i + 1; j < candidates.size(); j++) {
+          RelationshipAssertion<HashKeyOccurrence> assertion =
+              OccurrenceRelationships.generate(candidates.get(i), candidates.get(j));
+
+          if (assertion != null) {
+            pairs.add(
+                ClusterPair.builder()
+                    .o1(candidates.get(i).get())
+                    .o2(candidates.get(j).get())
+                    .assertion(assertion)
+                    .build());
           }
         }
       }
@@ -630,6 +807,41 @@ public class ClusteringPipeline {
     return output;
   }
 
+  /**
+   * Moves relationships and hash keys of the previous run to the "previous" directory, the base of
+   * an incremental run.
+   *
+   * @return true if the run is incremental, false if not enabled or there is no previous run
+   */
+  private static boolean movePreviousClustering(ClusteringPipelineOptions options) {
+    if (!Boolean.TRUE.equals(options.isIncremental())) {
+      return false;
+    }
+    FileSystem fs =
+        FsUtils.getFileSystem(
+            HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig()),
+            options.getInputPath());
+    String path = options.getClusteringPath();
+    if (!ALAFsUtils.existsAndNonEmpty(fs, path + "/state/hashkeys")
+        || !ALAFsUtils.existsAndNonEmpty(fs, path + "/state/relationships")) {
+      log.info("No previous clustering in {}, running a full clustering", path);
+      return false;
+    }
+    try {
+      ALAFsUtils.deleteIfExist(fs, path + "/previous");
+      ALAFsUtils.createDirectory(fs, path + "/previous");
+      if (!fs.rename(new Path(path + "/state"), new Path(path + "/previous/state"))) {
+        throw new IOException("Can't rename " + path + "/state");
+      }
+      ALAFsUtils.deleteIfExist(fs, path + "/relationships");
+      ALAFsUtils.deleteIfExist(fs, path + "/relationships-debug");
+    } catch (IOException ex) {
+      throw new IllegalStateException("Can't move the previous clustering in " + path, ex);
+    }
+    log.info("Moved previous clustering to {}/previous for an incremental run", path);
+    return true;
+  }
+
   private static void clearPreviousClustering(ClusteringPipelineOptions options) {
 
     log.info("Clearing clustering path {}", options.getClusteringPath());
@@ -639,6 +851,7 @@ public class ClusteringPipeline {
             options.getInputPath());
     ALAFsUtils.deleteIfExist(fs, options.getClusteringPath() + "/relationships");
     ALAFsUtils.deleteIfExist(fs, options.getClusteringPath() + "/relationships-debug");
+    ALAFsUtils.deleteIfExist(fs, options.getClusteringPath() + "/state");
     log.info("Cleared clustering path {}.", options.getClusteringPath());
   }
 }
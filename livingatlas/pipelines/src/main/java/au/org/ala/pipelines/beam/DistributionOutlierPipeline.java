@@ -34,6 +34,10 @@ import org.slf4j.MDC;
  *
  * <p>distanceOutOfELD: 0 -> inside of EDL, -1: -> No EDLs. >0 -> out of EDL
  *
+ * <p>Distances are calculated by the workers, expert distributions are loaded once per worker from
+ * the spatial service, or from the export of {@link
+ * au.org.ala.distribution.ExpertDistributionExport} if expertDistributionPath is set.
+ *
  * <p>Example: java au.org.ala.pipelines.beam.DistributionOutlierPipeline
  * --config=/data/la-pipelines/config/la-pipelines.yaml --fsPath=/data
  *
@@ -99,7 +103,10 @@ public class DistributionOutlierPipeline {
     }
 
     DistributionOutlierTransform distributionTransform =
-        new DistributionOutlierTransform(options.getBaseUrl());
+        new DistributionOutlierTransform(
+            options.getBaseUrl(),
+            options.getExpertDistributionPath(),
+            options.getExpertDistributionCacheSize());
 
     log.info("Adding step 2: Create UUID -> IndexRecords for all records");
     PCollection<KV<String, IndexRecord>> kvIndexRecords =
@@ -158,14 +165,10 @@ public class DistributionOutlierPipeline {
                     }));
 
     log.info("Adding step 6: calculating outliers index for those new records");
+    // No grouping by species, distributions are cached by every worker
     PCollection<DistributionOutlierRecord> kvRecords =
-        newAddedIndexRecords
-            .apply("Key by species", distributionTransform.toKv())
-            .apply("Grouping by species", GroupByKey.create())
-            .apply(
-                "Calculating outliers based on the species",
-                distributionTransform.calculateOutlier())
-            .apply("Flatten records", Flatten.iterables());
+        newAddedIndexRecords.apply(
+            "Calculating outliers based on the species", distributionTransform.interpret());
 
     DateFormat df = new SimpleDateFormat("yyyy-MM-dd-hh-mm-ss");
     String ts = df.format(new Date());
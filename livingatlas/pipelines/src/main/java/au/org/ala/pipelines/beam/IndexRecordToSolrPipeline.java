@@ -12,6 +12,8 @@ import au.org.ala.pipelines.transforms.IndexFields;
 import au.org.ala.pipelines.transforms.IndexRecordTransform;
 import au.org.ala.pipelines.transforms.IndexValues;
 import au.org.ala.pipelines.util.VersionInfo;
+import au.org.ala.sampling.SampleIndex;
+import au.org.ala.sampling.SampleIndexFactory;
 import au.org.ala.utils.ALAFsUtils;
 import au.org.ala.utils.CombinedYamlConfiguration;
 import au.org.ala.utils.ValidationUtils;
@@ -37,6 +39,7 @@ import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.PipelinesException;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.io.avro.*;
 import org.jetbrains.annotations.NotNull;
 import org.joda.time.Duration;
@@ -56,7 +59,8 @@ import org.slf4j.MDC;
  * CoGroupByKey as they are all using occurrenceIDs. These output are generated in other pipelines
  * which are run prior to running this one.
  *
- * <p>Sampling is joined to IndexRecords using a latitude_longitude string.
+ * <p>Sampling is looked up in the sample index by the latitude_longitude string, or joined to
+ * IndexRecords using the string if there is no sample index.
  */
 @Slf4j
 public class IndexRecordToSolrPipeline {
@@ -130,33 +134,49 @@ public class IndexRecordToSolrPipeline {
 
       log.info("Adding sampling to the index");
 
-      // Load Samples - keyed on LatLng
-      PCollection<KV<String, SampleRecord>> sampleRecords =
-          loadSampleRecords(options, pipeline, numOfPartitions);
-
-      // Convert to KV <LatLng, IndexRecord>
-      PCollection<KV<String, IndexRecord>> indexRecordsKeyedLatng =
-          indexRecordsCollection.apply(
-              MapElements.via(
-                  new SimpleFunction<KV<String, IndexRecord>, KV<String, IndexRecord>>() {
-                    @Override
-                    public KV<String, IndexRecord> apply(KV<String, IndexRecord> input) {
-                      // add hash
-                      Random ran = new Random();
-                      // values 0 to numOfPartitions
-                      int x = ran.nextInt(numOfPartitions - 1);
-                      String latLng =
-                          Strings.isEmpty(input.getValue().getLatLng())
-                              ? input
-                                  .getValue()
-                                  .getId() // just need a unique ID so there is no join
-                              : x + "-" + input.getValue().getLatLng();
-                      return KV.of(latLng, input.getValue());
-                    }
-                  }));
+      HdfsConfigs hdfsConfigs =
+          HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+      String sampleIndexPath = ALAFsUtils.buildPathSampleIndexUsingTargetPath(options);
+      String samplingPath = ALAFsUtils.buildPathSamplingUsingTargetPath(options);
+
+      if (options.getSampleIndexLookup()
+          && SampleIndexFactory.isUpToDate(hdfsConfigs, sampleIndexPath, samplingPath)) {
+        // No shuffle, samples are looked up in the memory mapped index by every worker
+        log.info("Adding sampling by a lookup in {}", sampleIndexPath);
+        readyToIndex =
+            indexRecordsCollection
+                .apply(Values.create())
+                .apply(ParDo.of(new SampleLookupFn(hdfsConfigs, sampleIndexPath)));
+      } else {
+        // Load Samples - keyed on LatLng
+        PCollection<KV<String, SampleRecord>> sampleRecords =
+            loadSampleRecords(options, pipeline, numOfPartitions);
+
+        // Convert to KV <LatLng, IndexRecord>
+        PCollection<KV<String, IndexRecord>> indexRecordsKeyedLatng =
+            indexRecordsCollection.apply(
+                MapElements.via(
+                    new SimpleFunction<KV<String, IndexRecord>, KV<String, IndexRecord>>() {
+                      @Override
+                      public KV<String, IndexRecord> apply(KV<String, IndexRecord> input) {
+                        // add hash
+                        Random ran = new Random();
+                        // values 0 to numOfPartitions
+                        int x = ran.nextInt(numOfPartitions - 1);
+                        String latLng =
+                            Strings.isEmpty(input.getValue().getLatLng())
+                                ? input
+                                    .getValue()
+                                    .getId() // just need a unique ID so there is no join
+                                : x + "-" + input.getValue().getLatLng();
+                        return KV.of(latLng, input.getValue());
+                      }
+                    }));
+
+        // add sampling to the records with coordinates
+        readyToIndex = joinSampleRecord(indexRecordsKeyedLatng, sampleRecords);
+      }
 
-      // add sampling to the records with coordinates
-      readyToIndex = joinSampleRecord(indexRecordsKeyedLatng, sampleRecords);
       SolrIO.ConnectionConfiguration conn =
           SolrIO.ConnectionConfiguration.create(options.getZkHost());
 
@@ -425,39 +445,7 @@ public class IndexRecordToSolrPipeline {
         indexRecordIterable.forEach(
             indexRecord -> {
               if (sampleRecord != null && !sampleRecord.equals(nullSampling)) {
-
-                Map<String, String> strings =
-                    indexRecord.getStrings() != null ? indexRecord.getStrings() : new HashMap<>();
-                Map<String, Double> doubles =
-                    indexRecord.getDoubles() != null ? indexRecord.getDoubles() : new HashMap<>();
-
-                Map<String, String> stringsToPersist =
-                    ImmutableMap.<String, String>builder()
-                        .putAll(strings)
-                        .putAll(sampleRecord.getStrings())
-                        .build();
-
-                Map<String, Double> doublesToPersist =
-                    ImmutableMap.<String, Double>builder()
-                        .putAll(doubles)
-                        .putAll(sampleRecord.getDoubles())
-                        .build();
-
-                IndexRecord ir =
-                    IndexRecord.newBuilder()
-                        .setId(indexRecord.getId())
-                        .setTaxonID(indexRecord.getTaxonID())
-                        .setLatLng(indexRecord.getLatLng())
-                        .setMultiValues(indexRecord.getMultiValues())
-                        .setDates(indexRecord.getDates())
-                        .setLongs(indexRecord.getLongs())
-                        .setBooleans(indexRecord.getBooleans())
-                        .setInts(indexRecord.getInts())
-                        .setStrings(stringsToPersist)
-                        .setDoubles(doublesToPersist)
-                        .setDynamicProperties(indexRecord.getDynamicProperties())
-                        .build();
-                c.output(ir);
+                c.output(addSampling(indexRecord, sampleRecord));
               } else {
                 c.output(indexRecord);
               }
@@ -466,6 +454,67 @@ public class IndexRecordToSolrPipeline {
     };
   }
 
+  /** Copy of the index record with the strings and doubles of the sample record */
+  private static IndexRecord addSampling(IndexRecord indexRecord, SampleRecord sampleRecord) {
+    Map<String, String> strings =
+        indexRecord.getStrings() != null ? indexRecord.getStrings() : new HashMap<>();
+    Map<String, Double> doubles =
+        indexRecord.getDoubles() != null ? indexRecord.getDoubles() : new HashMap<>();
+
+    Map<String, String> stringsToPersist =
+        ImmutableMap.<String, String>builder()
+            .putAll(strings)
+            .putAll(sampleRecord.getStrings())
+            .build();
+
+    Map<String, Double> doublesToPersist =
+        ImmutableMap.<String, Double>builder()
+            .putAll(doubles)
+            .putAll(sampleRecord.getDoubles())
+            .build();
+
+    return IndexRecord.newBuilder()
+        .setId(indexRecord.getId())
+        .setTaxonID(indexRecord.getTaxonID())
+        .setLatLng(indexRecord.getLatLng())
+        .setMultiValues(indexRecord.getMultiValues())
+        .setDates(indexRecord.getDates())
+        .setLongs(indexRecord.getLongs())
+        .setBooleans(indexRecord.getBooleans())
+        .setInts(indexRecord.getInts())
+        .setStrings(stringsToPersist)
+        .setDoubles(doublesToPersist)
+        .setDynamicProperties(indexRecord.getDynamicProperties())
+        .build();
+  }
+
+  /** Adds samples of the record coordinates from the {@link SampleIndex} */
+  private static class SampleLookupFn extends DoFn<IndexRecord, IndexRecord> {
+
+    private final HdfsConfigs hdfsConfigs;
+    private final String sampleIndexPath;
+    private transient SampleIndex sampleIndex;
+
+    private SampleLookupFn(HdfsConfigs hdfsConfigs, String sampleIndexPath) {
+      this.hdfsConfigs = hdfsConfigs;
+      this.sampleIndexPath = sampleIndexPath;
+    }
+
+    @Setup
+    public void setup() {
+      sampleIndex = SampleIndexFactory.getInstance(hdfsConfigs, sampleIndexPath);
+    }
+
+    @ProcessElement
+    public void processElement(@Element IndexRecord indexRecord, OutputReceiver<IndexRecord> out) {
+      SampleRecord sampleRecord =
+          Strings.isEmpty(indexRecord.getLatLng())
+              ? null
+              : sampleIndex.get(indexRecord.getLatLng());
+      out.output(sampleRecord != null ? addSampling(indexRecord, sampleRecord) : indexRecord);
+    }
+  }
+
   /**
    * Join processing outputs which are all key-ed on OccurrenceID.
    *
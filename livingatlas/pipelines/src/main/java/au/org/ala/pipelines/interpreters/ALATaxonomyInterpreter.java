@@ -137,33 +137,7 @@ public class ALATaxonomyInterpreter {
       atr.setId(er.getId());
 
       if (kvStore != null) {
-        String genus = extractValue(er, DwcTerm.genus, defaults);
-        if (genus == null) {
-          genus = extractValue(er, DwcTerm.genericName, defaults);
-        }
-        NameSearch.NameSearchBuilder builder = NameSearch.builder();
-        if (matchOnTaxonID) {
-          builder.taxonID(extractValue(er, DwcTerm.taxonID, defaults));
-        }
-        NameSearch matchRequest =
-            builder
-                .kingdom(extractValue(er, DwcTerm.kingdom, defaults))
-                .phylum(extractValue(er, DwcTerm.phylum, defaults))
-                .clazz(extractValue(er, DwcTerm.class_, defaults))
-                .order(extractValue(er, DwcTerm.order, defaults))
-                .family(extractValue(er, DwcTerm.family, defaults))
-                .genus(genus)
-                .scientificName(extractValue(er, DwcTerm.scientificName, defaults))
-                .rank(extractValue(er, DwcTerm.taxonRank, defaults))
-                .verbatimTaxonRank(extractValue(er, DwcTerm.verbatimTaxonRank, defaults))
-                .specificEpithet(extractValue(er, DwcTerm.specificEpithet, defaults))
-                .infraspecificEpithet(extractValue(er, DwcTerm.infraspecificEpithet, defaults))
-                .scientificNameAuthorship(
-                    extractValue(er, DwcTerm.scientificNameAuthorship, defaults))
-                .vernacularName(extractValue(er, DwcTerm.vernacularName, defaults))
-                .hints(hints)
-                .build();
-
+        NameSearch matchRequest = createMatchRequest(er, hints, defaults, matchOnTaxonID);
         NameUsageMatch usageMatch = kvStore.get(matchRequest);
         if (isEmpty(usageMatch)) {
           // happens when we get an empty response from the WS
@@ -221,6 +195,50 @@ public class ALATaxonomyInterpreter {
     };
   }
 
+  /**
+   * Creates the name search of the record, the same {@link #alaTaxonomyInterpreter} uses, so names
+   * of many records can be matched in one batch before the interpretation
+   */
+  public static NameSearch createMatchRequest(
+      ExtendedRecord er, ALACollectoryMetadata dataResource, Boolean matchOnTaxonID) {
+    return createMatchRequest(
+        er,
+        dataResource == null ? null : dataResource.getHintMap(),
+        dataResource == null ? null : dataResource.getDefaultDarwinCoreValues(),
+        matchOnTaxonID);
+  }
+
+  private static NameSearch createMatchRequest(
+      ExtendedRecord er,
+      Map<String, List<String>> hints,
+      Map<String, String> defaults,
+      Boolean matchOnTaxonID) {
+    String genus = extractValue(er, DwcTerm.genus, defaults);
+    if (genus == null) {
+      genus = extractValue(er, DwcTerm.genericName, defaults);
+    }
+    NameSearch.NameSearchBuilder builder = NameSearch.builder();
+    if (matchOnTaxonID) {
+      builder.taxonID(extractValue(er, DwcTerm.taxonID, defaults));
+    }
+    return builder
+        .kingdom(extractValue(er, DwcTerm.kingdom, defaults))
+        .phylum(extractValue(er, DwcTerm.phylum, defaults))
+        .clazz(extractValue(er, DwcTerm.class_, defaults))
+        .order(extractValue(er, DwcTerm.order, defaults))
+        .family(extractValue(er, DwcTerm.family, defaults))
+        .genus(genus)
+        .scientificName(extractValue(er, DwcTerm.scientificName, defaults))
+        .rank(extractValue(er, DwcTerm.taxonRank, defaults))
+        .verbatimTaxonRank(extractValue(er, DwcTerm.verbatimTaxonRank, defaults))
+        .specificEpithet(extractValue(er, DwcTerm.specificEpithet, defaults))
+        .infraspecificEpithet(extractValue(er, DwcTerm.infraspecificEpithet, defaults))
+        .scientificNameAuthorship(extractValue(er, DwcTerm.scientificNameAuthorship, defaults))
+        .vernacularName(extractValue(er, DwcTerm.vernacularName, defaults))
+        .hints(hints)
+        .build();
+  }
+
   /**
    * Perform quality checks on the outgoing record.
    *
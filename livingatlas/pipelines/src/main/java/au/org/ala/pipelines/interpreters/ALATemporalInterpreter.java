@@ -13,6 +13,7 @@ import org.gbif.common.parsers.core.ParseResult;
 import org.gbif.common.parsers.date.DateComponentOrdering;
 import org.gbif.common.parsers.date.TemporalAccessorUtils;
 import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.core.functions.SerializableConsumer;
 import org.gbif.pipelines.core.functions.SerializableFunction;
 import org.gbif.pipelines.core.parsers.temporal.TemporalParser;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
@@ -39,9 +40,11 @@ public class ALATemporalInterpreter implements Serializable {
   @Builder(buildMethodName = "create")
   private ALATemporalInterpreter(
       List<DateComponentOrdering> orderings,
-      SerializableFunction<String, String> preprocessDateFn) {
+      SerializableFunction<String, String> preprocessDateFn,
+      SerializableConsumer<String> cacheCounterFn) {
     this.preprocessDateFn = preprocessDateFn;
-    this.temporalParser = TemporalParser.create(orderings);
+    this.temporalParser =
+        TemporalParser.create(orderings, TemporalParser.DEFAULT_CACHE_SIZE, cacheCounterFn);
   }
 
   /**
@@ -15,38 +15,41 @@ public class JackKnife {
    * @return null or JackKnifeStats
    */
   public static double[] jackknife(Double[] values, Integer minSampleThreshold) {
-    // inclusive outlier range
-    double maxValue, minValue;
-
-    int missingValues = 0;
-    for (Double value : values) {
-      if (Double.isNaN(value)) {
-        missingValues++;
-      }
-    }
-
-    double[] valuesNotMissing = new double[values.length - missingValues];
-    int pos = 0;
+    double[] valuesNotMissing = new double[values.length];
+    int n = 0;
     for (Double value : values) {
       if (!Double.isNaN(value)) {
-        valuesNotMissing[pos++] = value;
+        valuesNotMissing[n++] = value;
       }
     }
+    return jackknife(valuesNotMissing, n, minSampleThreshold);
+  }
 
-    // number of actual values
-    int n = valuesNotMissing.length;
-
-    if (valuesNotMissing.length < minSampleThreshold) {
+  /**
+   * Jackknife of the first n values of the array, the values are sorted in place. Ranges which
+   * can't produce a model are rejected before sorting.
+   *
+   * @param values values without missing values, only the first n values are used
+   * @param n number of values
+   * @param minSampleThreshold minimum number of values
+   * @return null or inclusive outlier range {min, max}
+   */
+  public static double[] jackknife(double[] values, int n, int minSampleThreshold) {
+    if (n == 0 || n < minSampleThreshold) {
       return null;
     }
 
-    Arrays.sort(valuesNotMissing);
-
-    double min = valuesNotMissing[0];
-    double max = valuesNotMissing[n - 1];
+    double min = values[0];
+    double max = values[0];
+    for (int i = 1; i < n; i++) {
+      double v = values[i];
+      if (v < min) {
+        min = v;
+      } else if (v > max) {
+        max = v;
+      }
+    }
 
-    double smean = 0;
-    double sstd = 0;
     double srange = max - min;
     double threshold = ((0.95 * Math.sqrt(n) + 0.2) * (srange / 50.0));
 
@@ -54,13 +57,19 @@ public class JackKnife {
       return null;
     }
 
-    for (double v : valuesNotMissing) {
-      smean += v;
+    // consecutive values are compared, so all values are sorted
+    Arrays.sort(values, 0, n);
+
+    double smean = 0;
+    for (int i = 0; i < n; i++) {
+      smean += values[i];
     }
     smean = smean / n;
 
-    for (double v : valuesNotMissing) {
-      sstd += Math.pow(v - smean, 2);
+    double sstd = 0;
+    for (int i = 0; i < n; i++) {
+      double d = values[i] - smean;
+      sstd += d * d;
     }
     sstd = Math.sqrt(sstd / n);
 
@@ -68,19 +77,19 @@ public class JackKnife {
     int maxIdx = -1;
 
     for (int i = 0; i < n; i++) {
-      double v = valuesNotMissing[i];
+      double v = values[i];
       double y;
 
       // values are sorted so a range check is not required for values[i+1] and values[i-1]
       if (v < smean) {
-        y = (valuesNotMissing[i + 1] - v) * (smean - v);
+        y = (values[i + 1] - v) * (smean - v);
         double c = y / sstd;
 
         if (c > threshold) {
           minIdx = i; // continue searching for a larger minIdx
         }
       } else if (v > smean) {
-        y = (v - valuesNotMissing[i - 1]) * (v - smean);
+        y = (v - values[i - 1]) * (v - smean);
         double c = y / sstd;
 
         if (c > threshold) {
@@ -94,13 +103,14 @@ public class JackKnife {
     int outlierCount = 0;
 
     // set minimum outlier value
-    minValue = valuesNotMissing[minIdx + 1];
+    double minValue = values[minIdx + 1];
     outlierCount += minIdx + 1;
 
     // set maximum outlier value
-    if (maxIdx < 0) maxValue = valuesNotMissing[n - 1]; // larger than largest value
+    double maxValue;
+    if (maxIdx < 0) maxValue = values[n - 1]; // larger than largest value
     else {
-      maxValue = valuesNotMissing[maxIdx - 1];
+      maxValue = values[maxIdx - 1];
       outlierCount += n - maxIdx;
     }
 
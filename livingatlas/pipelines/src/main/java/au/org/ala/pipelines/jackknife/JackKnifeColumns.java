@@ -0,0 +1,128 @@
+package au.org.ala.pipelines.jackknife;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Reverse jackknife of all layers of one species.
+ *
+ * <p>Sampled values of the records are kept in primitive columns, a column per layer. Models of all
+ * layers are calculated column by column with one scratch buffer, and outliers of all records are
+ * found from the same columns, so values are neither boxed nor copied per layer.
+ */
+public class JackKnifeColumns {
+
+  /** Inclusive outlier range of a layer and the number of values it was built from */
+  @Value
+  public static class Model {
+    double min;
+    double max;
+    int count;
+  }
+
+  private final String[] layers;
+  private final int minSampleThreshold;
+  private final double[][] columns;
+  private String[] ids;
+  @Getter private int size;
+
+  public JackKnifeColumns(@NonNull String[] layers, int minSampleThreshold) {
+    this(layers, minSampleThreshold, 16);
+  }
+
+  public JackKnifeColumns(@NonNull String[] layers, int minSampleThreshold, int capacity) {
+    this.layers = layers;
+    this.minSampleThreshold = minSampleThreshold;
+    this.columns = new double[layers.length][Math.max(capacity, 1)];
+    this.ids = new String[Math.max(capacity, 1)];
+  }
+
+  /**
+   * @param id record ID
+   * @param values value of every layer, in the order of layers, Double.NaN indicates absence
+   */
+  public void add(String id, double[] values) {
+    if (size == ids.length) {
+      int capacity = size * 2;
+      ids = Arrays.copyOf(ids, capacity);
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = Arrays.copyOf(columns[i], capacity);
+      }
+    }
+    ids[size] = id;
+    for (int i = 0; i < columns.length; i++) {
+      columns[i][size] = values[i];
+    }
+    size++;
+  }
+
+  /** @return model of every layer, in the order of layers, null if a layer has no model */
+  public Model[] models() {
+    Model[] models = new Model[layers.length];
+    double[] scratch = new double[size];
+    for (int i = 0; i < layers.length; i++) {
+      double[] column = columns[i];
+      int n = 0;
+      for (int j = 0; j < size; j++) {
+        double v = column[j];
+        if (!Double.isNaN(v)) {
+          scratch[n++] = v;
+        }
+      }
+      double[] range = JackKnife.jackknife(scratch, n, minSampleThreshold);
+      if (range != null) {
+        models[i] = new Model(range[0], range[1], n);
+      }
+    }
+    return models;
+  }
+
+  /**
+   * Calls the consumer with the outlier layers of every record which is out of the range of at
+   * least one model, records are in the order they were added.
+   *
+   * @param models models of {@link #models()}
+   */
+  public void outliers(Model[] models, BiConsumer<String, List<String>> consumer) {
+    List<String>[] outliers = null;
+    for (int i = 0; i < layers.length; i++) {
+      Model model = models[i];
+      if (model == null) {
+        continue;
+      }
+      double min = model.getMin();
+      double max = model.getMax();
+      double[] column = columns[i];
+      for (int j = 0; j < size; j++) {
+        double v = column[j];
+        // NaN isn't out of the range
+        if (v < min || v > max) {
+          if (outliers == null) {
+            outliers = newLists(size);
+          }
+          if (outliers[j] == null) {
+            outliers[j] = new ArrayList<>();
+          }
+          outliers[j].add(layers[i]);
+        }
+      }
+    }
+    if (outliers != null) {
+      for (int j = 0; j < size; j++) {
+        if (outliers[j] != null) {
+          consumer.accept(ids[j], outliers[j]);
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String>[] newLists(int size) {
+    return new List[size];
+  }
+}
@@ -324,6 +324,10 @@ public class ALAVerbatimToInterpretedPipeline {
 
       boolean useSyncMode = options.getSyncThreshold() > erExtMap.size();
 
+      // ALA specific - match distinct names by batches before the interpretation
+      log.info("Matching names of all records");
+      alaTaxonomyTransform.prefetch(erExtMap.values());
+
       // Create interpretation function
       log.info("Create interpretation function");
       Consumer<ExtendedRecord> interpretAllFn =
@@ -25,6 +25,8 @@ public class IngestMetricsBuilder {
         .addMetric(TaxonomyTransform.class, TAXON_RECORDS_COUNT)
         .addMetric(GrscicollTransform.class, GRSCICOLL_RECORDS_COUNT)
         .addMetric(TemporalTransform.class, TEMPORAL_RECORDS_COUNT)
+        .addMetric(TemporalTransform.class, TEMPORAL_PARSER_CACHE_HITS)
+        .addMetric(TemporalTransform.class, TEMPORAL_PARSER_CACHE_MISSES)
         .addMetric(VerbatimTransform.class, VERBATIM_RECORDS_COUNT)
         .addMetric(MultimediaTransform.class, MULTIMEDIA_RECORDS_COUNT)
         .addMetric(FilterRecordsTransform.class, FILTER_ER_BASED_ON_GBIF_ID)
@@ -22,6 +22,23 @@ public interface ClusteringPipelineOptions
 
   void setCandidatesCutoff(Integer candidatesCutoff);
 
+  @Description(
+      "Adds spatial grid and identifier LSH blocks to the hash keys and splits candidate groups "
+          + "larger than the CandidatesCutoff instead of dropping them")
+  @Default.Boolean(false)
+  Boolean isUseBlocking();
+
+  void setUseBlocking(Boolean useBlocking);
+
+  @Description(
+      "Only compares candidate groups of records added, changed or deleted since the previous run, "
+          + "relationships of groups without such records are kept. Runs fully if there is no "
+          + "previous run")
+  @Default.Boolean(false)
+  Boolean isIncremental();
+
+  void setIncremental(Boolean incremental);
+
   @Description("Include sampling")
   @Default.Boolean(false)
   Boolean isOutputDebugAvro();
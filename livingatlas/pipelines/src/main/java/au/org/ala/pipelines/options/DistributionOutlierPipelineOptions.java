@@ -14,6 +14,20 @@ public interface DistributionOutlierPipelineOptions extends AllDatasetsPipelines
 
   void setBaseUrl(String baseUrl);
 
+  @Description(
+      "Local export of expert distributions written by ExpertDistributionExport. "
+          + "Distributions are loaded from the spatial service if empty")
+  @Default.String("")
+  String getExpertDistributionPath();
+
+  void setExpertDistributionPath(String expertDistributionPath);
+
+  @Description("Maximum number of polygon coordinates of expert distributions cached by a worker")
+  @Default.Long(5_000_000L)
+  long getExpertDistributionCacheSize();
+
+  void setExpertDistributionCacheSize(long expertDistributionCacheSize);
+
   @Description("Whether to add debug counts to processing")
   @Default.Boolean(true)
   boolean isAddDebugCounts();
@@ -41,6 +41,15 @@ public interface SolrPipelineOptions extends IndexingPipelineOptions {
 
   void setIncludeSampling(Boolean includeSampling);
 
+  @Description(
+      "Add sampling by a lookup in the sample index written by the sampling, instead of joining "
+          + "records with samples. The join is used if there is no sample index or it is older "
+          + "than the samples")
+  @Default.Boolean(true)
+  Boolean getSampleIndexLookup();
+
+  void setSampleIndexLookup(Boolean sampleIndexLookup);
+
   @Description("JackKnife path")
   @Default.String("")
   String getJackKnifePath();
@@ -3,12 +3,18 @@ package au.org.ala.pipelines.transforms;
 import static au.org.ala.pipelines.common.ALARecordTypes.ALA_TAXONOMY;
 
 import au.org.ala.kvs.ALANameMatchConfig;
+import au.org.ala.kvs.cache.ALANameMatchKVStore;
 import au.org.ala.kvs.client.ALACollectoryMetadata;
 import au.org.ala.names.ws.api.NameSearch;
 import au.org.ala.names.ws.api.NameUsageMatch;
 import au.org.ala.pipelines.interpreters.ALATaxonomyInterpreter;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.beam.sdk.transforms.MapElements;
@@ -47,6 +53,8 @@ public class ALATaxonomyTransform extends Transform<ExtendedRecord, ALATaxonReco
   private final SerializableSupplier<KeyValueStore<String, ALACollectoryMetadata>>
       dataResourceStoreSupplier;
   private final ALANameMatchConfig alaNameMatchConfig;
+  // Matches of prefetch, the store caches may be too small to keep them all
+  private transient KeyValueStore<NameSearch, NameUsageMatch> prefetchedStore;
 
   @Builder(buildMethodName = "create")
   private ALATaxonomyTransform(
@@ -107,6 +115,28 @@ public class ALATaxonomyTransform extends Transform<ExtendedRecord, ALATaxonReco
     }
   }
 
+  /**
+   * Matches distinct names of the records by batches, if the name match store supports it, the
+   * interpretation of the records uses these matches and the store only for other names
+   */
+  public void prefetch(Collection<ExtendedRecord> records) {
+    if (!(nameMatchStore instanceof ALANameMatchKVStore)) {
+      return;
+    }
+    ALACollectoryMetadata dataResource = this.dataResourceStore.get(datasetId);
+    Set<NameSearch> names =
+        records.stream()
+            .filter(er -> !er.getCoreTerms().isEmpty())
+            .map(
+                er ->
+                    ALATaxonomyInterpreter.createMatchRequest(
+                        er, dataResource, alaNameMatchConfig.getMatchOnTaxonID()))
+            .collect(Collectors.toSet());
+    log.info("Matching {} distinct names of {} records", names.size(), records.size());
+    prefetchedStore =
+        new PrefetchedStore(((ALANameMatchKVStore) nameMatchStore).getAll(names), nameMatchStore);
+  }
+
   /** Beam @Teardown closes initialized resources */
   @Teardown
   public void tearDown() {}
@@ -119,7 +149,9 @@ public class ALATaxonomyTransform extends Transform<ExtendedRecord, ALATaxonReco
         ALATaxonomyInterpreter.alaSourceQualityChecks(dataResource, kingdomCheckStore);
     BiConsumer<ExtendedRecord, ALATaxonRecord> interpret =
         ALATaxonomyInterpreter.alaTaxonomyInterpreter(
-            dataResource, nameMatchStore, alaNameMatchConfig.getMatchOnTaxonID());
+            dataResource,
+            prefetchedStore != null ? prefetchedStore : nameMatchStore,
+            alaNameMatchConfig.getMatchOnTaxonID());
     BiConsumer<ExtendedRecord, ALATaxonRecord> resultCheck =
         ALATaxonomyInterpreter.alaResultQualityChecks(dataResource);
     Interpretation.from(source)
@@ -133,4 +165,20 @@ public class ALATaxonomyTransform extends Transform<ExtendedRecord, ALATaxonReco
     // cases we do not write the taxonRecord because it is totally empty.
     return Optional.of(tr);
   }
+
+  /** Looks up names in the prefetched matches first, a name without a match is mapped to null */
+  @AllArgsConstructor
+  private static class PrefetchedStore implements KeyValueStore<NameSearch, NameUsageMatch> {
+
+    private final Map<NameSearch, NameUsageMatch> matches;
+    private final KeyValueStore<NameSearch, NameUsageMatch> store;
+
+    @Override
+    public NameUsageMatch get(NameSearch key) {
+      return matches.containsKey(key) ? matches.get(key) : store.get(key);
+    }
+
+    @Override
+    public void close() {}
+  }
 }
@@ -6,6 +6,7 @@ import au.org.ala.pipelines.interpreters.ALATemporalInterpreter;
 import java.util.List;
 import java.util.Optional;
 import lombok.Builder;
+import org.apache.beam.sdk.metrics.Metrics;
 import org.gbif.common.parsers.date.DateComponentOrdering;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
 import org.gbif.pipelines.core.functions.SerializableConsumer;
@@ -31,6 +32,7 @@ public class ALATemporalTransform extends Transform<ExtendedRecord, TemporalReco
   private final List<DateComponentOrdering> orderings;
   private TemporalInterpreter temporalInterpreter;
   private ALATemporalInterpreter alaTemporalInterpreter;
+  private SerializableConsumer<String> cacheCounterFn = ALATemporalTransform::publishCacheCounter;
 
   @Builder(buildMethodName = "create")
   private ALATemporalTransform(
@@ -53,6 +55,7 @@ public class ALATemporalTransform extends Transform<ExtendedRecord, TemporalReco
           TemporalInterpreter.builder()
               .orderings(orderings)
               .preprocessDateFn(preprocessDateFn)
+              .cacheCounterFn(this::incCacheCounter)
               .create();
     }
     if (alaTemporalInterpreter == null) {
@@ -60,15 +63,27 @@ public class ALATemporalTransform extends Transform<ExtendedRecord, TemporalReco
           ALATemporalInterpreter.builder()
               .orderings(orderings)
               .preprocessDateFn(preprocessDateFn)
+              .cacheCounterFn(this::incCacheCounter)
               .create();
     }
   }
 
+  /** The counter function also receives date parser cache counters */
   public ALATemporalTransform counterFn(SerializableConsumer<String> counterFn) {
     setCounterFn(counterFn);
+    this.cacheCounterFn = counterFn;
     return this;
   }
 
+  /** Date parser cache hits and misses as Beam counters of the step */
+  private static void publishCacheCounter(String counterName) {
+    Metrics.counter(ALATemporalTransform.class, counterName).inc();
+  }
+
+  private void incCacheCounter(String counterName) {
+    cacheCounterFn.accept(counterName);
+  }
+
   @Override
   public Optional<TemporalRecord> convert(ExtendedRecord source) {
     TemporalRecord tr = TemporalRecord.newBuilder().setId(source.getId()).build();
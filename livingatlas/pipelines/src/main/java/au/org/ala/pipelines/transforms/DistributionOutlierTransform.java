@@ -1,11 +1,10 @@
 package au.org.ala.pipelines.transforms;
 
-import au.org.ala.distribution.DistributionLayer;
-import au.org.ala.distribution.DistributionServiceImpl;
-import au.org.ala.distribution.ExpertDistributionException;
+import au.org.ala.distribution.ExpertDistribution;
+import au.org.ala.distribution.ExpertDistributionStore;
+import au.org.ala.distribution.ExpertDistributionStoreFactory;
 import au.org.ala.pipelines.common.ALARecordTypes;
 import java.util.*;
-import java.util.stream.StreamSupport;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.beam.sdk.transforms.*;
 import org.apache.beam.sdk.values.*;
@@ -13,135 +12,63 @@ import org.gbif.pipelines.core.functions.SerializableConsumer;
 import org.gbif.pipelines.io.avro.*;
 import org.gbif.pipelines.transforms.Transform;
 
+/**
+ * Calculates the distance of every record to the expert distribution layers (EDL) of its species
+ * in-process, using distributions cached by the {@link ExpertDistributionStore} of the worker.
+ *
+ * <p>distanceOutOfEDL 0: inside edl, -1: no edl, otherwise distance to the closest edl in metres
+ */
 @Slf4j
 public class DistributionOutlierTransform
     extends Transform<IndexRecord, DistributionOutlierRecord> {
 
-  private String spatialUrl;
+  private final String spatialUrl;
+  private final String expertDistributionPath;
+  private final long cacheSize;
 
-  public DistributionOutlierTransform(String spatialUrl) {
+  private transient ExpertDistributionStore store;
+
+  public DistributionOutlierTransform(
+      String spatialUrl, String expertDistributionPath, long cacheSize) {
     super(
         DistributionOutlierRecord.class,
         ALARecordTypes.ALA_DISTRIBUTION,
         DistributionOutlierTransform.class.getName(),
         "alaDistributionCount");
     this.spatialUrl = spatialUrl;
+    this.expertDistributionPath = expertDistributionPath;
+    this.cacheSize = cacheSize;
   }
 
   /** Beam @Setup initializes resources */
   @Setup
-  public void setup() {}
+  public void setup() {
+    store =
+        ExpertDistributionStoreFactory.getInstance(spatialUrl, expertDistributionPath, cacheSize);
+  }
 
   public DistributionOutlierTransform counterFn(SerializableConsumer<String> counterFn) {
     setCounterFn(counterFn);
     return this;
   }
 
-  @Override
-  public Optional<DistributionOutlierRecord> convert(IndexRecord source) {
-
-    String latlng = source.getLatLng();
-    String[] coordinates = latlng.split(",");
-
-    return Optional.of(
-        DistributionOutlierRecord.newBuilder()
-            .setId(source.getId())
-            .setSpeciesID(source.getTaxonID())
-            .setDecimalLatitude(Double.parseDouble(coordinates[0]))
-            .setDecimalLongitude(Double.parseDouble(coordinates[1]))
-            .build());
-  }
-
-  public MapElements<IndexRecord, KV<String, IndexRecord>> toKv() {
-    return MapElements.into(new TypeDescriptor<KV<String, IndexRecord>>() {})
-        .via((IndexRecord ir) -> KV.of(ir.getTaxonID(), ir));
-  }
-
   /**
-   * MapElements
-   *
-   * <p>Takes KV of TaxonID -> Iterable<IndexRecord> and outputs Iterable<DistributionOutlierRecord>
-   *
-   * @return
+   * Records of species which distributions can't be loaded are skipped, so they are calculated by
+   * the next run
    */
-  public MapElements<KV<String, Iterable<IndexRecord>>, Iterable<DistributionOutlierRecord>>
-      calculateOutlier() {
-    return MapElements.via(
-        (new SimpleFunction<
-            KV<String, Iterable<IndexRecord>>, Iterable<DistributionOutlierRecord>>() {
-          @Override
-          public Iterable<DistributionOutlierRecord> apply(
-              KV<String, Iterable<IndexRecord>> input) {
-            String lsid = input.getKey();
-
-            Iterable<IndexRecord> records = input.getValue();
-            Iterator<IndexRecord> iter = records.iterator();
-            List<DistributionOutlierRecord> outputs = new ArrayList();
-
-            try {
-              DistributionServiceImpl distributionService =
-                  DistributionServiceImpl.init(spatialUrl);
-
-              List<DistributionLayer> edl = distributionService.findLayersByLsid(lsid);
-
-              boolean hasEDL = edl.size() > 0 ? true : false;
-              double distanceToEDL = hasEDL ? 0 : -1; // 0 -inside, -1: no EDL
-
-              // Available EDLs of this species
-              if (hasEDL) {
-
-                // create a map of UUID -> lat,lng
-                Map points = new HashMap();
-
-                while (iter.hasNext()) {
-                  IndexRecord record = iter.next();
-                  Optional<DistributionOutlierRecord> dr =
-                      convertToDistribution(record, distanceToEDL);
-                  if (dr.isPresent()) {
-                    outputs.add(dr.get());
-                    Map point = new HashMap();
-                    point.put("decimalLatitude", dr.get().getDecimalLatitude());
-                    point.put("decimalLongitude", dr.get().getDecimalLongitude());
-                    points.put(dr.get().getId(), point);
-                  }
-                }
-
-                if (log.isDebugEnabled()) {
-                  log.debug(
-                      String.format(
-                          "Calculating %d records of the species %s", points.size(), lsid));
-                }
-
-                Map<String, Double> results = distributionService.outliers(lsid, points);
-                Iterator<Map.Entry<String, Double>> iterator = results.entrySet().iterator();
-                while (iterator.hasNext()) {
-                  Map.Entry<String, Double> entry = iterator.next();
-                  StreamSupport.stream(outputs.spliterator(), false)
-                      .filter(it -> it.getId().equalsIgnoreCase(entry.getKey()))
-                      .findFirst()
-                      .ifPresent(it -> it.setDistanceOutOfEDL(entry.getValue()));
-                }
-              } else {
-                while (iter.hasNext()) {
-                  IndexRecord record = iter.next();
-                  Optional<DistributionOutlierRecord> dr =
-                      convertToDistribution(record, distanceToEDL);
-                  if (dr.isPresent()) {
-                    outputs.add(dr.get());
-                  }
-                }
-              }
-            } catch (ExpertDistributionException e) {
-              log.error("Error in processing the species: " + lsid + " . Ignored");
-              log.error(e.getMessage());
-            } catch (Exception e) {
-              log.error("Runtime error in processing the species: " + lsid + " . Ignored");
-              log.error(e.getMessage());
-            }
-
-            return outputs;
-          }
-        }));
+  @Override
+  public Optional<DistributionOutlierRecord> convert(IndexRecord source) {
+    ExpertDistribution distribution = store.get(source.getTaxonID());
+    if (distribution == null) {
+      return Optional.empty();
+    }
+    Optional<DistributionOutlierRecord> record =
+        convertToDistribution(source, ExpertDistribution.NO_DISTRIBUTION);
+    record.ifPresent(
+        r ->
+            r.setDistanceOutOfEDL(
+                distribution.distance(r.getDecimalLatitude(), r.getDecimalLongitude())));
+    return record;
   }
 
   /**
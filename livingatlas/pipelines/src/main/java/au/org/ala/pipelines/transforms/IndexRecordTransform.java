@@ -52,6 +52,12 @@ public class IndexRecordTransform implements Serializable, IndexFields {
 
   private static final long serialVersionUID = 1279313931024806169L;
   private static final TermFactory TERM_FACTORY = TermFactory.instance();
+  // One parser and cache per JVM, its hits and misses are counters of this step
+  private static final TemporalParser TEMPORAL_PARSER =
+      TemporalParser.create(
+          Collections.emptyList(),
+          TemporalParser.DEFAULT_CACHE_SIZE,
+          counterName -> Metrics.counter(IndexRecordTransform.class, counterName).inc());
   public static final String ISSUES = "issues";
   public static final String CLASSS = "classs";
   public static final int YYYY_DD_MM_FORMAT_LENGTH = 10;
@@ -649,8 +655,7 @@ public class IndexRecordTransform implements Serializable, IndexFields {
     }
 
     try {
-      TemporalParser temporalParser = TemporalParser.create();
-      OccurrenceParseResult<TemporalAccessor> r = temporalParser.parseRecordedDate(dateString);
+      OccurrenceParseResult<TemporalAccessor> r = TEMPORAL_PARSER.parseRecordedDate(dateString);
 
       // FIXME  - im sure there is a better way to do this
       if (r.getPayload() instanceof LocalDateTime) {
@@ -4,26 +4,35 @@ import au.org.ala.kvs.ALAPipelinesConfig;
 import au.org.ala.kvs.ALAPipelinesConfigFactory;
 import au.org.ala.pipelines.options.AllDatasetsPipelinesOptions;
 import au.org.ala.pipelines.options.SamplingPipelineOptions;
+import au.org.ala.pipelines.util.SamplingUtils;
 import au.org.ala.utils.ALAFsUtils;
 import au.org.ala.utils.CombinedYamlConfiguration;
+import com.google.common.collect.Iterators;
 import java.io.*;
 import java.net.URL;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.gbif.pipelines.common.PipelinesException;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
@@ -38,6 +47,10 @@ import retrofit2.converter.jackson.JacksonConverterFactory;
 /**
  * A utility to crawl the ALA layers. Requires an input csv containing lat, lng (no header) and an
  * output directory.
+ *
+ * <p>Batches of coordinates are sampled in parallel, the sampling is streamed from the service into
+ * avro files. Completed batches are recorded in a {@link SamplingManifest}, so a failed crawl is
+ * resumed by running it again.
  */
 @Slf4j
 public class LayerCrawler {
@@ -45,6 +58,7 @@ public class LayerCrawler {
   public static final String UNKNOWN_STATUS = "unknown";
   public static final String FINISHED_STATUS = "finished";
   public static final String ERROR_STATUS = "error";
+  public static final String MANIFEST = "manifest.txt";
 
   private SamplingService service;
 
@@ -111,16 +125,31 @@ public class LayerCrawler {
     Collection<String> latLngFiles = ALAFsUtils.listPaths(fs, latLngExportPath);
     String layerList = getRequiredLayers();
 
+    SamplingManifest manifest =
+        SamplingManifest.load(fs, sampleDownloadPath + "/" + MANIFEST, layerList);
+    SampleIndex sampleIndex = loadSampleIndex(options, fs, layerList);
+    String sampleAvroPath = SamplingUtils.getSamplingDirectoryPath(options);
+
+    List<String> fileIds = new ArrayList<>();
+    for (String inputFile : latLngFiles) {
+      fileIds.add(fileId(fs, inputFile));
+    }
+    manifest.clean(sampleAvroPath, fileIds);
+
     log.info("Running sampling using lat lng files: {} ", latLngFiles.size());
+    int sampledRecords = 0;
     for (String inputFile : latLngFiles) {
-      crawl(fs, layerList, inputFile, sampleDownloadPath);
+      sampledRecords += crawl(fs, layerList, inputFile, sampleAvroPath, manifest, sampleIndex);
     }
 
-    log.info("Finished layer sampling. Downloads in CSV directory: {}", sampleDownloadPath);
-    log.info("Converting downloaded sampling CSV to AVRO...");
-    SamplesToAvro.run(options);
+    log.info("Finished layer sampling. Sampling in AVRO directory: {}", sampleAvroPath);
+    log.info("Converting remaining sampling CSV to AVRO...");
+    SamplesToAvro.run(options, sampledRecords);
     log.info("Converted.");
 
+    // completed run, the next run starts a new manifest
+    manifest.delete();
+
     Instant batchFinish = Instant.now();
 
     if (!options.getKeepLatLngExports()) {
@@ -136,6 +165,27 @@ public class LayerCrawler {
         Duration.between(batchStart, batchFinish).toMinutes());
   }
 
+  /**
+   * Sampling of previous runs, if the layers of the index include all required layers. Coordinates
+   * of the index don't need to be sampled again.
+   */
+  private static SampleIndex loadSampleIndex(
+      SamplingPipelineOptions options, FileSystem fs, String layers) throws IOException {
+    String sampleIndexPath = ALAFsUtils.buildPathSampleIndexUsingTargetPath(options);
+    if (!ALAFsUtils.exists(fs, sampleIndexPath)) {
+      return null;
+    }
+    SampleIndex sampleIndex =
+        SampleIndexFactory.loadSampleIndex(
+            HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig()),
+            sampleIndexPath);
+    if (!sampleIndex.getLayers().containsAll(Arrays.asList(layers.split(",")))) {
+      log.info("Layers have changed since the previous sampling, sampling all coordinates");
+      return null;
+    }
+    return sampleIndex;
+  }
+
   @NotNull
   private static String getLatLngExportPath(AllDatasetsPipelinesOptions options) {
     if (options.getDatasetId() == null || "all".equals(options.getDatasetId())) {
@@ -183,6 +233,11 @@ public class LayerCrawler {
 
   public LayerCrawler() {}
 
+  LayerCrawler(SamplingService service, ALAPipelinesConfig config) {
+    this.service = service;
+    this.config = config;
+  }
+
   public String getRequiredLayers() throws IOException {
 
     log.info("Retrieving layer list from sampling service");
@@ -197,135 +252,193 @@ public class LayerCrawler {
     return layers;
   }
 
-  public void crawl(FileSystem fs, String layers, String inputFilePath, String outputDirectoryPath)
+  /**
+   * Samples the coordinates of the file in batches, keeps up to the configured parallelism batches
+   * in flight. Sampling of every batch is downloaded and converted to avro, the batch is then
+   * recorded in the manifest and skipped if the run is resumed.
+   *
+   * @param sampleIndex sampling of previous runs, coordinates in the index aren't sampled again
+   * @return number of sample records written
+   */
+  public int crawl(
+      FileSystem fs,
+      String layers,
+      String inputFilePath,
+      String outputDirectoryPath,
+      SamplingManifest manifest,
+      SampleIndex sampleIndex)
       throws Exception {
 
-    // partition the coordinates into batches of N to submit
-    log.info("Partitioning coordinates from file {}", inputFilePath);
-
-    InputStream inputStream = ALAFsUtils.openInputStream(fs, inputFilePath);
-    Collection<List<String>> partitioned;
-    try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-      partitioned = partition(reader.lines(), config.getSamplingService().getBatchSize());
-    }
-
-    for (List<String> partition : partitioned) {
-
-      log.info("Partition size (no of coordinates) : {}", partition.size());
-      String coords = String.join(",", partition);
-
-      Instant batchStart = Instant.now();
-
-      // Submit a job to generate a join
-      Response<SamplingService.Batch> submit =
-          service.submitIntersectBatch(layers, coords).execute();
-      String batchId = submit.body().getBatchId();
-
-      String state = UNKNOWN_STATUS;
-      while (!state.equalsIgnoreCase(FINISHED_STATUS) && !state.equalsIgnoreCase(ERROR_STATUS)) {
-        Response<SamplingService.BatchStatus> status = service.getBatchStatus(batchId).execute();
-        SamplingService.BatchStatus batchStatus = status.body();
-        state = batchStatus.getStatus();
-
-        Instant batchCurrentTime = Instant.now();
-
-        log.info(
-            "batch ID {} - status: {} - time elapses {} seconds",
-            batchId,
-            state,
-            Duration.between(batchStart, batchCurrentTime).getSeconds());
+    String fileId = fileId(fs, inputFilePath);
+
+    int parallelism = Math.max(config.getSamplingService().getParallelism(), 1);
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    Semaphore inFlight = new Semaphore(parallelism);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<CompletableFuture<Integer>> batches = new ArrayList<>();
+    AtomicInteger skipped = new AtomicInteger();
+
+    log.info("Sampling coordinates from file {}", inputFilePath);
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(ALAFsUtils.openInputStream(fs, inputFilePath)))) {
+
+      Iterator<String> coordinates =
+          reader
+              .lines()
+              .filter(
+                  latLng -> {
+                    boolean sampled = sampleIndex != null && sampleIndex.contains(latLng);
+                    if (sampled) {
+                      skipped.incrementAndGet();
+                    }
+                    return !sampled;
+                  })
+              .iterator();
+      Iterator<List<String>> partitions =
+          Iterators.partition(coordinates, config.getSamplingService().getBatchSize());
+
+      int batchNumber = 0;
+      while (partitions.hasNext() && failure.get() == null) {
+        List<String> partition = partitions.next();
+        String batchId = fileId + "-" + batchNumber++;
+        if (manifest.isCompleted(batchId)) {
+          log.info("Batch {} sampled by a previous run, skipping", batchId);
+          continue;
+        }
 
-        if (!state.equals(FINISHED_STATUS)) {
-          TimeUnit.MILLISECONDS.sleep(config.getSamplingService().getBatchStatusSleepTime());
-        } else {
-          log.info("Downloading sampling batch {}", batchId);
+        // the next partition is read when a batch in flight completes
+        inFlight.acquire();
+        String outputPath =
+            outputDirectoryPath + "/sampling-" + manifest.getRunId() + "-" + batchId;
+        batches.add(
+            CompletableFuture.supplyAsync(
+                    () -> sampleBatch(fs, layers, partition, batchId, outputPath, manifest),
+                    executor)
+                .whenComplete(
+                    (count, ex) -> {
+                      if (ex != null) {
+                        failure.compareAndSet(null, ex);
+                      }
+                      inFlight.release();
+                    }));
+      }
 
-          downloadFile(fs, outputDirectoryPath, batchId, batchStatus);
+      CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]))
+          .exceptionally(ex -> null)
+          .join();
+    } finally {
+      executor.shutdown();
+    }
 
-          String zipFilePath = outputDirectoryPath + "/" + batchId + ".zip";
-          ReadableByteChannel readableByteChannel = ALAFsUtils.openByteChannel(fs, zipFilePath);
-          InputStream zipInput = Channels.newInputStream(readableByteChannel);
+    if (failure.get() != null) {
+      Throwable ex =
+          failure.get() instanceof CompletionException ? failure.get().getCause() : failure.get();
+      log.error("Unable to complete sampling of file {}", inputFilePath, ex);
+      throw new PipelinesException(
+          "Unable to complete sampling for dataset. Check the status of sampling service for more details",
+          ex);
+    }
 
-          try (ZipInputStream zipInputStream = new ZipInputStream(zipInput)) {
-            ZipEntry entry = zipInputStream.getNextEntry();
-            while (entry != null) {
-              log.info("Unzipping {}", entry.getName());
+    log.info(
+        "Sampling done for file {}, {} coordinates sampled by previous runs",
+        inputFilePath,
+        skipped.get());
+    return batches.stream().mapToInt(CompletableFuture::join).sum();
+  }
 
-              String unzippedOutputFilePath = outputDirectoryPath + "/" + batchId + ".csv";
-              if (!entry.isDirectory()) {
-                unzipFiles(fs, zipInputStream, unzippedOutputFilePath);
-              }
+  /** Prefix of the batch IDs of the file, batch IDs of a new export differ */
+  private static String fileId(FileSystem fs, String inputFilePath) throws IOException {
+    FileStatus inputStatus = fs.getFileStatus(ALAFsUtils.createPath(inputFilePath));
+    return inputStatus.getPath().getName().replace(".csv", "")
+        + "-"
+        + inputStatus.getModificationTime();
+  }
 
-              zipInputStream.closeEntry();
-              entry = zipInputStream.getNextEntry();
-            }
-          }
+  /** Submits the batch, waits for the sampling service and converts the result to avro. */
+  @SneakyThrows
+  private int sampleBatch(
+      FileSystem fs,
+      String layers,
+      List<String> partition,
+      String batchId,
+      String outputPath,
+      SamplingManifest manifest) {
 
-          // delete zip file
-          ALAFsUtils.deleteIfExist(fs, zipFilePath);
+    log.info("Batch {} size (no of coordinates) : {}", batchId, partition.size());
+    Instant batchStart = Instant.now();
 
-          log.info("Sampling done for file {}", inputFilePath);
-        }
-      }
+    // Submit a job to generate a join
+    Response<SamplingService.Batch> submit =
+        service.submitIntersectBatch(layers, String.join(",", partition)).execute();
+    String serviceBatchId = Objects.requireNonNull(submit.body()).getBatchId();
+
+    String state = UNKNOWN_STATUS;
+    SamplingService.BatchStatus batchStatus = null;
+    while (!state.equalsIgnoreCase(FINISHED_STATUS) && !state.equalsIgnoreCase(ERROR_STATUS)) {
+      TimeUnit.MILLISECONDS.sleep(config.getSamplingService().getBatchStatusSleepTime());
+
+      Response<SamplingService.BatchStatus> status =
+          service.getBatchStatus(serviceBatchId).execute();
+      batchStatus = Objects.requireNonNull(status.body());
+      state = batchStatus.getStatus();
+
+      log.info(
+          "batch ID {} - status: {} - time elapses {} seconds",
+          serviceBatchId,
+          state,
+          Duration.between(batchStart, Instant.now()).getSeconds());
+    }
 
-      if (state.equals(ERROR_STATUS)) {
-        log.error("Unable to download batch ID {}", batchId);
-        throw new PipelinesException(
-            "Unable to complete sampling for dataset. Check the status of sampling service for more details");
-      }
+    if (state.equalsIgnoreCase(ERROR_STATUS)) {
+      throw new PipelinesException("Unable to download batch ID " + serviceBatchId);
     }
+
+    log.info("Downloading sampling batch {}", serviceBatchId);
+    int count = download(fs, outputPath, serviceBatchId, batchStatus);
+    manifest.complete(batchId);
+    return count;
   }
 
-  /** Download the batch file with a retries mechanism. */
-  private boolean downloadFile(
-      FileSystem fs,
-      String outputDirectoryPath,
-      String batchId,
-      SamplingService.BatchStatus batchStatus) {
+  /**
+   * Streams the zipped CSV of the batch into avro files, with a retries mechanism. Every attempt
+   * rewrites the files.
+   */
+  private int download(
+      FileSystem fs, String outputPath, String batchId, SamplingService.BatchStatus batchStatus)
+      throws IOException {
 
+    IOException failure = null;
     for (int i = 0; i < config.getSamplingService().getDownloadRetries(); i++) {
 
-      try {
-        try (ReadableByteChannel inputChannel =
-                Channels.newChannel(new URL(batchStatus.getDownloadUrl()).openStream());
-            WritableByteChannel outputChannel =
-                ALAFsUtils.createByteChannel(fs, outputDirectoryPath + "/" + batchId + ".zip")) {
-          ByteBuffer buffer = ByteBuffer.allocate(512);
-          while (inputChannel.read(buffer) != -1) {
-            buffer.flip();
-            outputChannel.write(buffer);
-            buffer.clear();
+      try (ZipInputStream zipInputStream =
+          new ZipInputStream(new URL(batchStatus.getDownloadUrl()).openStream())) {
+        int count = 0;
+        int entryNumber = 0;
+        ZipEntry entry = zipInputStream.getNextEntry();
+        while (entry != null) {
+          if (!entry.isDirectory()) {
+            log.info("Converting {} of batch {}", entry.getName(), batchId);
+            String avroPath = outputPath + "-" + entryNumber++ + ".avro";
+            try (OutputStream output = fs.create(ALAFsUtils.createPath(avroPath), true)) {
+              count +=
+                  SamplesToAvro.convert(
+                      new InputStreamReader(zipInputStream, StandardCharsets.UTF_8), output);
+            }
           }
-          return true;
+          zipInputStream.closeEntry();
+          entry = zipInputStream.getNextEntry();
         }
+        return count;
 
       } catch (IOException e) {
-        log.info("Download for batch {} failed, retrying attempt {} of 5", batchId, i);
-      }
-    }
-    return false;
-  }
-
-  /**
-   * Util to partition a stream into fixed size windows. See
-   * https://e.printstacktrace.blog/divide-a-list-to-lists-of-n-size-in-Java-8/
-   */
-  private static <T> Collection<List<T>> partition(Stream<T> stream, int size) {
-    final AtomicInteger counter = new AtomicInteger(0);
-    return stream.collect(Collectors.groupingBy(it -> counter.getAndIncrement() / size)).values();
-  }
-
-  /** Unzip the file to the path. */
-  public static void unzipFiles(
-      final FileSystem fs, final ZipInputStream zipInputStream, final String unzippedFilePath)
-      throws IOException {
-    try (BufferedOutputStream bos =
-        new BufferedOutputStream(ALAFsUtils.openOutputStream(fs, unzippedFilePath))) {
-      byte[] bytesIn = new byte[1024];
-      int read;
-      while ((read = zipInputStream.read(bytesIn)) != -1) {
-        bos.write(bytesIn, 0, read);
+        log.info(
+            "Download for batch {} failed, retrying attempt {} of {}",
+            batchId,
+            i,
+            config.getSamplingService().getDownloadRetries());
+        failure = e;
       }
     }
+    throw failure != null ? failure : new IOException("No download retries for batch " + batchId);
   }
 }
@@ -0,0 +1,242 @@
+package au.org.ala.sampling;
+
+import com.google.common.io.CountingInputStream;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.pipelines.io.avro.SampleRecord;
+
+/**
+ * Columnar file of layer samples by coordinates written by {@link SampleIndexWriter}, so the
+ * sampling can be added to records by a lookup instead of joining records with sample records.
+ *
+ * <p>Coordinates are quantised to 1e-7 degrees (about 1 cm) and sorted, the values of a layer are
+ * stored in a column in the order of coordinates. The file is memory mapped in segments, so it's
+ * shared by all threads and all JVMs of a machine via the page cache, and the index is thread-safe.
+ *
+ * <pre>
+ * int magic, int version, int coordinates
+ * int doubleLayers, per layer: name
+ * int stringLayers, per layer: name, int values, per value: value
+ * padding to 8 bytes
+ * long[coordinates] sorted keys
+ * per double layer: double[coordinates], NaN if there is no value
+ * per string layer: int[coordinates] index of the value, -1 if there is no value, padded to 8 bytes
+ * </pre>
+ *
+ * Strings are UTF-8 bytes prefixed by the length, like {@link java.io.DataOutput#writeUTF} but
+ * without the 64 KB limit.
+ */
+@Slf4j
+public class SampleIndex {
+
+  static final int MAGIC = 0x534d5058; // SMPX
+  static final int VERSION = 1;
+
+  static final double PRECISION = 1e7d;
+  static final int NO_VALUE = -1;
+
+  /** Segments are aligned to 8 bytes, so an aligned value never crosses segments */
+  private static final int SEGMENT_BITS = 30;
+
+  private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+  @Getter private final int size;
+  private final String[] doubleLayers;
+  private final String[] stringLayers;
+  private final String[][] stringValues;
+  private final long keysOffset;
+  private final ByteBuffer[] segments;
+
+  private SampleIndex(Path file) throws IOException {
+    long headerLength;
+    try (CountingInputStream counting =
+            new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        DataInputStream in = new DataInputStream(counting)) {
+      if (in.readInt() != MAGIC) {
+        throw new IllegalArgumentException("File doesn't contain a sample index - " + file);
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported sample index version " + version);
+      }
+      this.size = in.readInt();
+
+      this.doubleLayers = new String[in.readInt()];
+      for (int i = 0; i < doubleLayers.length; i++) {
+        doubleLayers[i] = readString(in);
+      }
+
+      this.stringLayers = new String[in.readInt()];
+      this.stringValues = new String[stringLayers.length][];
+      for (int i = 0; i < stringLayers.length; i++) {
+        stringLayers[i] = readString(in);
+        stringValues[i] = new String[in.readInt()];
+        for (int j = 0; j < stringValues[i].length; j++) {
+          stringValues[i][j] = readString(in);
+        }
+      }
+      headerLength = counting.getCount();
+    }
+    this.keysOffset = align(headerLength);
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long length = channel.size();
+      int count = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+      this.segments = new ByteBuffer[count];
+      for (int i = 0; i < count; i++) {
+        long position = (long) i << SEGMENT_BITS;
+        segments[i] =
+            channel.map(
+                FileChannel.MapMode.READ_ONLY,
+                position,
+                Math.min(length - position, SEGMENT_MASK + 1));
+      }
+    }
+
+    log.info(
+        "Sample index of {} coordinates, {} double and {} string layers",
+        size,
+        doubleLayers.length,
+        stringLayers.length);
+  }
+
+  /** Memory maps the index file */
+  public static SampleIndex open(@NonNull Path file) throws IOException {
+    return new SampleIndex(file);
+  }
+
+  /**
+   * @param latLng coordinates in the format of IndexRecord and SampleRecord, latitude,longitude
+   * @return samples of the coordinates, or null if the coordinates weren't sampled
+   */
+  public SampleRecord get(String latLng) {
+    Long key = key(latLng);
+    if (key == null) {
+      return null;
+    }
+    int row = find(key);
+    if (row < 0) {
+      return null;
+    }
+
+    Map<String, Double> doubles = new HashMap<>();
+    long offset = keysOffset + (long) size * Long.BYTES;
+    for (String layer : doubleLayers) {
+      double value = getDouble(offset + (long) row * Double.BYTES);
+      if (!Double.isNaN(value)) {
+        doubles.put(layer, value);
+      }
+      offset += (long) size * Double.BYTES;
+    }
+
+    Map<String, String> strings = new HashMap<>();
+    for (int i = 0; i < stringLayers.length; i++) {
+      int value = getInt(offset + (long) row * Integer.BYTES);
+      if (value != NO_VALUE) {
+        strings.put(stringLayers[i], stringValues[i][value]);
+      }
+      offset += align((long) size * Integer.BYTES);
+    }
+
+    return SampleRecord.newBuilder()
+        .setLatLng(latLng)
+        .setDoubles(doubles)
+        .setStrings(strings)
+        .build();
+  }
+
+  /** @return true if the coordinates were sampled */
+  public boolean contains(String latLng) {
+    Long key = key(latLng);
+    return key != null && find(key) >= 0;
+  }
+
+  /** @return names of all layers with values in the index */
+  public Set<String> getLayers() {
+    Set<String> layers = new HashSet<>(Arrays.asList(doubleLayers));
+    layers.addAll(Arrays.asList(stringLayers));
+    return layers;
+  }
+
+  /** Binary search of the row of the key */
+  private int find(long key) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long value = getLong(keysOffset + (long) mid * Long.BYTES);
+      if (value < key) {
+        low = mid + 1;
+      } else if (value > key) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /** Quantised coordinates of the latLng string, or null if the string can't be parsed */
+  static Long key(String latLng) {
+    if (latLng == null) {
+      return null;
+    }
+    int comma = latLng.indexOf(',');
+    if (comma < 0) {
+      return null;
+    }
+    try {
+      double lat = Double.parseDouble(latLng.substring(0, comma));
+      double lng = Double.parseDouble(latLng.substring(comma + 1));
+      if (!(lat >= -90d && lat <= 90d && lng >= -180d && lng <= 180d)) {
+        return null;
+      }
+      return key(lat, lng);
+    } catch (NumberFormatException ex) {
+      return null;
+    }
+  }
+
+  static long key(double lat, double lng) {
+    long qLat = Math.round(lat * PRECISION);
+    long qLng = Math.round(lng * PRECISION);
+    return (qLat << 32) | (qLng & 0xFFFFFFFFL);
+  }
+
+  static long align(long position) {
+    return (position + 7L) & ~7L;
+  }
+
+  static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private long getLong(long position) {
+    return segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & SEGMENT_MASK));
+  }
+
+  private double getDouble(long position) {
+    return segments[(int) (position >>> SEGMENT_BITS)].getDouble((int) (position & SEGMENT_MASK));
+  }
+
+  private int getInt(long position) {
+    return segments[(int) (position >>> SEGMENT_BITS)].getInt((int) (position & SEGMENT_MASK));
+  }
+}
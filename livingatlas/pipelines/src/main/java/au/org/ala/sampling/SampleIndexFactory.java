@@ -0,0 +1,132 @@
+package au.org.ala.sampling;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.core.utils.FsUtils;
+
+/**
+ * Factory to get singleton instance of {@link SampleIndex}. Local files are memory mapped, files of
+ * other file systems are copied once per machine into a cache directory in the local temp
+ * directory, so all executors of the machine map the same copy and share its page cache.
+ */
+@Slf4j
+public class SampleIndexFactory {
+
+  private static final String CACHE_DIR = "sample-index-cache";
+
+  private static volatile SampleIndexFactory instance;
+
+  private final SampleIndex sampleIndex;
+
+  private static final Object MUTEX = new Object();
+
+  @SneakyThrows
+  private SampleIndexFactory(HdfsConfigs configs, String sampleIndexPath) {
+    this.sampleIndex = loadSampleIndex(configs, sampleIndexPath);
+  }
+
+  public static SampleIndex getInstance(HdfsConfigs configs, String sampleIndexPath) {
+    if (instance == null) {
+      synchronized (MUTEX) {
+        if (instance == null) {
+          instance = new SampleIndexFactory(configs, sampleIndexPath);
+        }
+      }
+    }
+    return instance.sampleIndex;
+  }
+
+  @SneakyThrows
+  public static SampleIndex loadSampleIndex(HdfsConfigs configs, String filePath) {
+    Path path = new Path(filePath);
+    log.info("Loading sample index from {}", path);
+    FileSystem fs = FsUtils.getFileSystem(configs, filePath);
+    if ("file".equals(fs.getScheme())) {
+      return SampleIndex.open(new File(path.toUri().getPath()).toPath());
+    }
+    return SampleIndex.open(localCopy(fs, path).toPath());
+  }
+
+  /**
+   * Checks the index exists and isn't older than any sample avro file, an index built before the
+   * last sampling doesn't have samples of new coordinates
+   *
+   * @param samplingPath directory of the sample avro files
+   */
+  @SneakyThrows
+  public static boolean isUpToDate(HdfsConfigs configs, String filePath, String samplingPath) {
+    FileSystem fs = FsUtils.getFileSystem(configs, filePath);
+    Path path = new Path(filePath);
+    if (!fs.exists(path)) {
+      return false;
+    }
+    long indexTime = fs.getFileStatus(path).getModificationTime();
+    RemoteIterator<LocatedFileStatus> files = fs.listFiles(new Path(samplingPath), false);
+    while (files.hasNext()) {
+      LocatedFileStatus file = files.next();
+      if (file.getPath().getName().endsWith(".avro") && file.getModificationTime() > indexTime) {
+        log.warn("Sample index {} is older than {}", path, file.getPath());
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Copies the index to the cache directory, unless the same version of the index is there. JVMs of
+   * the machine copy it one at a time, older copies are deleted, their mapped memory stays valid.
+   */
+  private static synchronized File localCopy(FileSystem fs, Path path) throws IOException {
+    FileStatus status = fs.getFileStatus(path);
+    File dir = new File(System.getProperty("java.io.tmpdir"), CACHE_DIR);
+    Files.createDirectories(dir.toPath());
+    String prefix = Integer.toHexString(path.toString().hashCode()) + "-";
+    File local =
+        new File(dir, prefix + status.getModificationTime() + "-" + status.getLen() + ".idx");
+
+    try (FileChannel lockChannel =
+            FileChannel.open(
+                new File(dir, prefix + "lock").toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock ignored = lockChannel.lock()) {
+      if (local.exists()) {
+        log.info("Using the local copy {} of the sample index", local);
+        return local;
+      }
+      File tmp = new File(dir, local.getName() + ".tmp");
+      try (InputStream is = fs.open(path)) {
+        Files.copy(is, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      Files.move(tmp.toPath(), local.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      log.info("Copied the sample index to {}", local);
+
+      File[] old =
+          dir.listFiles(
+              (d, name) ->
+                  name.startsWith(prefix)
+                      && name.endsWith(".idx")
+                      && !name.equals(local.getName()));
+      if (old != null) {
+        for (File file : old) {
+          Files.deleteIfExists(file.toPath());
+        }
+      }
+    }
+    return local;
+  }
+}
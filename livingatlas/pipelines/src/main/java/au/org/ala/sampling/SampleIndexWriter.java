@@ -0,0 +1,214 @@
+package au.org.ala.sampling;
+
+import com.google.common.io.CountingOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.pipelines.io.avro.SampleRecord;
+
+/**
+ * Writes sample records into a {@link SampleIndex} file.
+ *
+ * <p>The records are read twice: the first pass collects coordinates, layers and string values, the
+ * second pass writes values into the memory mapped columns at the row of the coordinates, so only
+ * the sorted coordinates are kept on the heap. If coordinates are sampled several times, the last
+ * sample of a layer wins.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class SampleIndexWriter {
+
+  private static final int SEGMENT_BITS = 30;
+  private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+  /** @param records sample records, iterated twice */
+  public static void write(@NonNull Iterable<SampleRecord> records, @NonNull Path file)
+      throws IOException {
+
+    // First pass - coordinates, layers and dictionaries of string values
+    long[] keys = new long[1024];
+    int count = 0;
+    Map<String, Integer> doubleLayers = new TreeMap<>();
+    Map<String, Map<String, Integer>> stringLayers = new TreeMap<>();
+    for (SampleRecord record : records) {
+      Long key = SampleIndex.key(record.getLatLng());
+      if (key == null) {
+        continue;
+      }
+      if (count == keys.length) {
+        keys = Arrays.copyOf(keys, count * 2);
+      }
+      keys[count++] = key;
+      if (record.getDoubles() != null) {
+        record.getDoubles().keySet().forEach(l -> doubleLayers.putIfAbsent(l, 0));
+      }
+      if (record.getStrings() != null) {
+        for (Entry<String, String> e : record.getStrings().entrySet()) {
+          Map<String, Integer> values =
+              stringLayers.computeIfAbsent(e.getKey(), l -> new LinkedHashMap<>());
+          values.putIfAbsent(e.getValue(), values.size());
+        }
+      }
+    }
+    Arrays.sort(keys, 0, count);
+    keys = distinct(keys, count);
+    int size = keys.length;
+    int column = 0;
+    for (Entry<String, Integer> e : doubleLayers.entrySet()) {
+      e.setValue(column++);
+    }
+    Map<String, Integer> stringColumns = new HashMap<>();
+    column = 0;
+    for (String layer : stringLayers.keySet()) {
+      stringColumns.put(layer, column++);
+    }
+
+    // Header, keys and empty columns
+    long keysOffset;
+    // DataOutputStream#size() overflows after 2 GB
+    try (CountingOutputStream counting =
+            new CountingOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        DataOutputStream out = new DataOutputStream(counting)) {
+      out.writeInt(SampleIndex.MAGIC);
+      out.writeInt(SampleIndex.VERSION);
+      out.writeInt(size);
+      out.writeInt(doubleLayers.size());
+      for (String layer : doubleLayers.keySet()) {
+        writeString(out, layer);
+      }
+      out.writeInt(stringLayers.size());
+      for (Entry<String, Map<String, Integer>> e : stringLayers.entrySet()) {
+        writeString(out, e.getKey());
+        out.writeInt(e.getValue().size());
+        for (String value : e.getValue().keySet()) {
+          writeString(out, value);
+        }
+      }
+      keysOffset = SampleIndex.align(counting.getCount());
+      pad(out, counting);
+
+      for (long key : keys) {
+        out.writeLong(key);
+      }
+      for (int i = 0; i < doubleLayers.size(); i++) {
+        for (int j = 0; j < size; j++) {
+          out.writeDouble(Double.NaN);
+        }
+      }
+      for (int i = 0; i < stringLayers.size(); i++) {
+        for (int j = 0; j < size; j++) {
+          out.writeInt(SampleIndex.NO_VALUE);
+        }
+        pad(out, counting);
+      }
+    }
+
+    // Second pass - values into the columns
+    long doublesOffset = keysOffset + (long) size * Long.BYTES;
+    long stringsOffset = doublesOffset + (long) doubleLayers.size() * size * Double.BYTES;
+    long stringColumnLength = SampleIndex.align((long) size * Integer.BYTES);
+    try (FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer[] segments = map(channel);
+      for (SampleRecord record : records) {
+        Long key = SampleIndex.key(record.getLatLng());
+        if (key == null) {
+          continue;
+        }
+        long row = Arrays.binarySearch(keys, key);
+        if (record.getDoubles() != null) {
+          for (Entry<String, Double> e : record.getDoubles().entrySet()) {
+            if (e.getValue() != null) {
+              long position =
+                  doublesOffset + ((long) doubleLayers.get(e.getKey()) * size + row) * Double.BYTES;
+              segment(segments, position).putDouble(offset(position), e.getValue());
+            }
+          }
+        }
+        if (record.getStrings() != null) {
+          for (Entry<String, String> e : record.getStrings().entrySet()) {
+            long position =
+                stringsOffset
+                    + stringColumns.get(e.getKey()) * stringColumnLength
+                    + row * Integer.BYTES;
+            int value = stringLayers.get(e.getKey()).get(e.getValue());
+            segment(segments, position).putInt(offset(position), value);
+          }
+        }
+      }
+      for (ByteBuffer segment : segments) {
+        ((MappedByteBuffer) segment).force();
+      }
+    }
+
+    log.info(
+        "Sample index of {} coordinates, {} double and {} string layers written to {}",
+        size,
+        doubleLayers.size(),
+        stringLayers.size(),
+        file);
+  }
+
+  private static long[] distinct(long[] sorted, int count) {
+    int n = 0;
+    for (int i = 0; i < count; i++) {
+      if (n == 0 || sorted[n - 1] != sorted[i]) {
+        sorted[n++] = sorted[i];
+      }
+    }
+    return Arrays.copyOf(sorted, n);
+  }
+
+  private static ByteBuffer[] map(FileChannel channel) throws IOException {
+    long length = channel.size();
+    int count = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+    ByteBuffer[] segments = new ByteBuffer[count];
+    for (int i = 0; i < count; i++) {
+      long position = (long) i << SEGMENT_BITS;
+      segments[i] =
+          channel.map(
+              FileChannel.MapMode.READ_WRITE,
+              position,
+              Math.min(length - position, SEGMENT_MASK + 1));
+    }
+    return segments;
+  }
+
+  private static ByteBuffer segment(ByteBuffer[] segments, long position) {
+    return segments[(int) (position >>> SEGMENT_BITS)];
+  }
+
+  private static int offset(long position) {
+    return (int) (position & SEGMENT_MASK);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static void pad(DataOutputStream out, CountingOutputStream counting) throws IOException {
+    while (counting.getCount() % 8 != 0) {
+      out.writeByte(0);
+    }
+  }
+}
@@ -5,13 +5,21 @@ import au.org.ala.pipelines.options.SamplingPipelineOptions;
 import au.org.ala.pipelines.util.SamplingUtils;
 import au.org.ala.utils.ALAFsUtils;
 import au.org.ala.utils.CombinedYamlConfiguration;
+import com.google.common.collect.AbstractIterator;
 import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileStream;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.io.DatumWriter;
+import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.fs.*;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
@@ -38,8 +46,13 @@ public class SamplesToAvro {
   }
 
   public static void run(SamplingPipelineOptions options) throws Exception {
+    run(options, 0);
+  }
 
-    int counter = 0;
+  /** @param sampledRecords records already converted to avro, e.g. by the {@link LayerCrawler} */
+  public static void run(SamplingPipelineOptions options, int sampledRecords) throws Exception {
+
+    int counter = sampledRecords;
 
     // get filesystem
     FileSystem fs =
@@ -51,7 +64,8 @@ public class SamplesToAvro {
     String sampleCSVDownloadPath = LayerCrawler.getSampleDownloadPath(options);
 
     if (!ALAFsUtils.exists(fs, sampleCSVDownloadPath)) {
-      log.info("No sampling to convert to AVRO. No work to be done.");
+      log.info("No sampling CSV to convert to AVRO.");
+      buildSampleIndex(options, fs);
       SamplingUtils.writeSamplingMetrics(options, counter, fs);
       return;
     }
@@ -65,51 +79,10 @@ public class SamplesToAvro {
 
       if (fileStatus.getPath().getName().endsWith(".csv")) {
         log.info("Reading {} and converting to avro", fileStatus.getPath().getName());
-        InputStream inputStream = fs.open(fileStatus.getPath());
-        CSVReader csvReader = new CSVReader(new InputStreamReader(inputStream));
-
         String outputPath = LayerCrawler.getSampleAvroPath(options);
-        DatumWriter<SampleRecord> datumWriter =
-            new GenericDatumWriter<>(SampleRecord.getClassSchema());
-        try (OutputStream output = fs.create(ALAFsUtils.createPath(outputPath));
-            DataFileWriter<SampleRecord> dataFileWriter = new DataFileWriter<>(datumWriter)) {
-          dataFileWriter.setCodec(BASE_CODEC);
-          dataFileWriter.create(SampleRecord.getClassSchema(), output);
-
-          String[] columnHeaders = csvReader.readNext();
-          String[] line;
-          while ((line = csvReader.readNext()) != null) {
-
-            if (line.length == columnHeaders.length) {
-
-              HashMap<String, String> strings = new HashMap<>();
-              HashMap<String, Double> doubles = new HashMap<>();
-
-              // first two columns are latitude,longitude
-              for (int i = 2; i < columnHeaders.length; i++) {
-                if (StringUtils.trimToNull(line[i]) != null) {
-                  if (columnHeaders[i].startsWith("el")) {
-                    try {
-                      doubles.put(columnHeaders[i], Double.parseDouble(line[i]));
-                    } catch (NumberFormatException ex) {
-                      // do something
-                    }
-                  } else {
-                    strings.put(columnHeaders[i], line[i]);
-                  }
-                }
-              }
-
-              SampleRecord sampleRecord =
-                  SampleRecord.newBuilder()
-                      .setLatLng(line[0] + "," + line[1])
-                      .setDoubles(doubles)
-                      .setStrings(strings)
-                      .build();
-              dataFileWriter.append(sampleRecord);
-              counter = +1;
-            }
-          }
+        try (InputStream inputStream = fs.open(fileStatus.getPath());
+            OutputStream output = fs.create(ALAFsUtils.createPath(outputPath))) {
+          counter += convert(new InputStreamReader(inputStream), output);
         }
         log.info("File written to {}", outputPath);
       }
@@ -123,7 +96,126 @@ public class SamplesToAvro {
       log.info("Keeping sampling CSV downloads.");
     }
 
+    buildSampleIndex(options, fs);
+
     SamplingUtils.writeSamplingMetrics(options, counter, fs);
     log.info("Conversion to avro complete.");
   }
+
+  /**
+   * Converts sampling CSV with latitude, longitude and a column per layer to sample avro. The
+   * reader isn't closed, so it can read an entry of a zip stream.
+   *
+   * @return number of sample records written
+   */
+  public static int convert(Reader csv, OutputStream output) throws IOException {
+    int counter = 0;
+    CSVReader csvReader = new CSVReader(csv);
+    DatumWriter<SampleRecord> datumWriter = new GenericDatumWriter<>(SampleRecord.getClassSchema());
+    try (DataFileWriter<SampleRecord> dataFileWriter = new DataFileWriter<>(datumWriter)) {
+      dataFileWriter.setCodec(BASE_CODEC);
+      dataFileWriter.create(SampleRecord.getClassSchema(), output);
+
+      String[] columnHeaders = csvReader.readNext();
+      String[] line;
+      while (columnHeaders != null && (line = csvReader.readNext()) != null) {
+
+        if (line.length == columnHeaders.length) {
+
+          HashMap<String, String> strings = new HashMap<>();
+          HashMap<String, Double> doubles = new HashMap<>();
+
+          // first two columns are latitude,longitude
+          for (int i = 2; i < columnHeaders.length; i++) {
+            if (StringUtils.trimToNull(line[i]) != null) {
+              if (columnHeaders[i].startsWith("el")) {
+                try {
+                  doubles.put(columnHeaders[i], Double.parseDouble(line[i]));
+                } catch (NumberFormatException ex) {
+                  // do something
+                }
+              } else {
+                strings.put(columnHeaders[i], line[i]);
+              }
+            }
+          }
+
+          SampleRecord sampleRecord =
+              SampleRecord.newBuilder()
+                  .setLatLng(line[0] + "," + line[1])
+                  .setDoubles(doubles)
+                  .setStrings(strings)
+                  .build();
+          dataFileWriter.append(sampleRecord);
+          counter++;
+        }
+      }
+    }
+    return counter;
+  }
+
+  /**
+   * Writes all sample avro files into the {@link SampleIndex}, which is used by the SOLR indexing
+   * instead of joining records with samples.
+   */
+  private static void buildSampleIndex(SamplingPipelineOptions options, FileSystem fs)
+      throws IOException {
+    String samplingDir = ALAFsUtils.buildPathSamplingUsingTargetPath(options);
+    if (!ALAFsUtils.exists(fs, samplingDir)) {
+      return;
+    }
+    List<Path> avroFiles = new ArrayList<>();
+    RemoteIterator<LocatedFileStatus> files =
+        fs.listFiles(ALAFsUtils.createPath(samplingDir), false);
+    while (files.hasNext()) {
+      Path path = files.next().getPath();
+      if (path.getName().endsWith(".avro")) {
+        avroFiles.add(path);
+      }
+    }
+
+    log.info("Building sample index from {} avro files", avroFiles.size());
+    Iterable<SampleRecord> records = () -> new SampleRecordIterator(fs, avroFiles.iterator());
+    File local = File.createTempFile("sample-index-", ".idx");
+    try {
+      SampleIndexWriter.write(records, local.toPath());
+      String indexPath = ALAFsUtils.buildPathSampleIndexUsingTargetPath(options);
+      fs.copyFromLocalFile(
+          false, true, new Path(local.getAbsolutePath()), ALAFsUtils.createPath(indexPath));
+      log.info("Sample index written to {}", indexPath);
+    } finally {
+      Files.deleteIfExists(local.toPath());
+    }
+  }
+
+  /** Reads sample records of avro files one file after another */
+  private static class SampleRecordIterator extends AbstractIterator<SampleRecord> {
+
+    private final FileSystem fs;
+    private final Iterator<Path> paths;
+    private DataFileStream<SampleRecord> current;
+
+    private SampleRecordIterator(FileSystem fs, Iterator<Path> paths) {
+      this.fs = fs;
+      this.paths = paths;
+    }
+
+    @Override
+    @SneakyThrows
+    protected SampleRecord computeNext() {
+      while (current == null || !current.hasNext()) {
+        if (current != null) {
+          current.close();
+          current = null;
+        }
+        if (!paths.hasNext()) {
+          return endOfData();
+        }
+        current =
+            new DataFileStream<>(
+                fs.open(paths.next()), new SpecificDatumReader<>(SampleRecord.class));
+      }
+      return current.next();
+    }
+  }
 }
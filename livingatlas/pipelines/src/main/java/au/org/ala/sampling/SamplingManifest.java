@@ -0,0 +1,178 @@
+package au.org.ala.sampling;
+
+import au.org.ala.utils.ALAFsUtils;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.FileSystem;
+import org.gbif.pipelines.core.utils.FsUtils;
+
+/**
+ * Completed batches of a {@link LayerCrawler} run, so a failed run resumes with the batches which
+ * weren't sampled.
+ *
+ * <pre>
+ * run    runId
+ * layers el674,cl22,...
+ * batch  batchId
+ * </pre>
+ *
+ * A manifest of a run with other layers is discarded. The file is rewritten after every batch, it
+ * only holds a line per batch. Avro files of a batch are named {@code
+ * sampling-<runId>-<batchId>-<entry>.avro}, see {@link #clean(String, Collection)}.
+ */
+@Slf4j
+public class SamplingManifest {
+
+  private static final String RUN = "run";
+  private static final String LAYERS = "layers";
+  private static final String BATCH = "batch";
+  private static final String SEPARATOR = "\t";
+  private static final String TMP = ".tmp";
+  private static final String PREFIX = "sampling-";
+  private static final String AVRO = ".avro";
+
+  private final FileSystem fs;
+  private final String path;
+  @Getter private final String runId;
+  private final String layers;
+  private final Set<String> completed = ConcurrentHashMap.newKeySet();
+  // run of a discarded manifest, its avro files are incomplete
+  private final String discardedRunId;
+
+  private SamplingManifest(
+      FileSystem fs, String path, String runId, String layers, String discardedRunId) {
+    this.fs = fs;
+    this.path = path;
+    this.runId = runId;
+    this.layers = layers;
+    this.discardedRunId = discardedRunId;
+  }
+
+  /**
+   * Reads the manifest of the previous run with the same layers, or creates a new manifest. The
+   * copy written before a swap is read if the swap didn't complete.
+   */
+  public static SamplingManifest load(FileSystem fs, String path, String layers)
+      throws IOException {
+    String source =
+        ALAFsUtils.exists(fs, path) ? path : ALAFsUtils.exists(fs, path + TMP) ? path + TMP : null;
+    String discardedRunId = null;
+    if (source != null) {
+      String runId = null;
+      String runLayers = null;
+      Set<String> batches = ConcurrentHashMap.newKeySet();
+      try (BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(
+                  ALAFsUtils.openInputStream(fs, source), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String[] entry = line.split(SEPARATOR, 2);
+          if (entry.length < 2) {
+            continue;
+          }
+          if (RUN.equals(entry[0])) {
+            runId = entry[1];
+          } else if (LAYERS.equals(entry[0])) {
+            runLayers = entry[1];
+          } else if (BATCH.equals(entry[0])) {
+            batches.add(entry[1]);
+          }
+        }
+      }
+      if (runId != null && layers.equals(runLayers)) {
+        log.info("Resuming sampling run {}, {} batches completed", runId, batches.size());
+        SamplingManifest manifest = new SamplingManifest(fs, path, runId, layers, null);
+        manifest.completed.addAll(batches);
+        if (!source.equals(path)) {
+          manifest.write();
+        }
+        return manifest;
+      }
+      log.info("Layers have changed since the previous sampling run, starting a new run");
+      discardedRunId = runId;
+    }
+    SamplingManifest manifest =
+        new SamplingManifest(
+            fs, path, String.valueOf(System.currentTimeMillis()), layers, discardedRunId);
+    manifest.write();
+    return manifest;
+  }
+
+  public boolean isCompleted(String batchId) {
+    return completed.contains(batchId);
+  }
+
+  /** Records the batch as completed */
+  public synchronized void complete(String batchId) throws IOException {
+    completed.add(batchId);
+    write();
+  }
+
+  /**
+   * Forgets completed batches of files which aren't input files anymore, and deletes avro files of
+   * batches which aren't completed, like a failed batch or batches of a discarded run, so their
+   * samples aren't written twice.
+   *
+   * @param fileIds IDs of the input files of the run, the prefix of their batch IDs
+   */
+  public synchronized void clean(String outputDirectoryPath, Collection<String> fileIds)
+      throws IOException {
+    if (completed.removeIf(batchId -> !fileIds.contains(fileIdOf(batchId)))) {
+      write();
+    }
+    if (!ALAFsUtils.exists(fs, outputDirectoryPath)) {
+      return;
+    }
+    String runPrefix = PREFIX + runId + "-";
+    String discardedPrefix = discardedRunId != null ? PREFIX + discardedRunId + "-" : null;
+    for (String filePath : ALAFsUtils.listPaths(fs, outputDirectoryPath)) {
+      String name = ALAFsUtils.createPath(filePath).getName();
+      boolean incomplete =
+          (discardedPrefix != null && name.startsWith(discardedPrefix))
+              || (name.startsWith(runPrefix)
+                  && name.endsWith(AVRO)
+                  && !completed.contains(
+                      fileIdOf(name.substring(runPrefix.length(), name.length() - AVRO.length()))));
+      if (incomplete) {
+        log.info("Deleting {} of an incomplete sampling batch", filePath);
+        ALAFsUtils.deleteIfExist(fs, filePath);
+      }
+    }
+  }
+
+  /** Deletes the manifest of a completed run */
+  public void delete() {
+    ALAFsUtils.deleteIfExist(fs, path);
+    ALAFsUtils.deleteIfExist(fs, path + TMP);
+  }
+
+  /** The ID without the last part, the batch number of a batch ID or the entry of a file name */
+  private static String fileIdOf(String id) {
+    int index = id.lastIndexOf('-');
+    return index < 0 ? id : id.substring(0, index);
+  }
+
+  private void write() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append(RUN).append(SEPARATOR).append(runId).append('\n');
+    sb.append(LAYERS).append(SEPARATOR).append(layers).append('\n');
+    for (String batchId : completed) {
+      sb.append(BATCH).append(SEPARATOR).append(batchId).append('\n');
+    }
+    // write a copy and swap, load reads the copy if the swap fails between delete and rename
+    String tmpPath = path + TMP;
+    FsUtils.createFile(fs, tmpPath, sb.toString());
+    ALAFsUtils.deleteIfExist(fs, path);
+    if (!fs.rename(ALAFsUtils.createPath(tmpPath), ALAFsUtils.createPath(path))) {
+      throw new IOException("Can't rename " + tmpPath + " to " + path);
+    }
+  }
+}
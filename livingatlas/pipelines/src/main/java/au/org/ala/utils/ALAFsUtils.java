@@ -87,6 +87,11 @@ public class ALAFsUtils {
     return PathBuilder.buildDatasetAttemptPath(options, "sampling", false);
   }
 
+  /** Build a path to the sample index, which is written next to the sampling avro files. */
+  public static String buildPathSampleIndexUsingTargetPath(AllDatasetsPipelinesOptions options) {
+    return String.join("/", buildPathSamplingUsingTargetPath(options), "index", "samples.idx");
+  }
+
   /**
    * NOTE: It will delete the existing folder Build a path to outlier records.
    * {fsPath}/pipelines-outlier/{datasetId} {fsPath}/pipelines-outlier/all
@@ -5,15 +5,41 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.Flatten;
+import org.apache.beam.sdk.transforms.GroupByKey;
+import org.apache.beam.sdk.transforms.MapElements;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.SimpleFunction;
+import org.apache.beam.sdk.transforms.Values;
+import org.apache.beam.sdk.transforms.join.CoGbkResult;
+import org.apache.beam.sdk.transforms.join.CoGroupByKey;
+import org.apache.beam.sdk.transforms.join.KeyedPCollectionTuple;
 import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionList;
+import org.apache.beam.sdk.values.TupleTag;
 import org.gbif.pipelines.core.parsers.clustering.OccurrenceRelationships;
 import org.gbif.pipelines.core.parsers.clustering.RelationshipAssertion;
+import org.gbif.pipelines.io.avro.OccurrenceHashKeys;
 import org.gbif.pipelines.io.avro.Relationship;
+import org.gbif.pipelines.io.avro.Relationships;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
 
 public class ClusteringTest {
 
+  private static final String RECORD =
+      "urn:lsid:biodiversity.org.au:afd.taxon:9b8ca2d0-3524-4e12-a328-9a426b31cd12|-12381|130859|1994|9|26,a83e6e60-9f1d-442e-822a-b53e4dae41d1,dr340,urn:lsid:biodiversity.org.au:afd.taxon:9b8ca2d0-3524-4e12-a328-9a426b31cd12,Pteropus alecto,AU,urn:lsid:biodiversity.org.au:afd.taxon:9b8ca2d0-3524-4e12-a328-9a426b31cd12,PRESERVED_SPECIMEN,-12.38091,130.85902,1994,9,26,,null,null,null,null,M.41907.001,urn:lsid:ozcam.taxonomy.org.au:AM:Mammalogy:M.41907.001,ecatalogue.irn:2217397; urn:catalog:AM:Mammalogy:M.41907.001";
+
+  @Rule public final transient TestPipeline p = TestPipeline.create();
+
   @Test
   public void testAmRecords() {
 
@@ -71,7 +97,194 @@ public class ClusteringTest {
     Assert.assertNotEquals(kvs2.size(), 0);
   }
 
-  private HashKeyOccurrence createFromString(String str) {
+  @Test
+  public void fingerprintTest() {
+
+    // State
+    String record =
+        "urn:lsid:biodiversity.org.au:afd.taxon:9b8ca2d0-3524-4e12-a328-9a426b31cd12|-12381|130859|1994|9|26,a83e6e60-9f1d-442e-822a-b53e4dae41d1,dr340,urn:lsid:biodiversity.org.au:afd.taxon:9b8ca2d0-3524-4e12-a328-9a426b31cd12,Pteropus alecto,AU,urn:lsid:biodiversity.org.au:afd.taxon:9b8ca2d0-3524-4e12-a328-9a426b31cd12,PRESERVED_SPECIMEN,-12.38091,130.85902,1994,9,26,,null,null,null,null,M.41907.001,urn:lsid:ozcam.taxonomy.org.au:AM:Mammalogy:M.41907.001,ecatalogue.irn:2217397; urn:catalog:AM:Mammalogy:M.41907.001";
+    HashKeyOccurrence h1 = createFromString(record);
+    HashKeyOccurrence h2 = createFromString(record);
+    h2.setHashKey("another|key");
+    HashKeyOccurrence h3 = createFromString(record);
+    h3.setDay(27);
+
+    // When
+    String f1 = IncrementalClustering.fingerprint(h1);
+
+    // Should
+    Assert.assertEquals(f1, IncrementalClustering.fingerprint(h2));
+    Assert.assertNotEquals(f1, IncrementalClustering.fingerprint(h3));
+  }
+
+  @Test
+  public void incrementalEqualsFullRunTest() {
+
+    // State
+    List<HashKeyOccurrence> previous = new ArrayList<>();
+    previous.add(record("k1", "a", "dr1", 26));
+    previous.add(record("k1", "b", "dr2", 26));
+    previous.add(record("k1", "c", "dr3", 26));
+    previous.add(record("k2", "a", "dr1", 26));
+    previous.add(record("k3", "x", "dr4", 26));
+    previous.add(record("k3", "y", "dr5", 26));
+    previous.add(record("k3", "z", "dr6", 26));
+
+    // b is changed, c is deleted and d is added, k3 isn't touched
+    List<HashKeyOccurrence> current = new ArrayList<>();
+    current.add(record("k1", "a", "dr1", 26));
+    current.add(record("k1", "b", "dr2", 27));
+    current.add(record("k1", "d", "dr7", 26));
+    current.add(record("k2", "a", "dr1", 26));
+    current.add(record("k3", "x", "dr4", 26));
+    current.add(record("k3", "y", "dr5", 26));
+    current.add(record("k3", "z", "dr6", 26));
+
+    PCollection<HashKeyOccurrence> previousRecords = p.apply("Previous", Create.of(previous));
+    PCollection<HashKeyOccurrence> currentRecords = p.apply("Current", Create.of(current));
+
+    // When
+    PCollection<Relationships> previousState =
+        previousRecords.apply(
+            "Previous full run",
+            new PTransform<PCollection<HashKeyOccurrence>, PCollection<Relationships>>() {
+              @Override
+              public PCollection<Relationships> expand(PCollection<HashKeyOccurrence> input) {
+                return IncrementalClustering.groupState(
+                    groupRelationships(byHashKey(input).apply(GroupByKey.create())));
+              }
+            });
+
+    PCollection<Relationships> full =
+        currentRecords.apply(
+            "Full run",
+            new PTransform<PCollection<HashKeyOccurrence>, PCollection<Relationships>>() {
+              @Override
+              public PCollection<Relationships> expand(PCollection<HashKeyOccurrence> input) {
+                return ClusteringPipeline.relationshipsPerRecord(
+                    groupRelationships(byHashKey(input).apply(GroupByKey.create())));
+              }
+            });
+
+    PCollection<Relationships> incremental =
+        currentRecords.apply(
+            "Incremental run",
+            new PTransform<PCollection<HashKeyOccurrence>, PCollection<Relationships>>() {
+              @Override
+              public PCollection<Relationships> expand(PCollection<HashKeyOccurrence> input) {
+                PCollection<OccurrenceHashKeys> changes =
+                    IncrementalClustering.changes(
+                        IncrementalClustering.hashKeys(input),
+                        previousRecords.apply(
+                            "Previous hash keys",
+                            new PTransform<
+                                PCollection<HashKeyOccurrence>, PCollection<OccurrenceHashKeys>>() {
+                              @Override
+                              public PCollection<OccurrenceHashKeys> expand(
+                                  PCollection<HashKeyOccurrence> previousInput) {
+                                return IncrementalClustering.hashKeys(previousInput);
+                              }
+                            }));
+                PCollection<KV<String, Boolean>> touched =
+                    IncrementalClustering.touchedKeys(changes);
+                PCollection<KV<String, Relationship>> relationships =
+                    groupRelationships(
+                        IncrementalClustering.touchedGroups(byHashKey(input), touched));
+                return ClusteringPipeline.relationshipsPerRecord(
+                    PCollectionList.of(relationships)
+                        .and(IncrementalClustering.keptRelationships(previousState, touched))
+                        .apply(Flatten.pCollections()));
+              }
+            });
+
+    // Should
+    PAssert.that(asStrings(full, "Full strings"))
+        .satisfies(
+            it -> {
+              Assert.assertTrue(it.iterator().hasNext());
+              return null;
+            });
+    PAssert.that(differences(full, incremental)).empty();
+    p.run();
+  }
+
+  private static HashKeyOccurrence record(String hashKey, String id, String datasetKey, int day) {
+    HashKeyOccurrence o = createFromString(RECORD);
+    o.setHashKey(hashKey);
+    o.setId(id);
+    o.setDatasetKey(datasetKey);
+    o.setCatalogNumber("M." + id);
+    o.setDay(day);
+    return o;
+  }
+
+  private static PCollection<KV<String, HashKeyOccurrence>> byHashKey(
+      PCollection<HashKeyOccurrence> records) {
+    return records.apply(
+        "Key by hash key",
+        MapElements.via(
+            new SimpleFunction<HashKeyOccurrence, KV<String, HashKeyOccurrence>>() {
+              @Override
+              public KV<String, HashKeyOccurrence> apply(HashKeyOccurrence input) {
+                return KV.of(input.getHashKey(), input);
+              }
+            }));
+  }
+
+  private static PCollection<KV<String, Relationship>> groupRelationships(
+      PCollection<KV<String, Iterable<HashKeyOccurrence>>> groups) {
+    return ClusteringPipeline.groupRelationships(
+        ClusteringPipeline.candidates(groups, null, 50), 50);
+  }
+
+  /** Relationships of a record as a sorted string, the order of relationships isn't relevant */
+  private static PCollection<KV<String, String>> asKeyedStrings(
+      PCollection<Relationships> relationships, String name) {
+    return relationships.apply(
+        name,
+        MapElements.via(
+            new SimpleFunction<Relationships, KV<String, String>>() {
+              @Override
+              public KV<String, String> apply(Relationships input) {
+                return KV.of(
+                    input.getId(),
+                    input.getRelationships().stream()
+                        .map(Relationship::toString)
+                        .sorted()
+                        .collect(Collectors.joining(";")));
+              }
+            }));
+  }
+
+  private static PCollection<String> asStrings(
+      PCollection<Relationships> relationships, String name) {
+    return asKeyedStrings(relationships, name).apply(name + " values", Values.create());
+  }
+
+  /** Ids of records of which relationships differ */
+  private static PCollection<String> differences(
+      PCollection<Relationships> full, PCollection<Relationships> incremental) {
+    TupleTag<String> fullTag = new TupleTag<String>() {};
+    TupleTag<String> incrementalTag = new TupleTag<String>() {};
+    return KeyedPCollectionTuple.of(fullTag, asKeyedStrings(full, "Full keyed strings"))
+        .and(incrementalTag, asKeyedStrings(incremental, "Incremental keyed strings"))
+        .apply(CoGroupByKey.create())
+        .apply(
+            ParDo.of(
+                new DoFn<KV<String, CoGbkResult>, String>() {
+                  @ProcessElement
+                  public void processElement(
+                      @Element KV<String, CoGbkResult> source, OutputReceiver<String> out) {
+                    List<String> f = Lists.newArrayList(source.getValue().getAll(fullTag));
+                    List<String> i = Lists.newArrayList(source.getValue().getAll(incrementalTag));
+                    if (!f.equals(i)) {
+                      out.output(source.getKey() + ": " + f + " != " + i);
+                    }
+                  }
+                }));
+  }
+
+  private static HashKeyOccurrence createFromString(String str) {
     String[] parts = Splitter.on(',').splitToList(str).toArray(new String[0]);
     return HashKeyOccurrenceBuilder.aHashKeyOccurrence()
         .withHashKey(parts[0])
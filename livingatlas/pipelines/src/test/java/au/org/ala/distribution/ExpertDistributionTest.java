@@ -0,0 +1,121 @@
+package au.org.ala.distribution;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExpertDistributionTest {
+
+  private static final String LSID =
+      "https://biodiversity.org.au/afd/taxa/0c3e2403-05c4-4a43-8019-30e6d657a283";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void distanceTest() {
+
+    // State
+    ExpertDistribution distribution =
+        ExpertDistribution.create(
+            Arrays.asList(
+                layer("POLYGON((140 -40, 150 -40, 150 -30, 140 -30, 140 -40))"),
+                layer(
+                    "MULTIPOLYGON(((110 -35, 115 -35, 115 -20, 110 -20, 110 -35)),"
+                        + "((160 -10, 161 -10, 161 -9, 160 -9, 160 -10)))")));
+
+    // When
+    double inside = distribution.distance(-35d, 145d);
+    double insideSecondLayer = distribution.distance(-9.5d, 160.5d);
+    double onBoundary = distribution.distance(-40d, 145d);
+    double outside = distribution.distance(-41d, 145d);
+
+    // Should
+    Assert.assertEquals(ExpertDistribution.INSIDE, inside, 0d);
+    Assert.assertEquals(ExpertDistribution.INSIDE, insideSecondLayer, 0d);
+    Assert.assertEquals(ExpertDistribution.INSIDE, onBoundary, 0d);
+    // 1 degree of latitude
+    Assert.assertEquals(111_195d, outside, 100d);
+  }
+
+  @Test
+  public void noDistributionTest() {
+
+    // When
+    ExpertDistribution empty = ExpertDistribution.create(Collections.emptyList());
+
+    // Should
+    Assert.assertSame(ExpertDistribution.EMPTY, empty);
+    Assert.assertEquals(ExpertDistribution.NO_DISTRIBUTION, empty.distance(-35d, 145d), 0d);
+  }
+
+  @Test
+  public void exportTest() throws Exception {
+
+    // State
+    File export = folder.getRoot();
+    new ObjectMapper()
+        .writeValue(
+            new File(export, ExpertDistributionStore.fileName(LSID)),
+            Collections.singletonList(
+                layer("POLYGON((140 -40, 150 -40, 150 -30, 140 -30, 140 -40))")));
+    Files.write(
+        export.toPath().resolve(ExpertDistributionStore.SPECIES_FILE),
+        Arrays.asList(LSID, "urn:lsid:missing"),
+        StandardCharsets.UTF_8);
+    ExpertDistributionStore store =
+        ExpertDistributionStore.builder()
+            .exportPath(export.getAbsolutePath())
+            .cacheSize(1_000L)
+            .create();
+
+    // When
+    ExpertDistribution distribution = store.get(LSID);
+    ExpertDistribution none = store.get("urn:lsid:none");
+    ExpertDistribution missing = store.get("urn:lsid:missing");
+
+    // Should
+    Assert.assertEquals(ExpertDistribution.INSIDE, distribution.distance(-35d, 145d), 0d);
+    Assert.assertSame(distribution, store.get(LSID));
+    Assert.assertSame(ExpertDistribution.EMPTY, none);
+    Assert.assertNull(missing);
+  }
+
+  @Test
+  public void incompleteExportTest() throws Exception {
+
+    // State
+    File export = folder.getRoot();
+    new ObjectMapper()
+        .writeValue(
+            new File(export, ExpertDistributionStore.fileName(LSID)),
+            Collections.singletonList(
+                layer("POLYGON((140 -40, 150 -40, 150 -30, 140 -30, 140 -40))")));
+    ExpertDistributionStore store =
+        ExpertDistributionStore.builder()
+            .exportPath(export.getAbsolutePath())
+            .cacheSize(1_000L)
+            .create();
+
+    // When
+    ExpertDistribution distribution = store.get(LSID);
+    ExpertDistribution none = store.get("urn:lsid:none");
+
+    // Should
+    Assert.assertNull(distribution);
+    Assert.assertNull(none);
+  }
+
+  private static DistributionLayer layer(String wkt) {
+    DistributionLayer layer = new DistributionLayer();
+    layer.setLsid(LSID);
+    layer.setGeometry(wkt);
+    return layer;
+  }
+}
@@ -0,0 +1,140 @@
+package au.org.ala.kvs.cache;
+
+import au.org.ala.kvs.ALANameMatchConfig;
+import au.org.ala.names.ws.api.NameSearch;
+import au.org.ala.names.ws.api.NameUsageMatch;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ALANameMatchKVStoreTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void getAllTest() {
+
+    // State
+    AtomicInteger calls = new AtomicInteger();
+    ALANameMatchKVStore store = store(calls, null);
+    NameSearch acacia = NameSearch.builder().scientificName("Acacia dealbata").build();
+    NameSearch unknown = NameSearch.builder().scientificName("Unknown").build();
+
+    // When
+    Map<NameSearch, NameUsageMatch> result =
+        store.getAll(
+            Arrays.asList(
+                acacia, unknown, NameSearch.builder().scientificName("Acacia dealbata").build()));
+    NameUsageMatch cached = store.get(acacia);
+
+    // Should
+    Assert.assertEquals(2, result.size());
+    Assert.assertEquals("Acacia dealbata", result.get(acacia).getScientificName());
+    Assert.assertNull(result.get(unknown));
+    Assert.assertEquals("Acacia dealbata", cached.getScientificName());
+    Assert.assertEquals(2, calls.get());
+    store.close();
+  }
+
+  @Test
+  public void getInCallingThreadTest() {
+
+    // State
+    Thread caller = Thread.currentThread();
+    AtomicInteger otherThreadCalls = new AtomicInteger();
+    ALANameMatchKVStore store =
+        ALANameMatchKVStore.builder()
+            .matcher(
+                search -> {
+                  if (Thread.currentThread() != caller) {
+                    otherThreadCalls.incrementAndGet();
+                  }
+                  return NameUsageMatch.builder()
+                      .success(true)
+                      .scientificName(search.getScientificName())
+                      .build();
+                })
+            .memoryCacheSize(100L)
+            .parallelism(1)
+            .create();
+
+    // When
+    NameUsageMatch match =
+        store.get(NameSearch.builder().scientificName("Acacia dealbata").build());
+    store.close();
+
+    // Should
+    Assert.assertEquals("Acacia dealbata", match.getScientificName());
+    Assert.assertEquals(0, otherThreadCalls.get());
+  }
+
+  @Test
+  public void diskCacheTest() throws Exception {
+
+    // State
+    AtomicInteger calls = new AtomicInteger();
+    NameSearch acacia = NameSearch.builder().scientificName("Acacia dealbata").build();
+    NameSearch unknown = NameSearch.builder().scientificName("Unknown").build();
+
+    // When
+    ALANameMatchKVStore first = store(calls, diskCache("1"));
+    first.getAll(Arrays.asList(acacia, unknown));
+    first.close();
+
+    ALANameMatchKVStore second = store(calls, diskCache("1"));
+    NameUsageMatch persisted = second.get(acacia);
+    NameUsageMatch persistedNone = second.get(unknown);
+    second.close();
+    int callsAfterSecondRun = calls.get();
+
+    ALANameMatchKVStore newIndex = store(calls, diskCache("2"));
+    newIndex.get(acacia);
+    newIndex.close();
+
+    // Should
+    Assert.assertEquals("Acacia dealbata", persisted.getScientificName());
+    Assert.assertNull(persistedNone);
+    Assert.assertEquals(2, callsAfterSecondRun);
+    Assert.assertEquals(3, calls.get());
+  }
+
+  @Test
+  public void disabledDiskCacheTest() throws Exception {
+
+    // When
+    NameMatchDiskCache cache = NameMatchDiskCache.open(new ALANameMatchConfig());
+
+    // Should
+    Assert.assertNull(cache);
+  }
+
+  private NameMatchDiskCache diskCache(String indexVersion) throws Exception {
+    ALANameMatchConfig config = new ALANameMatchConfig();
+    config.setCachePath(folder.getRoot().getAbsolutePath());
+    config.setIndexVersion(indexVersion);
+    return NameMatchDiskCache.open(config);
+  }
+
+  private static ALANameMatchKVStore store(AtomicInteger calls, NameMatchDiskCache diskCache) {
+    return ALANameMatchKVStore.builder()
+        .matcher(
+            search -> {
+              calls.incrementAndGet();
+              return search.getScientificName().startsWith("Acacia")
+                  ? NameUsageMatch.builder()
+                      .success(true)
+                      .scientificName(search.getScientificName())
+                      .build()
+                  : null;
+            })
+        .diskCache(diskCache)
+        .memoryCacheSize(100L)
+        .batchSize(1)
+        .parallelism(2)
+        .create();
+  }
+}
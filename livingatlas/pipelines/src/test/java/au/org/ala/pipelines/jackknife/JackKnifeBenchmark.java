@@ -0,0 +1,124 @@
+package au.org.ala.pipelines.jackknife;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures models and outliers of all layers of one species, with boxed values per layer as the
+ * pipeline used to group them, and with {@link JackKnifeColumns}.
+ *
+ * <p>Values are normally distributed with a few distant values, about a tenth of values are
+ * missing.
+ *
+ * <p>Run the main method using the test classpath, it isn't a part of the unit tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class JackKnifeBenchmark {
+
+  private static final int MIN_SAMPLE_THRESHOLD = 80;
+
+  @Param({"1000", "50000"})
+  private int records;
+
+  @Param({"40"})
+  private int layers;
+
+  private String[] layerNames;
+  private String[] ids;
+  private double[][] values;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    layerNames = new String[layers];
+    for (int i = 0; i < layers; i++) {
+      layerNames[i] = "el" + i;
+    }
+    ids = new String[records];
+    values = new double[records][layers];
+    for (int i = 0; i < records; i++) {
+      ids[i] = String.valueOf(i);
+      for (int j = 0; j < layers; j++) {
+        double v = 100 * j + random.nextGaussian() * 10;
+        if (random.nextInt(100) == 0) {
+          v += 200;
+        }
+        values[i][j] = random.nextInt(10) == 0 ? Double.NaN : v;
+      }
+    }
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public int perLayer() {
+    List<Double>[] columns = new ArrayList[layers];
+    for (int j = 0; j < layers; j++) {
+      columns[j] = new ArrayList<>();
+    }
+    for (double[] v : values) {
+      for (int j = 0; j < layers; j++) {
+        columns[j].add(v[j]);
+      }
+    }
+
+    double[][] models = new double[layers][];
+    for (int j = 0; j < layers; j++) {
+      models[j] = JackKnife.jackknife(columns[j].toArray(new Double[0]), MIN_SAMPLE_THRESHOLD);
+    }
+
+    int outliers = 0;
+    for (int i = 0; i < records; i++) {
+      List<String> items = null;
+      for (int j = 0; j < layers; j++) {
+        Double v = columns[j].get(i);
+        if (models[j] != null && (models[j][0] > v || models[j][1] < v)) {
+          if (items == null) {
+            items = new ArrayList<>();
+          }
+          items.add(layerNames[j]);
+        }
+      }
+      if (items != null) {
+        outliers++;
+      }
+    }
+    return outliers;
+  }
+
+  @Benchmark
+  public int columns() {
+    JackKnifeColumns columns = new JackKnifeColumns(layerNames, MIN_SAMPLE_THRESHOLD);
+    for (int i = 0; i < records; i++) {
+      columns.add(ids[i], values[i]);
+    }
+    int[] outliers = new int[1];
+    columns.outliers(columns.models(), (id, items) -> outliers[0]++);
+    return outliers[0];
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(JackKnifeBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
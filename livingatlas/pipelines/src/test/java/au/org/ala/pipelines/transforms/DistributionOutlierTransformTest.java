@@ -0,0 +1,72 @@
+package au.org.ala.pipelines.transforms;
+
+import au.org.ala.distribution.DistributionLayer;
+import au.org.ala.distribution.ExpertDistribution;
+import au.org.ala.distribution.ExpertDistributionStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import org.gbif.pipelines.io.avro.DistributionOutlierRecord;
+import org.gbif.pipelines.io.avro.IndexRecord;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DistributionOutlierTransformTest {
+
+  private static final String LSID =
+      "https://biodiversity.org.au/afd/taxa/0c3e2403-05c4-4a43-8019-30e6d657a283";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void convertTest() throws Exception {
+
+    // State
+    File export = folder.getRoot();
+    DistributionLayer layer = new DistributionLayer();
+    layer.setLsid(LSID);
+    layer.setGeometry("POLYGON((140 -40, 150 -40, 150 -30, 140 -30, 140 -40))");
+    new ObjectMapper()
+        .writeValue(
+            new File(export, ExpertDistributionStore.fileName(LSID)),
+            Collections.singletonList(layer));
+    Files.write(
+        export.toPath().resolve(ExpertDistributionStore.SPECIES_FILE),
+        Arrays.asList(LSID, "urn:lsid:missing"),
+        StandardCharsets.UTF_8);
+
+    DistributionOutlierTransform transform =
+        new DistributionOutlierTransform(null, export.getAbsolutePath(), 1_000L);
+    transform.setup();
+
+    // When
+    Optional<DistributionOutlierRecord> inside = transform.convert(record("1", LSID, "-35,145"));
+    Optional<DistributionOutlierRecord> outside = transform.convert(record("2", LSID, "-41,145"));
+    Optional<DistributionOutlierRecord> none =
+        transform.convert(record("3", "urn:lsid:none", "-35,145"));
+    Optional<DistributionOutlierRecord> failed =
+        transform.convert(record("4", "urn:lsid:missing", "-35,145"));
+
+    // Should
+    Assert.assertTrue(inside.isPresent());
+    Assert.assertEquals("1", inside.get().getId());
+    Assert.assertEquals(LSID, inside.get().getSpeciesID());
+    Assert.assertEquals(ExpertDistribution.INSIDE, inside.get().getDistanceOutOfEDL(), 0d);
+    Assert.assertTrue(outside.isPresent());
+    // 1 degree of latitude
+    Assert.assertEquals(111_195d, outside.get().getDistanceOutOfEDL(), 100d);
+    Assert.assertTrue(none.isPresent());
+    Assert.assertEquals(ExpertDistribution.NO_DISTRIBUTION, none.get().getDistanceOutOfEDL(), 0d);
+    Assert.assertFalse(failed.isPresent());
+  }
+
+  private static IndexRecord record(String id, String taxonId, String latLng) {
+    return IndexRecord.newBuilder().setId(id).setTaxonID(taxonId).setLatLng(latLng).build();
+  }
+}
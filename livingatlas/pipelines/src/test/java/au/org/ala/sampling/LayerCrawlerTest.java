@@ -0,0 +1,152 @@
+package au.org.ala.sampling;
+
+import au.org.ala.kvs.ALAPipelinesConfig;
+import au.org.ala.utils.ALAFsUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.apache.hadoop.fs.FileSystem;
+import org.gbif.pipelines.common.PipelinesException;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.core.utils.FsUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+public class LayerCrawlerTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final FileSystem fs = FsUtils.getLocalFileSystem(HdfsConfigs.nullConfig());
+
+  @Test
+  public void resumeTest() throws Exception {
+
+    // State
+    File input = folder.newFile("latlng.csv");
+    Files.write(input.toPath(), Arrays.asList("1.0,2.0", "3.0,4.0", "5.0,6.0"));
+    String output = folder.newFolder("sampling").getAbsolutePath();
+    String manifestPath = folder.getRoot().getAbsolutePath() + "/manifest.txt";
+
+    List<String> submitted = new CopyOnWriteArrayList<>();
+    AtomicBoolean failing = new AtomicBoolean(true);
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(new SamplingDispatcher(server, submitted, failing));
+    server.start();
+
+    ALAPipelinesConfig config = new ALAPipelinesConfig();
+    config.getSamplingService().setBatchSize(1);
+    config.getSamplingService().setParallelism(1);
+    config.getSamplingService().setBatchStatusSleepTime(0);
+    config.getSamplingService().setDownloadRetries(1);
+    SamplingService service =
+        new Retrofit.Builder()
+            .baseUrl(server.url("/"))
+            .addConverterFactory(JacksonConverterFactory.create())
+            .build()
+            .create(SamplingService.class);
+    LayerCrawler crawler = new LayerCrawler(service, config);
+
+    // When
+    SamplingManifest first = SamplingManifest.load(fs, manifestPath, "el1");
+    try {
+      crawler.crawl(fs, "el1", input.getAbsolutePath(), output, first, null);
+      Assert.fail("The failed batch must fail the crawl");
+    } catch (PipelinesException ex) {
+      // expected
+    }
+    List<String> firstRun = new ArrayList<>(submitted);
+    submitted.clear();
+    failing.set(false);
+
+    SamplingManifest resumed = SamplingManifest.load(fs, manifestPath, "el1");
+    int sampled = crawler.crawl(fs, "el1", input.getAbsolutePath(), output, resumed, null);
+    server.shutdown();
+
+    // Should
+    Assert.assertEquals(first.getRunId(), resumed.getRunId());
+    Assert.assertEquals("1.0,2.0", firstRun.get(0));
+    Assert.assertTrue(firstRun.contains("3.0,4.0"));
+    Assert.assertFalse(submitted.contains("1.0,2.0"));
+    Assert.assertTrue(submitted.contains("3.0,4.0"));
+    Assert.assertEquals(submitted.size(), sampled);
+    // one avro file per batch, the failed batch isn't written
+    Assert.assertEquals(
+        3L, ALAFsUtils.listPaths(fs, output).stream().filter(p -> p.endsWith(".avro")).count());
+  }
+
+  /** Sampling service which fails the batch of 3.0,4.0 while failing is set */
+  private static class SamplingDispatcher extends Dispatcher {
+
+    private final MockWebServer server;
+    private final List<String> submitted;
+    private final AtomicBoolean failing;
+    private final Map<String, String> batches = new ConcurrentHashMap<>();
+
+    private SamplingDispatcher(
+        MockWebServer server, List<String> submitted, AtomicBoolean failing) {
+      this.server = server;
+      this.submitted = submitted;
+      this.failing = failing;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+      String path = request.getPath();
+      try {
+        if (path.equals("/intersect/batch")) {
+          String form = URLDecoder.decode(request.getBody().readUtf8(), "UTF-8");
+          String points = form.substring(form.indexOf("points=") + "points=".length());
+          String batchId = "b" + batches.size();
+          batches.put(batchId, points);
+          submitted.add(points);
+          return new MockResponse().setBody("{\"batchId\":\"" + batchId + "\"}");
+        }
+        if (path.startsWith("/intersect/batch/")) {
+          String batchId = path.substring("/intersect/batch/".length());
+          boolean error = failing.get() && batches.get(batchId).equals("3.0,4.0");
+          return new MockResponse()
+              .setBody(
+                  "{\"status\":\""
+                      + (error ? LayerCrawler.ERROR_STATUS : LayerCrawler.FINISHED_STATUS)
+                      + "\",\"downloadUrl\":\""
+                      + server.url("/download/" + batchId)
+                      + "\"}");
+        }
+        if (path.startsWith("/download/")) {
+          String points = batches.get(path.substring("/download/".length()));
+          ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("sample.csv"));
+            zip.write(
+                ("latitude,longitude,el1\n" + points + ",1.5\n").getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+          }
+          return new MockResponse().setBody(new Buffer().write(bytes.toByteArray()));
+        }
+      } catch (Exception ex) {
+        return new MockResponse().setResponseCode(500);
+      }
+      return new MockResponse().setResponseCode(404);
+    }
+  }
+}
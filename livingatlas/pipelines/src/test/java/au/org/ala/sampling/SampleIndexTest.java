@@ -0,0 +1,99 @@
+package au.org.ala.sampling;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import org.gbif.pipelines.io.avro.SampleRecord;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SampleIndexTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void lookupTest() throws Exception {
+
+    // State
+    Map<String, Double> doubles = new HashMap<>();
+    doubles.put("el674", 12.5d);
+    doubles.put("el1055", 0.0d);
+    Map<String, String> strings = new HashMap<>();
+    strings.put("cl22", "New South Wales");
+
+    SampleRecord sydney =
+        SampleRecord.newBuilder()
+            .setLatLng("-33.8688,151.2093")
+            .setDoubles(doubles)
+            .setStrings(strings)
+            .build();
+    SampleRecord hobart =
+        SampleRecord.newBuilder()
+            .setLatLng("-42.8821,147.3272")
+            .setDoubles(Collections.singletonMap("el674", 8.0d))
+            .setStrings(Collections.singletonMap("cl22", "Tasmania"))
+            .build();
+    SampleRecord ocean =
+        SampleRecord.newBuilder()
+            .setLatLng("-40.0,160.0")
+            .setDoubles(Collections.emptyMap())
+            .setStrings(Collections.emptyMap())
+            .build();
+    SampleRecord invalid =
+        SampleRecord.newBuilder()
+            .setLatLng("invalid")
+            .setDoubles(Collections.singletonMap("el674", 1.0d))
+            .setStrings(Collections.emptyMap())
+            .build();
+
+    Path file = folder.newFile("samples.idx").toPath();
+
+    // When
+    SampleIndexWriter.write(Arrays.asList(hobart, invalid, sydney, ocean, sydney), file);
+    SampleIndex index = SampleIndex.open(file);
+
+    // Should
+    Assert.assertEquals(3, index.getSize());
+
+    SampleRecord result = index.get("-33.8688,151.2093");
+    Assert.assertEquals("-33.8688,151.2093", result.getLatLng());
+    Assert.assertEquals(doubles, result.getDoubles());
+    Assert.assertEquals(strings, result.getStrings());
+
+    SampleRecord tas = index.get("-42.88210,147.32720");
+    Assert.assertEquals(Double.valueOf(8.0d), tas.getDoubles().get("el674"));
+    Assert.assertFalse(tas.getDoubles().containsKey("el1055"));
+    Assert.assertEquals("Tasmania", tas.getStrings().get("cl22"));
+
+    SampleRecord empty = index.get("-40.0,160.0");
+    Assert.assertTrue(empty.getDoubles().isEmpty());
+    Assert.assertTrue(empty.getStrings().isEmpty());
+
+    Assert.assertNull(index.get("-33.8689,151.2093"));
+    Assert.assertNull(index.get("invalid"));
+    Assert.assertNull(index.get("91.0,151.2093"));
+    Assert.assertNull(index.get(null));
+
+    Assert.assertTrue(index.contains("-40.0,160.0"));
+    Assert.assertFalse(index.contains("-40.0,160.1"));
+    Assert.assertEquals(new HashSet<>(Arrays.asList("el674", "el1055", "cl22")), index.getLayers());
+  }
+
+  @Test
+  public void keyTest() {
+
+    // Should
+    Assert.assertEquals(
+        SampleIndex.key(-33.8688d, 151.2093d), (long) SampleIndex.key("-33.8688,151.2093"));
+    Assert.assertEquals(SampleIndex.key(90d, -180d), (long) SampleIndex.key("90,-180"));
+    Assert.assertNotEquals(SampleIndex.key(0d, 1d), SampleIndex.key(1d, 0d));
+    Assert.assertNull(SampleIndex.key("-33.8688"));
+    Assert.assertNull(SampleIndex.key("-33.8688,"));
+    Assert.assertNull(SampleIndex.key("-33.8688,181"));
+  }
+}
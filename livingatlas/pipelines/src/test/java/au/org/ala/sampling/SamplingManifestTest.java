@@ -0,0 +1,110 @@
+package au.org.ala.sampling;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.fs.FileSystem;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.core.utils.FsUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SamplingManifestTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final FileSystem fs = FsUtils.getLocalFileSystem(HdfsConfigs.nullConfig());
+
+  @Test
+  public void loadCompleteTest() throws Exception {
+
+    // State
+    String path = folder.getRoot().getAbsolutePath() + "/manifest.txt";
+
+    // When
+    SamplingManifest first = SamplingManifest.load(fs, path, "el1,cl2");
+    first.complete("latlng-1-0");
+    SamplingManifest resumed = SamplingManifest.load(fs, path, "el1,cl2");
+
+    // Should
+    Assert.assertEquals(first.getRunId(), resumed.getRunId());
+    Assert.assertTrue(resumed.isCompleted("latlng-1-0"));
+    Assert.assertFalse(resumed.isCompleted("latlng-1-1"));
+  }
+
+  @Test
+  public void layersChangedTest() throws Exception {
+
+    // State
+    String path = folder.getRoot().getAbsolutePath() + "/manifest.txt";
+    File output = folder.newFolder("sampling");
+    SamplingManifest first = SamplingManifest.load(fs, path, "el1");
+    first.complete("latlng-1-0");
+    File firstRunFile = newFile(output, "sampling-" + first.getRunId() + "-latlng-1-0-0.avro");
+    TimeUnit.MILLISECONDS.sleep(5);
+
+    // When
+    SamplingManifest changed = SamplingManifest.load(fs, path, "el1,el2");
+    changed.clean(output.getAbsolutePath(), Collections.singletonList("latlng-1"));
+
+    // Should
+    Assert.assertNotEquals(first.getRunId(), changed.getRunId());
+    Assert.assertFalse(changed.isCompleted("latlng-1-0"));
+    Assert.assertFalse(firstRunFile.exists());
+  }
+
+  @Test
+  public void tmpFallbackTest() throws Exception {
+
+    // State
+    String path = folder.getRoot().getAbsolutePath() + "/manifest.txt";
+    SamplingManifest first = SamplingManifest.load(fs, path, "el1");
+    first.complete("latlng-1-0");
+
+    // When
+    // a failure between the delete and the rename of a write leaves only the copy
+    Assert.assertTrue(new File(path).renameTo(new File(path + ".tmp")));
+    SamplingManifest resumed = SamplingManifest.load(fs, path, "el1");
+
+    // Should
+    Assert.assertEquals(first.getRunId(), resumed.getRunId());
+    Assert.assertTrue(resumed.isCompleted("latlng-1-0"));
+    Assert.assertTrue(new File(path).exists());
+  }
+
+  @Test
+  public void cleanTest() throws Exception {
+
+    // State
+    String path = folder.getRoot().getAbsolutePath() + "/manifest.txt";
+    File output = folder.newFolder("sampling");
+    SamplingManifest manifest = SamplingManifest.load(fs, path, "el1");
+    manifest.complete("latlng-2-0");
+    manifest.complete("latlng-1-0");
+    String run = "sampling-" + manifest.getRunId() + "-";
+    File completed = newFile(output, run + "latlng-2-0-0.avro");
+    File failed = newFile(output, run + "latlng-2-1-0.avro");
+    File oldExport = newFile(output, run + "latlng-1-0-0.avro");
+    File previousRun = newFile(output, "sampling-1000-latlng-2-0-0.avro");
+
+    // When
+    manifest.clean(output.getAbsolutePath(), Arrays.asList("latlng-2"));
+
+    // Should
+    Assert.assertTrue(completed.exists());
+    Assert.assertTrue(previousRun.exists());
+    Assert.assertFalse(failed.exists());
+    Assert.assertFalse(oldExport.exists());
+    Assert.assertTrue(manifest.isCompleted("latlng-2-0"));
+    Assert.assertFalse(manifest.isCompleted("latlng-1-0"));
+  }
+
+  private static File newFile(File dir, String name) throws Exception {
+    File file = new File(dir, name);
+    Assert.assertTrue(file.createNewFile());
+    return file;
+  }
+}
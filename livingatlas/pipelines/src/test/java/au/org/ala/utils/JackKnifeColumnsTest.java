@@ -0,0 +1,100 @@
+package au.org.ala.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import au.org.ala.pipelines.jackknife.JackKnife;
+import au.org.ala.pipelines.jackknife.JackKnifeColumns;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class JackKnifeColumnsTest {
+
+  private static final double[] VALUES = {
+    1.0, 2.0, 8.0, 9.0, 10.0, 11.0, 12.0, 13.0, 14.0, 16.0, 17.0
+  };
+
+  @Test
+  public void modelsTest() {
+
+    // State
+    String[] layers = {"el1", "el2", "el3"};
+    JackKnifeColumns columns = new JackKnifeColumns(layers, 10, 1);
+    for (int i = 0; i < VALUES.length; i++) {
+      // el2 is constant, el3 has too few values
+      columns.add(String.valueOf(i), new double[] {VALUES[i], 5.0, i < 5 ? VALUES[i] : Double.NaN});
+    }
+
+    // When
+    JackKnifeColumns.Model[] models = columns.models();
+
+    // Should
+    assertEquals(VALUES.length, columns.getSize());
+    assertEquals(3, models.length);
+    double[] expected =
+        JackKnife.jackknife(Arrays.stream(VALUES).boxed().toArray(Double[]::new), 10);
+    assertNotNull(expected);
+    assertNotNull(models[0]);
+    assertEquals(expected[0], models[0].getMin(), 0);
+    assertEquals(expected[1], models[0].getMax(), 0);
+    assertEquals(VALUES.length, models[0].getCount());
+    assertNull(models[1]);
+    assertNull(models[2]);
+  }
+
+  @Test
+  public void outliersTest() {
+
+    // State
+    String[] layers = {"el1", "el2"};
+    JackKnifeColumns columns = new JackKnifeColumns(layers, 10);
+    for (int i = 0; i < VALUES.length; i++) {
+      columns.add("id" + i, new double[] {VALUES[i], i == 0 ? Double.NaN : VALUES[i]});
+    }
+
+    // When
+    Map<String, List<String>> outliers = new LinkedHashMap<>();
+    columns.outliers(columns.models(), outliers::put);
+
+    // Should
+    assertArrayEquals(new String[] {"id0", "id1", "id9", "id10"}, outliers.keySet().toArray());
+    assertEquals(Arrays.asList("el1"), outliers.get("id0"));
+    assertEquals(Arrays.asList("el1", "el2"), outliers.get("id1"));
+    assertEquals(Arrays.asList("el1", "el2"), outliers.get("id10"));
+  }
+
+  @Test
+  public void primitiveValuesTest() {
+
+    // State
+    Double[] boxed = new Double[VALUES.length * 2];
+    for (int i = 0; i < VALUES.length; i++) {
+      boxed[i * 2] = Double.NaN;
+      boxed[i * 2 + 1] = VALUES[VALUES.length - 1 - i];
+    }
+    double[] values = Arrays.copyOf(VALUES, VALUES.length + 1);
+    values[VALUES.length] = 99.0;
+    int n = VALUES.length;
+
+    // When
+    double[] fromBoxed = JackKnife.jackknife(boxed, n);
+    double[] fromPrimitive = JackKnife.jackknife(values, n, n);
+    double[] tooFew = JackKnife.jackknife(values, n, n + 1);
+    double[] empty = JackKnife.jackknife(new double[0], 0, 0);
+
+    // Should
+    assertNotNull(fromBoxed);
+    assertArrayEquals(fromBoxed, fromPrimitive, 0);
+    assertEquals(8.0, fromPrimitive[0], 0);
+    assertEquals(14.0, fromPrimitive[1], 0);
+    // values after n aren't sorted
+    assertEquals(99.0, values[n], 0);
+    assertNull(tooFew);
+    assertNull(empty);
+  }
+}
@@ -9,6 +9,8 @@ import org.apache.beam.sdk.metrics.MetricKey;
 import org.apache.beam.sdk.metrics.MetricName;
 import org.apache.beam.sdk.metrics.MetricResult;
 import org.apache.beam.sdk.metrics.MetricResults;
+import org.gbif.pipelines.core.kvs.CachedKeyValueStore;
+import org.gbif.pipelines.core.kvs.KvCacheStats;
 
 /**
  * Metrics to support org.gbif.pipelines.transforms.Transform counters, wrapper on top of {@link
@@ -34,6 +36,21 @@ public class IngestMetrics {
     return Optional.ofNullable(valueMap.get(name)).map(AtomicLong::incrementAndGet).orElse(0L);
   }
 
+  /**
+   * Adds counters of KV store caches of a run, see {@link CachedKeyValueStore#getStatsSince(List)}
+   */
+  public IngestMetrics addKvCacheStats(List<KvCacheStats> stats) {
+    stats.forEach(
+        s ->
+            s.toCounters()
+                .forEach(
+                    (name, value) -> {
+                      addMetric(CachedKeyValueStore.class, name);
+                      valueMap.get(name).addAndGet(value);
+                    }));
+    return this;
+  }
+
   public MetricResults getMetricsResult() {
     List<MetricResult<Long>> counters =
         valueMap.entrySet().stream()
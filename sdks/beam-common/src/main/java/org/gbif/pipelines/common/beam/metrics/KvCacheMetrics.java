@@ -0,0 +1,20 @@
+package org.gbif.pipelines.common.beam.metrics;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.beam.sdk.metrics.Metrics;
+import org.gbif.pipelines.core.kvs.CachedKeyValueStore;
+
+/**
+ * Publishes {@link CachedKeyValueStore} counters as Beam counters of the step calling the store, so
+ * the counters are aggregated from all workers and belong to one pipeline run. Outside of a Beam
+ * step the counters are ignored.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class KvCacheMetrics {
+
+  /** Counter function for {@link CachedKeyValueStore#wrap} */
+  public static void inc(String counterName, long value) {
+    Metrics.counter(CachedKeyValueStore.class, counterName).inc(value);
+  }
+}
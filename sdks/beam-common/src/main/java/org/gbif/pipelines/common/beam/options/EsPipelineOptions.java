@@ -109,4 +109,12 @@ public interface EsPipelineOptions extends PipelineOptions {
   Integer getBackPressure();
 
   void setBackPressure(Integer backPressure);
+
+  @Description(
+      "Java pipelines: fail the whole write on the first document ES can't index, otherwise such"
+          + " documents are skipped and counted")
+  @Default.Boolean(false)
+  boolean getEsFailFast();
+
+  void setEsFailFast(boolean esFailFast);
 }
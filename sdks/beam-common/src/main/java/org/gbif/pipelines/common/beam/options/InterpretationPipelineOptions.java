@@ -88,6 +88,58 @@ public interface InterpretationPipelineOptions
 
   void setNumberOfShards(Integer numberOfShards);
 
+  @Description(
+      "Java pipelines only, if greater than 0 records are streamed and interpreted in batches of this size, "
+          + "so heap usage doesn't depend on the dataset size")
+  @Default.Integer(0)
+  int getStreamingBatchSize();
+
+  void setStreamingBatchSize(int streamingBatchSize);
+
+  @Description(
+      "Java pipelines only, previous attempt of the dataset for delta interpretation, records with the same "
+          + "fingerprint as in the previous attempt aren't interpreted, their interpreted records are copied "
+          + "from the previous attempt")
+  Integer getDeltaAttempt();
+
+  void setDeltaAttempt(Integer deltaAttempt);
+
+  @Description(
+      "Java pipelines only, interpretation writes avro files sorted by record id and HDFS view and ES indexing "
+          + "join them by a streaming sort-merge join instead of loading all records into maps")
+  @Default.Boolean(false)
+  boolean getSortedAvro();
+
+  void setSortedAvro(boolean sortedAvro);
+
+  @Description(
+      "Java pipelines only, max number of records sorted in memory per interpreted avro writer, when sortedAvro "
+          + "is enabled, every sorted run is spilled to a local file and runs are merged into one file per shard")
+  @Default.Integer(100_000)
+  int getSortedAvroBufferSize();
+
+  void setSortedAvroBufferSize(int sortedAvroBufferSize);
+
+  @Description(
+      "HDFS view tables written as Parquet instead of Avro, table types like OCCURRENCE or "
+          + "MEASUREMENT_OR_FACT_TABLE, or ALL for all tables. Parquet files are moved into "
+          + "separate table directories with the _parquet suffix, like occurrence_parquet")
+  Set<String> getParquetTables();
+
+  void setParquetTables(Set<String> parquetTables);
+
+  @Description("Parquet page size in bytes, dictionary encoding and statistics are kept per page")
+  @Default.Integer(1024 * 1024)
+  int getParquetPageSize();
+
+  void setParquetPageSize(int parquetPageSize);
+
+  @Description("Parquet row group size in bytes")
+  @Default.Integer(128 * 1024 * 1024)
+  int getParquetRowGroupSize();
+
+  void setParquetRowGroupSize(int parquetRowGroupSize);
+
   /**
    * Provide recommended formats to parse ambiguous dates, e.g. 2/3/2008. If the field is empty or
    * invalid, only accepts standard ISO date format. Parsing 2/3/2008 will fail . <code>DMY</code>
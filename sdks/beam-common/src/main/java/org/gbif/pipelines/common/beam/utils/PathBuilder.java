@@ -28,13 +28,24 @@ public class PathBuilder {
    */
   public static String buildDatasetAttemptPath(
       BasePipelineOptions options, String name, boolean isInput) {
+    return buildDatasetAttemptPath(options, options.getAttempt(), name, isInput);
+  }
+
+  /**
+   * Uses pattern for path - "{targetPath}/{datasetId}/{attempt}/{name}", where the attempt is not
+   * the attempt of options
+   *
+   * @return string path
+   */
+  public static String buildDatasetAttemptPath(
+      BasePipelineOptions options, Integer attempt, String name, boolean isInput) {
     return String.join(
         Path.SEPARATOR,
         isInput ? options.getInputPath() : options.getTargetPath(),
         options.getDatasetId() == null || "all".equalsIgnoreCase(options.getDatasetId())
             ? "*"
             : options.getDatasetId(),
-        options.getAttempt().toString(),
+        attempt.toString(),
         name.toLowerCase());
   }
 
@@ -54,6 +65,22 @@ public class PathBuilder {
         .toString();
   }
 
+  /**
+   * Uses pattern for path -
+   * "{targetPath}/{datasetId}/{attempt}/{coreTerm}/{name}/interpret-{uniqueId}", used to read the
+   * interpretation of another attempt of the dataset
+   *
+   * @return string path to interpretation
+   */
+  public static String buildPathInterpretUsingTargetPath(
+      BasePipelineOptions options, Integer attempt, DwcTerm core, String name, String uniqueId) {
+    return buildPath(
+            buildDatasetAttemptPath(options, attempt, core.simpleName().toLowerCase(), false),
+            name,
+            PipelinesVariables.Pipeline.Interpretation.FILE_NAME + uniqueId)
+        .toString();
+  }
+
   /**
    * Uses pattern for path - "{targetPath}/{datasetId}/{attempt}/{core}/{name}/interpret-{uniqueId}"
    *
@@ -8,6 +8,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import org.apache.beam.sdk.metrics.MetricResults;
+import org.gbif.pipelines.core.kvs.KvCacheStats;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -153,4 +154,27 @@ public class IngestMetricsTest {
     Assert.assertEquals(count, map.get(name));
     Assert.assertEquals(count, map.get(name2));
   }
+
+  @Test
+  public void kvCacheStatsMetricsTest() {
+
+    // State
+    List<KvCacheStats> stats = new ArrayList<>();
+    stats.add(new KvCacheStats("geocode", 3L, 2L, 0L, 10L, 5L));
+
+    // When
+    MetricResults result = IngestMetrics.create().addKvCacheStats(stats).getMetricsResult();
+
+    // Should
+    Map<String, Long> map = new HashMap<>();
+    result
+        .allMetrics()
+        .getCounters()
+        .forEach(mr -> map.put(mr.getName().getName(), mr.getAttempted()));
+
+    Assert.assertEquals(3, map.size());
+    Assert.assertEquals(Long.valueOf(3L), map.get("geocodeKvCacheHits"));
+    Assert.assertEquals(Long.valueOf(2L), map.get("geocodeKvCacheMisses"));
+    Assert.assertEquals(Long.valueOf(10L), map.get("geocodeKvCacheLoadTimeMicros"));
+  }
 }
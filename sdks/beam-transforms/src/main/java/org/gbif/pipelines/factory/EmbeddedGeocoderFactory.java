@@ -0,0 +1,34 @@
+package org.gbif.pipelines.factory;
+
+import java.util.List;
+import lombok.SneakyThrows;
+import org.gbif.pipelines.core.config.model.GeocodeLayerConfig;
+import org.gbif.pipelines.core.parsers.location.EmbeddedGeocoder;
+
+/**
+ * Factory to get singleton instance of {@link EmbeddedGeocoder}, shapefiles are read once per JVM
+ */
+public class EmbeddedGeocoderFactory {
+
+  private static volatile EmbeddedGeocoderFactory instance;
+
+  private final EmbeddedGeocoder geocoder;
+
+  private static final Object MUTEX = new Object();
+
+  @SneakyThrows
+  private EmbeddedGeocoderFactory(List<GeocodeLayerConfig> layers) {
+    this.geocoder = EmbeddedGeocoder.create(layers);
+  }
+
+  public static EmbeddedGeocoder getInstance(List<GeocodeLayerConfig> layers) {
+    if (instance == null) {
+      synchronized (MUTEX) {
+        if (instance == null) {
+          instance = new EmbeddedGeocoderFactory(layers);
+        }
+      }
+    }
+    return instance.geocoder;
+  }
+}
@@ -3,16 +3,22 @@ package org.gbif.pipelines.factory;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.SneakyThrows;
 import org.gbif.kvs.KeyValueStore;
 import org.gbif.kvs.conf.CachedHBaseKVStoreConfiguration;
 import org.gbif.kvs.geocode.GeocodeKVStoreFactory;
 import org.gbif.kvs.geocode.LatLng;
 import org.gbif.kvs.hbase.HBaseKVStoreConfiguration;
+import org.gbif.pipelines.common.beam.metrics.KvCacheMetrics;
+import org.gbif.pipelines.core.config.model.GeocodeLayerConfig;
 import org.gbif.pipelines.core.config.model.PipelinesConfig;
 import org.gbif.pipelines.core.config.model.WsConfig;
 import org.gbif.pipelines.core.functions.SerializableSupplier;
+import org.gbif.pipelines.core.kvs.CachedKeyValueStore;
 import org.gbif.pipelines.core.parsers.location.GeocodeKvStore;
+import org.gbif.pipelines.core.parsers.location.cache.RasterIndex;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.rest.client.configuration.ClientConfiguration;
 import org.gbif.rest.client.geocode.GeocodeResponse;
@@ -30,8 +36,12 @@ public class GeocodeKvStoreFactory {
         Optional.ofNullable(config.getImageCachePath())
             .map(ip -> BufferedImageFactory.getInstance(hdfsConfigs, ip))
             .orElse(null);
+    RasterIndex rasterIndex =
+        Optional.ofNullable(config.getRasterIndexPath())
+            .map(ip -> RasterIndexFactory.getInstance(hdfsConfigs, ip))
+            .orElse(null);
     KeyValueStore<LatLng, GeocodeResponse> kvStore = creatKvStore(config);
-    geocodeKvStore = GeocodeKvStore.create(kvStore, image);
+    geocodeKvStore = GeocodeKvStore.create(kvStore, image, rasterIndex, layerTypes(config));
   }
 
   public static KeyValueStore<LatLng, GeocodeResponse> getInstance(
@@ -56,12 +66,26 @@ public class GeocodeKvStoreFactory {
     return () -> GeocodeKvStoreFactory.getInstance(hdfsConfigs, config);
   }
 
+  /** Location types of the embedded geocoder layers or of the geocode API */
+  private static Set<String> layerTypes(PipelinesConfig config) {
+    if (config.getGeocodeLayers() != null && !config.getGeocodeLayers().isEmpty()) {
+      return config.getGeocodeLayers().stream()
+          .map(GeocodeLayerConfig::getType)
+          .collect(Collectors.toSet());
+    }
+    return GeocodeKvStore.DEFAULT_LAYER_TYPES;
+  }
+
   private static KeyValueStore<LatLng, GeocodeResponse> creatKvStore(PipelinesConfig config)
       throws IOException {
     if (config == null) {
       return null;
     }
 
+    if (config.getGeocodeLayers() != null && !config.getGeocodeLayers().isEmpty()) {
+      return EmbeddedGeocoderFactory.getInstance(config.getGeocodeLayers());
+    }
+
     String api =
         Optional.ofNullable(config.getGeocode().getApi())
             .map(WsConfig::getWsUrl)
@@ -77,7 +101,11 @@ public class GeocodeKvStoreFactory {
     String zk = config.getGeocode().getZkConnectionString();
     zk = zk == null || zk.isEmpty() ? config.getZkConnectionString() : zk;
     if (zk == null || config.getGeocode().isRestOnly()) {
-      return GeocodeKVStoreFactory.simpleGeocodeKVStore(clientConfig);
+      return CachedKeyValueStore.wrap(
+          "geocode",
+          GeocodeKVStoreFactory.simpleGeocodeKVStore(clientConfig),
+          config.getGeocode().getCache(),
+          KvCacheMetrics::inc);
     }
 
     CachedHBaseKVStoreConfiguration geocodeKvStoreConfig =
@@ -90,10 +118,14 @@ public class GeocodeKvStoreFactory {
                     .withNumOfKeyBuckets(config.getGeocode().getNumOfKeyBuckets())
                     .withHBaseZk(zk)
                     .build())
-            .withCacheCapacity(15_000L)
+            .withCacheCapacity(config.getGeocode().getHbaseCacheCapacity())
             .withCacheExpiryTimeInSeconds(config.getGeocode().getCacheExpiryTimeInSeconds())
             .build();
 
-    return GeocodeKVStoreFactory.simpleGeocodeKVStore(geocodeKvStoreConfig, clientConfig);
+    return CachedKeyValueStore.wrap(
+        "geocode",
+        GeocodeKVStoreFactory.simpleGeocodeKVStore(geocodeKvStoreConfig, clientConfig),
+        config.getGeocode().getCache(),
+        KvCacheMetrics::inc);
   }
 }
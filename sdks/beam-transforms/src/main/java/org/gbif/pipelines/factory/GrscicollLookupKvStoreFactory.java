@@ -7,9 +7,11 @@ import org.gbif.kvs.conf.CachedHBaseKVStoreConfiguration;
 import org.gbif.kvs.grscicoll.GrscicollLookupKVStoreFactory;
 import org.gbif.kvs.grscicoll.GrscicollLookupRequest;
 import org.gbif.kvs.hbase.HBaseKVStoreConfiguration;
+import org.gbif.pipelines.common.beam.metrics.KvCacheMetrics;
 import org.gbif.pipelines.core.config.model.PipelinesConfig;
 import org.gbif.pipelines.core.config.model.WsConfig;
 import org.gbif.pipelines.core.functions.SerializableSupplier;
+import org.gbif.pipelines.core.kvs.CachedKeyValueStore;
 import org.gbif.rest.client.configuration.ClientConfiguration;
 import org.gbif.rest.client.grscicoll.GrscicollLookupResponse;
 
@@ -64,7 +66,11 @@ public class GrscicollLookupKvStoreFactory {
     String zk = config.getGrscicollLookup().getZkConnectionString();
     zk = zk == null || zk.isEmpty() ? config.getZkConnectionString() : zk;
     if (zk == null || config.getGrscicollLookup().isRestOnly()) {
-      return GrscicollLookupKVStoreFactory.simpleGrscicollLookupKVStore(clientConfiguration);
+      return CachedKeyValueStore.wrap(
+          "grscicollLookup",
+          GrscicollLookupKVStoreFactory.simpleGrscicollLookupKVStore(clientConfiguration),
+          config.getGrscicollLookup().getCache(),
+          KvCacheMetrics::inc);
     }
 
     CachedHBaseKVStoreConfiguration lookupConfig =
@@ -77,12 +83,16 @@ public class GrscicollLookupKvStoreFactory {
                     .withNumOfKeyBuckets(config.getGrscicollLookup().getNumOfKeyBuckets())
                     .withHBaseZk(zk)
                     .build())
-            .withCacheCapacity(15_000L)
+            .withCacheCapacity(config.getGrscicollLookup().getHbaseCacheCapacity())
             .withCacheExpiryTimeInSeconds(config.getGrscicollLookup().getCacheExpiryTimeInSeconds())
             .build();
 
-    return GrscicollLookupKVStoreFactory.simpleGrscicollLookupKVStore(
-        lookupConfig, clientConfiguration);
+    return CachedKeyValueStore.wrap(
+        "grscicollLookup",
+        GrscicollLookupKVStoreFactory.simpleGrscicollLookupKVStore(
+            lookupConfig, clientConfiguration),
+        config.getGrscicollLookup().getCache(),
+        KvCacheMetrics::inc);
   }
 
   public static SerializableSupplier<KeyValueStore<GrscicollLookupRequest, GrscicollLookupResponse>>
@@ -9,8 +9,10 @@ import org.gbif.kvs.conf.CachedHBaseKVStoreConfiguration;
 import org.gbif.kvs.geocode.LatLng;
 import org.gbif.kvs.hbase.HBaseKVStoreConfiguration;
 import org.gbif.kvs.hbase.ReadOnlyHBaseStore;
+import org.gbif.pipelines.common.beam.metrics.KvCacheMetrics;
 import org.gbif.pipelines.core.config.model.KvConfig;
 import org.gbif.pipelines.core.functions.SerializableSupplier;
+import org.gbif.pipelines.core.kvs.CachedKeyValueStore;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class LocationFeatureKvStoreFactory {
@@ -35,13 +37,18 @@ public class LocationFeatureKvStoreFactory {
                     // region servers
                     .withHBaseZk(kvConfig.getZkConnectionString()) // HBase Zookeeper ensemble
                     .build())
-            .withCacheCapacity(15_000L)
+            .withCacheCapacity(kvConfig.getHbaseCacheCapacity())
             .build();
 
-    return ReadOnlyHBaseStore.<LatLng, String>builder()
-        .withHBaseStoreConfiguration(hBaseKVStoreConfiguration.getHBaseKVStoreConfiguration())
-        .withResultMapper(
-            result -> Bytes.toString(result.getValue(Bytes.toBytes("v"), Bytes.toBytes("json"))))
-        .build();
+    KeyValueStore<LatLng, String> kvStore =
+        ReadOnlyHBaseStore.<LatLng, String>builder()
+            .withHBaseStoreConfiguration(hBaseKVStoreConfiguration.getHBaseKVStoreConfiguration())
+            .withResultMapper(
+                result ->
+                    Bytes.toString(result.getValue(Bytes.toBytes("v"), Bytes.toBytes("json"))))
+            .build();
+
+    return CachedKeyValueStore.wrap(
+        "locationFeature", kvStore, kvConfig.getCache(), KvCacheMetrics::inc);
   }
 }
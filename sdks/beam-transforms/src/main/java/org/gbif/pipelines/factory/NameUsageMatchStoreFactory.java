@@ -7,9 +7,11 @@ import org.gbif.kvs.conf.CachedHBaseKVStoreConfiguration;
 import org.gbif.kvs.hbase.HBaseKVStoreConfiguration;
 import org.gbif.kvs.species.NameUsageMatchKVStoreFactory;
 import org.gbif.kvs.species.SpeciesMatchRequest;
+import org.gbif.pipelines.common.beam.metrics.KvCacheMetrics;
 import org.gbif.pipelines.core.config.model.PipelinesConfig;
 import org.gbif.pipelines.core.config.model.WsConfig;
 import org.gbif.pipelines.core.functions.SerializableSupplier;
+import org.gbif.pipelines.core.kvs.CachedKeyValueStore;
 import org.gbif.rest.client.configuration.ChecklistbankClientsConfiguration;
 import org.gbif.rest.client.configuration.ClientConfiguration;
 import org.gbif.rest.client.species.NameUsageMatch;
@@ -70,7 +72,11 @@ public class NameUsageMatchStoreFactory {
     String zk = config.getNameUsageMatch().getZkConnectionString();
     zk = zk == null || zk.isEmpty() ? config.getZkConnectionString() : zk;
     if (zk == null || config.getNameUsageMatch().isRestOnly()) {
-      return NameUsageMatchKVStoreFactory.nameUsageMatchKVStore(clientConfiguration);
+      return CachedKeyValueStore.wrap(
+          "nameUsageMatch",
+          NameUsageMatchKVStoreFactory.nameUsageMatchKVStore(clientConfiguration),
+          config.getNameUsageMatch().getCache(),
+          KvCacheMetrics::inc);
     }
 
     CachedHBaseKVStoreConfiguration matchConfig =
@@ -83,11 +89,15 @@ public class NameUsageMatchStoreFactory {
                     .withNumOfKeyBuckets(config.getNameUsageMatch().getNumOfKeyBuckets())
                     .withHBaseZk(zk)
                     .build())
-            .withCacheCapacity(15_000L)
+            .withCacheCapacity(config.getNameUsageMatch().getHbaseCacheCapacity())
             .withCacheExpiryTimeInSeconds(config.getNameUsageMatch().getCacheExpiryTimeInSeconds())
             .build();
 
-    return NameUsageMatchKVStoreFactory.nameUsageMatchKVStore(matchConfig, clientConfiguration);
+    return CachedKeyValueStore.wrap(
+        "nameUsageMatch",
+        NameUsageMatchKVStoreFactory.nameUsageMatchKVStore(matchConfig, clientConfiguration),
+        config.getNameUsageMatch().getCache(),
+        KvCacheMetrics::inc);
   }
 
   public static SerializableSupplier<KeyValueStore<SpeciesMatchRequest, NameUsageMatch>>
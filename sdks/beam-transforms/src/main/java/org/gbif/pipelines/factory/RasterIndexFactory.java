@@ -0,0 +1,71 @@
+package org.gbif.pipelines.factory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.gbif.pipelines.core.parsers.location.cache.RasterIndex;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.core.utils.FsUtils;
+
+/**
+ * Factory to get singleton instance of {@link RasterIndex}. Local files are memory mapped, files of
+ * other file systems are copied to the local temp directory first, relative paths are read from the
+ * classpath.
+ */
+@Slf4j
+public class RasterIndexFactory {
+
+  private static volatile RasterIndexFactory instance;
+
+  private final RasterIndex rasterIndex;
+
+  private static final Object MUTEX = new Object();
+
+  @SneakyThrows
+  private RasterIndexFactory(HdfsConfigs configs, String rasterIndexPath) {
+    this.rasterIndex = loadRasterIndex(configs, rasterIndexPath);
+  }
+
+  public static RasterIndex getInstance(HdfsConfigs configs, String rasterIndexPath) {
+    if (instance == null) {
+      synchronized (MUTEX) {
+        if (instance == null) {
+          instance = new RasterIndexFactory(configs, rasterIndexPath);
+        }
+      }
+    }
+    return instance.rasterIndex;
+  }
+
+  @SneakyThrows
+  public static RasterIndex loadRasterIndex(HdfsConfigs configs, String filePath) {
+    Path path = new Path(filePath);
+    log.info("Loading raster index from {}", path);
+    if (!path.isAbsolute()) {
+      try (InputStream is =
+          Thread.currentThread().getContextClassLoader().getResourceAsStream(filePath)) {
+        if (is == null) {
+          throw new FileNotFoundException("Can't load raster index from resource - " + filePath);
+        }
+        return RasterIndex.read(is);
+      }
+    }
+
+    FileSystem fs = FsUtils.getFileSystem(configs, filePath);
+    if ("file".equals(fs.getScheme())) {
+      return RasterIndex.open(new File(path.toUri().getPath()).toPath());
+    }
+    File local = File.createTempFile("raster-index-", ".idx");
+    local.deleteOnExit();
+    try (InputStream is = fs.open(path)) {
+      Files.copy(is, local.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    return RasterIndex.open(local.toPath());
+  }
+}
@@ -7,6 +7,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import lombok.Builder;
+import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.transforms.MapElements;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.TypeDescriptor;
@@ -33,6 +34,7 @@ public class TemporalTransform extends Transform<ExtendedRecord, TemporalRecord>
   private final SerializableFunction<String, String> preprocessDateFn;
   private final List<DateComponentOrdering> orderings;
   private TemporalInterpreter temporalInterpreter;
+  private SerializableConsumer<String> cacheCounterFn = TemporalTransform::publishCacheCounter;
 
   @Builder(buildMethodName = "create")
   private TemporalTransform(
@@ -52,6 +54,7 @@ public class TemporalTransform extends Transform<ExtendedRecord, TemporalRecord>
           TemporalInterpreter.builder()
               .orderings(orderings)
               .preprocessDateFn(preprocessDateFn)
+              .cacheCounterFn(this::incCacheCounter)
               .create();
     }
   }
@@ -72,11 +75,22 @@ public class TemporalTransform extends Transform<ExtendedRecord, TemporalRecord>
     return asKv(true);
   }
 
+  /** The counter function also receives date parser cache counters */
   public TemporalTransform counterFn(SerializableConsumer<String> counterFn) {
     setCounterFn(counterFn);
+    this.cacheCounterFn = counterFn;
     return this;
   }
 
+  /** Date parser cache hits and misses as Beam counters of the step */
+  private static void publishCacheCounter(String counterName) {
+    Metrics.counter(TemporalTransform.class, counterName).inc();
+  }
+
+  private void incCacheCounter(String counterName) {
+    cacheCounterFn.accept(counterName);
+  }
+
   /** Beam @Setup can be applied only to void method */
   public TemporalTransform init() {
     setup();
@@ -0,0 +1,114 @@
+package org.gbif.pipelines.transforms.java;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.pipelines.core.utils.HashConverter;
+import org.gbif.pipelines.core.utils.LongPairIndex;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+
+/**
+ * Streaming version of {@link org.gbif.pipelines.core.io.AvroReader#readUniqueRecords}, keeps only
+ * 64-bit hashes of record ids and record content off-heap instead of the records.
+ *
+ * <p>Usage: {@link #add} all records, call {@link #build()} and {@link #accept} the records again
+ * in any order. Records with the same id and different content are skipped, only the first one of
+ * identical duplicates is accepted. Content is compared by the first 64 bits of the SHA-1 of all
+ * fields, map entries are hashed in key order, as {@link ExtendedRecord#equals} ignores the order
+ * of map entries. The class is not thread-safe.
+ */
+@Slf4j
+public class UniqueExtendedRecordIndex {
+
+  private final LongPairIndex index = new LongPairIndex();
+  private final MessageDigest digest = newDigest();
+  private BitSet accepted;
+
+  public void add(ExtendedRecord er) {
+    index.add(HashConverter.getSha1Long(er.getId()), contentHash(er));
+  }
+
+  public UniqueExtendedRecordIndex build() {
+    index.sort();
+    accepted = new BitSet(index.size());
+    return this;
+  }
+
+  /** Number of added records, including duplicates */
+  public int size() {
+    return index.size();
+  }
+
+  public boolean accept(ExtendedRecord er) {
+    if (accepted == null) {
+      throw new IllegalStateException("UniqueExtendedRecordIndex must be built before use");
+    }
+    int first = index.lowerBound(HashConverter.getSha1Long(er.getId()));
+    if (first < 0) {
+      return false;
+    }
+    int count = index.countKey(first);
+    if (count > 1 && index.getValue(first) != index.getValue(first + count - 1)) {
+      log.warn("occurrenceId = {}, duplicates were found", er.getId());
+      return false;
+    }
+    if (accepted.get(first)) {
+      return false;
+    }
+    accepted.set(first);
+    return true;
+  }
+
+  /** First 64 bits of the SHA-1 of all fields */
+  long contentHash(ExtendedRecord er) {
+    update(er.getId());
+    update(er.getCoreId());
+    update(er.getCoreRowType());
+    update(er.getCoreTerms());
+    Map<String, List<Map<String, String>>> extensions = er.getExtensions();
+    if (extensions != null) {
+      for (Map.Entry<String, List<Map<String, String>>> ext :
+          new TreeMap<>(extensions).entrySet()) {
+        update(ext.getKey());
+        update(String.valueOf(ext.getValue().size()));
+        ext.getValue().forEach(this::update);
+      }
+    }
+    return ByteBuffer.wrap(digest.digest()).getLong();
+  }
+
+  private void update(Map<String, String> terms) {
+    if (terms == null) {
+      update((String) null);
+      return;
+    }
+    update(String.valueOf(terms.size()));
+    for (Map.Entry<String, String> term : new TreeMap<>(terms).entrySet()) {
+      update(term.getKey());
+      update(term.getValue());
+    }
+  }
+
+  /** Values are length-prefixed, so different splits of the same characters hash differently */
+  private void update(String value) {
+    if (value == null) {
+      digest.update((byte) 0);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    digest.update((byte) 1);
+    digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+    digest.update(bytes);
+  }
+
+  @SneakyThrows
+  private static MessageDigest newDigest() {
+    return MessageDigest.getInstance("SHA-1");
+  }
+}
@@ -0,0 +1,93 @@
+package org.gbif.pipelines.transforms.java;
+
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.DUPLICATE_GBIF_IDS_COUNT;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.IDENTICAL_GBIF_OBJECTS_COUNT;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.UNIQUE_GBIF_IDS_COUNT;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.pipelines.core.functions.SerializableConsumer;
+import org.gbif.pipelines.core.utils.HashConverter;
+import org.gbif.pipelines.core.utils.LongPairIndex;
+import org.gbif.pipelines.io.avro.IdentifierRecord;
+
+/**
+ * Streaming version of GBIF id collision handling from {@link UniqueGbifIdTransform}, keeps only
+ * 64-bit hashes of GBIF ids and occurrence ids off-heap instead of maps of records.
+ *
+ * <p>Usage: {@link #add} all records with a GBIF id, call {@link #build()} and {@link #accept} the
+ * records again in any order. For a GBIF id collision the record with the smallest SHA-1 of the
+ * occurrence id is accepted, as in {@link UniqueGbifIdTransform}. Metrics are counted in the order
+ * records are accepted, like the in-memory transform counts them in the order records arrive: a
+ * colliding record which wins over the records seen before it is counted as identical, otherwise as
+ * duplicate. The class is not thread-safe.
+ */
+@Slf4j
+public class UniqueGbifIdIndex {
+
+  private final LongPairIndex index = new LongPairIndex();
+  private final SerializableConsumer<String> counterFn;
+  private BitSet accepted;
+  private BitSet seen;
+  /** The smallest occurrence id hash seen so far by the first index of colliding GBIF ids */
+  private final Map<Integer, Long> collisions = new HashMap<>();
+
+  public UniqueGbifIdIndex(SerializableConsumer<String> counterFn) {
+    this.counterFn = counterFn;
+  }
+
+  public void add(IdentifierRecord id) {
+    index.add(HashConverter.getSha1Long(id.getInternalId()), HashConverter.getSha1Long(id.getId()));
+  }
+
+  public UniqueGbifIdIndex build() {
+    index.sort();
+    accepted = new BitSet(index.size());
+    seen = new BitSet(index.size());
+    return this;
+  }
+
+  /** Returns false if the record lost a GBIF id collision and must be treated as invalid */
+  public boolean accept(IdentifierRecord id) {
+    if (accepted == null) {
+      throw new IllegalStateException("UniqueGbifIdIndex must be built before use");
+    }
+    int first = index.lowerBound(HashConverter.getSha1Long(id.getInternalId()));
+    long idHash = HashConverter.getSha1Long(id.getId());
+    if (first < 0) {
+      incMetrics(DUPLICATE_GBIF_IDS_COUNT);
+      return false;
+    }
+
+    if (!seen.get(first)) {
+      seen.set(first);
+      incMetrics(UNIQUE_GBIF_IDS_COUNT);
+      if (index.countKey(first) > 1) {
+        collisions.put(first, idHash);
+      }
+    } else {
+      Long best = collisions.get(first);
+      if (best != null && Long.compareUnsigned(idHash, best) < 0) {
+        collisions.put(first, idHash);
+        incMetrics(IDENTICAL_GBIF_OBJECTS_COUNT);
+      } else {
+        incMetrics(DUPLICATE_GBIF_IDS_COUNT);
+      }
+      log.error(
+          "GBIF ID collision, gbifId - {}, occurrenceId - {}", id.getInternalId(), id.getId());
+    }
+
+    if (index.getValue(first) == idHash && !accepted.get(first)) {
+      accepted.set(first);
+      return true;
+    }
+    return false;
+  }
+
+  private void incMetrics(String metricName) {
+    Optional.ofNullable(counterFn).ifPresent(x -> x.accept(metricName));
+  }
+}
@@ -6,6 +6,7 @@ import java.io.Serializable;
 import lombok.Builder;
 import lombok.NonNull;
 import org.apache.beam.sdk.io.AvroIO;
+import org.apache.beam.sdk.io.FileIO;
 import org.apache.beam.sdk.metrics.Counter;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.transforms.DoFn;
@@ -18,6 +19,7 @@ import org.apache.beam.sdk.values.TupleTag;
 import org.gbif.pipelines.common.PipelinesVariables;
 import org.gbif.pipelines.core.converters.MultimediaConverter;
 import org.gbif.pipelines.core.converters.OccurrenceHdfsRecordConverter;
+import org.gbif.pipelines.core.io.ParquetSettings;
 import org.gbif.pipelines.io.avro.AudubonRecord;
 import org.gbif.pipelines.io.avro.BasicRecord;
 import org.gbif.pipelines.io.avro.ClusteringRecord;
@@ -173,4 +175,15 @@ public class OccurrenceHdfsRecordTransform implements Serializable {
             .withCodec(Transform.getBaseCodec());
     return numShards == null ? write : write.withNumShards(numShards);
   }
+
+  /**
+   * Writes {@link OccurrenceHdfsRecord} *.parquet files to path, data will be split into several
+   * files
+   *
+   * @param toPath path with name to output files, like - directory/name
+   */
+  public FileIO.Write<Void, OccurrenceHdfsRecord> writeParquet(
+      String toPath, Integer numShards, ParquetSettings settings) {
+    return ParquetTableIO.write(OccurrenceHdfsRecord.getClassSchema(), toPath, numShards, settings);
+  }
 }
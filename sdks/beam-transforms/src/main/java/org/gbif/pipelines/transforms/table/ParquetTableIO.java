@@ -0,0 +1,42 @@
+package org.gbif.pipelines.transforms.table;
+
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.PARQUET_EXTENSION;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.beam.sdk.io.FileIO;
+import org.apache.beam.sdk.io.parquet.ParquetIO;
+import org.apache.beam.sdk.transforms.Contextful;
+import org.gbif.pipelines.core.io.ParquetSettings;
+
+/** Writes avro records of HDFS view tables as Parquet files, see {@link ParquetSettings} */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ParquetTableIO {
+
+  /**
+   * Writes records to *.parquet files, the avro schema is the logical schema of the files
+   *
+   * @param toPath path with name to output files, like - directory/name, the same as for AvroIO
+   */
+  public static <T extends GenericRecord> FileIO.Write<Void, T> write(
+      Schema schema, String toPath, Integer numShards, ParquetSettings settings) {
+    int index = toPath.lastIndexOf('/');
+    String directory = toPath.substring(0, index);
+    String prefix = toPath.substring(index + 1);
+
+    ParquetIO.Sink sink =
+        ParquetIO.sink(schema)
+            .withCompressionCodec(settings.getCodec())
+            .withConfiguration(settings.toConfiguration());
+
+    FileIO.Write<Void, T> write =
+        FileIO.<T>write()
+            .via(Contextful.<T, GenericRecord>fn(r -> r), sink)
+            .to(directory)
+            .withNaming(FileIO.Write.defaultNaming(prefix, PARQUET_EXTENSION));
+
+    return numShards == null ? write : write.withNumShards(numShards);
+  }
+}
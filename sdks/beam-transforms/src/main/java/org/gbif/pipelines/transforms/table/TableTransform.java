@@ -6,9 +6,12 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import lombok.NonNull;
+import org.apache.avro.Schema;
 import org.apache.avro.file.CodecFactory;
+import org.apache.avro.specific.SpecificData;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.beam.sdk.io.AvroIO;
+import org.apache.beam.sdk.io.FileIO;
 import org.apache.beam.sdk.metrics.Counter;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.transforms.DoFn;
@@ -21,6 +24,7 @@ import org.apache.beam.sdk.values.PCollectionView;
 import org.apache.beam.sdk.values.TupleTag;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.InterpretationType;
 import org.gbif.pipelines.core.functions.SerializableFunction;
+import org.gbif.pipelines.core.io.ParquetSettings;
 import org.gbif.pipelines.core.pojo.ErIdrMdrContainer;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 import org.gbif.pipelines.io.avro.IdentifierRecord;
@@ -51,6 +55,8 @@ public abstract class TableTransform<T extends SpecificRecordBase>
 
   @NonNull private Set<String> types;
 
+  private ParquetSettings parquetSettings = ParquetSettings.disabled();
+
   private final Counter counter;
 
   public TableTransform(
@@ -95,6 +101,11 @@ public abstract class TableTransform<T extends SpecificRecordBase>
     return this;
   }
 
+  public TableTransform<T> setParquetSettings(ParquetSettings parquetSettings) {
+    this.parquetSettings = parquetSettings;
+    return this;
+  }
+
   public Optional<PCollection<KV<String, CoGbkResult>>> check(
       PCollection<KV<String, CoGbkResult>> pCollection) {
     return CheckTransforms.checkRecordType(types, recordType)
@@ -104,9 +115,12 @@ public abstract class TableTransform<T extends SpecificRecordBase>
 
   public void write(PCollection<KV<String, CoGbkResult>> pCollection) {
     if (CheckTransforms.checkRecordType(types, recordType)) {
-      pCollection
-          .apply("Convert to " + recordType.name(), this.convert())
-          .apply("Write " + recordType.name(), this.write());
+      PCollection<T> records = pCollection.apply("Convert to " + recordType.name(), this.convert());
+      if (parquetSettings.isParquet(recordType)) {
+        records.apply("Write " + recordType.name(), this.writeParquet());
+      } else {
+        records.apply("Write " + recordType.name(), this.write());
+      }
     }
   }
 
@@ -114,12 +128,25 @@ public abstract class TableTransform<T extends SpecificRecordBase>
     AvroIO.Write<T> write =
         AvroIO.write(clazz).to(path).withSuffix(AVRO_EXTENSION).withCodec(BASE_CODEC);
 
+    Integer shards = getShards();
+    return shards == null ? write : write.withNumShards(shards);
+  }
+
+  /** Writes *.parquet files, the avro schema of the table is the logical schema */
+  public FileIO.Write<Void, T> writeParquet() {
+    return ParquetTableIO.write(getSchema(), path, getShards(), parquetSettings);
+  }
+
+  /** Half of numShards rounded up, or null if the number of shards isn't set */
+  private Integer getShards() {
     if (numShards == null || numShards <= 0) {
-      return write;
-    } else {
-      int shards = -Math.floorDiv(-numShards, 2);
-      return write.withNumShards(shards);
+      return null;
     }
+    return -Math.floorDiv(-numShards, 2);
+  }
+
+  private Schema getSchema() {
+    return SpecificData.get().getSchema(clazz);
   }
 
   public SingleOutput<KV<String, CoGbkResult>, T> convert() {
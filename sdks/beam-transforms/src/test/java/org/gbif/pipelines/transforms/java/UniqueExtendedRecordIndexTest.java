@@ -0,0 +1,124 @@
+package org.gbif.pipelines.transforms.java;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UniqueExtendedRecordIndexTest {
+
+  @Test
+  public void uniqueRecordsTest() {
+    // State
+    List<ExtendedRecord> input = Arrays.asList(create("1"), create("2"), create("3"));
+
+    // When
+    List<String> result = acceptAll(input);
+
+    // Should
+    Assert.assertEquals(Arrays.asList("1", "2", "3"), result);
+  }
+
+  @Test
+  public void oneEqualDuplicateTest() {
+    // State
+    List<ExtendedRecord> input = Arrays.asList(create("1"), create("1"), create("3"));
+
+    // When
+    List<String> result = acceptAll(input);
+
+    // Should
+    Assert.assertEquals(Arrays.asList("1", "3"), result);
+  }
+
+  @Test
+  public void oneNotEqualDuplicateTest() {
+    // State
+    ExtendedRecord withTerms =
+        ExtendedRecord.newBuilder()
+            .setId("1")
+            .setCoreTerms(Collections.singletonMap("key", "value"))
+            .build();
+    List<ExtendedRecord> input = Arrays.asList(withTerms, create("1"), create("3"), create("1"));
+
+    // When
+    List<String> result = acceptAll(input);
+
+    // Should
+    Assert.assertEquals(Collections.singletonList("3"), result);
+  }
+
+  @Test
+  public void termOrderTest() {
+    // State
+    Map<String, String> terms = new LinkedHashMap<>();
+    terms.put("a", "1");
+    terms.put("b", "2");
+    Map<String, String> reversed = new LinkedHashMap<>();
+    reversed.put("b", "2");
+    reversed.put("a", "1");
+    ExtendedRecord first = ExtendedRecord.newBuilder().setId("1").setCoreTerms(terms).build();
+    ExtendedRecord second = ExtendedRecord.newBuilder().setId("1").setCoreTerms(reversed).build();
+
+    // When
+    List<String> result = acceptAll(Arrays.asList(first, second));
+
+    // Should
+    Assert.assertEquals(Collections.singletonList("1"), result);
+  }
+
+  @Test
+  public void contentHashTest() {
+    // State
+    UniqueExtendedRecordIndex index = new UniqueExtendedRecordIndex();
+    Map<String, String> ab = new HashMap<>();
+    ab.put("a", "b");
+    Map<String, String> a = new HashMap<>();
+    a.put("a", null);
+    a.put("b", "");
+
+    // When
+    long abHash =
+        index.contentHash(ExtendedRecord.newBuilder().setId("1").setCoreTerms(ab).build());
+    long aHash = index.contentHash(ExtendedRecord.newBuilder().setId("1").setCoreTerms(a).build());
+    long extHash =
+        index.contentHash(
+            ExtendedRecord.newBuilder()
+                .setId("1")
+                .setExtensions(Collections.singletonMap("a", Collections.singletonList(ab)))
+                .build());
+    long abAgain =
+        index.contentHash(ExtendedRecord.newBuilder().setId("1").setCoreTerms(ab).build());
+
+    // Should
+    Assert.assertEquals(abHash, abAgain);
+    Assert.assertNotEquals(abHash, aHash);
+    Assert.assertNotEquals(abHash, extHash);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void notBuiltTest() {
+    // When
+    new UniqueExtendedRecordIndex().accept(create("1"));
+  }
+
+  private List<String> acceptAll(List<ExtendedRecord> input) {
+    UniqueExtendedRecordIndex index = new UniqueExtendedRecordIndex();
+    input.forEach(index::add);
+    index.build();
+    return input.stream()
+        .filter(index::accept)
+        .map(ExtendedRecord::getId)
+        .collect(Collectors.toList());
+  }
+
+  private ExtendedRecord create(String id) {
+    return ExtendedRecord.newBuilder().setId(id).build();
+  }
+}
@@ -0,0 +1,116 @@
+package org.gbif.pipelines.transforms.java;
+
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.DUPLICATE_GBIF_IDS_COUNT;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.IDENTICAL_GBIF_OBJECTS_COUNT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.gbif.pipelines.core.utils.HashConverter;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.IdentifierRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UniqueGbifIdIndexTest {
+
+  @Test
+  public void withoutDuplicatesTest() {
+    // State
+    List<IdentifierRecord> input = create("1_1", "2_2", "3_3", "4_4");
+
+    // When
+    List<String> metrics = new ArrayList<>();
+    List<String> result = acceptAll(input, metrics);
+
+    // Should
+    Assert.assertEquals(Arrays.asList("1", "2", "3", "4"), result);
+    Assert.assertEquals(4, metrics.size());
+  }
+
+  @Test
+  public void allDuplicatesTest() {
+    // State
+    List<IdentifierRecord> input = create("1_1", "2_1", "3_1", "4_1", "5_1", "6_1");
+    String expected =
+        input.stream()
+            .map(IdentifierRecord::getId)
+            .min((a, b) -> HashConverter.getSha1(a).compareTo(HashConverter.getSha1(b)))
+            .orElseThrow(IllegalStateException::new);
+
+    // When
+    List<String> result = acceptAll(input, new ArrayList<>());
+
+    // Should
+    Assert.assertEquals(Collections.singletonList(expected), result);
+  }
+
+  @Test
+  public void sameRecordTwiceTest() {
+    // State
+    List<IdentifierRecord> input = create("1_1", "1_1", "2_2");
+
+    // When
+    List<String> result = acceptAll(input, new ArrayList<>());
+
+    // Should
+    Assert.assertEquals(Arrays.asList("1", "2"), result);
+  }
+
+  @Test
+  public void metricsAsInMemoryTransformTest() {
+    // State
+    List<IdentifierRecord> input =
+        create("1_1", "2_1", "3_1", "4_1", "5_2", "6_2", "7_3", "8_1", "9_2", "10_4");
+
+    Map<String, ExtendedRecord> erMap = new LinkedHashMap<>();
+    Map<String, IdentifierRecord> idMap = new LinkedHashMap<>();
+    input.forEach(
+        id -> {
+          erMap.put(id.getId(), ExtendedRecord.newBuilder().setId(id.getId()).build());
+          idMap.put(id.getId(), id);
+        });
+
+    List<String> expected = new ArrayList<>();
+    UniqueGbifIdTransform.builder()
+        .erMap(erMap)
+        .idTransformFn(er -> Optional.of(idMap.get(er.getId())))
+        .counterFn(expected::add)
+        .build()
+        .run();
+
+    // When
+    List<String> metrics = new ArrayList<>();
+    acceptAll(input, metrics);
+
+    // Should
+    Collections.sort(expected);
+    Collections.sort(metrics);
+    Assert.assertEquals(expected, metrics);
+    Assert.assertTrue(metrics.contains(IDENTICAL_GBIF_OBJECTS_COUNT));
+    Assert.assertTrue(metrics.contains(DUPLICATE_GBIF_IDS_COUNT));
+  }
+
+  private List<String> acceptAll(List<IdentifierRecord> input, List<String> metrics) {
+    UniqueGbifIdIndex index = new UniqueGbifIdIndex(metrics::add);
+    input.forEach(index::add);
+    index.build();
+    return input.stream()
+        .filter(index::accept)
+        .map(IdentifierRecord::getId)
+        .collect(Collectors.toList());
+  }
+
+  /** Creates records from "occurrenceId_gbifId" strings */
+  private List<IdentifierRecord> create(String... idName) {
+    return Arrays.stream(idName)
+        .map(x -> x.split("_"))
+        .map(x -> IdentifierRecord.newBuilder().setId(x[0]).setInternalId(x[1]).build())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,32 @@
+package org.gbif.pipelines.core.config.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.io.Serializable;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Shapefile layer of the embedded geocoder, see {@link PipelinesConfig#getGeocodeLayers()} */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GeocodeLayerConfig implements Serializable {
+
+  private static final long serialVersionUID = 4920318830184271853L;
+
+  /** Local path to the shapefile without the .shp extension */
+  private String path;
+
+  /** Location type, like Political, EEZ or GADM1 */
+  private String type;
+
+  /** Attribute used as the location id */
+  private String idField;
+
+  /** Attribute used as the location name, the id field is used if null */
+  private String nameField;
+
+  private String source;
+
+  /** Polygons are simplified with this tolerance in degrees, 0 keeps them as is */
+  private double simplifyTolerance = 0d;
+}
@@ -0,0 +1,36 @@
+package org.gbif.pipelines.core.config.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.io.Serializable;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** In-process cache in front of a KV store, see {@link KvConfig#getCache()} */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class KvCacheConfig implements Serializable {
+
+  private static final long serialVersionUID = -3451208412290126071L;
+
+  public enum Type {
+    /** Caffeine W-TinyLFU cache on the heap */
+    CAFFEINE,
+    /** MapDB hash map in direct memory, keys and values must be java serializable */
+    OFF_HEAP
+  }
+
+  private Type type = Type.CAFFEINE;
+
+  /**
+   * Max size of cached keys and values in megabytes, the Caffeine cache estimates the size of an
+   * entry by its key and value types
+   */
+  private long maxSizeMb = 256L;
+
+  /** An entry expires after this time since the last access, 0 disables the expiration */
+  private long expireAfterAccessSec = 3_600L;
+
+  /** Stores with the same name share one cache in a JVM, for example taxonomy in many transforms */
+  private boolean shared = true;
+}
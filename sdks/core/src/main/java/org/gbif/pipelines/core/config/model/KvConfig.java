@@ -28,4 +28,16 @@ public class KvConfig implements Serializable {
   private WsConfig api;
 
   private long cacheExpiryTimeInSeconds = 300L;
+
+  /** Number of entries in the cache of the HBase based KV store */
+  private long hbaseCacheCapacity = 15_000L;
+
+  /**
+   * Version of the data behind the store, like the backbone release or the date of the last
+   * rebuild, delta interpretation is disabled if a used store has no version
+   */
+  private String dataVersion;
+
+  /** Optional in-process cache in front of the KV store, disabled if null */
+  private KvCacheConfig cache;
 }
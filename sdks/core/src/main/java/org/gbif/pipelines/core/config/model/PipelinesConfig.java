@@ -22,6 +22,18 @@ public class PipelinesConfig implements Serializable {
 
   private String imageCachePath = "bitmap/bitmap.png";
 
+  /**
+   * Raster index of geocode regions built by RasterIndexBuilder, lookups it can answer don't use
+   * the bitmap and the geocode KV store. Local files are memory mapped.
+   */
+  private String rasterIndexPath;
+
+  /**
+   * Shapefile layers of the embedded geocoder, if set coordinates are geocoded in-process instead
+   * of the geocode API and HBase
+   */
+  private List<GeocodeLayerConfig> geocodeLayers;
+
   private KvConfig nameUsageMatch;
 
   private KvConfig grscicollLookup;
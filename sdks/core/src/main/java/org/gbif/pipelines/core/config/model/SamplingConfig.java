@@ -26,6 +26,9 @@ public final class SamplingConfig implements Serializable {
   // sampling batch size
   private int batchSize = 25000;
 
+  // number of batches submitted to the sampling service at the same time
+  private int parallelism = 4;
+
   // sleep time between requesting batches
   private int batchStatusSleepTime = 1000;
 
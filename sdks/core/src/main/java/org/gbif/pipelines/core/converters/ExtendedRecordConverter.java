@@ -19,8 +19,8 @@ public class ExtendedRecordConverter {
 
   private static final String RECORD_ID_ERROR = "RECORD_ID_ERROR";
 
-  // Function that removes all the empty elements of a record
-  private static Map<String, String> convertToMap(Record record) {
+  /** Converts a record to a map of qualified term names and values, skipping empty elements */
+  public static Map<String, String> convertToMap(Record record) {
     Map<String, String> map = new HashMap<>(record.terms().size() / 2);
     for (Term term : record.terms()) {
       String qn = term.qualifiedName();
@@ -11,7 +11,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -22,7 +21,6 @@ import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.LongFunction;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.apache.avro.specific.SpecificRecordBase;
@@ -33,7 +31,6 @@ import org.gbif.common.parsers.date.TemporalAccessorUtils;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Indexing;
 import org.gbif.pipelines.core.parsers.temporal.StringToDateFunctions;
-import org.gbif.pipelines.core.utils.ModelUtils;
 import org.gbif.pipelines.core.utils.TemporalConverter;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 import org.gbif.pipelines.io.avro.Issues;
@@ -70,22 +67,42 @@ public class JsonConverter {
 
   private static final String OCCURRENCE_EXT = "http://rs.tdwg.org/dwc/terms/Occurrence";
 
-  private static final Map<Character, Character> CHAR_MAP = new HashMap<>(2);
-
-  static {
-    CHAR_MAP.put('\u001E', ',');
-    CHAR_MAP.put('\u001f', ' ');
-  }
+  private static final char RECORD_SEPARATOR = '\u001E';
+  private static final char UNIT_SEPARATOR = '\u001f';
+  private static final char VALUE_SEPARATOR = '|';
 
   private static final LongFunction<LocalDateTime> DATE_FN =
       l -> LocalDateTime.ofInstant(Instant.ofEpochMilli(l), ZoneId.of("UTC"));
 
   protected static String getEscapedText(String value) {
-    String v = value;
-    for (Entry<Character, Character> rule : CHAR_MAP.entrySet()) {
-      v = v.trim().replace(rule.getKey(), rule.getValue());
+    return getEscapedText(value, 0, value.length());
+  }
+
+  /**
+   * Trims the substring and replaces the record separator by a comma and the unit separator by a
+   * space in a single pass, the substring is returned as is if there is nothing to replace
+   */
+  private static String getEscapedText(String value, int from, int to) {
+    int start = from;
+    int end = to;
+    while (start < end && value.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && value.charAt(end - 1) <= ' ') {
+      end--;
+    }
+
+    char[] chars = null;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (c == RECORD_SEPARATOR || c == UNIT_SEPARATOR) {
+        if (chars == null) {
+          chars = value.substring(start, end).toCharArray();
+        }
+        chars[i - start] = c == RECORD_SEPARATOR ? ',' : ' ';
+      }
     }
-    return v;
+    return chars != null ? new String(chars) : value.substring(start, end);
   }
 
   /** Gets the maximum/latest created date of all the records. */
@@ -129,11 +146,24 @@ public class JsonConverter {
           .forEach(result::add);
     }
 
-    return result.stream()
-        .flatMap(v -> Stream.of(v.split(ModelUtils.DEFAULT_SEPARATOR)))
-        .map(JsonConverter::getEscapedText)
-        .filter(s -> !s.isEmpty())
-        .collect(Collectors.toList());
+    // Splits values by the separator and escapes parts without the regex and intermediate strings
+    List<String> all = new ArrayList<>(result.size());
+    for (String v : result) {
+      int from = 0;
+      int length = v.length();
+      while (from <= length) {
+        int to = v.indexOf(VALUE_SEPARATOR, from);
+        if (to < 0) {
+          to = length;
+        }
+        String escaped = getEscapedText(v, from, to);
+        if (!escaped.isEmpty()) {
+          all.add(escaped);
+        }
+        from = to + 1;
+      }
+    }
+    return all;
   }
 
   public static List<String> convertExtensions(ExtendedRecord extendedRecord) {
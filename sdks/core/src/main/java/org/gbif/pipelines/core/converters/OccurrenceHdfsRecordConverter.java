@@ -10,16 +10,9 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.avro.Schema;
 import org.apache.avro.specific.SpecificRecordBase;
-import org.apache.commons.beanutils.PropertyUtils;
 import org.gbif.api.vocabulary.License;
-import org.gbif.dwc.terms.DcTerm;
 import org.gbif.dwc.terms.DwcTerm;
-import org.gbif.dwc.terms.Term;
-import org.gbif.dwc.terms.TermFactory;
-import org.gbif.occurrence.common.TermUtils;
-import org.gbif.occurrence.download.hive.HiveColumns;
 import org.gbif.pipelines.core.parsers.temporal.StringToDateFunctions;
 import org.gbif.pipelines.core.utils.MediaSerDeser;
 import org.gbif.pipelines.core.utils.TemporalConverter;
@@ -51,8 +44,6 @@ import org.gbif.pipelines.io.avro.grscicoll.GrscicollRecord;
 @Builder
 public class OccurrenceHdfsRecordConverter {
 
-  private static final TermFactory TERM_FACTORY = TermFactory.instance();
-
   private final ExtendedRecord extendedRecord;
   private final IdentifierRecord identifierRecord;
   private final ClusteringRecord clusteringRecord;
@@ -505,57 +496,15 @@ public class OccurrenceHdfsRecordConverter {
     }
   }
 
-  /**
-   * From a {@link Schema.Field} copies it value into a the {@link OccurrenceHdfsRecord} field using
-   * the recognized data type.
-   *
-   * @param occurrenceHdfsRecord target record
-   * @param avroField field to be copied
-   * @param fieldName {@link OccurrenceHdfsRecord} field/property name
-   * @param value field data/value
-   */
-  private static void setHdfsRecordField(
-      OccurrenceHdfsRecord occurrenceHdfsRecord,
-      Schema.Field avroField,
-      String fieldName,
-      String value) {
-    try {
-      Schema.Type fieldType = avroField.schema().getType();
-      if (Schema.Type.UNION == avroField.schema().getType()) {
-        fieldType = avroField.schema().getTypes().get(0).getType();
-      }
-      switch (fieldType) {
-        case INT:
-          PropertyUtils.setProperty(occurrenceHdfsRecord, fieldName, Integer.valueOf(value));
-          break;
-        case LONG:
-          PropertyUtils.setProperty(occurrenceHdfsRecord, fieldName, Long.valueOf(value));
-          break;
-        case BOOLEAN:
-          PropertyUtils.setProperty(occurrenceHdfsRecord, fieldName, Boolean.valueOf(value));
-          break;
-        case DOUBLE:
-          PropertyUtils.setProperty(occurrenceHdfsRecord, fieldName, Double.valueOf(value));
-          break;
-        case FLOAT:
-          PropertyUtils.setProperty(occurrenceHdfsRecord, fieldName, Float.valueOf(value));
-          break;
-        default:
-          PropertyUtils.setProperty(occurrenceHdfsRecord, fieldName, value);
-          break;
-      }
-    } catch (Exception ex) {
-      log.error("Ignoring error setting field {}", avroField, ex);
-    }
-  }
-
   /** Copies the {@link ExtendedRecord} data into the {@link OccurrenceHdfsRecord}. */
   private void mapExtendedRecord(OccurrenceHdfsRecord occurrenceHdfsRecord) {
     if (extendedRecord == null) {
       return;
     }
 
-    extendedRecord.getCoreTerms().forEach((k, v) -> mapTerm(k, v, occurrenceHdfsRecord));
+    extendedRecord
+        .getCoreTerms()
+        .forEach((k, v) -> OccurrenceHdfsTermMapper.map(k, v, occurrenceHdfsRecord));
 
     List<String> extensions =
         extendedRecord.getExtensions().entrySet().stream()
@@ -589,49 +538,6 @@ public class OccurrenceHdfsRecordConverter {
     }
   }
 
-  private void mapTerm(String k, String v, OccurrenceHdfsRecord occurrenceHdfsRecord) {
-    Term term = TERM_FACTORY.findTerm(k);
-
-    if (term == null) {
-      return;
-    }
-
-    if (TermUtils.verbatimTerms().contains(term)) {
-      Optional.ofNullable(verbatimSchemaField(term))
-          .ifPresent(
-              field -> {
-                String verbatimField =
-                    "V" + field.name().substring(2, 3).toUpperCase() + field.name().substring(3);
-                setHdfsRecordField(occurrenceHdfsRecord, field, verbatimField, v);
-              });
-    }
-
-    if (!TermUtils.isInterpretedSourceTerm(term)) {
-      Optional.ofNullable(interpretedSchemaField(term))
-          .ifPresent(
-              field -> {
-                // Fields that were set by other mappers are ignored
-                if (Objects.isNull(occurrenceHdfsRecord.get(field.name()))) {
-                  String interpretedFieldname = field.name();
-                  if (DcTerm.abstract_ == term) {
-                    interpretedFieldname = "abstract$";
-                  } else if (DwcTerm.class_ == term) {
-                    interpretedFieldname = "class$";
-                  } else if (DwcTerm.group == term) {
-                    interpretedFieldname = "group";
-                  } else if (DwcTerm.order == term) {
-                    interpretedFieldname = "order";
-                  } else if (DcTerm.date == term) {
-                    interpretedFieldname = "date";
-                  } else if (DcTerm.format == term) {
-                    interpretedFieldname = "format";
-                  }
-                  setHdfsRecordField(occurrenceHdfsRecord, field, interpretedFieldname, v);
-                }
-              });
-    }
-  }
-
   /**
    * Collects the {@link MultimediaRecord} mediaTypes data into the {@link
    * OccurrenceHdfsRecord#setMediatype(List)}.
@@ -656,14 +562,4 @@ public class OccurrenceHdfsRecordConverter {
 
     addIssues(multimediaRecord.getIssues(), occurrenceHdfsRecord);
   }
-
-  /** Gets the {@link Schema.Field} associated to a verbatim term. */
-  private static Schema.Field verbatimSchemaField(Term term) {
-    return OccurrenceHdfsRecord.SCHEMA$.getField("v_" + term.simpleName().toLowerCase());
-  }
-
-  /** Gets the {@link Schema.Field} associated to a interpreted term. */
-  private static Schema.Field interpretedSchemaField(Term term) {
-    return OccurrenceHdfsRecord.SCHEMA$.getField(HiveColumns.columnFor(term));
-  }
 }
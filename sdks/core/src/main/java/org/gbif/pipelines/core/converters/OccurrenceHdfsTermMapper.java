@@ -0,0 +1,147 @@
+package org.gbif.pipelines.core.converters;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema;
+import org.gbif.dwc.terms.Term;
+import org.gbif.dwc.terms.TermFactory;
+import org.gbif.occurrence.common.TermUtils;
+import org.gbif.occurrence.download.hive.HiveColumns;
+import org.gbif.pipelines.io.avro.OccurrenceHdfsRecord;
+
+/**
+ * Maps {@link org.gbif.pipelines.io.avro.ExtendedRecord} core terms into {@link
+ * OccurrenceHdfsRecord} verbatim and interpreted fields.
+ *
+ * <p>Term lookup, schema field lookup and the value parser are resolved once per term key and kept
+ * in a table, a value is written by the field position, without reflection. The table is built for
+ * all verbatim terms on class loading, other keys are added on the first use.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class OccurrenceHdfsTermMapper {
+
+  private static final TermFactory TERM_FACTORY = TermFactory.instance();
+
+  private static final TermMapping NO_MAPPING = new TermMapping(null, null);
+
+  private static final Map<String, TermMapping> MAPPINGS = new ConcurrentHashMap<>();
+
+  static {
+    for (Term term : TermUtils.verbatimTerms()) {
+      MAPPINGS.put(term.qualifiedName(), create(term.qualifiedName()));
+    }
+  }
+
+  /**
+   * Sets the verbatim and interpreted fields of the term, interpreted fields set before are kept
+   */
+  static void map(String key, String value, OccurrenceHdfsRecord occurrenceHdfsRecord) {
+    TermMapping mapping = MAPPINGS.get(key);
+    if (mapping == null) {
+      mapping = MAPPINGS.computeIfAbsent(key, OccurrenceHdfsTermMapper::create);
+    }
+    mapping.map(value, occurrenceHdfsRecord);
+  }
+
+  private static TermMapping create(String key) {
+    Term term = TERM_FACTORY.findTerm(key);
+    if (term == null) {
+      return NO_MAPPING;
+    }
+
+    FieldSetter verbatim = null;
+    if (TermUtils.verbatimTerms().contains(term)) {
+      verbatim = FieldSetter.create(verbatimSchemaField(term));
+    }
+
+    FieldSetter interpreted = null;
+    if (!TermUtils.isInterpretedSourceTerm(term)) {
+      interpreted = FieldSetter.create(interpretedSchemaField(term));
+    }
+
+    return verbatim == null && interpreted == null
+        ? NO_MAPPING
+        : new TermMapping(verbatim, interpreted);
+  }
+
+  /** Gets the {@link Schema.Field} associated to a verbatim term. */
+  private static Schema.Field verbatimSchemaField(Term term) {
+    return OccurrenceHdfsRecord.SCHEMA$.getField("v_" + term.simpleName().toLowerCase());
+  }
+
+  /** Gets the {@link Schema.Field} associated to a interpreted term. */
+  private static Schema.Field interpretedSchemaField(Term term) {
+    return OccurrenceHdfsRecord.SCHEMA$.getField(HiveColumns.columnFor(term));
+  }
+
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  private static class TermMapping {
+
+    private final FieldSetter verbatim;
+    private final FieldSetter interpreted;
+
+    private void map(String value, OccurrenceHdfsRecord occurrenceHdfsRecord) {
+      if (verbatim != null) {
+        verbatim.set(occurrenceHdfsRecord, value);
+      }
+      // Fields that were set by other mappers are ignored
+      if (interpreted != null && occurrenceHdfsRecord.get(interpreted.position) == null) {
+        interpreted.set(occurrenceHdfsRecord, value);
+      }
+    }
+  }
+
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  private static class FieldSetter {
+
+    private final Schema.Field field;
+    private final int position;
+    private final Function<String, Object> parser;
+
+    private static FieldSetter create(Schema.Field field) {
+      if (field == null) {
+        return null;
+      }
+      Schema.Type fieldType = field.schema().getType();
+      if (Schema.Type.UNION == fieldType) {
+        fieldType = field.schema().getTypes().get(0).getType();
+      }
+      Function<String, Object> parser;
+      switch (fieldType) {
+        case INT:
+          parser = Integer::valueOf;
+          break;
+        case LONG:
+          parser = Long::valueOf;
+          break;
+        case BOOLEAN:
+          parser = Boolean::valueOf;
+          break;
+        case DOUBLE:
+          parser = Double::valueOf;
+          break;
+        case FLOAT:
+          parser = Float::valueOf;
+          break;
+        default:
+          parser = value -> value;
+          break;
+      }
+      return new FieldSetter(field, field.pos(), parser);
+    }
+
+    private void set(OccurrenceHdfsRecord occurrenceHdfsRecord, String value) {
+      try {
+        occurrenceHdfsRecord.put(position, parser.apply(value));
+      } catch (Exception ex) {
+        log.error("Ignoring error setting field {}", field, ex);
+      }
+    }
+  }
+}
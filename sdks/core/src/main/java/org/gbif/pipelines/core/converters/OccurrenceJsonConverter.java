@@ -63,6 +63,15 @@ public class OccurrenceJsonConverter {
     return SerDeFactory.avroMapperWithNulls().writeValueAsString(convert());
   }
 
+  /**
+   * Writes the record as UTF-8 JSON with nulls by a streaming generator, the bytes can be passed to
+   * an ES index request as they are, without the string and its re-encoding
+   */
+  @SneakyThrows
+  public static byte[] toJsonBytes(OccurrenceJsonRecord record) {
+    return SerDeFactory.avroMapperWithNulls().writeValueAsBytes(record);
+  }
+
   private void mapMetadataRecord(OccurrenceJsonRecord.Builder builder) {
     builder
         .setCrawlId(metadata.getCrawlId())
@@ -19,6 +19,7 @@ import org.gbif.common.parsers.date.AtomizedLocalDate;
 import org.gbif.common.parsers.date.DateComponentOrdering;
 import org.gbif.dwc.terms.DcTerm;
 import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.core.functions.SerializableConsumer;
 import org.gbif.pipelines.core.functions.SerializableFunction;
 import org.gbif.pipelines.core.parsers.temporal.EventRange;
 import org.gbif.pipelines.core.parsers.temporal.TemporalParser;
@@ -43,9 +44,11 @@ public class TemporalInterpreter implements Serializable {
   @Builder(buildMethodName = "create")
   private TemporalInterpreter(
       List<DateComponentOrdering> orderings,
-      SerializableFunction<String, String> preprocessDateFn) {
+      SerializableFunction<String, String> preprocessDateFn,
+      SerializableConsumer<String> cacheCounterFn) {
     this.preprocessDateFn = preprocessDateFn;
-    this.temporalParser = TemporalParser.create(orderings);
+    this.temporalParser =
+        TemporalParser.create(orderings, TemporalParser.DEFAULT_CACHE_SIZE, cacheCounterFn);
     this.temporalRangeParser =
         TemporalRangeParser.builder().temporalParser(temporalParser).create();
   }
@@ -0,0 +1,48 @@
+package org.gbif.pipelines.core.io;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk batch size controller: the size shrinks by half when ES rejects documents (HTTP 429),
+ * shrinks by a quarter when the bulk latency is above the target and grows by a tenth when the
+ * latency is below half of the target. The size is always in the [min, max] range. Thread-safe.
+ */
+@Slf4j
+public class AdaptiveBatchSize {
+
+  private final long min;
+  private final long max;
+  private final long targetLatencyMs;
+  private long current;
+
+  public AdaptiveBatchSize(long min, long max, long targetLatencyMs) {
+    if (min < 1 || max < min) {
+      throw new IllegalArgumentException(
+          "Batch size range is wrong, min - " + min + ", max - " + max);
+    }
+    this.min = min;
+    this.max = max;
+    this.targetLatencyMs = targetLatencyMs;
+    this.current = max;
+  }
+
+  public synchronized long get() {
+    return current;
+  }
+
+  /** Adjusts the size using the latency of a bulk request and the number of rejected documents */
+  public synchronized long update(long latencyMs, int rejected) {
+    long previous = current;
+    if (rejected > 0) {
+      current = Math.max(min, current / 2);
+    } else if (targetLatencyMs > 0 && latencyMs > targetLatencyMs) {
+      current = Math.max(min, current - current / 4);
+    } else if (targetLatencyMs <= 0 || latencyMs < targetLatencyMs / 2) {
+      current = Math.min(max, current + Math.max(1L, current / 10));
+    }
+    if (previous != current) {
+      log.info("ES batch size changed from {} to {}, latency {} ms", previous, current, latencyMs);
+    }
+    return current;
+  }
+}
@@ -2,7 +2,9 @@ package org.gbif.pipelines.core.io;
 
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.AVRO_EXTENSION;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Consumer;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
@@ -64,6 +66,74 @@ public class AvroReader {
     return readObjects(fs, clazz, paths);
   }
 
+  /**
+   * Streams records in bounded batches, only one batch is kept in memory
+   *
+   * @param clazz instance of {@link Record}
+   * @param path sting path, a wildcard can be used in the file name, like /a/b/c*.avro to read
+   *     multiple files
+   * @param batchSize max number of records passed to the consumer per call
+   * @param batchConsumer consumer of a batch, the list can't be reused after the call
+   */
+  @SneakyThrows
+  public static <T extends SpecificRecordBase> void readBatches(
+      HdfsConfigs hdfsConfigs,
+      Class<T> clazz,
+      String path,
+      int batchSize,
+      Consumer<List<T>> batchConsumer) {
+    FileSystem fs = FsUtils.getFileSystem(hdfsConfigs, path);
+    List<Path> paths = parseWildcardPath(fs, path);
+
+    List<T> batch = new ArrayList<>(batchSize);
+    for (Path p : paths) {
+      DatumReader<T> reader = new SpecificDatumReader<>(clazz);
+      try (SeekableInput input = new AvroFSInput(fs.open(p), fs.getContentSummary(p).getLength());
+          DataFileReader<T> dataFileReader = new DataFileReader<>(input, reader)) {
+        while (dataFileReader.hasNext()) {
+          batch.add(dataFileReader.next());
+          if (batch.size() >= batchSize) {
+            batchConsumer.accept(batch);
+            batch = new ArrayList<>(batchSize);
+          }
+        }
+      }
+    }
+    if (!batch.isEmpty()) {
+      batchConsumer.accept(batch);
+    }
+  }
+
+  /**
+   * Reads files sorted by {@link Record#getId()}, like files of {@link ShardedDataFileWriter} with
+   * a comparator, as one iterator sorted by id, the iterator must be closed
+   *
+   * @param clazz instance of {@link Record}
+   * @param path sting path, a wildcard can be used in the file name, like /a/b/c*.avro to read
+   *     multiple files
+   */
+  @SneakyThrows
+  public static <T extends SpecificRecordBase & Record> SortedMergeIterator<T> readSorted(
+      HdfsConfigs hdfsConfigs, Class<T> clazz, String path) {
+    FileSystem fs = FsUtils.getFileSystem(hdfsConfigs, path);
+    List<Path> paths = parseWildcardPath(fs, path);
+
+    List<DataFileReader<T>> readers = new ArrayList<>(paths.size());
+    try {
+      for (Path p : paths) {
+        DatumReader<T> reader = new SpecificDatumReader<>(clazz);
+        SeekableInput input = new AvroFSInput(fs.open(p), fs.getContentSummary(p).getLength());
+        readers.add(new DataFileReader<>(input, reader));
+      }
+    } catch (IOException ex) {
+      for (DataFileReader<T> reader : readers) {
+        reader.close();
+      }
+      throw ex;
+    }
+    return SortedMergeIterator.create(readers);
+  }
+
   /**
    * Read {@link Record#getId()} unique records
    *
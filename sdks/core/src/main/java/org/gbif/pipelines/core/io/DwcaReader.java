@@ -41,6 +41,11 @@ public class DwcaReader implements Closeable {
     return new DwcaReader(DwcFiles.fromCompressed(Paths.get(source), Paths.get(workingDir)));
   }
 
+  /** Creates a DwcaReader of an already opened archive. */
+  public static DwcaReader fromArchive(Archive archive) {
+    return new DwcaReader(archive);
+  }
+
   /** Creates and DwcaReader using a StarRecord iterator. */
   private DwcaReader(Archive archive) {
 
@@ -1,22 +1,30 @@
 package org.gbif.pipelines.core.io;
 
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.ES_FAILED_DOCUMENTS_COUNT;
+
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Optional;
-import java.util.Queue;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import lombok.Builder;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpHost;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.index.IndexRequest;
@@ -24,108 +32,337 @@ import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestStatus;
+import org.gbif.pipelines.common.PipelinesVariables.Metrics;
+import org.gbif.pipelines.core.functions.SerializableConsumer;
 
+/**
+ * Pushes records into ES using bulk requests.
+ *
+ * <ul>
+ *   <li>The REST client is shared per ES hosts by concurrent writers, unless a client is provided,
+ *       the shared client is closed when the last writer using it finishes
+ *   <li>In async mode records are converted into index requests by the bulk tasks in parallel, the
+ *       number of in-flight bulk requests is limited by backPressure permits
+ *   <li>The number of actions per bulk request is adjusted by {@link AdaptiveBatchSize} using bulk
+ *       latency and rejected documents, esMaxBatchSize and esMaxBatchSizeBytes are upper limits
+ *   <li>Only rejected documents (HTTP 429 and 503) of a bulk response are retried, other failed
+ *       documents are skipped and counted by counterFn as {@link
+ *       Metrics#ES_FAILED_DOCUMENTS_COUNT}, unless esFailFast is set, then they fail the whole
+ *       write and bulk tasks which haven't started are skipped
+ *   <li>Records can be any {@link Iterable}, like a {@link SortMergeJoin}, sync mode is used only
+ *       for a {@link Collection} smaller than syncModeThreshold
+ * </ul>
+ */
 @Slf4j
 @Builder
 @SuppressWarnings("all")
 public class ElasticsearchWriter<T> {
 
+  /** Shared clients by hosts, guarded by the map */
+  private static final Map<String, SharedClient> CLIENTS = new HashMap<>();
+
   private String[] esHosts;
+  private RestHighLevelClient client;
   private int syncModeThreshold;
   private Function<T, IndexRequest> indexRequestFn;
   private ExecutorService executor;
-  private Collection<T> records;
+  private Iterable<T> records;
   private long esMaxBatchSize;
   private long esMaxBatchSizeBytes;
   private Integer backPressure;
+  @Builder.Default private long esMinBatchSize = 100L;
+  @Builder.Default private long esBulkTargetLatencyMs = 10_000L;
+  @Builder.Default private int esMaxRetries = 5;
+  @Builder.Default private long esRetryInitialDelayMs = 1_000L;
+  @Builder.Default private boolean esFailFast = false;
+  @Builder.Default private SerializableConsumer<String> counterFn = name -> {};
 
-  @SneakyThrows
   public void write() {
 
-    boolean useSyncMode = syncModeThreshold > records.size();
+    boolean useSyncMode =
+        records instanceof Collection && syncModeThreshold > ((Collection<T>) records).size();
 
-    // Create ES client and extra function
-    HttpHost[] hosts = Arrays.stream(esHosts).map(HttpHost::create).toArray(HttpHost[]::new);
-    try (RestHighLevelClient client = new RestHighLevelClient(RestClient.builder(hosts))) {
-
-      final Phaser phaser = new Phaser(1);
+    RestHighLevelClient esClient = client != null ? client : acquireSharedClient(esHosts);
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    try {
+      writeRecords(esClient, useSyncMode, futures);
+    } finally {
+      // In-flight bulk requests of a failed write must finish before the client is closed
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+          .exceptionally(ex -> null)
+          .join();
+      if (client == null) {
+        releaseSharedClient(esHosts);
+      }
+    }
+  }
 
-      final Queue<BulkRequest> requests = new LinkedBlockingQueue<>();
-      requests.add(new BulkRequest().timeout(TimeValue.timeValueMinutes(5L)));
+  @SneakyThrows
+  private void writeRecords(
+      RestHighLevelClient esClient, boolean useSyncMode, List<CompletableFuture<Void>> futures) {
 
-      Consumer<T> addIndexRequestFn =
-          br ->
-              Optional.ofNullable(requests.peek())
-                  .ifPresent(req -> req.add(indexRequestFn.apply(br)));
+    AdaptiveBatchSize batchSize =
+        new AdaptiveBatchSize(
+            Math.min(esMinBatchSize, esMaxBatchSize), esMaxBatchSize, esBulkTargetLatencyMs);
 
-      Consumer<BulkRequest> clientBulkFn =
-          br -> {
-            try {
-              log.info("Push ES request, number of actions - {}", br.numberOfActions());
-              BulkResponse bulk = client.bulk(br, RequestOptions.DEFAULT);
-              phaser.arrive();
-              if (bulk.hasFailures()) {
-                log.error(bulk.buildFailureMessage());
-                throw new ElasticsearchException(bulk.buildFailureMessage());
-              }
-            } catch (IOException ex) {
-              log.error(ex.getMessage(), ex);
-              throw new ElasticsearchException(ex.getMessage(), ex);
-            }
-          };
-
-      Runnable pushIntoEsFn =
-          () ->
-              Optional.ofNullable(requests.poll())
-                  .filter(req -> req.numberOfActions() > 0)
-                  .ifPresent(
-                      req -> {
-                        phaser.register();
-                        if (useSyncMode) {
-                          clientBulkFn.accept(req);
-                        } else {
-                          CompletableFuture.runAsync(() -> clientBulkFn.accept(req), executor);
-                        }
-                      });
+    int permits = backPressure != null && backPressure > 0 ? backPressure : Integer.MAX_VALUE;
+    Semaphore inFlight = new Semaphore(permits);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    FailedDocuments failed = new FailedDocuments();
 
+    if (useSyncMode) {
       // Push requests into ES
+      BulkRequest request = createBulkRequest();
       for (T t : records) {
-        addIndexRequestFn.accept(t);
-        BulkRequest peek = requests.peek();
-        if (peek == null
-            || peek.numberOfActions() > esMaxBatchSize - 1
-            || peek.estimatedSizeInBytes() > esMaxBatchSizeBytes) {
-          checkBackpressure(useSyncMode, phaser);
-          pushIntoEsFn.run();
-          requests.add(new BulkRequest().timeout(TimeValue.timeValueMinutes(5L)));
+        request.add(indexRequestFn.apply(t));
+        if (request.numberOfActions() >= batchSize.get()
+            || request.estimatedSizeInBytes() > esMaxBatchSizeBytes) {
+          bulk(esClient, request, batchSize, failed);
+          request = createBulkRequest();
         }
       }
 
       // Final push
-      pushIntoEsFn.run();
+      if (request.numberOfActions() > 0) {
+        bulk(esClient, request, batchSize, failed);
+      }
+    } else {
+      // Records are converted into documents by bulk tasks, so the conversion runs in parallel
+      List<T> batch = new ArrayList<>();
+      for (T t : records) {
+        batch.add(t);
+        if (batch.size() >= batchSize.get()) {
+          pushAsync(esClient, batch, batchSize, inFlight, futures, failure, failed);
+          batch = new ArrayList<>();
+        }
+      }
+
+      // Final push
+      if (!batch.isEmpty()) {
+        pushAsync(esClient, batch, batchSize, inFlight, futures, failure, failed);
+      }
+    }
+
+    // Wait for all futures
+    log.info("Waiting for all bulk requests to finish...");
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+    } catch (ExecutionException ex) {
+      throw toElasticsearchException(ex.getCause());
+    }
+    throwIfFailed(failure);
+    if (failed.count.get() > 0) {
+      log.error(
+          "{} ES documents failed and were skipped, the first failure - {}",
+          failed.count.get(),
+          failed.first.get());
+    }
+    log.info("Writing data to ES has been finished");
+  }
+
+  /**
+   * Acquires a permit and converts the batch into index requests and pushes them async, the batch
+   * is split into several bulk requests if they exceed esMaxBatchSizeBytes
+   */
+  private void pushAsync(
+      RestHighLevelClient esClient,
+      List<T> batch,
+      AdaptiveBatchSize batchSize,
+      Semaphore inFlight,
+      List<CompletableFuture<Void>> futures,
+      AtomicReference<Throwable> failure,
+      FailedDocuments failed)
+      throws InterruptedException {
+    throwIfFailed(failure);
+    if (!inFlight.tryAcquire()) {
+      log.info("Back pressure barrier: too many bulk requests in flight...");
+      inFlight.acquire();
+    }
+    // A bulk request could fail while waiting for the permit
+    if (failure.get() != null) {
+      inFlight.release();
+      throwIfFailed(failure);
+    }
+    CompletableFuture<Void> future =
+        CompletableFuture.runAsync(
+            () -> {
+              if (failure.get() != null) {
+                return;
+              }
+              BulkRequest request = createBulkRequest();
+              for (T t : batch) {
+                request.add(indexRequestFn.apply(t));
+                if (request.estimatedSizeInBytes() > esMaxBatchSizeBytes) {
+                  bulk(esClient, request, batchSize, failed);
+                  request = createBulkRequest();
+                }
+              }
+              if (request.numberOfActions() > 0) {
+                bulk(esClient, request, batchSize, failed);
+              }
+            },
+            executor);
+    future.whenComplete(
+        (r, ex) -> {
+          if (ex != null) {
+            failure.compareAndSet(null, ex);
+          }
+          inFlight.release();
+        });
+    futures.add(future);
+  }
+
+  private static void throwIfFailed(AtomicReference<Throwable> failure) {
+    Throwable ex = failure.get();
+    if (ex != null) {
+      throw toElasticsearchException(ex);
+    }
+  }
 
-      // Wait for all futures
-      log.info("Waiting for all threads to arrive...");
-      phaser.arriveAndAwaitAdvance();
-      log.info("Writing data to ES has been finished");
+  private static ElasticsearchException toElasticsearchException(Throwable ex) {
+    Throwable cause =
+        ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    if (cause instanceof ElasticsearchException) {
+      return (ElasticsearchException) cause;
     }
+    return new ElasticsearchException(cause.getMessage(), cause);
   }
 
   /**
-   * If the mode is async, check back pressure, the number of running async tasks must be less than
-   * backPressure setting
+   * Pushes the bulk request and retries rejected documents with exponential backoff, other failed
+   * documents are counted and skipped, or fail the write if esFailFast is set
    */
-  private void checkBackpressure(boolean useSyncMode, Phaser phaser) {
-    if (!useSyncMode && backPressure != null && backPressure > 0) {
-      while (phaser.getUnarrivedParties() > backPressure) {
-        log.info("Back pressure barrier: too many rows wainting...");
-        try {
-          TimeUnit.MILLISECONDS.sleep(100L);
-        } catch (InterruptedException ex) {
-          log.warn("Back pressure barrier", ex);
-          Thread.currentThread().interrupt();
+  @SneakyThrows
+  private void bulk(
+      RestHighLevelClient esClient,
+      BulkRequest request,
+      AdaptiveBatchSize batchSize,
+      FailedDocuments failed) {
+    BulkRequest current = request;
+    long delay = esRetryInitialDelayMs;
+    for (int attempt = 0; ; attempt++) {
+      log.info("Push ES request, number of actions - {}", current.numberOfActions());
+      long start = System.currentTimeMillis();
+      BulkResponse response;
+      try {
+        response = esClient.bulk(current, RequestOptions.DEFAULT);
+      } catch (IOException ex) {
+        if (attempt >= esMaxRetries) {
+          log.error(ex.getMessage(), ex);
+          throw new ElasticsearchException(ex.getMessage(), ex);
+        }
+        log.warn("ES bulk request failed, retrying in {} ms - {}", delay, ex.getMessage());
+        TimeUnit.MILLISECONDS.sleep(delay);
+        delay *= 2;
+        continue;
+      }
+
+      if (!response.hasFailures()) {
+        batchSize.update(System.currentTimeMillis() - start, 0);
+        return;
+      }
+
+      BulkRequest retry = createBulkRequest();
+      List<String> failures = new ArrayList<>();
+      for (BulkItemResponse item : response.getItems()) {
+        if (item.isFailed()) {
+          if (isRetryable(item.getFailure().getStatus())) {
+            retry.add((DocWriteRequest<?>) current.requests().get(item.getItemId()));
+          } else {
+            failures.add(item.getId() + ": " + item.getFailureMessage());
+          }
+        }
+      }
+      batchSize.update(System.currentTimeMillis() - start, retry.numberOfActions());
+
+      if (!failures.isEmpty()) {
+        if (esFailFast) {
+          String message = "Failed ES documents: " + String.join(", ", failures);
+          log.error(message);
+          throw new ElasticsearchException(message);
         }
+        failed.add(failures);
+        failures.forEach(
+            f -> {
+              log.debug("Failed ES document {}", f);
+              counterFn.accept(ES_FAILED_DOCUMENTS_COUNT);
+            });
+      }
+      if (retry.numberOfActions() == 0) {
+        return;
+      }
+      if (attempt >= esMaxRetries) {
+        log.error(response.buildFailureMessage());
+        throw new ElasticsearchException(response.buildFailureMessage());
+      }
+
+      log.warn("ES rejected {} documents, retrying in {} ms", retry.numberOfActions(), delay);
+      TimeUnit.MILLISECONDS.sleep(delay);
+      delay *= 2;
+      current = retry;
+    }
+  }
+
+  /** Documents which failed with a non-retryable error, shared by the bulk tasks of a write */
+  private static class FailedDocuments {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicReference<String> first = new AtomicReference<>();
+
+    private void add(List<String> failures) {
+      count.addAndGet(failures.size());
+      first.compareAndSet(null, failures.get(0));
+    }
+  }
+
+  private static boolean isRetryable(RestStatus status) {
+    return status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.SERVICE_UNAVAILABLE;
+  }
+
+  private static BulkRequest createBulkRequest() {
+    return new BulkRequest().timeout(TimeValue.timeValueMinutes(5L));
+  }
+
+  /** One client per set of hosts, shared by concurrent writers */
+  static RestHighLevelClient acquireSharedClient(String[] esHosts) {
+    synchronized (CLIENTS) {
+      SharedClient shared =
+          CLIENTS.computeIfAbsent(
+              String.join(",", esHosts),
+              k -> {
+                HttpHost[] hosts =
+                    Arrays.stream(esHosts).map(HttpHost::create).toArray(HttpHost[]::new);
+                return new SharedClient(new RestHighLevelClient(RestClient.builder(hosts)));
+              });
+      shared.references++;
+      return shared.client;
+    }
+  }
+
+  /** Closes the shared client when no writer uses it anymore */
+  static void releaseSharedClient(String[] esHosts) {
+    String key = String.join(",", esHosts);
+    SharedClient shared;
+    synchronized (CLIENTS) {
+      shared = CLIENTS.get(key);
+      if (shared == null || --shared.references > 0) {
+        return;
       }
+      CLIENTS.remove(key);
+    }
+    try {
+      shared.client.close();
+    } catch (IOException ex) {
+      log.warn("Failed to close ES client of {} - {}", key, ex.getMessage());
+    }
+  }
+
+  private static class SharedClient {
+    private final RestHighLevelClient client;
+    private int references;
+
+    private SharedClient(RestHighLevelClient client) {
+      this.client = client;
     }
   }
 }
@@ -0,0 +1,143 @@
+package org.gbif.pipelines.core.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import org.gbif.pipelines.core.utils.HashConverter;
+import org.gbif.pipelines.core.utils.LongPairIndex;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+
+/**
+ * Fingerprints of {@link ExtendedRecord}s of one interpretation attempt, used to find records which
+ * haven't changed since the previous attempt.
+ *
+ * <p>The fingerprint of a record is the first 64 bits of SHA-1 of the id, core row type, core terms
+ * and extension rows, terms are sorted, so the order of map entries doesn't change the fingerprint.
+ * Records are stored as (id hash, fingerprint) pairs in {@link LongPairIndex}, 16 bytes per record.
+ *
+ * <p>The context is a fingerprint of everything else the interpretation depends on, like the
+ * dataset metadata, indexes with different contexts must not be compared.
+ *
+ * <p>Usage: {@link #add(String, long)} all records and {@link #write(OutputStream)} the index, or
+ * {@link #read(InputStream)} it and call {@link #contains(String, long)}. The class is not
+ * thread-safe.
+ */
+public class FingerprintIndex {
+
+  private static final int VERSION = 1;
+  private static final byte SEPARATOR = 0;
+  private static final byte NULL = 1;
+
+  private final LongPairIndex index = new LongPairIndex();
+  @Getter private final long context;
+
+  public FingerprintIndex(long context) {
+    this.context = context;
+  }
+
+  /** Fingerprint of the record, equal records always have the same fingerprint */
+  @SneakyThrows
+  public static long fingerprint(ExtendedRecord er) {
+    MessageDigest digest = MessageDigest.getInstance("SHA-1");
+    update(digest, er.getId());
+    update(digest, er.getCoreId());
+    update(digest, er.getCoreRowType());
+    update(digest, er.getCoreTerms());
+    if (er.getExtensions() != null) {
+      for (Map.Entry<String, List<Map<String, String>>> ext :
+          new TreeMap<>(er.getExtensions()).entrySet()) {
+        update(digest, ext.getKey());
+        for (Map<String, String> row : ext.getValue()) {
+          update(digest, row);
+        }
+        digest.update(SEPARATOR);
+      }
+    }
+    return ByteBuffer.wrap(digest.digest()).getLong();
+  }
+
+  public void add(String id, long fingerprint) {
+    index.add(HashConverter.getSha1Long(id), fingerprint);
+  }
+
+  public int size() {
+    return index.size();
+  }
+
+  /**
+   * The record with the id and the fingerprint was added to the index, only an index of {@link
+   * #read(InputStream)} can be looked up
+   */
+  public boolean contains(String id, long fingerprint) {
+    int lowerBound = index.lowerBound(HashConverter.getSha1Long(id));
+    int count = index.countKey(lowerBound);
+    for (int i = lowerBound; i < lowerBound + count; i++) {
+      if (index.getValue(i) == fingerprint) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Writes the index to the stream, the stream is not closed */
+  public void write(OutputStream os) throws IOException {
+    index.sort();
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+    out.writeInt(VERSION);
+    out.writeLong(context);
+    out.writeInt(index.size());
+    for (int i = 0; i < index.size(); i++) {
+      out.writeLong(index.getKey(i));
+      out.writeLong(index.getValue(i));
+    }
+    out.flush();
+  }
+
+  /** Reads the index written by {@link #write(OutputStream)}, the stream is not closed */
+  public static FingerprintIndex read(InputStream is) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+    int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported fingerprint index version - " + version);
+    }
+    FingerprintIndex fingerprintIndex = new FingerprintIndex(in.readLong());
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      fingerprintIndex.index.add(in.readLong(), in.readLong());
+    }
+    // Sorted once, the index is read-only from now on
+    fingerprintIndex.index.sort();
+    return fingerprintIndex;
+  }
+
+  private static void update(MessageDigest digest, Map<String, String> terms) {
+    if (terms != null) {
+      for (Map.Entry<String, String> term : new TreeMap<>(terms).entrySet()) {
+        update(digest, term.getKey());
+        update(digest, term.getValue());
+      }
+    }
+    digest.update(SEPARATOR);
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    if (value == null) {
+      digest.update(NULL);
+    } else {
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+    digest.update(SEPARATOR);
+  }
+}
@@ -0,0 +1,41 @@
+package org.gbif.pipelines.core.io;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.gbif.pipelines.io.avro.Record;
+
+/**
+ * Records of one id joined by record class, a class is present if its input was joined, even if
+ * there is no record of the class for the id.
+ */
+@RequiredArgsConstructor(staticName = "create")
+public class JoinedRecords {
+
+  @Getter private final String id;
+  private final Map<Class<?>, Record> records = new HashMap<>();
+
+  /** @param record record or null if the input has no record for the id */
+  public <T extends Record> JoinedRecords put(Class<T> clazz, T record) {
+    records.put(clazz, record);
+    return this;
+  }
+
+  /** The input of the class was joined */
+  public boolean contains(Class<?> clazz) {
+    return records.containsKey(clazz);
+  }
+
+  /** Record of the class or null */
+  public <T extends Record> T get(Class<T> clazz) {
+    return clazz.cast(records.get(clazz));
+  }
+
+  /** Record of the class or the default value */
+  public <T extends Record> T getOrDefault(Class<T> clazz, Supplier<T> defaultValue) {
+    T record = get(clazz);
+    return record != null ? record : defaultValue.get();
+  }
+}
@@ -0,0 +1,62 @@
+package org.gbif.pipelines.core.io;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.InterpretationType;
+import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
+
+/**
+ * Parquet output settings of HDFS view tables. Tables listed in {@code tables}, or all tables if
+ * the set contains {@link RecordType#ALL}, are written as Parquet files using the Avro schema of
+ * the table as the logical schema, other tables are written as Avro files.
+ *
+ * <p>Parquet keeps min/max statistics per row group and per page (column indexes), so queries
+ * reading a few columns skip the rest of the file and most of the pages.
+ */
+@Value
+@Builder
+public class ParquetSettings implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final int DEFAULT_PAGE_SIZE = 1024 * 1024;
+  public static final int DEFAULT_ROW_GROUP_SIZE = 128 * 1024 * 1024;
+
+  @NonNull @Builder.Default Set<String> tables = Collections.emptySet();
+  @Builder.Default int pageSize = DEFAULT_PAGE_SIZE;
+  @Builder.Default int rowGroupSize = DEFAULT_ROW_GROUP_SIZE;
+  @Builder.Default boolean dictionaryEnabled = true;
+  @NonNull @Builder.Default String compression = CompressionCodecName.SNAPPY.name();
+
+  /** Avro only settings */
+  public static ParquetSettings disabled() {
+    return ParquetSettings.builder().build();
+  }
+
+  /** The table must be written as Parquet */
+  public boolean isParquet(InterpretationType type) {
+    return tables.contains(RecordType.ALL.name()) || tables.contains(type.name());
+  }
+
+  public CompressionCodecName getCodec() {
+    return CompressionCodecName.fromConf(compression);
+  }
+
+  /** Settings as parquet-hadoop properties, for writers configured by a Hadoop configuration */
+  public Map<String, String> toConfiguration() {
+    Map<String, String> map = new HashMap<>();
+    map.put(ParquetOutputFormat.PAGE_SIZE, Integer.toString(pageSize));
+    map.put(ParquetOutputFormat.BLOCK_SIZE, Integer.toString(rowGroupSize));
+    map.put(ParquetOutputFormat.ENABLE_DICTIONARY, Boolean.toString(dictionaryEnabled));
+    map.put(ParquetOutputFormat.COMPRESSION, getCodec().name());
+    return map;
+  }
+}
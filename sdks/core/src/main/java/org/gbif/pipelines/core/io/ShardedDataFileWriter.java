@@ -0,0 +1,342 @@
+package org.gbif.pipelines.core.io;
+
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.AVRO_EXTENSION;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+
+/**
+ * Replacement for {@link SyncDataFileWriter} for many writing threads. Every thread is bound to one
+ * of {@code maxShards} shards, each shard is a separate avro file with its own {@link
+ * DataFileWriter}, so threads don't compete for a global monitor. If there are more threads than
+ * shards, a shard is shared and appends to it are serialised with a per-shard lock.
+ *
+ * <p>Shards are created lazily on the first append, the output stream of a shard is created by
+ * {@link ShardOutputStreamFactory} using the shard number, for example {@code
+ * interpret-1234-0.avro}, {@code interpret-1234-1.avro}. At least one shard is always created, so
+ * an empty dataset produces one empty avro file, the same as {@link SyncDataFileWriter}.
+ *
+ * <p>If a comparator is set, records are sorted: every shard buffers records and spills every
+ * sorted run of {@code sortBufferSize / maxShards} records to a local file in {@code tmpDir}. On
+ * {@link #close()} runs of a shard are merged into the shard file, at most {@code maxFanIn} runs at
+ * once, more runs are merged in several passes. Every shard file is sorted, but shards overlap,
+ * readers have to merge at most {@code maxShards} files, see {@link SortedMergeIterator}.
+ *
+ * <p>Per-shard append latency and lock contention counters are available via {@link #getStats()}
+ * and logged on {@link #close()}.
+ */
+@Slf4j
+public class ShardedDataFileWriter<T> implements Closeable {
+
+  /** Creates an output stream for the shard number */
+  @FunctionalInterface
+  public interface ShardOutputStreamFactory {
+    OutputStream create(int shard) throws IOException;
+  }
+
+  private static final int DEFAULT_SORT_BUFFER_SIZE = 100_000;
+  private static final int DEFAULT_MAX_FAN_IN = 64;
+
+  private final Schema schema;
+  private final String codec;
+  private final Integer syncInterval;
+  private final ShardOutputStreamFactory outputStreamFactory;
+  private final String name;
+  private final Comparator<? super T> comparator;
+  private final int shardSortBufferSize;
+  private final File tmpDir;
+  private final int maxFanIn;
+
+  private final AtomicReferenceArray<Shard<T>> shards;
+  private final AtomicInteger threadCounter = new AtomicInteger();
+  private final ThreadLocal<Integer> threadShard;
+
+  @Builder(buildMethodName = "create")
+  private ShardedDataFileWriter(
+      @NonNull Schema schema,
+      @NonNull String codec,
+      @NonNull ShardOutputStreamFactory outputStreamFactory,
+      Integer syncInterval,
+      Integer maxShards,
+      String name,
+      Comparator<? super T> comparator,
+      Integer sortBufferSize,
+      File tmpDir,
+      Integer maxFanIn) {
+    this.schema = schema;
+    this.codec = codec;
+    this.syncInterval = syncInterval;
+    this.outputStreamFactory = outputStreamFactory;
+    this.name = Optional.ofNullable(name).orElse(schema.getName());
+    int shardsNumber =
+        Optional.ofNullable(maxShards).orElse(Runtime.getRuntime().availableProcessors());
+    if (shardsNumber < 1) {
+      throw new IllegalArgumentException("maxShards must be greater than 0");
+    }
+    this.comparator = comparator;
+    int bufferSize = Optional.ofNullable(sortBufferSize).orElse(DEFAULT_SORT_BUFFER_SIZE);
+    this.shardSortBufferSize = Math.max(1, bufferSize / shardsNumber);
+    this.tmpDir =
+        Optional.ofNullable(tmpDir).orElse(new File(System.getProperty("java.io.tmpdir")));
+    this.maxFanIn = Optional.ofNullable(maxFanIn).orElse(DEFAULT_MAX_FAN_IN);
+    if (this.maxFanIn < 2) {
+      throw new IllegalArgumentException("maxFanIn must be greater than 1");
+    }
+    this.shards = new AtomicReferenceArray<>(shardsNumber);
+    this.threadShard =
+        ThreadLocal.withInitial(() -> threadCounter.getAndIncrement() % shardsNumber);
+  }
+
+  @SneakyThrows
+  public void append(T record) {
+    getOrCreateShard(threadShard.get()).append(record);
+  }
+
+  /** Statistics of created shards */
+  public List<ShardStats> getStats() {
+    List<ShardStats> stats = new ArrayList<>();
+    for (int i = 0; i < shards.length(); i++) {
+      Shard<T> shard = shards.get(i);
+      if (shard != null) {
+        stats.add(shard.toStats());
+      }
+    }
+    return stats;
+  }
+
+  @Override
+  public void close() throws IOException {
+    getOrCreateShard(0);
+    IOException exception = null;
+    for (int i = 0; i < shards.length(); i++) {
+      Shard<T> shard = shards.get(i);
+      if (shard != null) {
+        try {
+          shard.close();
+        } catch (IOException ex) {
+          exception = ex;
+        }
+      }
+    }
+    getStats().forEach(s -> log.info("{} writer - {}", name, s));
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  private Shard<T> getOrCreateShard(int number) throws IOException {
+    Shard<T> shard = shards.get(number);
+    if (shard == null) {
+      synchronized (shards) {
+        shard = shards.get(number);
+        if (shard == null) {
+          shard =
+              comparator == null
+                  ? new Shard<>(number, createDataFileWriter(number))
+                  : new Shard<>(number, this);
+          shards.set(number, shard);
+        }
+      }
+    }
+    return shard;
+  }
+
+  private DataFileWriter<T> createDataFileWriter(int number) throws IOException {
+    return createDataFileWriter(outputStreamFactory.create(number));
+  }
+
+  private DataFileWriter<T> createDataFileWriter(OutputStream outputStream) throws IOException {
+    DataFileWriter<T> dataFileWriter = new DataFileWriter<>(new SpecificDatumWriter<>(schema));
+    dataFileWriter.setCodec(CodecFactory.fromString(codec));
+    Optional.ofNullable(syncInterval).ifPresent(dataFileWriter::setSyncInterval);
+    dataFileWriter.create(schema, new BufferedOutputStream(outputStream));
+    return dataFileWriter;
+  }
+
+  /** Snapshot of shard counters, latency values are in nanoseconds */
+  @Value
+  public static class ShardStats {
+    int shard;
+    long records;
+    long avgAppendNanos;
+    long maxAppendNanos;
+    long contended;
+  }
+
+  private static class Shard<T> {
+
+    private final int number;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder appendNanos = new LongAdder();
+    private final LongAccumulator maxAppendNanos = new LongAccumulator(Long::max, 0L);
+    private final LongAdder contended = new LongAdder();
+
+    // Unsorted shard
+    private final DataFileWriter<T> dataFileWriter;
+
+    // Sorted shard
+    private final ShardedDataFileWriter<T> owner;
+    private final List<T> buffer;
+    private final List<File> runs = new ArrayList<>();
+
+    private Shard(int number, DataFileWriter<T> dataFileWriter) {
+      this.number = number;
+      this.dataFileWriter = dataFileWriter;
+      this.owner = null;
+      this.buffer = null;
+    }
+
+    private Shard(int number, ShardedDataFileWriter<T> owner) {
+      this.number = number;
+      this.dataFileWriter = null;
+      this.owner = owner;
+      this.buffer = new ArrayList<>(Math.min(owner.shardSortBufferSize, 10_000));
+    }
+
+    private void append(T record) throws IOException {
+      if (!lock.tryLock()) {
+        contended.increment();
+        lock.lock();
+      }
+      try {
+        long start = System.nanoTime();
+        if (buffer == null) {
+          dataFileWriter.append(record);
+        } else {
+          buffer.add(record);
+          if (buffer.size() >= owner.shardSortBufferSize) {
+            runs.add(spillRun());
+          }
+        }
+        long time = System.nanoTime() - start;
+        appendNanos.add(time);
+        maxAppendNanos.accumulate(time);
+        records.increment();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void close() throws IOException {
+      lock.lock();
+      try {
+        if (buffer == null) {
+          dataFileWriter.close();
+        } else if (runs.isEmpty()) {
+          // Everything fits the buffer, no need to spill
+          buffer.sort(owner.comparator);
+          try (DataFileWriter<T> writer = owner.createDataFileWriter(number)) {
+            for (T record : buffer) {
+              writer.append(record);
+            }
+          }
+          buffer.clear();
+        } else {
+          if (!buffer.isEmpty()) {
+            runs.add(spillRun());
+          }
+          mergeRuns();
+        }
+      } finally {
+        runs.forEach(File::delete);
+        lock.unlock();
+      }
+    }
+
+    /** Sorts buffered records and writes them to a new local run file */
+    private File spillRun() throws IOException {
+      buffer.sort(owner.comparator);
+      File run = createRunFile();
+      try (DataFileWriter<T> writer = owner.createDataFileWriter(new FileOutputStream(run))) {
+        for (T record : buffer) {
+          writer.append(record);
+        }
+      }
+      buffer.clear();
+      return run;
+    }
+
+    /** Merges runs into the shard file, with more than maxFanIn runs merges them in passes */
+    private void mergeRuns() throws IOException {
+      int passes = 0;
+      while (runs.size() > owner.maxFanIn) {
+        List<File> merged = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i += owner.maxFanIn) {
+          List<File> group = runs.subList(i, Math.min(i + owner.maxFanIn, runs.size()));
+          if (group.size() == 1) {
+            merged.add(group.get(0));
+          } else {
+            File run = createRunFile();
+            merged.add(run);
+            try (DataFileWriter<T> writer = owner.createDataFileWriter(new FileOutputStream(run))) {
+              merge(group, writer);
+            }
+            group.forEach(File::delete);
+          }
+        }
+        runs.clear();
+        runs.addAll(merged);
+        passes++;
+      }
+      try (DataFileWriter<T> writer = owner.createDataFileWriter(number)) {
+        merge(runs, writer);
+      }
+      log.debug("{} shard {} runs were merged, {} intermediate passes", owner.name, number, passes);
+    }
+
+    private void merge(List<File> files, DataFileWriter<T> writer) throws IOException {
+      List<DataFileReader<T>> readers = new ArrayList<>(files.size());
+      try {
+        for (File file : files) {
+          readers.add(new DataFileReader<>(file, new SpecificDatumReader<>(owner.schema)));
+        }
+      } catch (IOException ex) {
+        for (DataFileReader<T> reader : readers) {
+          reader.close();
+        }
+        throw ex;
+      }
+      try (SortedMergeIterator<T> iterator =
+          SortedMergeIterator.create(readers, owner.comparator)) {
+        while (iterator.hasNext()) {
+          writer.append(iterator.next());
+        }
+      }
+    }
+
+    private File createRunFile() throws IOException {
+      return File.createTempFile(owner.name + "-" + number + "-run-", AVRO_EXTENSION, owner.tmpDir);
+    }
+
+    private ShardStats toStats() {
+      long count = records.sum();
+      long avg = count == 0 ? 0L : appendNanos.sum() / count;
+      return new ShardStats(number, count, avg, maxAppendNanos.get(), contended.sum());
+    }
+  }
+}
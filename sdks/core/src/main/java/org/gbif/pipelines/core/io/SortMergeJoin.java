@@ -0,0 +1,157 @@
+package org.gbif.pipelines.core.io;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.gbif.pipelines.io.avro.Record;
+
+/**
+ * Streaming left join of inputs sorted by {@link Record#getId()}, all inputs are advanced in
+ * lockstep with the main input, so only one record per input is kept in memory, instead of a map of
+ * all records per input.
+ *
+ * <p>Every record of the main input produces one {@link JoinedRecords}, records of other inputs
+ * without a main record are skipped. Duplicated ids of the main input are skipped, for duplicated
+ * ids of other inputs the last record is used, the same as {@link AvroReader#readRecords}.
+ *
+ * <p>Throws {@link IllegalStateException} if an input isn't sorted. {@link #close()} closes all
+ * {@link Closeable} inputs.
+ *
+ * <pre>{@code
+ * try (SortMergeJoin join =
+ *     SortMergeJoin.create(IdentifierRecord.class, ids)
+ *         .join(ExtendedRecord.class, verbatims)
+ *         .join(BasicRecord.class, basics)) {
+ *   join.forEachRemaining(r -> convert(r.get(IdentifierRecord.class), r.get(BasicRecord.class)));
+ * }
+ * }</pre>
+ */
+public class SortMergeJoin implements Iterator<JoinedRecords>, Closeable {
+
+  private final Input<?> main;
+  private final List<Input<?>> inputs = new ArrayList<>();
+
+  private Record next;
+
+  private <T extends Record> SortMergeJoin(Class<T> clazz, Iterator<T> main) {
+    this.main = new Input<>(clazz, main);
+  }
+
+  /** @param main main input sorted by id */
+  public static <T extends Record> SortMergeJoin create(Class<T> clazz, Iterator<T> main) {
+    return new SortMergeJoin(clazz, main);
+  }
+
+  /** @param input input sorted by id, the record class must be unique in the join */
+  public <T extends Record> SortMergeJoin join(Class<T> clazz, Iterator<T> input) {
+    if (main.clazz.equals(clazz) || inputs.stream().anyMatch(i -> i.clazz.equals(clazz))) {
+      throw new IllegalArgumentException(
+          "Input of " + clazz.getSimpleName() + " is already joined");
+    }
+    inputs.add(new Input<>(clazz, input));
+    return this;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      next = main.nextAfter(null);
+    }
+    return next != null;
+  }
+
+  @Override
+  public JoinedRecords next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Record record = next;
+    next = main.nextAfter(record.getId());
+
+    JoinedRecords joined = JoinedRecords.create(record.getId());
+    main.put(joined, record);
+    for (Input<?> input : inputs) {
+      input.putMatch(joined);
+    }
+    return joined;
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException exception = null;
+    List<Input<?>> all = new ArrayList<>(inputs);
+    all.add(main);
+    for (Input<?> input : all) {
+      if (input.source instanceof Closeable) {
+        try {
+          ((Closeable) input.source).close();
+        } catch (IOException ex) {
+          exception = ex;
+        }
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  private static class Input<T extends Record> {
+
+    private final Class<T> clazz;
+    private final Iterator<T> source;
+    private final PeekingIterator<T> iterator;
+    private String lastId;
+
+    private Input(Class<T> clazz, Iterator<T> source) {
+      this.clazz = clazz;
+      this.source = source;
+      this.iterator = Iterators.peekingIterator(source);
+    }
+
+    /** Next record with the id greater than the id, records with the same id are skipped */
+    private Record nextAfter(String id) {
+      while (iterator.hasNext()) {
+        T record = iterator.next();
+        int compare = id == null ? 1 : record.getId().compareTo(id);
+        if (compare < 0) {
+          throw notSorted(record.getId(), id);
+        }
+        if (compare > 0) {
+          return record;
+        }
+      }
+      return null;
+    }
+
+    /** Advances the input to the id of the joined records and puts the last matching record */
+    private void putMatch(JoinedRecords joined) {
+      String id = joined.getId();
+      T match = null;
+      while (iterator.hasNext() && iterator.peek().getId().compareTo(id) <= 0) {
+        T record = iterator.next();
+        if (lastId != null && record.getId().compareTo(lastId) < 0) {
+          throw notSorted(record.getId(), lastId);
+        }
+        lastId = record.getId();
+        if (record.getId().equals(id)) {
+          match = record;
+        }
+      }
+      joined.put(clazz, match);
+    }
+
+    private void put(JoinedRecords joined, Record record) {
+      joined.put(clazz, clazz.cast(record));
+    }
+
+    private IllegalStateException notSorted(String id, String previous) {
+      return new IllegalStateException(
+          clazz.getSimpleName() + " input isn't sorted by id, " + id + " after " + previous);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package org.gbif.pipelines.core.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import lombok.AllArgsConstructor;
+import org.gbif.pipelines.io.avro.Record;
+
+/**
+ * K-way merge of sorted iterators, like sorted runs of {@link ShardedDataFileWriter}, into one
+ * sorted iterator. Only the head record of every input is kept in memory, equal records are
+ * returned in the order of inputs.
+ *
+ * <p>Throws {@link IllegalStateException} if an input isn't sorted. {@link #close()} closes all
+ * {@link Closeable} inputs.
+ */
+public class SortedMergeIterator<T> implements Iterator<T>, Closeable {
+
+  private final List<? extends Iterator<T>> inputs;
+  private final Comparator<? super T> comparator;
+  private final PriorityQueue<Head<T>> heads;
+
+  private SortedMergeIterator(
+      List<? extends Iterator<T>> inputs, Comparator<? super T> comparator) {
+    this.inputs = inputs;
+    this.comparator = comparator;
+    Comparator<Head<T>> headComparator =
+        (h1, h2) -> {
+          int result = comparator.compare(h1.record, h2.record);
+          return result != 0 ? result : Integer.compare(h1.input, h2.input);
+        };
+    this.heads = new PriorityQueue<>(Math.max(1, inputs.size()), headComparator);
+    for (int i = 0; i < inputs.size(); i++) {
+      Iterator<T> iterator = inputs.get(i);
+      if (iterator.hasNext()) {
+        heads.add(new Head<>(iterator.next(), iterator, i));
+      }
+    }
+  }
+
+  /** @param inputs iterators sorted by {@link Record#getId()} */
+  public static <T extends Record> SortedMergeIterator<T> create(
+      List<? extends Iterator<T>> inputs) {
+    return new SortedMergeIterator<>(inputs, Comparator.comparing(Record::getId));
+  }
+
+  /** @param inputs iterators sorted by the comparator */
+  public static <T> SortedMergeIterator<T> create(
+      List<? extends Iterator<T>> inputs, Comparator<? super T> comparator) {
+    return new SortedMergeIterator<>(inputs, comparator);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !heads.isEmpty();
+  }
+
+  @Override
+  public T next() {
+    Head<T> head = heads.poll();
+    if (head == null) {
+      throw new NoSuchElementException();
+    }
+    T result = head.record;
+    if (head.iterator.hasNext()) {
+      T next = head.iterator.next();
+      if (comparator.compare(next, result) < 0) {
+        throw new IllegalStateException("Input " + head.input + " isn't sorted");
+      }
+      heads.add(new Head<>(next, head.iterator, head.input));
+    }
+    return result;
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException exception = null;
+    for (Iterator<T> input : inputs) {
+      if (input instanceof Closeable) {
+        try {
+          ((Closeable) input).close();
+        } catch (IOException ex) {
+          exception = ex;
+        }
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  @AllArgsConstructor
+  private static class Head<T> {
+    private final T record;
+    private final Iterator<T> iterator;
+    private final int input;
+  }
+}
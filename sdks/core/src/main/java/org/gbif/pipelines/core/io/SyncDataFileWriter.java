@@ -1,23 +1,33 @@
 package org.gbif.pipelines.core.io;
 
-import java.io.Closeable;
 import java.io.IOException;
 import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
+import org.apache.avro.file.DataFileStream;
 import org.apache.avro.file.DataFileWriter;
 
 /** Sync class for avro DataFileWriter, created to avoid an issue during file writing */
 @AllArgsConstructor
-public class SyncDataFileWriter<T> implements Closeable {
+public class SyncDataFileWriter<T> implements SyncRecordWriter<T> {
 
   private final DataFileWriter<T> dataFileWriter;
 
   /** Synchronized append method, helps avoid the ArrayIndexOutOfBoundsException */
+  @Override
   @SneakyThrows
   public synchronized void append(T record) {
     dataFileWriter.append(record);
   }
 
+  /**
+   * Synchronized copy of all blocks from another avro file with the same schema, without
+   * deserializing records, see {@link DataFileWriter#appendAllFrom(DataFileStream, boolean)}
+   */
+  @SneakyThrows
+  public synchronized void appendAllFrom(DataFileStream<T> otherFile, boolean recompress) {
+    dataFileWriter.appendAllFrom(otherFile, recompress);
+  }
+
   @Override
   public void close() throws IOException {
     dataFileWriter.close();
@@ -0,0 +1,24 @@
+package org.gbif.pipelines.core.io;
+
+import java.io.IOException;
+import lombok.AllArgsConstructor;
+import lombok.SneakyThrows;
+import org.apache.parquet.hadoop.ParquetWriter;
+
+/** Sync class for {@link ParquetWriter}, the parquet writer isn't thread safe */
+@AllArgsConstructor
+public class SyncParquetWriter<T> implements SyncRecordWriter<T> {
+
+  private final ParquetWriter<T> parquetWriter;
+
+  @Override
+  @SneakyThrows
+  public synchronized void append(T record) {
+    parquetWriter.write(record);
+  }
+
+  @Override
+  public void close() throws IOException {
+    parquetWriter.close();
+  }
+}
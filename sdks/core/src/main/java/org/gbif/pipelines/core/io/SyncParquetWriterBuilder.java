@@ -0,0 +1,39 @@
+package org.gbif.pipelines.core.io;
+
+import java.io.IOException;
+import lombok.Builder;
+import lombok.NonNull;
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificData;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
+
+/** Creates a {@link SyncParquetWriter} of Avro records, the Avro schema is the logical schema */
+@Builder
+public class SyncParquetWriterBuilder {
+
+  @NonNull private final Schema schema;
+  @NonNull private final ParquetSettings settings;
+  @NonNull private final Path path;
+  @NonNull private final Configuration configuration;
+
+  public <T> SyncParquetWriter<T> createSyncParquetWriter() throws IOException {
+    ParquetWriter<T> parquetWriter =
+        AvroParquetWriter.<T>builder(HadoopOutputFile.fromPath(path, configuration))
+            .withSchema(schema)
+            .withDataModel(SpecificData.get())
+            .withConf(configuration)
+            .withCompressionCodec(settings.getCodec())
+            .withPageSize(settings.getPageSize())
+            .withRowGroupSize(settings.getRowGroupSize())
+            .withDictionaryEncoding(settings.isDictionaryEnabled())
+            .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+            .build();
+
+    return new SyncParquetWriter<>(parquetWriter);
+  }
+}
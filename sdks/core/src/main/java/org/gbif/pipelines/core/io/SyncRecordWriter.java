@@ -0,0 +1,9 @@
+package org.gbif.pipelines.core.io;
+
+import java.io.Closeable;
+
+/** Thread safe writer of records into one file, see {@link SyncDataFileWriter} */
+public interface SyncRecordWriter<T> extends Closeable {
+
+  void append(T record);
+}
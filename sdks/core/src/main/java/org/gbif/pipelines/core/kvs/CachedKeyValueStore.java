@@ -0,0 +1,226 @@
+package org.gbif.pipelines.core.kvs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.kvs.KeyValueStore;
+import org.gbif.pipelines.core.config.model.KvCacheConfig;
+import org.gbif.pipelines.core.config.model.KvConfig;
+
+/**
+ * In-process cache in front of any {@link KeyValueStore}, configured by {@link
+ * KvConfig#getCache()}.
+ *
+ * <ul>
+ *   <li>The cache is limited by the size of keys and values in bytes, see {@link KvCacheConfig}
+ *   <li>Stores created with the same name share one cache in a JVM, if {@link
+ *       KvCacheConfig#isShared()} is true
+ *   <li>Concurrent misses for the same key are coalesced, only one thread calls the store
+ *   <li>Null values are cached too
+ *   <li>Hit, miss and load time counters of all stores with the same name in the JVM are available
+ *       via {@link #getStats()}, the counters are never reset, use {@link #getStatsSince(List)} for
+ *       a run. The same counters are passed to counterFn of a store, so a pipeline can publish them
+ *       as its own metrics, see {@link KvCacheStats#counterName(String, String)}
+ * </ul>
+ *
+ * <pre>{@code
+ * KeyValueStore<SpeciesMatchRequest, NameUsageMatch> kvStore =
+ *     CachedKeyValueStore.wrap("nameUsageMatch", store, config.getNameUsageMatch().getCache());
+ * }</pre>
+ */
+@Slf4j
+public class CachedKeyValueStore<K, V> implements KeyValueStore<K, V> {
+
+  private static final Map<String, KvCache<?, ?>> SHARED_CACHES = new ConcurrentHashMap<>();
+  private static final Map<String, Counters> COUNTERS = new ConcurrentHashMap<>();
+
+  private final KeyValueStore<K, V> kvStore;
+  private final KvCache<K, V> cache;
+  private final Counters counters;
+  private final ObjLongConsumer<String> counterFn;
+  private final String hitsName;
+  private final String missesName;
+  private final String coalescedName;
+  private final String loadTimeName;
+
+  private CachedKeyValueStore(
+      String name,
+      KeyValueStore<K, V> kvStore,
+      KvCache<K, V> cache,
+      Counters counters,
+      ObjLongConsumer<String> counterFn) {
+    this.kvStore = kvStore;
+    this.cache = cache;
+    this.counters = counters;
+    this.counterFn = counterFn;
+    this.hitsName = KvCacheStats.counterName(name, KvCacheStats.HITS);
+    this.missesName = KvCacheStats.counterName(name, KvCacheStats.MISSES);
+    this.coalescedName = KvCacheStats.counterName(name, KvCacheStats.COALESCED);
+    this.loadTimeName = KvCacheStats.counterName(name, KvCacheStats.LOAD_TIME_MICROS);
+  }
+
+  /** Wraps the store into the cache, returns the store as is if the store or config is null */
+  public static <K, V> KeyValueStore<K, V> wrap(
+      @NonNull String name, KeyValueStore<K, V> kvStore, KvCacheConfig config) {
+    return wrap(name, kvStore, config, null);
+  }
+
+  /**
+   * Wraps the store into the cache, returns the store as is if the store or config is null
+   *
+   * @param counterFn receives increments of the cache counters by counter name, can be null
+   */
+  @SuppressWarnings("unchecked")
+  public static <K, V> KeyValueStore<K, V> wrap(
+      @NonNull String name,
+      KeyValueStore<K, V> kvStore,
+      KvCacheConfig config,
+      ObjLongConsumer<String> counterFn) {
+    if (kvStore == null || config == null) {
+      return kvStore;
+    }
+    KvCache<K, V> cache =
+        config.isShared()
+            ? (KvCache<K, V>) SHARED_CACHES.computeIfAbsent(name, n -> KvCache.create(n, config))
+            : KvCache.create(name, config);
+    Counters counters = COUNTERS.computeIfAbsent(name, n -> new Counters());
+    log.info("KV store {} is cached, cache config - {}", name, config);
+    return new CachedKeyValueStore<>(name, kvStore, cache, counters, counterFn);
+  }
+
+  /** Counters of all cached stores created in the JVM since the JVM started */
+  public static List<KvCacheStats> getStats() {
+    List<KvCacheStats> stats = new ArrayList<>(COUNTERS.size());
+    COUNTERS.forEach((name, c) -> stats.add(c.toStats(name)));
+    return stats;
+  }
+
+  /**
+   * Counters since the previous {@link #getStats()} snapshot, like the start of a pipeline run,
+   * stores without requests since the snapshot are skipped
+   */
+  public static List<KvCacheStats> getStatsSince(List<KvCacheStats> previous) {
+    Map<String, KvCacheStats> previousMap = new HashMap<>();
+    previous.forEach(s -> previousMap.put(s.getName(), s));
+    List<KvCacheStats> stats = new ArrayList<>();
+    for (KvCacheStats current : getStats()) {
+      KvCacheStats since = current.minus(previousMap.get(current.getName()));
+      if (since.getHits() + since.getMisses() > 0) {
+        stats.add(since);
+      }
+    }
+    return stats;
+  }
+
+  @Override
+  public V get(K key) {
+    if (key == null) {
+      return kvStore.get(null);
+    }
+
+    Optional<V> cached = cache.tier.get(key);
+    if (cached != null) {
+      counters.hits.increment();
+      inc(hitsName, 1L);
+      return cached.orElse(null);
+    }
+    counters.misses.increment();
+    inc(missesName, 1L);
+
+    CompletableFuture<Optional<V>> future = new CompletableFuture<>();
+    CompletableFuture<Optional<V>> loading = cache.loading.putIfAbsent(key, future);
+    if (loading != null) {
+      counters.coalesced.increment();
+      inc(coalescedName, 1L);
+      return join(loading);
+    }
+
+    try {
+      long start = System.nanoTime();
+      Optional<V> value = Optional.ofNullable(kvStore.get(key));
+      long loadNanos = System.nanoTime() - start;
+      counters.loadNanos.add(loadNanos);
+      inc(loadTimeName, TimeUnit.NANOSECONDS.toMicros(loadNanos));
+      cache.tier.put(key, value);
+      future.complete(value);
+      return value.orElse(null);
+    } catch (RuntimeException ex) {
+      future.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      cache.loading.remove(key, future);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    kvStore.close();
+  }
+
+  private void inc(String counterName, long value) {
+    if (counterFn != null) {
+      counterFn.accept(counterName, value);
+    }
+  }
+
+  private V join(CompletableFuture<Optional<V>> loading) {
+    try {
+      return loading.join().orElse(null);
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  /** Cache tier and keys which are being loaded right now */
+  private static class KvCache<K, V> {
+
+    private final KvCacheTier<K, V> tier;
+    private final Map<K, CompletableFuture<Optional<V>>> loading = new ConcurrentHashMap<>();
+
+    private KvCache(KvCacheTier<K, V> tier) {
+      this.tier = tier;
+    }
+
+    private static <K, V> KvCache<K, V> create(String name, KvCacheConfig config) {
+      KvCacheTier<K, V> tier =
+          config.getType() == KvCacheConfig.Type.OFF_HEAP
+              ? new OffHeapKvCacheTier<>(name, config)
+              : new CaffeineKvCacheTier<>(config);
+      return new KvCache<>(tier);
+    }
+  }
+
+  private static class Counters {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    private KvCacheStats toStats(String name) {
+      // the size is known only for a shared cache
+      long size = Optional.ofNullable(SHARED_CACHES.get(name)).map(c -> c.tier.size()).orElse(0L);
+      return new KvCacheStats(
+          name,
+          hits.sum(),
+          misses.sum(),
+          coalesced.sum(),
+          TimeUnit.NANOSECONDS.toMicros(loadNanos.sum()),
+          size);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package org.gbif.pipelines.core.kvs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.gbif.pipelines.core.config.model.KvCacheConfig;
+
+/**
+ * Caffeine W-TinyLFU cache, entries are weighed by an estimate of their heap size, so inserts don't
+ * serialize keys and values
+ */
+class CaffeineKvCacheTier<K, V> implements KvCacheTier<K, V> {
+
+  /** Size estimate of a key or a value which is not a string or a number */
+  static final int DEFAULT_SIZE_BYTES = 1_024;
+
+  private static final int OBJECT_SIZE_BYTES = 16;
+
+  private final Cache<K, Optional<V>> cache;
+
+  CaffeineKvCacheTier(KvCacheConfig config) {
+    Caffeine<Object, Object> builder =
+        Caffeine.newBuilder()
+            .maximumWeight(config.getMaxSizeMb() * 1024L * 1024L)
+            .weigher((Object k, Object v) -> sizeOf(k) + sizeOf(((Optional<?>) v).orElse(null)));
+    if (config.getExpireAfterAccessSec() > 0) {
+      builder.expireAfterAccess(config.getExpireAfterAccessSec(), TimeUnit.SECONDS);
+    }
+    this.cache = builder.build();
+  }
+
+  @Override
+  public Optional<V> get(K key) {
+    return cache.getIfPresent(key);
+  }
+
+  @Override
+  public void put(K key, Optional<V> value) {
+    cache.put(key, value);
+  }
+
+  @Override
+  public long size() {
+    return cache.estimatedSize();
+  }
+
+  /** Heap size estimate, strings by length, numbers as one object, other objects by default */
+  static int sizeOf(Object object) {
+    if (object == null) {
+      return 0;
+    }
+    if (object instanceof CharSequence) {
+      return OBJECT_SIZE_BYTES * 2 + ((CharSequence) object).length() * 2;
+    }
+    if (object instanceof Number || object instanceof Boolean || object instanceof Enum) {
+      return OBJECT_SIZE_BYTES;
+    }
+    return DEFAULT_SIZE_BYTES;
+  }
+}
@@ -0,0 +1,31 @@
+package org.gbif.pipelines.core.kvs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+
+/** Java serialization of cache keys and values */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class JavaSerDe {
+
+  @SneakyThrows
+  static byte[] toBytes(Object object) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+      oos.writeObject(object);
+    }
+    return out.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  @SneakyThrows
+  static <T> T fromBytes(byte[] bytes) {
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (T) ois.readObject();
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package org.gbif.pipelines.core.kvs;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Value;
+
+/** Snapshot of {@link CachedKeyValueStore} counters, all stores with the same name are summed */
+@Value
+public class KvCacheStats {
+
+  public static final String HITS = "Hits";
+  public static final String MISSES = "Misses";
+  public static final String COALESCED = "Coalesced";
+  public static final String LOAD_TIME_MICROS = "LoadTimeMicros";
+
+  String name;
+  long hits;
+  long misses;
+  /** Misses which waited for a concurrent load of the same key instead of calling the store */
+  long coalesced;
+
+  long loadTimeMicros;
+  long size;
+
+  public double getHitRatio() {
+    long requests = hits + misses;
+    return requests == 0 ? 0d : (double) hits / requests;
+  }
+
+  /** Counters since the previous snapshot, the size is the current size */
+  public KvCacheStats minus(KvCacheStats previous) {
+    if (previous == null) {
+      return this;
+    }
+    return new KvCacheStats(
+        name,
+        hits - previous.hits,
+        misses - previous.misses,
+        coalesced - previous.coalesced,
+        loadTimeMicros - previous.loadTimeMicros,
+        size);
+  }
+
+  /** Counters by metric names, like geocodeKvCacheHits */
+  public Map<String, Long> toCounters() {
+    Map<String, Long> counters = new LinkedHashMap<>();
+    counters.put(counterName(name, HITS), hits);
+    counters.put(counterName(name, MISSES), misses);
+    counters.put(counterName(name, COALESCED), coalesced);
+    counters.put(counterName(name, LOAD_TIME_MICROS), loadTimeMicros);
+    return counters;
+  }
+
+  public static String counterName(String storeName, String counter) {
+    return storeName + "KvCache" + counter;
+  }
+}
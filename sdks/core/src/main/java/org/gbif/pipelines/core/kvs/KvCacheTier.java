@@ -0,0 +1,16 @@
+package org.gbif.pipelines.core.kvs;
+
+import java.util.Optional;
+
+/**
+ * Storage of {@link CachedKeyValueStore}, a cached null value is stored as {@link Optional#empty()}
+ */
+interface KvCacheTier<K, V> {
+
+  /** Returns null if the key is not cached */
+  Optional<V> get(K key);
+
+  void put(K key, Optional<V> value);
+
+  long size();
+}
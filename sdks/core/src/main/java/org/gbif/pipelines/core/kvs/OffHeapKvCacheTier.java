@@ -0,0 +1,63 @@
+package org.gbif.pipelines.core.kvs;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.gbif.pipelines.core.config.model.KvCacheConfig;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+
+/**
+ * MapDB hash map in direct memory, entries are stored java serialized, so the cache doesn't add GC
+ * pressure.
+ *
+ * <p>An entry is stored by the hash code of its key, the key is serialized with the value and
+ * compared on lookup, so a lookup doesn't serialize the key. Keys with the same hash code replace
+ * each other, which costs a miss, not a wrong value.
+ */
+class OffHeapKvCacheTier<K, V> implements KvCacheTier<K, V> {
+
+  private final HTreeMap<Integer, byte[]> map;
+
+  OffHeapKvCacheTier(String name, KvCacheConfig config) {
+    DB db = DBMaker.memoryDirectDB().make();
+    DB.HashMapMaker<Integer, byte[]> maker =
+        db.hashMap(name, Serializer.INTEGER, Serializer.BYTE_ARRAY)
+            .expireStoreSize(config.getMaxSizeMb() * 1024L * 1024L);
+    if (config.getExpireAfterAccessSec() > 0) {
+      maker =
+          maker
+              .expireAfterCreate(config.getExpireAfterAccessSec(), TimeUnit.SECONDS)
+              .expireAfterGet(config.getExpireAfterAccessSec(), TimeUnit.SECONDS);
+    } else {
+      maker = maker.expireAfterCreate().expireAfterGet();
+    }
+    this.map = maker.create();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Optional<V> get(K key) {
+    byte[] bytes = map.get(key.hashCode());
+    if (bytes == null) {
+      return null;
+    }
+    Object[] entry = JavaSerDe.fromBytes(bytes);
+    if (!Objects.equals(key, entry[0])) {
+      return null;
+    }
+    return Optional.ofNullable((V) entry[1]);
+  }
+
+  @Override
+  public void put(K key, Optional<V> value) {
+    map.put(key.hashCode(), JavaSerDe.toBytes(new Object[] {key, value.orElse(null)}));
+  }
+
+  @Override
+  public long size() {
+    return map.sizeLong();
+  }
+}
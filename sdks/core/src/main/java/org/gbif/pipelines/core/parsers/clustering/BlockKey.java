@@ -0,0 +1,22 @@
+package org.gbif.pipelines.core.parsers.clustering;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Chain of keys of one blocking strategy, from the coarsest block to the finest. All records of a
+ * block have the same next level key or none, an oversized block is split by the next level keys.
+ */
+@Value(staticConstructor = "create")
+public class BlockKey implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  List<String> levels;
+
+  /** Key of the coarsest block */
+  public String getKey() {
+    return levels.get(0);
+  }
+}
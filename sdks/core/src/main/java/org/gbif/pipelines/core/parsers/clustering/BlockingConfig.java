@@ -0,0 +1,33 @@
+package org.gbif.pipelines.core.parsers.clustering;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+/** Settings of {@link CandidateBlocking} */
+@Value
+@Builder
+public class BlockingConfig implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /** Geohash precisions of grid blocks, from the coarsest to the finest */
+  @Builder.Default List<Integer> gridPrecisions = Arrays.asList(4, 5, 6, 7);
+
+  /** Adds blocks of a grid shifted by half of a cell, for points close to cell borders */
+  @Builder.Default boolean shiftedGrid = true;
+
+  /** Number of LSH bands, more bands find pairs of lower identifier similarity */
+  @Builder.Default int lshBands = 10;
+
+  /** Number of MinHash values per LSH band, more rows make band blocks smaller */
+  @Builder.Default int lshRows = 3;
+
+  /** Length of identifier shingles */
+  @Builder.Default int shingleSize = 3;
+
+  /** Blocks with more records are split into smaller blocks */
+  @Builder.Default int maxBlockSize = 1_000;
+}
@@ -0,0 +1,18 @@
+package org.gbif.pipelines.core.parsers.clustering;
+
+import java.util.List;
+import lombok.Value;
+
+/** Block of records compared pairwise */
+@Value(staticConstructor = "create")
+public class CandidateBlock<T> {
+
+  String key;
+  List<T> records;
+
+  /** Number of pairs to compare */
+  public long getPairs() {
+    long n = records.size();
+    return n * (n - 1) / 2;
+  }
+}
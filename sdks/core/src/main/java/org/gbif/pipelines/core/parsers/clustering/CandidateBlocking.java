@@ -0,0 +1,273 @@
+package org.gbif.pipelines.core.parsers.clustering;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Blocking of occurrences for the candidate generation of clustering, in addition to the exact
+ * hashes of identifiers and coordinates:
+ *
+ * <ul>
+ *   <li>grid blocks - species, {@link GeoHash} cell and date, refined from year and the coarsest
+ *       cell to the day and the finest cell, optionally with a second grid shifted by half of a
+ *       cell to keep pairs close to cell borders
+ *   <li>LSH blocks - bands of MinHash signatures of identifier shingles and collector name tokens,
+ *       records with similar but not equal identifiers share a band with a high probability,
+ *       refined by species and year
+ * </ul>
+ *
+ * <p>Oversized blocks are split by the next level keys of {@link BlockKey} instead of being
+ * dropped, blocks without finer levels are dropped.
+ */
+public class CandidateBlocking implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String UNKNOWN = "?";
+  private static final String SEPARATOR = "|";
+  private static final HashFunction HASH = Hashing.murmur3_128();
+
+  private final BlockingConfig config;
+  private final long[] seeds;
+
+  private CandidateBlocking(BlockingConfig config) {
+    if (config.getMaxBlockSize() < 2) {
+      throw new IllegalArgumentException("Max block size must be greater than 1");
+    }
+    this.config = config;
+    this.seeds = new long[config.getLshBands() * config.getLshRows()];
+    for (int i = 0; i < seeds.length; i++) {
+      seeds[i] = mix(i + 1L);
+    }
+  }
+
+  public static CandidateBlocking create(BlockingConfig config) {
+    return new CandidateBlocking(config);
+  }
+
+  /** Grid and LSH block keys of the record */
+  public List<BlockKey> blockKeys(OccurrenceFeatures o) {
+    List<BlockKey> keys = new ArrayList<>();
+    gridKey(o, false).ifPresent(keys::add);
+    if (config.isShiftedGrid()) {
+      gridKey(o, true).ifPresent(keys::add);
+    }
+    keys.addAll(lshKeys(o));
+    return keys;
+  }
+
+  /**
+   * Splits the block into blocks of at most {@link BlockingConfig#getMaxBlockSize()} records,
+   * blocks of one record are skipped. Records of an oversized block without a finer level, like
+   * records of exact hashes, are dropped as the pairwise comparison of all of them is too costly.
+   *
+   * @param key block key, a level key of {@link #blockKeys} or any other hash
+   * @param records records of the block
+   */
+  public <T extends OccurrenceFeatures> List<CandidateBlock<T>> split(String key, List<T> records) {
+    List<CandidateBlock<T>> result = new ArrayList<>();
+    if (records.size() <= config.getMaxBlockSize()) {
+      if (records.size() > 1) {
+        result.add(CandidateBlock.create(key, records));
+      }
+      return result;
+    }
+    Map<T, List<BlockKey>> keys = new IdentityHashMap<>(records.size());
+    records.forEach(r -> keys.put(r, blockKeys(r)));
+    split(key, records, keys::get, result);
+    return result;
+  }
+
+  /**
+   * Key of the finer block of the record within the block, for splitting oversized blocks record by
+   * record without grouping them, see {@link #split}
+   *
+   * @param key block key, a level key of {@link #blockKeys} or any other hash
+   * @return empty if the block has no finer level
+   */
+  public Optional<String> nextLevelKey(String key, OccurrenceFeatures o) {
+    return Optional.ofNullable(nextLevel(key, blockKeys(o)));
+  }
+
+  private <T> void split(
+      String key,
+      List<T> records,
+      Function<T, List<BlockKey>> keysFn,
+      List<CandidateBlock<T>> result) {
+    if (records.size() <= config.getMaxBlockSize()) {
+      if (records.size() > 1) {
+        result.add(CandidateBlock.create(key, records));
+      }
+      return;
+    }
+
+    Map<String, List<T>> blocks = new LinkedHashMap<>();
+    for (T record : records) {
+      String next = nextLevel(key, keysFn.apply(record));
+      if (next != null) {
+        blocks.computeIfAbsent(next, k -> new ArrayList<>()).add(record);
+      }
+    }
+    blocks.forEach((k, v) -> split(k, v, keysFn, result));
+  }
+
+  private static String nextLevel(String key, List<BlockKey> keys) {
+    for (BlockKey bk : keys) {
+      List<String> levels = bk.getLevels();
+      for (int i = 0; i < levels.size() - 1; i++) {
+        if (levels.get(i).equals(key)) {
+          return levels.get(i + 1);
+        }
+      }
+    }
+    return null;
+  }
+
+  private Optional<BlockKey> gridKey(OccurrenceFeatures o, boolean shifted) {
+    Double lat = o.getDecimalLatitude();
+    Double lng = o.getDecimalLongitude();
+    if (lat == null
+        || lng == null
+        || o.getSpeciesKey() == null
+        || Math.abs(lat) > 90d
+        || Math.abs(lng) > 180d) {
+      return Optional.empty();
+    }
+
+    List<String> levels = new ArrayList<>();
+    List<Integer> precisions = config.getGridPrecisions();
+    for (int i = 0; i < precisions.size(); i++) {
+      int p = precisions.get(i);
+      String cell = shifted ? GeoHash.encodeShifted(lat, lng, p) : GeoHash.encode(lat, lng, p);
+      levels.add(
+          String.join(
+              SEPARATOR,
+              shifted ? "grids" : "grid",
+              Integer.toString(p),
+              o.getSpeciesKey(),
+              cell,
+              date(o, i)));
+    }
+    return Optional.of(BlockKey.create(levels));
+  }
+
+  /** Year, year-month and full date as levels get finer */
+  private static String date(OccurrenceFeatures o, int level) {
+    String year = toString(o.getYear());
+    if (level == 0) {
+      return year;
+    }
+    String month = year + "-" + toString(o.getMonth());
+    if (level == 1) {
+      return month;
+    }
+    return month + "-" + toString(o.getDay());
+  }
+
+  private List<BlockKey> lshKeys(OccurrenceFeatures o) {
+    Set<String> identifiers = identifierShingles(o);
+    if (identifiers.isEmpty() || config.getLshBands() < 1) {
+      return new ArrayList<>(0);
+    }
+    Set<String> tokens = new LinkedHashSet<>(identifiers);
+    tokens.addAll(recorderTokens(o));
+
+    long[] signature = minHash(tokens);
+    String species = o.getSpeciesKey() != null ? o.getSpeciesKey() : UNKNOWN;
+    String year = toString(o.getYear());
+
+    List<BlockKey> keys = new ArrayList<>(config.getLshBands());
+    int rows = config.getLshRows();
+    for (int b = 0; b < config.getLshBands(); b++) {
+      long h = b;
+      for (int r = 0; r < rows; r++) {
+        h = mix(h ^ signature[b * rows + r]);
+      }
+      String band = "lsh" + SEPARATOR + b + SEPARATOR + Long.toHexString(h);
+      String bandSpecies = band + SEPARATOR + species;
+      List<String> levels = new ArrayList<>(3);
+      levels.add(band);
+      levels.add(bandSpecies);
+      levels.add(bandSpecies + SEPARATOR + year);
+      keys.add(BlockKey.create(levels));
+    }
+    return keys;
+  }
+
+  /** Shingles of normalised non numeric identifiers, short identifiers are used as is */
+  Set<String> identifierShingles(OccurrenceFeatures o) {
+    int k = config.getShingleSize();
+    Set<String> shingles = new LinkedHashSet<>();
+    o.listIdentifiers().stream()
+        .map(id -> OccurrenceRelationships.hashOrNull(id, false))
+        .filter(Objects::nonNull)
+        .forEach(
+            id -> {
+              if (id.length() <= k) {
+                shingles.add("i:" + id);
+              } else {
+                for (int i = 0; i + k <= id.length(); i++) {
+                  shingles.add("i:" + id.substring(i, i + k));
+                }
+              }
+            });
+    return shingles;
+  }
+
+  /** Lower case tokens of collector names */
+  static Set<String> recorderTokens(OccurrenceFeatures o) {
+    Set<String> tokens = new LinkedHashSet<>();
+    if (o.getRecordedBy() != null) {
+      for (String name : o.getRecordedBy()) {
+        if (name != null) {
+          for (String t : name.toLowerCase(Locale.ROOT).split("[^\\p{L}]+")) {
+            if (t.length() > 1) {
+              tokens.add("r:" + t);
+            }
+          }
+        }
+      }
+    }
+    return tokens;
+  }
+
+  private long[] minHash(Set<String> tokens) {
+    long[] signature = new long[seeds.length];
+    Arrays.fill(signature, Long.MAX_VALUE);
+    for (String token : tokens) {
+      long base = HASH.hashString(token, StandardCharsets.UTF_8).asLong();
+      for (int i = 0; i < seeds.length; i++) {
+        long h = mix(base ^ seeds[i]);
+        if (h < signature[i]) {
+          signature[i] = h;
+        }
+      }
+    }
+    return signature;
+  }
+
+  /** SplitMix64 finalizer */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  private static String toString(Integer value) {
+    return value != null ? value.toString() : UNKNOWN;
+  }
+}
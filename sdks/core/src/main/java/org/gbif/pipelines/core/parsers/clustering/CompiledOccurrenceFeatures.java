@@ -0,0 +1,265 @@
+package org.gbif.pipelines.core.parsers.clustering;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of the {@link OccurrenceFeatures} compared by {@link
+ * OccurrenceRelationships#assertionMask}, computed once per record instead of once per pair:
+ * identifiers are normalised, interned and hashed, dates are epoch days and type status and basis
+ * of record are flags. Comparing two snapshots doesn't allocate.
+ *
+ * <pre>{@code
+ * List<CompiledOccurrenceFeatures<T>> compiled = CompiledOccurrenceFeatures.compile(candidates);
+ * RelationshipAssertion<T> assertion = OccurrenceRelationships.generate(compiled.get(0), compiled.get(1));
+ * }</pre>
+ */
+public final class CompiledOccurrenceFeatures<T extends OccurrenceFeatures> {
+
+  static final long NO_DATE = Long.MIN_VALUE;
+  static final int NO_VALUE = Integer.MIN_VALUE;
+
+  private static final Interner<String> INTERNER = Interners.newWeakInterner();
+  private static final HashFunction HASH = Hashing.murmur3_128();
+
+  private final T features;
+
+  final String speciesKey;
+  final String taxonKey;
+  final String scientificName;
+  final String countryCode;
+  final String eventDate;
+
+  final int year;
+  final int month;
+  final int day;
+  final long epochDay;
+  final boolean noDate;
+
+  final boolean hasLatitude;
+  final boolean hasLongitude;
+  final double latitude;
+  final double longitude;
+
+  final boolean holotype;
+  final boolean typeStatus;
+  final boolean specimen;
+  final boolean sequenceRepository;
+
+  final ValueSet identifiers;
+  final ValueSet recordedBy;
+  final ValueSet otherCatalogNumbers;
+  final String catalogNumber;
+  final long catalogNumberHash;
+
+  private CompiledOccurrenceFeatures(T o) {
+    this.features = o;
+
+    this.speciesKey = intern(o.getSpeciesKey());
+    this.taxonKey = intern(o.getTaxonKey());
+    this.scientificName = intern(o.getScientificName());
+    this.countryCode = intern(o.getCountryCode());
+    this.eventDate = intern(o.getEventDate());
+
+    this.year = o.getYear() != null ? o.getYear() : NO_VALUE;
+    this.month = o.getMonth() != null ? o.getMonth() : NO_VALUE;
+    this.day = o.getDay() != null ? o.getDay() : NO_VALUE;
+    this.epochDay = epochDay(o.getYear(), o.getMonth(), o.getDay());
+    this.noDate =
+        OccurrenceRelationships.allNull(o.getEventDate(), o.getDay(), o.getMonth(), o.getYear());
+
+    this.hasLatitude = o.getDecimalLatitude() != null;
+    this.hasLongitude = o.getDecimalLongitude() != null;
+    this.latitude = hasLatitude ? o.getDecimalLatitude() : Double.NaN;
+    this.longitude = hasLongitude ? o.getDecimalLongitude() : Double.NaN;
+
+    this.holotype = OccurrenceRelationships.containsIgnoreCase(o.getTypeStatus(), "HOLOTYPE");
+    this.typeStatus = OccurrenceRelationships.notEmpty(o.getTypeStatus());
+    this.specimen = OccurrenceRelationships.isSpecimen(o.getBasisOfRecord());
+    this.sequenceRepository = o.isFromSequenceRepository();
+
+    this.identifiers =
+        ValueSet.of(
+            o.listIdentifiers().stream()
+                .map(OccurrenceRelationships::normalizeID)
+                .filter(id -> id != null && !OccurrenceRelationships.isOmittedID(id))
+                .collect(Collectors.toList()));
+
+    this.recordedBy =
+        ValueSet.of(
+            o.getRecordedBy() == null
+                ? null
+                : o.getRecordedBy().stream()
+                    .filter(Objects::nonNull)
+                    .map(CompiledOccurrenceFeatures::foldCase)
+                    .collect(Collectors.toList()));
+
+    this.otherCatalogNumbers =
+        ValueSet.of(
+            o.getOtherCatalogNumbers() == null
+                ? null
+                : o.getOtherCatalogNumbers().stream()
+                    .filter(Objects::nonNull)
+                    .map(OccurrenceRelationships::normalizeCatalogNumber)
+                    .filter(OccurrenceRelationships::isComparableCatalogNumber)
+                    .collect(Collectors.toList()));
+
+    String cn =
+        OccurrenceRelationships.normalizeID(
+            OccurrenceRelationships.concatIfEligible(
+                ":", o.getInstitutionCode(), o.getCollectionCode(), o.getCatalogNumber()));
+    this.catalogNumber = OccurrenceRelationships.isComparableCatalogNumber(cn) ? intern(cn) : null;
+    this.catalogNumberHash = catalogNumber != null ? hash(catalogNumber) : 0L;
+  }
+
+  public static <T extends OccurrenceFeatures> CompiledOccurrenceFeatures<T> compile(T features) {
+    return new CompiledOccurrenceFeatures<>(features);
+  }
+
+  public static <T extends OccurrenceFeatures> List<CompiledOccurrenceFeatures<T>> compile(
+      Collection<T> features) {
+    return features.stream().map(CompiledOccurrenceFeatures::compile).collect(Collectors.toList());
+  }
+
+  /** The source features */
+  public T get() {
+    return features;
+  }
+
+  /** Days since epoch or {@link #NO_DATE} if a part is missing or the date is invalid */
+  static long epochDay(Integer year, Integer month, Integer day) {
+    if (year == null || month == null || day == null) {
+      return NO_DATE;
+    }
+    try {
+      return LocalDate.of(year, month, day).toEpochDay();
+    } catch (DateTimeException ex) {
+      return NO_DATE;
+    }
+  }
+
+  /**
+   * Case folding matching {@link String#equalsIgnoreCase}, the folded values are equal if and only
+   * if the values are equal ignoring case
+   */
+  static String foldCase(String value) {
+    char[] chars = value.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+    }
+    return new String(chars);
+  }
+
+  private static String intern(String value) {
+    return value != null ? INTERNER.intern(value) : null;
+  }
+
+  private static long hash(String value) {
+    return HASH.hashString(value, StandardCharsets.UTF_8).asLong();
+  }
+
+  /** Distinct values sorted by hash, for intersections without allocations */
+  static final class ValueSet {
+
+    private static final ValueSet EMPTY = new ValueSet(new long[0], new String[0]);
+
+    private final long[] hashes;
+    private final String[] values;
+
+    private ValueSet(long[] hashes, String[] values) {
+      this.hashes = hashes;
+      this.values = values;
+    }
+
+    static ValueSet of(Collection<String> values) {
+      if (values == null || values.isEmpty()) {
+        return EMPTY;
+      }
+      Set<String> distinct = new LinkedHashSet<>(values);
+      HashedValue[] hashed =
+          distinct.stream()
+              .map(v -> new HashedValue(hash(v), intern(v)))
+              .sorted((a, b) -> Long.compare(a.hash, b.hash))
+              .toArray(HashedValue[]::new);
+      long[] hashes = new long[hashed.length];
+      String[] strings = new String[hashed.length];
+      for (int i = 0; i < hashed.length; i++) {
+        hashes[i] = hashed[i].hash;
+        strings[i] = hashed[i].value;
+      }
+      return new ValueSet(hashes, strings);
+    }
+
+    boolean isEmpty() {
+      return hashes.length == 0;
+    }
+
+    boolean contains(String value, long hash) {
+      int i = Arrays.binarySearch(hashes, hash);
+      if (i < 0) {
+        return false;
+      }
+      // binary search finds any of the values with the same hash
+      while (i > 0 && hashes[i - 1] == hash) {
+        i--;
+      }
+      for (; i < hashes.length && hashes[i] == hash; i++) {
+        if (values[i].equals(value)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    boolean intersects(ValueSet other) {
+      int i = 0;
+      int j = 0;
+      while (i < hashes.length && j < other.hashes.length) {
+        long h = hashes[i];
+        long o = other.hashes[j];
+        if (h < o) {
+          i++;
+        } else if (h > o) {
+          j++;
+        } else {
+          for (int a = i; a < hashes.length && hashes[a] == h; a++) {
+            for (int b = j; b < other.hashes.length && other.hashes[b] == h; b++) {
+              if (values[a].equals(other.values[b])) {
+                return true;
+              }
+            }
+          }
+          while (i < hashes.length && hashes[i] == h) {
+            i++;
+          }
+          while (j < other.hashes.length && other.hashes[j] == h) {
+            j++;
+          }
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class HashedValue {
+    private final long hash;
+    private final String value;
+
+    private HashedValue(long hash, String value) {
+      this.hash = hash;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package org.gbif.pipelines.core.parsers.clustering;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Geohash cells of coordinates, see https://en.wikipedia.org/wiki/Geohash. A hash of a precision is
+ * the prefix of all hashes of greater precisions, so cells of several precisions form a hierarchy.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class GeoHash {
+
+  public static final int MAX_PRECISION = 12;
+
+  private static final char[] BASE_32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+  /** Geohash of the coordinates with the precision in characters */
+  public static String encode(double latitude, double longitude, int precision) {
+    if (precision < 1 || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException("Geohash precision must be 1.." + MAX_PRECISION);
+    }
+    if (latitude < -90d || latitude > 90d || longitude < -180d || longitude > 180d) {
+      throw new IllegalArgumentException(
+          "Coordinates out of range: " + latitude + ", " + longitude);
+    }
+
+    double[] lat = {-90d, 90d};
+    double[] lng = {-180d, 180d};
+    StringBuilder hash = new StringBuilder(precision);
+    boolean even = true;
+    int bit = 0;
+    int ch = 0;
+    while (hash.length() < precision) {
+      double[] range = even ? lng : lat;
+      double value = even ? longitude : latitude;
+      double mid = (range[0] + range[1]) / 2;
+      if (value >= mid) {
+        ch = ch << 1 | 1;
+        range[0] = mid;
+      } else {
+        ch = ch << 1;
+        range[1] = mid;
+      }
+      even = !even;
+      if (++bit == 5) {
+        hash.append(BASE_32[ch]);
+        bit = 0;
+        ch = 0;
+      }
+    }
+    return hash.toString();
+  }
+
+  /**
+   * Geohash of the coordinates moved by half of the cell size of the precision to the north-east,
+   * points close to a cell border of {@link #encode} are in the middle of a shifted cell
+   */
+  public static String encodeShifted(double latitude, double longitude, int precision) {
+    double lat = Math.min(90d, latitude + cellHeight(precision) / 2);
+    double lng = longitude + cellWidth(precision) / 2;
+    if (lng > 180d) {
+      lng -= 360d;
+    }
+    return encode(lat, lng, precision);
+  }
+
+  /** Cell width in degrees of longitude */
+  public static double cellWidth(int precision) {
+    int bits = (5 * precision + 1) / 2;
+    return 360d / (1L << bits);
+  }
+
+  /** Cell height in degrees of latitude */
+  public static double cellHeight(int precision) {
+    int bits = 5 * precision / 2;
+    return 180d / (1L << bits);
+  }
+}
@@ -4,16 +4,18 @@ import static org.gbif.pipelines.core.parsers.clustering.RelationshipAssertion.F
 import static org.gbif.pipelines.core.parsers.clustering.RelationshipAssertion.FeatureAssertion.IDENTIFIERS_OVERLAP;
 
 import com.google.common.annotations.VisibleForTesting;
-import java.time.LocalDate;
 import java.util.*;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.gbif.pipelines.core.parsers.clustering.RelationshipAssertion.FeatureAssertion;
 
 /** Generates relationship assertions for occurrence records. */
 public class OccurrenceRelationships {
-  private static final String REGEX_IDENTIFIERS =
-      "[-.*,_ :|/\\\\#%&]"; // chars to remove from identifiers
+  private static final Pattern REGEX_IDENTIFIERS =
+      Pattern.compile("[-.*,_ :|/\\\\#%&]"); // chars to remove from identifiers
+
+  private static final Pattern CATALOG_NUMBER_PREFIX = Pattern.compile("^[Cc]at[.#]");
 
   private static final int THRESHOLD_IN_DAYS = 1;
 
@@ -25,6 +27,32 @@ public class OccurrenceRelationships {
           Arrays.asList(
               "PRESERVED_SPECIMEN", "LIVING_SPECIMEN", "FOSSIL_SPECIMEN", "MATERIAL_CITATION"));
 
+  // fact combinations that are of interest as assertions
+  private static final int[] PASS_CONDITIONS = {
+    maskOf(SAME_ACCEPTED_SPECIES, SAME_COORDINATES, SAME_DATE),
+    maskOf(SAME_ACCEPTED_SPECIES, WITHIN_200m, SAME_DATE),
+    maskOf(SAME_ACCEPTED_SPECIES, SAME_COORDINATES, NON_CONFLICTING_DATE, IDENTIFIERS_OVERLAP),
+    maskOf(SAME_ACCEPTED_SPECIES, WITHIN_200m, NON_CONFLICTING_DATE, IDENTIFIERS_OVERLAP),
+    maskOf(SAME_ACCEPTED_SPECIES, WITHIN_2Km, SAME_DATE, IDENTIFIERS_OVERLAP),
+    maskOf(SAME_ACCEPTED_SPECIES, WITHIN_2Km, NON_CONFLICTING_DATE, IDENTIFIERS_OVERLAP),
+    maskOf(SAME_ACCEPTED_SPECIES, NON_CONFLICTING_COORDINATES, SAME_DATE, IDENTIFIERS_OVERLAP),
+    maskOf(SAME_ACCEPTED_SPECIES, SAME_COORDINATES, APPROXIMATE_DATE, SAME_RECORDER_NAME),
+    maskOf(SAME_ACCEPTED_SPECIES, WITHIN_2Km, APPROXIMATE_DATE, SAME_RECORDER_NAME)
+  };
+
+  private static final int SEQUENCE_REPOSITORY_PASS_CONDITION =
+      maskOf(
+          SAME_ACCEPTED_SPECIES,
+          NON_CONFLICTING_COORDINATES,
+          NON_CONFLICTING_DATE,
+          IDENTIFIERS_OVERLAP);
+
+  private static final int SPECIMEN_PASS_CONDITION = maskOf(OTHER_CATALOG_NUMBERS_OVERLAP);
+
+  private static final int ALWAYS_OF_INTEREST = maskOf(SAME_SPECIMEN, TYPIFICATION_RELATION);
+
+  private static final int ALWAYS_EXCLUDED = maskOf(DIFFERENT_DATE, DIFFERENT_COUNTRY);
+
   /** Will either generate an assertion with justification or return null. */
   public static <T extends OccurrenceFeatures> RelationshipAssertion<T> generate(T o1, T o2) {
 
@@ -43,68 +71,48 @@ public class OccurrenceRelationships {
     assertSameSpecimen(o1, o2, assertion);
     assertTypification(o1, o2, assertion);
 
+    boolean isOfInterest =
+        isOfInterest(
+            assertion.getJustificationMask(),
+            o1.isFromSequenceRepository() || o2.isFromSequenceRepository(),
+            isSpecimen(o1.getBasisOfRecord()) && isSpecimen(o2.getBasisOfRecord()));
+    return isOfInterest ? assertion : null;
+  }
+
+  /**
+   * @param mask collected facts
+   * @param sequenceRepository one of the records is from a sequence repository
+   * @param specimens both records are specimens
+   * @return true if the facts are a relationship
+   */
+  private static boolean isOfInterest(int mask, boolean sequenceRepository, boolean specimens) {
     // short circuit: typification events and duplicate specimens are always of interest
-    if (assertion.justificationContains(SAME_SPECIMEN)
-        || assertion.justificationContains(TYPIFICATION_RELATION)) {
-      return assertion;
+    if ((mask & ALWAYS_OF_INTEREST) != 0) {
+      return true;
+    }
+
+    // always exclude things on different location or date
+    if ((mask & ALWAYS_EXCLUDED) != 0) {
+      return false;
     }
 
-    // fact combinations that are of interest as assertions
-    List<FeatureAssertion[]> passConditions =
-        new ArrayList<>(
-            Arrays.asList(
-                new FeatureAssertion[][] {
-                  {SAME_ACCEPTED_SPECIES, SAME_COORDINATES, SAME_DATE},
-                  {SAME_ACCEPTED_SPECIES, WITHIN_200m, SAME_DATE},
-                  {
-                    SAME_ACCEPTED_SPECIES,
-                    SAME_COORDINATES,
-                    NON_CONFLICTING_DATE,
-                    IDENTIFIERS_OVERLAP
-                  },
-                  {SAME_ACCEPTED_SPECIES, WITHIN_200m, NON_CONFLICTING_DATE, IDENTIFIERS_OVERLAP},
-                  {SAME_ACCEPTED_SPECIES, WITHIN_2Km, SAME_DATE, IDENTIFIERS_OVERLAP},
-                  {SAME_ACCEPTED_SPECIES, WITHIN_2Km, NON_CONFLICTING_DATE, IDENTIFIERS_OVERLAP},
-                  {
-                    SAME_ACCEPTED_SPECIES,
-                    NON_CONFLICTING_COORDINATES,
-                    SAME_DATE,
-                    IDENTIFIERS_OVERLAP
-                  },
-                  {SAME_ACCEPTED_SPECIES, SAME_COORDINATES, APPROXIMATE_DATE, SAME_RECORDER_NAME},
-                  {SAME_ACCEPTED_SPECIES, WITHIN_2Km, APPROXIMATE_DATE, SAME_RECORDER_NAME},
-                }));
+    // for any ruleset that matches we generate the assertion
+    for (int conditions : PASS_CONDITIONS) {
+      if ((mask & conditions) == conditions) {
+        return true;
+      }
+    }
 
     // Accommodate sparse data from sequence repositories
     // see https://github.com/gbif/pipelines/issues/733
-    if (o1.isFromSequenceRepository() || o2.isFromSequenceRepository()) {
-      passConditions.add(
-          new FeatureAssertion[] {
-            SAME_ACCEPTED_SPECIES,
-            NON_CONFLICTING_COORDINATES,
-            NON_CONFLICTING_DATE,
-            IDENTIFIERS_OVERLAP
-          });
+    if (sequenceRepository
+        && (mask & SEQUENCE_REPOSITORY_PASS_CONDITION) == SEQUENCE_REPOSITORY_PASS_CONDITION) {
+      return true;
     }
 
     // Relax rules to accommodate well-formed otherCatalogNumber assertions
     // See https://github.com/gbif/pipelines/issues/781
-    if (SPECIMEN_BORS.contains(o1.getBasisOfRecord())
-        && SPECIMEN_BORS.contains(o2.getBasisOfRecord())) {
-      passConditions.add(new FeatureAssertion[] {OTHER_CATALOG_NUMBERS_OVERLAP});
-    }
-
-    // always exclude things on different location or date
-    if (assertion.justificationDoesNotContain(DIFFERENT_DATE, DIFFERENT_COUNTRY)) {
-      // for any ruleset that matches we generate the assertion
-      for (FeatureAssertion[] conditions : passConditions) {
-        if (assertion.justificationContainsAll(conditions)) {
-          return assertion;
-        }
-      }
-    }
-
-    return null;
+    return specimens && (mask & SPECIMEN_PASS_CONDITION) == SPECIMEN_PASS_CONDITION;
   }
 
   /**
@@ -185,14 +193,19 @@ public class OccurrenceRelationships {
         && o2.getYear() != null
         && o2.getMonth() != null
         && o2.getDay() != null) {
-      LocalDate d1 = LocalDate.of(o1.getYear(), o1.getMonth(), o1.getDay());
-      LocalDate d2 = LocalDate.of(o2.getYear(), o2.getMonth(), o2.getDay());
-      int daysApart = Math.abs(d1.until(d2).getDays());
-      return daysApart <= THRESHOLD_IN_DAYS;
+      return withinDays(
+          CompiledOccurrenceFeatures.epochDay(o1.getYear(), o1.getMonth(), o1.getDay()),
+          CompiledOccurrenceFeatures.epochDay(o2.getYear(), o2.getMonth(), o2.getDay()));
     }
     return false;
   }
 
+  private static boolean withinDays(long epochDay1, long epochDay2) {
+    return epochDay1 != CompiledOccurrenceFeatures.NO_DATE
+        && epochDay2 != CompiledOccurrenceFeatures.NO_DATE
+        && Math.abs(epochDay1 - epochDay2) <= THRESHOLD_IN_DAYS;
+  }
+
   private static <T extends OccurrenceFeatures> void compareCollectors(
       OccurrenceFeatures o1, OccurrenceFeatures o2, RelationshipAssertion<T> assertion) {
     if (intersectWithValues(o1.getRecordedBy(), o2.getRecordedBy())) {
@@ -306,20 +319,141 @@ public class OccurrenceRelationships {
     Set<String> codes =
         Stream.of(concatIfEligible(":", ic, cc, cn))
             .map(OccurrenceRelationships::normalizeID)
-            .filter(c -> isEligibleCode(c) && !isNumeric(c))
+            .filter(OccurrenceRelationships::isComparableCatalogNumber)
             .collect(Collectors.toSet());
 
     Set<String> targetCodes =
         target.stream()
-            .map(c -> c.replaceFirst("^[Cc]at[.#]", "")) // remove common prefixes of Cat. Cat#
-            .map(OccurrenceRelationships::normalizeID)
-            .filter(c -> isEligibleCode(c) && !isNumeric(c))
+            .map(OccurrenceRelationships::normalizeCatalogNumber)
+            .filter(OccurrenceRelationships::isComparableCatalogNumber)
             .collect(Collectors.toSet());
 
     targetCodes.retainAll(codes);
     return !targetCodes.isEmpty();
   }
 
+  /** Removes the common Cat. and Cat# prefixes and normalises the code */
+  static String normalizeCatalogNumber(String code) {
+    return normalizeID(CATALOG_NUMBER_PREFIX.matcher(code).replaceFirst(""));
+  }
+
+  static boolean isComparableCatalogNumber(String code) {
+    return isEligibleCode(code) && !isNumeric(code);
+  }
+
+  static boolean isSpecimen(String basisOfRecord) {
+    return SPECIMEN_BORS.contains(basisOfRecord);
+  }
+
+  /** @param id normalised identifier */
+  static boolean isOmittedID(String id) {
+    return idOmitList.contains(id);
+  }
+
+  /**
+   * Same as {@link #generate(OccurrenceFeatures, OccurrenceFeatures)} for precomputed features, the
+   * assertion is only created if the records are related.
+   */
+  public static <T extends OccurrenceFeatures> RelationshipAssertion<T> generate(
+      CompiledOccurrenceFeatures<T> o1, CompiledOccurrenceFeatures<T> o2) {
+    int mask = assertionMask(o1, o2);
+    return mask == 0 ? null : new RelationshipAssertion<>(o1.get(), o2.get(), mask);
+  }
+
+  /**
+   * Justification of the relationship as a mask of {@link FeatureAssertion#mask()} or 0 if the
+   * records aren't related, the same facts and rules as {@link #generate(OccurrenceFeatures,
+   * OccurrenceFeatures)} without allocations.
+   */
+  public static int assertionMask(
+      CompiledOccurrenceFeatures<?> o1, CompiledOccurrenceFeatures<?> o2) {
+    int mask = 0;
+
+    // taxa
+    if (equalsAndNotNull(o1.speciesKey, o2.speciesKey)) {
+      mask |= SAME_ACCEPTED_SPECIES.mask();
+    }
+
+    // identifiers
+    if (o1.identifiers.intersects(o2.identifiers)) {
+      mask |= IDENTIFIERS_OVERLAP.mask();
+    }
+    if ((o1.catalogNumber != null
+            && o2.otherCatalogNumbers.contains(o1.catalogNumber, o1.catalogNumberHash))
+        || (o2.catalogNumber != null
+            && o1.otherCatalogNumbers.contains(o2.catalogNumber, o2.catalogNumberHash))) {
+      mask |= OTHER_CATALOG_NUMBERS_OVERLAP.mask();
+    }
+
+    // dates
+    if (o1.year != CompiledOccurrenceFeatures.NO_VALUE
+        && o1.year == o2.year
+        && o1.month != CompiledOccurrenceFeatures.NO_VALUE
+        && o1.month == o2.month
+        && o1.day != CompiledOccurrenceFeatures.NO_VALUE
+        && o1.day == o2.day) {
+      mask |= SAME_DATE.mask();
+    } else if (equalsAndNotNull(o1.eventDate, o2.eventDate)) {
+      mask |= SAME_DATE.mask();
+    } else if (withinDays(o1.epochDay, o2.epochDay)) {
+      mask |= APPROXIMATE_DATE.mask();
+    } else if (presentAndNotEquals(o1.eventDate, o2.eventDate)) {
+      mask |= DIFFERENT_DATE.mask();
+    } else if (o1.noDate && o2.noDate) {
+      mask |= NON_CONFLICTING_DATE.mask();
+    } else if (presentOnOneOnly(o1.eventDate, o2.eventDate)) {
+      mask |= NON_CONFLICTING_DATE.mask();
+    }
+
+    // collectors
+    if (o1.recordedBy.intersects(o2.recordedBy)) {
+      mask |= SAME_RECORDER_NAME.mask();
+    }
+
+    // coordinates
+    if (o1.hasLatitude
+        && o2.hasLatitude
+        && o1.hasLongitude
+        && o2.hasLongitude
+        && Double.doubleToLongBits(o1.latitude) == Double.doubleToLongBits(o2.latitude)
+        && Double.doubleToLongBits(o1.longitude) == Double.doubleToLongBits(o2.longitude)) {
+      mask |= SAME_COORDINATES.mask();
+    } else if ((!o1.hasLatitude && !o1.hasLongitude && !o2.hasLatitude && !o2.hasLongitude)
+        || (o1.hasLatitude != o2.hasLatitude && o1.hasLongitude != o2.hasLongitude)) {
+      mask |= NON_CONFLICTING_COORDINATES.mask();
+    } else if (o1.hasLatitude && o2.hasLatitude && o1.hasLongitude && o2.hasLongitude) {
+      double distance = Haversine.distance(o1.latitude, o1.longitude, o2.latitude, o2.longitude);
+      if (distance <= 0.200) {
+        mask |= WITHIN_200m.mask();
+      }
+      if (distance <= 2.00) {
+        mask |= WITHIN_2Km.mask();
+      }
+    }
+
+    // country
+    if (equalsAndNotNull(o1.countryCode, o2.countryCode)) {
+      mask |= SAME_COUNTRY.mask();
+    } else if (presentOnOneOnly(o1.countryCode, o2.countryCode)) {
+      mask |= NON_CONFLICTING_COUNTRY.mask();
+    } else if (presentAndNotEquals(o1.countryCode, o2.countryCode)) {
+      mask |= DIFFERENT_COUNTRY.mask();
+    }
+
+    // same specimen and typification
+    if (equalsAndNotNull(o1.taxonKey, o2.taxonKey) && o1.holotype && o2.holotype) {
+      mask |= SAME_SPECIMEN.mask();
+    }
+    if (equalsAndNotNull(o1.scientificName, o2.scientificName) && o1.typeStatus && o2.typeStatus) {
+      mask |= TYPIFICATION_RELATION.mask();
+    }
+
+    boolean isOfInterest =
+        isOfInterest(
+            mask, o1.sequenceRepository || o2.sequenceRepository, o1.specimen && o2.specimen);
+    return isOfInterest ? mask : 0;
+  }
+
   static boolean equalsAndNotNull(Object o1, Object o2) {
     return o1 != null && Objects.equals(o1, o2);
   }
@@ -361,7 +495,7 @@ public class OccurrenceRelationships {
 
   public static String normalizeID(String id) {
     if (id != null) {
-      String n = id.toUpperCase().replaceAll(REGEX_IDENTIFIERS, "");
+      String n = REGEX_IDENTIFIERS.matcher(id.toUpperCase()).replaceAll("");
       return n.length() == 0 ? null : n;
     }
     return null;
@@ -32,7 +32,22 @@ public class RelationshipAssertion<T extends OccurrenceFeatures> {
     OTHER_CATALOG_NUMBERS_OVERLAP,
     SAME_RECORDER_NAME,
     SAME_SPECIMEN, // use with caution (e.g. same name and both HOLOTYPE)
-    TYPIFICATION_RELATION // e.g. Holotype+isotype for same name
+    TYPIFICATION_RELATION; // e.g. Holotype+isotype for same name
+
+    private static final FeatureAssertion[] VALUES = values();
+
+    /** Bit of the assertion in an assertion mask */
+    public int mask() {
+      return 1 << ordinal();
+    }
+
+    public static int maskOf(FeatureAssertion... reasons) {
+      int mask = 0;
+      for (FeatureAssertion reason : reasons) {
+        mask |= reason.mask();
+      }
+      return mask;
+    }
   }
 
   private final T o1;
@@ -45,6 +60,16 @@ public class RelationshipAssertion<T extends OccurrenceFeatures> {
     this.o2 = o2;
   }
 
+  /** @param mask justification as a mask of {@link FeatureAssertion#mask()} */
+  public RelationshipAssertion(T o1, T o2, int mask) {
+    this(o1, o2);
+    for (FeatureAssertion reason : FeatureAssertion.VALUES) {
+      if ((mask & reason.mask()) != 0) {
+        justification.add(reason);
+      }
+    }
+  }
+
   public void collect(FeatureAssertion reason) {
     justification.add(reason);
   }
@@ -61,6 +86,15 @@ public class RelationshipAssertion<T extends OccurrenceFeatures> {
     return justification.stream().map(Enum::name).collect(Collectors.joining(","));
   }
 
+  /** Justification as a mask of {@link FeatureAssertion#mask()} */
+  public int getJustificationMask() {
+    int mask = 0;
+    for (FeatureAssertion reason : justification) {
+      mask |= reason.mask();
+    }
+    return mask;
+  }
+
   public boolean justificationContains(FeatureAssertion reason) {
     return justification.contains(reason);
   }
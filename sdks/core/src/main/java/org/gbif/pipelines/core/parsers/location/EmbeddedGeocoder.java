@@ -0,0 +1,100 @@
+package org.gbif.pipelines.core.parsers.location;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.kvs.KeyValueStore;
+import org.gbif.kvs.geocode.LatLng;
+import org.gbif.pipelines.core.config.model.GeocodeLayerConfig;
+import org.gbif.pipelines.core.parsers.location.cache.RasterIndexBuilder.Region;
+import org.gbif.pipelines.core.parsers.location.cache.ShapefileRegions;
+import org.gbif.rest.client.geocode.GeocodeResponse;
+import org.gbif.rest.client.geocode.Location;
+import org.locationtech.jts.algorithm.locate.IndexedPointInAreaLocator;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
+
+/**
+ * In-process geocoder, returns locations of all regions containing the point, like the geocode API
+ * with the distance 0, without the remote service and its HBase cache.
+ *
+ * <p>Regions of every layer are indexed by an STR-tree of their envelopes, a point is located in a
+ * candidate polygon by an indexed point-in-area locator. Indexes are built eagerly, so the geocoder
+ * is thread-safe and meant to be shared by all threads of a JVM.
+ */
+@Slf4j
+public class EmbeddedGeocoder implements KeyValueStore<LatLng, GeocodeResponse> {
+
+  private final List<STRtree> layers;
+
+  private EmbeddedGeocoder(List<List<Region>> layers) {
+    this.layers = new ArrayList<>(layers.size());
+    int count = 0;
+    for (List<Region> layer : layers) {
+      STRtree tree = new STRtree();
+      for (Region region : layer) {
+        region.getLocation().setDistance(0d);
+        IndexedPointInAreaLocator locator = new IndexedPointInAreaLocator(region.getGeometry());
+        // The locator index is built lazily on the first lookup
+        locator.locate(region.getGeometry().getEnvelopeInternal().centre());
+        tree.insert(
+            region.getGeometry().getEnvelopeInternal(), new Indexed(locator, region.getLocation()));
+        count++;
+      }
+      tree.build();
+      this.layers.add(tree);
+    }
+    log.info("Embedded geocoder of {} layers and {} regions", layers.size(), count);
+  }
+
+  public static EmbeddedGeocoder create(@NonNull List<List<Region>> layers) {
+    return new EmbeddedGeocoder(layers);
+  }
+
+  /** Reads regions of layers from local shapefiles */
+  public static EmbeddedGeocoder create(@NonNull Iterable<GeocodeLayerConfig> configs)
+      throws IOException {
+    List<List<Region>> layers = new ArrayList<>();
+    for (GeocodeLayerConfig config : configs) {
+      layers.add(ShapefileRegions.read(config));
+    }
+    return create(layers);
+  }
+
+  @Override
+  public GeocodeResponse get(LatLng latLng) {
+    double lat = latLng.getLatitude();
+    double lng = latLng.getLongitude();
+    List<Location> locations = new ArrayList<>();
+    if (!(lat >= -90d && lat <= 90d && lng >= -180d && lng <= 180d)) {
+      return new GeocodeResponse(locations);
+    }
+
+    Coordinate coordinate = new Coordinate(lng, lat);
+    Envelope envelope = new Envelope(coordinate);
+    for (STRtree layer : layers) {
+      for (Object o : layer.query(envelope)) {
+        Indexed indexed = (Indexed) o;
+        if (indexed.locator.locate(coordinate) != org.locationtech.jts.geom.Location.EXTERIOR) {
+          locations.add(indexed.location);
+        }
+      }
+    }
+    return new GeocodeResponse(locations);
+  }
+
+  @Override
+  public void close() {
+    // NOP
+  }
+
+  @AllArgsConstructor
+  private static class Indexed {
+    private final IndexedPointInAreaLocator locator;
+    private final Location location;
+  }
+}
@@ -3,11 +3,16 @@ package org.gbif.pipelines.core.parsers.location;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.kvs.KeyValueStore;
 import org.gbif.kvs.geocode.LatLng;
 import org.gbif.pipelines.core.parsers.location.cache.GeocodeBitmapCache;
+import org.gbif.pipelines.core.parsers.location.cache.RasterIndex;
 import org.gbif.rest.client.geocode.GeocodeResponse;
 
 @Slf4j
@@ -15,15 +20,42 @@ public class GeocodeKvStore implements KeyValueStore<LatLng, GeocodeResponse>, S
 
   private static final long serialVersionUID = -2090636199984570712L;
 
+  /** Location types read by the location interpretation from geocode responses */
+  public static final Set<String> DEFAULT_LAYER_TYPES =
+      Collections.unmodifiableSet(
+          new LinkedHashSet<>(
+              Arrays.asList(
+                  "Political",
+                  "EEZ",
+                  "PoliticalEEZ",
+                  "Continent",
+                  "GADM0",
+                  "GADM1",
+                  "GADM2",
+                  "GADM3")));
+
   private final KeyValueStore<LatLng, GeocodeResponse> kvStore;
   private final GeocodeBitmapCache bitmapCache;
+  private final RasterIndex rasterIndex;
 
   private GeocodeKvStore(
       @NonNull KeyValueStore<LatLng, GeocodeResponse> kvStore,
       BufferedImage image,
+      RasterIndex rasterIndex,
+      Set<String> layerTypes,
       String kvStoreType,
       boolean missEqualsFail) {
     this.kvStore = kvStore;
+    if (rasterIndex != null && !rasterIndex.covers(layerTypes)) {
+      // Points outside of the index regions can be inside of regions of other layers
+      log.warn(
+          "Raster index of layers {} doesn't cover layers {}, the index isn't used",
+          rasterIndex.getLayerTypes(),
+          layerTypes);
+      this.rasterIndex = null;
+    } else {
+      this.rasterIndex = rasterIndex;
+    }
     this.bitmapCache =
         image == null
             ? null
@@ -32,11 +64,36 @@ public class GeocodeKvStore implements KeyValueStore<LatLng, GeocodeResponse>, S
 
   public static GeocodeKvStore create(
       KeyValueStore<LatLng, GeocodeResponse> kvStore, BufferedImage image) {
-    return new GeocodeKvStore(kvStore, image, GeocodeBitmapCache.DEFAULT_KV_STORE, true);
+    return create(kvStore, image, null);
+  }
+
+  /**
+   * @param rasterIndex index of geocode regions, used only if it covers {@link
+   *     #DEFAULT_LAYER_TYPES}
+   */
+  public static GeocodeKvStore create(
+      KeyValueStore<LatLng, GeocodeResponse> kvStore,
+      BufferedImage image,
+      RasterIndex rasterIndex) {
+    return create(kvStore, image, rasterIndex, DEFAULT_LAYER_TYPES);
+  }
+
+  /**
+   * @param rasterIndex index of geocode regions, points outside of all its regions aren't looked up
+   *     in the KV store, so it is used only if it was built from layers of all the layer types
+   * @param layerTypes location types of the KV store responses
+   */
+  public static GeocodeKvStore create(
+      KeyValueStore<LatLng, GeocodeResponse> kvStore,
+      BufferedImage image,
+      RasterIndex rasterIndex,
+      Set<String> layerTypes) {
+    return new GeocodeKvStore(
+        kvStore, image, rasterIndex, layerTypes, GeocodeBitmapCache.DEFAULT_KV_STORE, true);
   }
 
   public static GeocodeKvStore create(KeyValueStore<LatLng, GeocodeResponse> kvStore) {
-    return new GeocodeKvStore(kvStore, null, GeocodeBitmapCache.DEFAULT_KV_STORE, true);
+    return create(kvStore, null, null);
   }
 
   public static GeocodeKvStore create(
@@ -44,17 +101,25 @@ public class GeocodeKvStore implements KeyValueStore<LatLng, GeocodeResponse>, S
       BufferedImage image,
       String kvStoreType,
       boolean missEqualsFail) {
-    return new GeocodeKvStore(kvStore, image, kvStoreType, missEqualsFail);
+    return new GeocodeKvStore(kvStore, image, null, null, kvStoreType, missEqualsFail);
   }
 
   public static GeocodeKvStore create(
       KeyValueStore<LatLng, GeocodeResponse> kvStore, String kvStoreType, boolean missEqualsFail) {
-    return new GeocodeKvStore(kvStore, null, kvStoreType, missEqualsFail);
+    return new GeocodeKvStore(kvStore, null, null, null, kvStoreType, missEqualsFail);
   }
 
   /** Simple get candidates by point. */
   @Override
   public GeocodeResponse get(LatLng latLng) {
+    // Check the raster index, it knows empty regions of all layer types too
+    if (rasterIndex != null) {
+      GeocodeResponse locations = rasterIndex.get(latLng);
+      if (locations != null) {
+        return locations;
+      }
+    }
+
     GeocodeResponse locations = null;
 
     // Check the image map for a sure location.
@@ -0,0 +1,201 @@
+package org.gbif.pipelines.core.parsers.location.cache;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.kvs.geocode.LatLng;
+import org.gbif.rest.client.geocode.GeocodeResponse;
+import org.gbif.rest.client.geocode.Location;
+
+/**
+ * Multi-resolution raster of geocode regions built by {@link RasterIndexBuilder}, a replacement of
+ * {@link GeocodeBitmapCache} which doesn't need AWT, holds the locations of regions itself and
+ * splits border cells into finer cells instead of giving up on every border pixel.
+ *
+ * <p>The world is divided into a grid of root cells, every cell is a quadtree node which is either
+ * a leaf with the locations of all regions covering the whole cell, an empty leaf, or four children
+ * cells. Cells crossing a region border at the max depth are unknown, such lookups must be resolved
+ * by the geocode KV store.
+ *
+ * <p>Nodes are read from the buffer on every lookup, so a file opened by {@link #open(Path)} is
+ * memory mapped and shared by all JVMs of a machine via the page cache. The index is thread-safe.
+ *
+ * <pre>
+ * int magic, int version, int columns, int rows, int maxDepth
+ * int layers, per layer: type
+ * int regions, per region: int locations, per location: id, type, source, name, isoCountryCode2Digit
+ * int nodes, int[nodes]: root cells by rows from the south-west, then blocks of four children
+ * </pre>
+ *
+ * Strings are UTF-8 bytes prefixed by the length, -1 for null. Node values are the region index, or
+ * {@link #EMPTY}, {@link #UNKNOWN}, or {@code CHILDREN - index} of the children block, children are
+ * ordered south-west, south-east, north-west, north-east.
+ *
+ * <p>An empty leaf or a leaf without regions of a layer means there are no such regions only for
+ * the layer types of the index, see {@link #covers(Collection)}.
+ */
+@Slf4j
+public class RasterIndex {
+
+  static final int MAGIC = 0x47524958; // GRIX
+  static final int VERSION = 2;
+
+  static final int EMPTY = -1;
+  static final int UNKNOWN = -2;
+  static final int CHILDREN = -3;
+
+  private final ByteBuffer buffer;
+  private final int nodesOffset;
+  @Getter private final int columns;
+  @Getter private final int rows;
+  @Getter private final int maxDepth;
+  @Getter private final Set<String> layerTypes;
+  private final List<List<Location>> regions;
+
+  private RasterIndex(ByteBuffer buffer) {
+    ByteBuffer header = buffer.duplicate();
+    if (header.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Buffer doesn't contain a raster index");
+    }
+    int version = header.getInt();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported raster index version " + version);
+    }
+    this.columns = header.getInt();
+    this.rows = header.getInt();
+    this.maxDepth = header.getInt();
+
+    int layerCount = header.getInt();
+    Set<String> types = new LinkedHashSet<>(layerCount);
+    for (int i = 0; i < layerCount; i++) {
+      types.add(readString(header));
+    }
+    this.layerTypes = Collections.unmodifiableSet(types);
+
+    int regionCount = header.getInt();
+    List<List<Location>> list = new ArrayList<>(regionCount);
+    for (int i = 0; i < regionCount; i++) {
+      int locationCount = header.getInt();
+      List<Location> locations = new ArrayList<>(locationCount);
+      for (int j = 0; j < locationCount; j++) {
+        Location location = new Location();
+        location.setId(readString(header));
+        location.setType(readString(header));
+        location.setSource(readString(header));
+        location.setName(readString(header));
+        location.setIsoCountryCode2Digit(readString(header));
+        location.setDistance(0d);
+        locations.add(location);
+      }
+      list.add(Collections.unmodifiableList(locations));
+    }
+    this.regions = list;
+
+    int nodeCount = header.getInt();
+    this.nodesOffset = header.position();
+    this.buffer = buffer;
+    log.info(
+        "Raster index of {}x{} root cells, depth {}, layers {}, {} regions and {} nodes",
+        columns,
+        rows,
+        maxDepth,
+        layerTypes,
+        regionCount,
+        nodeCount);
+  }
+
+  /** Memory maps the index file */
+  public static RasterIndex open(@NonNull Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /** Reads the whole stream into the heap, for indexes which aren't on the local file system */
+  public static RasterIndex read(@NonNull InputStream is) throws IOException {
+    return wrap(ByteBuffer.wrap(ByteStreams.toByteArray(is)));
+  }
+
+  public static RasterIndex wrap(@NonNull ByteBuffer buffer) {
+    return new RasterIndex(buffer);
+  }
+
+  /** @return true if the index was built from layers of all the location types */
+  public boolean covers(Collection<String> types) {
+    return layerTypes.containsAll(types);
+  }
+
+  /**
+   * @return locations of the regions covering the point, empty locations if there are no regions,
+   *     or null if the point is on a border or isn't valid, so the index can't answer
+   */
+  public GeocodeResponse get(LatLng latLng) {
+    int node = node(latLng.getLatitude(), latLng.getLongitude());
+    if (node == UNKNOWN) {
+      return null;
+    }
+    if (node == EMPTY) {
+      return new GeocodeResponse(Collections.emptyList());
+    }
+    return new GeocodeResponse(regions.get(node));
+  }
+
+  /** Leaf node value of the point, {@link #UNKNOWN} for invalid coordinates */
+  int node(double lat, double lng) {
+    if (!(lat >= -90d && lat <= 90d && lng >= -180d && lng <= 180d)) {
+      return UNKNOWN;
+    }
+    double x = (lng + 180d) / 360d * columns;
+    double y = (lat + 90d) / 180d * rows;
+    int column = Math.min((int) x, columns - 1);
+    int row = Math.min((int) y, rows - 1);
+    // Position of the point inside the cell, from 0 to 1
+    double cx = x - column;
+    double cy = y - row;
+
+    int node = nodeAt(row * columns + column);
+    while (node <= CHILDREN) {
+      int quadrant = 0;
+      if (cx >= 0.5d) {
+        quadrant |= 1;
+        cx -= 0.5d;
+      }
+      if (cy >= 0.5d) {
+        quadrant |= 2;
+        cy -= 0.5d;
+      }
+      cx *= 2d;
+      cy *= 2d;
+      node = nodeAt(CHILDREN - node + quadrant);
+    }
+    return node;
+  }
+
+  private int nodeAt(int index) {
+    return buffer.getInt(nodesOffset + index * Integer.BYTES);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,292 @@
+package org.gbif.pipelines.core.parsers.location.cache;
+
+import static org.gbif.pipelines.core.parsers.location.cache.RasterIndex.CHILDREN;
+import static org.gbif.pipelines.core.parsers.location.cache.RasterIndex.EMPTY;
+import static org.gbif.pipelines.core.parsers.location.cache.RasterIndex.MAGIC;
+import static org.gbif.pipelines.core.parsers.location.cache.RasterIndex.UNKNOWN;
+import static org.gbif.pipelines.core.parsers.location.cache.RasterIndex.VERSION;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.rest.client.geocode.Location;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+
+/**
+ * Builds a {@link RasterIndex} offline from region polygons, regions of every layer are usually
+ * read from a shapefile by {@link ShapefileRegions}.
+ *
+ * <p>A cell is a leaf if for every layer it is either covered by regions or doesn't intersect any
+ * region of the layer, otherwise the cell is split into four cells, up to the max depth. The size
+ * of a cell at the max depth is {@code rootCellDegrees / 2^maxDepth}, the default is about 430
+ * meters at the equator.
+ *
+ * <pre>{@code
+ * RasterIndexBuilder.create(1, 8)
+ *     .layer(ShapefileRegions.read("/data/political", "ISO_A2", "Political", "source"))
+ *     .layer(ShapefileRegions.read("/data/eez", "ISO2", "EEZ", "source"))
+ *     .write(Paths.get("/data/geocode.idx"));
+ * }</pre>
+ */
+@Slf4j
+public class RasterIndexBuilder {
+
+  public static final int DEFAULT_ROOT_CELL_DEGREES = 1;
+  public static final int DEFAULT_MAX_DEPTH = 8;
+
+  private final GeometryFactory geometryFactory = new GeometryFactory();
+  private final int columns;
+  private final int rows;
+  private final double cellDegrees;
+  private final int maxDepth;
+
+  private final List<Region> regions = new ArrayList<>();
+  private final List<STRtree> layers = new ArrayList<>();
+  private final Set<String> layerTypes = new LinkedHashSet<>();
+
+  private final Map<List<Integer>, Integer> combinations = new HashMap<>();
+  private final List<List<Integer>> combinationList = new ArrayList<>();
+  private int[] nodes = new int[1024];
+  private int nodeCount;
+
+  private RasterIndexBuilder(int rootCellDegrees, int maxDepth) {
+    if (rootCellDegrees <= 0 || 180 % rootCellDegrees != 0) {
+      throw new IllegalArgumentException("Root cell degrees must be a divisor of 180");
+    }
+    if (maxDepth < 0 || maxDepth > 24) {
+      throw new IllegalArgumentException("Max depth must be from 0 to 24");
+    }
+    this.columns = 360 / rootCellDegrees;
+    this.rows = 180 / rootCellDegrees;
+    this.cellDegrees = rootCellDegrees;
+    this.maxDepth = maxDepth;
+  }
+
+  public static RasterIndexBuilder create(int rootCellDegrees, int maxDepth) {
+    return new RasterIndexBuilder(rootCellDegrees, maxDepth);
+  }
+
+  public static RasterIndexBuilder create() {
+    return create(DEFAULT_ROOT_CELL_DEGREES, DEFAULT_MAX_DEPTH);
+  }
+
+  /**
+   * Adds a layer of regions, regions of different layers can overlap, like countries and GADM. The
+   * layer type is the location type of the regions.
+   */
+  public RasterIndexBuilder layer(@NonNull List<Region> layer) {
+    for (Region region : layer) {
+      if (region.getLocation().getType() != null) {
+        layerTypes.add(region.getLocation().getType());
+      }
+    }
+    return addLayer(layer);
+  }
+
+  /** Adds a layer of the location type, the type is stored even if the layer has no regions */
+  public RasterIndexBuilder layer(@NonNull String type, @NonNull List<Region> layer) {
+    layerTypes.add(type);
+    return addLayer(layer);
+  }
+
+  private RasterIndexBuilder addLayer(List<Region> layer) {
+    STRtree tree = new STRtree();
+    for (Region region : layer) {
+      Geometry geometry = region.getGeometry();
+      tree.insert(
+          geometry.getEnvelopeInternal(),
+          new Indexed(regions.size(), PreparedGeometryFactory.prepare(geometry)));
+      regions.add(region);
+    }
+    tree.build();
+    layers.add(tree);
+    return this;
+  }
+
+  public void write(@NonNull Path file) throws IOException {
+    try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(file))) {
+      write(os);
+    }
+  }
+
+  public void write(@NonNull OutputStream os) throws IOException {
+    build();
+
+    DataOutputStream out = new DataOutputStream(os);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(columns);
+    out.writeInt(rows);
+    out.writeInt(maxDepth);
+
+    out.writeInt(layerTypes.size());
+    for (String type : layerTypes) {
+      writeString(out, type);
+    }
+
+    out.writeInt(combinationList.size());
+    for (List<Integer> combination : combinationList) {
+      out.writeInt(combination.size());
+      for (Integer regionIndex : combination) {
+        Location l = regions.get(regionIndex).getLocation();
+        writeString(out, l.getId());
+        writeString(out, l.getType());
+        writeString(out, l.getSource());
+        writeString(out, l.getName());
+        writeString(out, l.getIsoCountryCode2Digit());
+      }
+    }
+
+    out.writeInt(nodeCount);
+    for (int i = 0; i < nodeCount; i++) {
+      out.writeInt(nodes[i]);
+    }
+    out.flush();
+  }
+
+  private void build() {
+    combinations.clear();
+    combinationList.clear();
+    nodeCount = columns * rows;
+    nodes = new int[Math.max(nodes.length, nodeCount)];
+
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        double minLng = -180d + column * cellDegrees;
+        double minLat = -90d + row * cellDegrees;
+        nodes[row * columns + column] = node(minLng, minLat, cellDegrees, cellDegrees, 0);
+      }
+      log.debug("Built raster index row {} of {}, {} nodes", row + 1, rows, nodeCount);
+    }
+
+    log.info(
+        "Built raster index of {} regions, {} combinations and {} nodes",
+        regions.size(),
+        combinationList.size(),
+        nodeCount);
+  }
+
+  /** Node value of the cell, children are appended to the nodes */
+  private int node(double minLng, double minLat, double width, double height, int depth) {
+    Envelope envelope = new Envelope(minLng, minLng + width, minLat, minLat + height);
+    Geometry cell = geometryFactory.toGeometry(envelope);
+
+    TreeSet<Integer> covering = new TreeSet<>();
+    for (STRtree layer : layers) {
+      for (Object o : layer.query(envelope)) {
+        Indexed indexed = (Indexed) o;
+        if (indexed.geometry.covers(cell)) {
+          covering.add(indexed.index);
+        } else if (indexed.geometry.intersects(cell) && !indexed.geometry.touches(cell)) {
+          // The cell crosses the region border
+          return depth < maxDepth ? children(minLng, minLat, width, height, depth) : UNKNOWN;
+        }
+      }
+    }
+    return covering.isEmpty() ? EMPTY : combination(new ArrayList<>(covering));
+  }
+
+  private int children(double minLng, double minLat, double width, double height, int depth) {
+    int block = nodeCount;
+    ensureCapacity(nodeCount + 4);
+    nodeCount += 4;
+
+    double w = width / 2d;
+    double h = height / 2d;
+    for (int quadrant = 0; quadrant < 4; quadrant++) {
+      double lng = minLng + (quadrant & 1) * w;
+      double lat = minLat + (quadrant >> 1) * h;
+      nodes[block + quadrant] = node(lng, lat, w, h, depth + 1);
+    }
+
+    // Children of a cell touching a border can be the same leaf, the block is the last one then
+    int first = nodes[block];
+    if (first > CHILDREN
+        && first == nodes[block + 1]
+        && first == nodes[block + 2]
+        && first == nodes[block + 3]) {
+      nodeCount = block;
+      return first;
+    }
+    return CHILDREN - block;
+  }
+
+  private int combination(List<Integer> regionIndexes) {
+    return combinations.computeIfAbsent(
+        regionIndexes,
+        k -> {
+          combinationList.add(k);
+          return combinationList.size() - 1;
+        });
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > nodes.length) {
+      nodes = Arrays.copyOf(nodes, Math.max(capacity, nodes.length * 2));
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Builds an index file from shapefiles.
+   *
+   * <p>Arguments: output file, max depth and layers as {@code path,field,type,source}, where the
+   * path doesn't include the .shp extension.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      throw new IllegalArgumentException(
+          "Usage: RasterIndexBuilder <output> <maxDepth> <path,field,type,source>...");
+    }
+    RasterIndexBuilder builder = create(DEFAULT_ROOT_CELL_DEGREES, Integer.parseInt(args[1]));
+    for (int i = 2; i < args.length; i++) {
+      String[] layer = args[i].split(",", 4);
+      builder.layer(layer[2], ShapefileRegions.read(layer[0], layer[1], layer[2], layer[3]));
+    }
+    builder.write(Paths.get(args[0]));
+  }
+
+  /** Polygon of a region and the location returned for points inside */
+  @Value(staticConstructor = "create")
+  public static class Region {
+    Location location;
+    Geometry geometry;
+  }
+
+  @AllArgsConstructor
+  private static class Indexed {
+    private final int index;
+    private final PreparedGeometry geometry;
+  }
+}
@@ -0,0 +1,93 @@
+package org.gbif.pipelines.core.parsers.location.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.pipelines.core.config.model.GeocodeLayerConfig;
+import org.gbif.pipelines.core.parsers.location.cache.RasterIndexBuilder.Region;
+import org.gbif.rest.client.geocode.Location;
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+import org.opengis.feature.simple.SimpleFeature;
+
+/** Reads polygons of a shapefile as regions of {@link RasterIndexBuilder} */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ShapefileRegions {
+
+  /**
+   * @param path shapefile path without the .shp extension
+   * @param field attribute used as the location id and name, and as the country code of Political
+   *     and EEZ locations
+   */
+  public static List<Region> read(String path, String field, String type, String source)
+      throws IOException {
+    return read(path, field, field, type, source, 0d);
+  }
+
+  public static List<Region> read(GeocodeLayerConfig config) throws IOException {
+    return read(
+        config.getPath(),
+        config.getIdField(),
+        config.getNameField() != null ? config.getNameField() : config.getIdField(),
+        config.getType(),
+        config.getSource(),
+        config.getSimplifyTolerance());
+  }
+
+  /**
+   * @param path shapefile path without the .shp extension
+   * @param idField attribute used as the location id, and as the country code of Political and EEZ
+   *     locations
+   * @param simplifyTolerance polygons are simplified with this tolerance in degrees, if positive
+   */
+  public static List<Region> read(
+      String path,
+      String idField,
+      String nameField,
+      String type,
+      String source,
+      double simplifyTolerance)
+      throws IOException {
+    ShapefileDataStore store = new ShapefileDataStore(new File(path + ".shp").toURI().toURL());
+    List<Region> regions = new ArrayList<>();
+    try (SimpleFeatureIterator iterator = store.getFeatureSource().getFeatures().features()) {
+      while (iterator.hasNext()) {
+        SimpleFeature feature = iterator.next();
+        Object id = feature.getAttribute(idField);
+        Geometry geometry = (Geometry) feature.getDefaultGeometry();
+        if (id == null || geometry == null || geometry.isEmpty()) {
+          continue;
+        }
+        if (simplifyTolerance > 0d) {
+          geometry = TopologyPreservingSimplifier.simplify(geometry, simplifyTolerance);
+        }
+        if (!geometry.isValid()) {
+          log.debug("Fixing invalid geometry of {} {}", type, id);
+          geometry = geometry.buffer(0);
+        }
+
+        Object name = feature.getAttribute(nameField);
+        Location location = new Location();
+        location.setId(id.toString().trim());
+        location.setName(name != null ? name.toString().trim() : null);
+        location.setType(type);
+        location.setSource(source);
+        if ("Political".equals(type) || "EEZ".equals(type)) {
+          location.setIsoCountryCode2Digit(location.getId());
+        }
+        regions.add(Region.create(location, geometry));
+      }
+    } finally {
+      store.dispose();
+    }
+    log.info("Read {} regions of {} from {}", regions.size(), type, path);
+    return regions;
+  }
+}
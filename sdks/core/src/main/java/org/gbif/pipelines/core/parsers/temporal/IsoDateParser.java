@@ -0,0 +1,67 @@
+package org.gbif.pipelines.core.parsers.temporal;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAccessor;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fast path for the most common ISO 8601 date shapes: yyyy, yyyy-MM and yyyy-MM-dd, parsed without
+ * regular expressions or formatters. Returns the same types as the GBIF date parser: {@link Year},
+ * {@link YearMonth} and {@link LocalDate}.
+ *
+ * <p>Returns null for anything else, including invalid dates like 2005-02-30, dates with a time and
+ * years before 1000, so such strings must be parsed by the GBIF date parser.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class IsoDateParser {
+
+  private static final int NO_VALUE = -1;
+
+  static TemporalAccessor parse(String value) {
+    if (value == null) {
+      return null;
+    }
+    int length = value.length();
+    if (length != 4 && length != 7 && length != 10) {
+      return null;
+    }
+
+    int year = digits(value, 0, 4);
+    if (year < 1000) {
+      return null;
+    }
+    if (length == 4) {
+      return Year.of(year);
+    }
+
+    int month = value.charAt(4) == '-' ? digits(value, 5, 7) : NO_VALUE;
+    if (month < 1 || month > 12) {
+      return null;
+    }
+    if (length == 7) {
+      return YearMonth.of(year, month);
+    }
+
+    int day = value.charAt(7) == '-' ? digits(value, 8, 10) : NO_VALUE;
+    if (day < 1 || day > YearMonth.of(year, month).lengthOfMonth()) {
+      return null;
+    }
+    return LocalDate.of(year, month, day);
+  }
+
+  /** Non-negative number of the ASCII digits from start to end, or {@link #NO_VALUE} */
+  private static int digits(String value, int start, int end) {
+    int result = 0;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return NO_VALUE;
+      }
+      result = result * 10 + (c - '0');
+    }
+    return result;
+  }
+}
@@ -2,7 +2,12 @@ package org.gbif.pipelines.core.parsers.temporal;
 
 import static org.gbif.common.parsers.core.ParseResult.CONFIDENCE.DEFINITE;
 import static org.gbif.common.parsers.core.ParseResult.CONFIDENCE.PROBABLE;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.TEMPORAL_PARSER_CACHE_HITS;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.TEMPORAL_PARSER_CACHE_MISSES;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.common.base.Strings;
 import com.google.common.collect.Range;
 import java.io.Serializable;
@@ -10,6 +15,7 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAccessor;
 import java.util.*;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.gbif.api.vocabulary.OccurrenceIssue;
@@ -19,7 +25,18 @@ import org.gbif.common.parsers.date.CustomizedTextDateParser;
 import org.gbif.common.parsers.date.DateComponentOrdering;
 import org.gbif.common.parsers.date.DateParsers;
 import org.gbif.common.parsers.date.TemporalAccessorUtils;
+import org.gbif.pipelines.core.functions.SerializableConsumer;
 
+/**
+ * Parses recorded dates using the GBIF date parser, common ISO 8601 dates are parsed by {@link
+ * IsoDateParser} instead.
+ *
+ * <p>Results of {@link #parseRecordedDate(String, String, String, String)} are cached per parser,
+ * because datasets repeat a small number of distinct dates. The cache size is set by {@link
+ * #create(List, int)}, hit and miss counters are available via {@link #getCacheStats()} and are
+ * passed to the counter function of {@link #create(List, int, SerializableConsumer)}, so a pipeline
+ * can publish them as its own metrics.
+ */
 @Slf4j
 public class TemporalParser implements Serializable {
 
@@ -27,9 +44,21 @@ public class TemporalParser implements Serializable {
 
   private static final LocalDate MIN_LOCAL_DATE = LocalDate.of(1600, 1, 1);
 
+  public static final int DEFAULT_CACHE_SIZE = 10_000;
+
   private final org.gbif.common.parsers.date.TemporalParser temporalParser;
+  private final int cacheSize;
+  private final SerializableConsumer<String> counterFn;
+
+  // Caffeine cache isn't serializable, it is created on the first use
+  private transient volatile Cache<Key, OccurrenceParseResult<TemporalAccessor>> cache;
 
-  private TemporalParser(List<DateComponentOrdering> orderings) {
+  private TemporalParser(
+      List<DateComponentOrdering> orderings,
+      int cacheSize,
+      SerializableConsumer<String> counterFn) {
+    this.cacheSize = cacheSize;
+    this.counterFn = counterFn;
     if (orderings != null && !orderings.isEmpty()) {
       DateComponentOrdering[] array = orderings.toArray(new DateComponentOrdering[0]);
       temporalParser = CustomizedTextDateParser.getInstance(array);
@@ -38,8 +67,25 @@ public class TemporalParser implements Serializable {
     }
   }
 
+  /**
+   * @param cacheSize max number of cached results, 0 disables the cache
+   * @param counterFn receives the name of the hit or miss counter per cached parse, like {@code
+   *     temporalParserCacheHits}, can be null
+   */
+  public static TemporalParser create(
+      List<DateComponentOrdering> orderings,
+      int cacheSize,
+      SerializableConsumer<String> counterFn) {
+    return new TemporalParser(orderings, cacheSize, counterFn);
+  }
+
+  /** @param cacheSize max number of cached results, 0 disables the cache */
+  public static TemporalParser create(List<DateComponentOrdering> orderings, int cacheSize) {
+    return create(orderings, cacheSize, null);
+  }
+
   public static TemporalParser create(List<DateComponentOrdering> orderings) {
-    return new TemporalParser(orderings);
+    return create(orderings, DEFAULT_CACHE_SIZE);
   }
 
   public static TemporalParser create() {
@@ -54,10 +100,44 @@ public class TemporalParser implements Serializable {
    * will be used as the last resort if nothing else works. Years are verified to be before or next
    * year and after 1600. x
    *
+   * <p>Results are cached, so a date that becomes valid at midnight stays unlikely until it is
+   * evicted.
+   *
    * @return interpretation result, never null
    */
   public OccurrenceParseResult<TemporalAccessor> parseRecordedDate(
       String year, String month, String day, String dateString) {
+    Cache<Key, OccurrenceParseResult<TemporalAccessor>> c = getCache();
+    if (c == null) {
+      return parse(year, month, day, dateString);
+    }
+    boolean[] miss = {false};
+    OccurrenceParseResult<TemporalAccessor> result =
+        c.get(
+            new Key(year, month, day, dateString),
+            k -> {
+              miss[0] = true;
+              return parse(year, month, day, dateString);
+            });
+    if (counterFn != null) {
+      counterFn.accept(miss[0] ? TEMPORAL_PARSER_CACHE_MISSES : TEMPORAL_PARSER_CACHE_HITS);
+    }
+    // Callers can add issues to the result, the cached one must stay unchanged
+    return copy(result);
+  }
+
+  public OccurrenceParseResult<TemporalAccessor> parseRecordedDate(String dateString) {
+    return parseRecordedDate(null, null, null, dateString);
+  }
+
+  /** Hit and miss counters of the parser cache, empty if the cache is disabled or unused */
+  public CacheStats getCacheStats() {
+    Cache<Key, OccurrenceParseResult<TemporalAccessor>> c = cache;
+    return c != null ? c.stats() : CacheStats.empty();
+  }
+
+  private OccurrenceParseResult<TemporalAccessor> parse(
+      String year, String month, String day, String dateString) {
 
     boolean atomizedDateProvided =
         StringUtils.isNotBlank(year)
@@ -82,7 +162,7 @@ public class TemporalParser implements Serializable {
     ParseResult<TemporalAccessor> parsedYMDResult =
         atomizedDateProvided ? temporalParser.parse(year, month, day) : ParseResult.fail();
     ParseResult<TemporalAccessor> parsedDateResult =
-        dateStringProvided ? temporalParser.parse(dateString) : ParseResult.fail();
+        dateStringProvided ? parseDate(dateString) : ParseResult.fail();
     TemporalAccessor parsedYmdTa = parsedYMDResult.getPayload();
     TemporalAccessor parsedDateTa = parsedDateResult.getPayload();
 
@@ -150,16 +230,12 @@ public class TemporalParser implements Serializable {
     return OccurrenceParseResult.success(confidence, parsedTemporalAccessor, issues);
   }
 
-  public OccurrenceParseResult<TemporalAccessor> parseRecordedDate(String dateString) {
-    return parseRecordedDate(null, null, null, dateString);
-  }
-
   /** @return TemporalAccessor that represents a LocalDate or LocalDateTime */
   public OccurrenceParseResult<TemporalAccessor> parseLocalDate(
       String dateString, Range<LocalDate> likelyRange, OccurrenceIssue unlikelyIssue) {
     if (!Strings.isNullOrEmpty(dateString)) {
       OccurrenceParseResult<TemporalAccessor> result =
-          new OccurrenceParseResult<>(temporalParser.parse(dateString));
+          new OccurrenceParseResult<>(parseDate(dateString));
       // check year makes sense
       if (result.isSuccessful() && !isValidDate(result.getPayload(), likelyRange)) {
         log.debug("Unlikely date parsed, ignore [{}].", dateString);
@@ -170,6 +246,38 @@ public class TemporalParser implements Serializable {
     return OccurrenceParseResult.fail();
   }
 
+  /** Parses ISO 8601 dates by {@link IsoDateParser}, other strings by the GBIF date parser */
+  private ParseResult<TemporalAccessor> parseDate(String dateString) {
+    TemporalAccessor iso = IsoDateParser.parse(dateString);
+    return iso != null ? ParseResult.success(DEFINITE, iso) : temporalParser.parse(dateString);
+  }
+
+  private Cache<Key, OccurrenceParseResult<TemporalAccessor>> getCache() {
+    if (cacheSize <= 0) {
+      return null;
+    }
+    Cache<Key, OccurrenceParseResult<TemporalAccessor>> c = cache;
+    if (c == null) {
+      synchronized (this) {
+        c = cache;
+        if (c == null) {
+          c = Caffeine.newBuilder().maximumSize(cacheSize).recordStats().build();
+          cache = c;
+        }
+      }
+    }
+    return c;
+  }
+
+  private static OccurrenceParseResult<TemporalAccessor> copy(
+      OccurrenceParseResult<TemporalAccessor> result) {
+    Set<OccurrenceIssue> issues = EnumSet.noneOf(OccurrenceIssue.class);
+    issues.addAll(result.getIssues());
+    return result.isSuccessful()
+        ? OccurrenceParseResult.success(result.getConfidence(), result.getPayload(), issues)
+        : OccurrenceParseResult.fail(issues);
+  }
+
   /**
    * Check if a date express as TemporalAccessor falls between the predefined range. Lower bound
    * defined by {@link #MIN_LOCAL_DATE} and upper bound by current date + 1 day
@@ -209,4 +317,12 @@ public class TemporalParser implements Serializable {
 
     return likelyRange.contains(LocalDate.of(year, month, day));
   }
+
+  @Value
+  private static class Key {
+    String year;
+    String month;
+    String day;
+    String dateString;
+  }
 }
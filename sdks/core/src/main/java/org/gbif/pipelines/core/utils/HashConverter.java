@@ -1,5 +1,6 @@
 package org.gbif.pipelines.core.utils;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import lombok.AccessLevel;
@@ -13,11 +14,16 @@ public class HashConverter {
     return getHash("SHA-1", strings);
   }
 
-  @SneakyThrows
+  /**
+   * First 64 bits of the SHA-1 digest, {@link Long#compareUnsigned} of two values gives the same
+   * order as comparing the first 16 characters of {@link #getSha1} strings
+   */
+  public static long getSha1Long(String... strings) {
+    return ByteBuffer.wrap(getDigest("SHA-1", strings)).getLong();
+  }
+
   private static String getHash(String algorithm, String... strings) {
-    String join = String.join("", strings);
-    MessageDigest messageDigest = MessageDigest.getInstance(algorithm);
-    byte[] digest = messageDigest.digest(join.getBytes(StandardCharsets.UTF_8));
+    byte[] digest = getDigest(algorithm, strings);
     StringBuilder hexString = new StringBuilder();
     for (byte hash : digest) {
       String hex = Integer.toHexString(0xff & hash);
@@ -28,4 +34,11 @@ public class HashConverter {
     }
     return hexString.toString();
   }
+
+  @SneakyThrows
+  private static byte[] getDigest(String algorithm, String... strings) {
+    String join = String.join("", strings);
+    MessageDigest messageDigest = MessageDigest.getInstance(algorithm);
+    return messageDigest.digest(join.getBytes(StandardCharsets.UTF_8));
+  }
 }
@@ -0,0 +1,177 @@
+package org.gbif.pipelines.core.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact append-only index of (key, value) long pairs, pairs are stored off-heap in direct {@link
+ * ByteBuffer} chunks, so heap usage doesn't depend on the number of records.
+ *
+ * <p>Usage: {@link #add(long, long)} all pairs, call {@link #sort()} once and use {@link
+ * #lowerBound(long)} to find the first pair of a key. Pairs are sorted by key and then by value,
+ * values are compared as unsigned longs. The class is not thread-safe.
+ */
+public class LongPairIndex {
+
+  private static final int PAIR_BYTES = 16;
+  private static final int CHUNK_SHIFT = 20;
+  private static final int CHUNK_PAIRS = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_PAIRS - 1;
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private int size;
+  private boolean sorted;
+
+  public void add(long key, long value) {
+    if (size == Integer.MAX_VALUE) {
+      throw new IllegalStateException("LongPairIndex can't contain more than 2^31-1 pairs");
+    }
+    if ((size & CHUNK_MASK) == 0) {
+      chunks.add(ByteBuffer.allocateDirect(CHUNK_PAIRS * PAIR_BYTES));
+    }
+    set(size++, key, value);
+    sorted = false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long getKey(int index) {
+    return chunk(index).getLong(offset(index));
+  }
+
+  public long getValue(int index) {
+    return chunk(index).getLong(offset(index) + Long.BYTES);
+  }
+
+  /** Sorts pairs by key and then by unsigned value */
+  public LongPairIndex sort() {
+    if (!sorted) {
+      quickSort(0, size - 1);
+      sorted = true;
+    }
+    return this;
+  }
+
+  /** Index of the first pair with the key or -1 if the key is absent, requires {@link #sort()} */
+  public int lowerBound(long key) {
+    checkSorted();
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (getKey(mid) < key) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo < size && getKey(lo) == key ? lo : -1;
+  }
+
+  /** Number of pairs with the same key starting from the index returned by {@link #lowerBound} */
+  public int countKey(int lowerBound) {
+    checkSorted();
+    if (lowerBound < 0) {
+      return 0;
+    }
+    long key = getKey(lowerBound);
+    int i = lowerBound;
+    while (i < size && getKey(i) == key) {
+      i++;
+    }
+    return i - lowerBound;
+  }
+
+  private void checkSorted() {
+    if (!sorted) {
+      throw new IllegalStateException("LongPairIndex must be sorted before lookups");
+    }
+  }
+
+  private ByteBuffer chunk(int index) {
+    return chunks.get(index >>> CHUNK_SHIFT);
+  }
+
+  private static int offset(int index) {
+    return (index & CHUNK_MASK) * PAIR_BYTES;
+  }
+
+  private void set(int index, long key, long value) {
+    ByteBuffer chunk = chunk(index);
+    int offset = offset(index);
+    chunk.putLong(offset, key);
+    chunk.putLong(offset + Long.BYTES, value);
+  }
+
+  private int compare(int i, int j) {
+    int c = Long.compare(getKey(i), getKey(j));
+    return c != 0 ? c : Long.compareUnsigned(getValue(i), getValue(j));
+  }
+
+  private void swap(int i, int j) {
+    long key = getKey(i);
+    long value = getValue(i);
+    set(i, getKey(j), getValue(j));
+    set(j, key, value);
+  }
+
+  private int compare(int i, long key, long value) {
+    int c = Long.compare(getKey(i), key);
+    return c != 0 ? c : Long.compareUnsigned(getValue(i), value);
+  }
+
+  /**
+   * Three-way partitioning, pairs equal to the pivot are not sorted again, so runs of equal pairs
+   * don't make the sort quadratic. Iterative on the bigger partition, so the stack depth is bounded
+   * by log(n)
+   */
+  private void quickSort(int lo, int hi) {
+    while (hi - lo > INSERTION_SORT_THRESHOLD) {
+      int mid = (lo + hi) >>> 1;
+      // Median of three as a pivot
+      if (compare(mid, lo) < 0) {
+        swap(mid, lo);
+      }
+      if (compare(hi, lo) < 0) {
+        swap(hi, lo);
+      }
+      if (compare(hi, mid) < 0) {
+        swap(hi, mid);
+      }
+      long pivotKey = getKey(mid);
+      long pivotValue = getValue(mid);
+
+      // [lo, lt) < pivot, [lt, i) == pivot, (gt, hi] > pivot
+      int lt = lo;
+      int gt = hi;
+      int i = lo;
+      while (i <= gt) {
+        int c = compare(i, pivotKey, pivotValue);
+        if (c < 0) {
+          swap(lt++, i++);
+        } else if (c > 0) {
+          swap(i, gt--);
+        } else {
+          i++;
+        }
+      }
+
+      if (lt - lo < hi - gt) {
+        quickSort(lo, lt - 1);
+        lo = gt + 1;
+      } else {
+        quickSort(gt + 1, hi);
+        hi = lt - 1;
+      }
+    }
+    for (int i = lo + 1; i <= hi; i++) {
+      for (int j = i; j > lo && compare(j, j - 1) < 0; j--) {
+        swap(j, j - 1);
+      }
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package org.gbif.pipelines.core.config.factory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.file.Paths;
@@ -10,6 +11,7 @@ import org.gbif.common.parsers.date.DateComponentOrdering;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.core.config.model.ContentConfig;
 import org.gbif.pipelines.core.config.model.KeygenConfig;
+import org.gbif.pipelines.core.config.model.KvCacheConfig;
 import org.gbif.pipelines.core.config.model.KvConfig;
 import org.gbif.pipelines.core.config.model.LockConfig;
 import org.gbif.pipelines.core.config.model.PipelinesConfig;
@@ -43,6 +45,10 @@ public class ConfigFactoryTest {
     assertEquals(61L, nameUsageMatch.getWsTimeoutSec());
     assertEquals(65L, nameUsageMatch.getWsCacheSizeMb());
     assertEquals(6, nameUsageMatch.getNumOfKeyBuckets());
+    assertEquals(15_000L, nameUsageMatch.getHbaseCacheCapacity());
+    assertEquals(KvCacheConfig.Type.OFF_HEAP, nameUsageMatch.getCache().getType());
+    assertEquals(512L, nameUsageMatch.getCache().getMaxSizeMb());
+    assertTrue(nameUsageMatch.getCache().isShared());
 
     KvConfig geocode = config.getGeocode();
     assertEquals(
@@ -52,6 +58,7 @@ public class ConfigFactoryTest {
     assertEquals(62L, geocode.getWsTimeoutSec());
     assertEquals(66L, geocode.getWsCacheSizeMb());
     assertEquals(7, geocode.getNumOfKeyBuckets());
+    assertNull(geocode.getCache());
 
     KvConfig locationFeature = config.getLocationFeature();
     assertEquals(
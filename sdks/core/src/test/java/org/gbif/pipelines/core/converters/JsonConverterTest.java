@@ -0,0 +1,57 @@
+package org.gbif.pipelines.core.converters;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.gbif.api.vocabulary.Extension;
+import org.gbif.dwc.terms.DcTerm;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JsonConverterTest {
+
+  @Test
+  public void getEscapedTextTest() {
+
+    // Should
+    Assert.assertEquals("a, b c", JsonConverter.getEscapedText(" \u001Ea\u001E b\u001fc\u001f "));
+    Assert.assertEquals("abc", JsonConverter.getEscapedText("abc"));
+    Assert.assertEquals("", JsonConverter.getEscapedText(" \u001E "));
+  }
+
+  @Test
+  public void convertFieldAllTest() {
+
+    // State
+    Map<String, String> core = new HashMap<>();
+    core.put(DwcTerm.recordedBy.qualifiedName(), " Name 1 | Name\u001f2 || ");
+    core.put(DwcTerm.footprintWKT.qualifiedName(), "POINT (1 1)");
+    core.put(DwcTerm.country.qualifiedName(), "Denmark");
+
+    Map<String, String> multimedia = new HashMap<>();
+    multimedia.put(DcTerm.title.qualifiedName(), "Title\u001Evalue");
+
+    Map<String, List<Map<String, String>>> ext = new HashMap<>();
+    ext.put(Extension.MULTIMEDIA.getRowType(), Collections.singletonList(multimedia));
+    ext.put(
+        Extension.MEASUREMENT_OR_FACT.getRowType(),
+        Collections.singletonList(Collections.singletonMap(DwcTerm.measurementValue.name(), "1")));
+
+    ExtendedRecord er =
+        ExtendedRecord.newBuilder().setId("1").setCoreTerms(core).setExtensions(ext).build();
+
+    // When
+    List<String> all = JsonConverter.convertFieldAll(er);
+    List<String> coreOnly = JsonConverter.convertFieldAll(er, false);
+
+    // Should
+    all.sort(String::compareTo);
+    coreOnly.sort(String::compareTo);
+    Assert.assertEquals(Arrays.asList("Denmark", "Name 1", "Name 2", "Title,value"), all);
+    Assert.assertEquals(Arrays.asList("Denmark", "Name 1", "Name 2"), coreOnly);
+  }
+}
@@ -0,0 +1,148 @@
+package org.gbif.pipelines.core.converters;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.avro.Schema;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.gbif.dwc.terms.DcTerm;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.Term;
+import org.gbif.dwc.terms.TermFactory;
+import org.gbif.occurrence.common.TermUtils;
+import org.gbif.occurrence.download.hive.HiveColumns;
+import org.gbif.pipelines.io.avro.OccurrenceHdfsRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares mapping of 200 core terms into {@link OccurrenceHdfsRecord} by {@link
+ * OccurrenceHdfsTermMapper} with the previous term mapping, which looked up the term and schema
+ * fields per value and set them by reflection.
+ *
+ * <p>Run the main method using the test classpath, it isn't a part of the unit tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class OccurrenceHdfsRecordConverterBenchmark {
+
+  private static final int TERMS = 200;
+  private static final TermFactory TERM_FACTORY = TermFactory.instance();
+
+  private final Map<String, String> coreTerms = new HashMap<>();
+
+  @Setup
+  public void setup() {
+    List<Term> terms = TermUtils.verbatimTerms();
+    for (int i = 0; i < Math.min(TERMS, terms.size()); i++) {
+      // A number is a valid value for every field type, parse errors are logged, not benchmarked
+      coreTerms.put(terms.get(i).qualifiedName(), Integer.toString(i));
+    }
+  }
+
+  @Benchmark
+  public OccurrenceHdfsRecord reflection() {
+    OccurrenceHdfsRecord record = new OccurrenceHdfsRecord();
+    coreTerms.forEach((k, v) -> mapTermByReflection(k, v, record));
+    return record;
+  }
+
+  @Benchmark
+  public OccurrenceHdfsRecord table() {
+    OccurrenceHdfsRecord record = new OccurrenceHdfsRecord();
+    coreTerms.forEach((k, v) -> OccurrenceHdfsTermMapper.map(k, v, record));
+    return record;
+  }
+
+  /** The term mapping before {@link OccurrenceHdfsTermMapper} */
+  private static void mapTermByReflection(String k, String v, OccurrenceHdfsRecord record) {
+    Term term = TERM_FACTORY.findTerm(k);
+    if (term == null) {
+      return;
+    }
+    if (TermUtils.verbatimTerms().contains(term)) {
+      Schema.Field field =
+          OccurrenceHdfsRecord.SCHEMA$.getField("v_" + term.simpleName().toLowerCase());
+      if (field != null) {
+        String name = "V" + field.name().substring(2, 3).toUpperCase() + field.name().substring(3);
+        setByReflection(record, field, name, v);
+      }
+    }
+    if (!TermUtils.isInterpretedSourceTerm(term)) {
+      Schema.Field field = OccurrenceHdfsRecord.SCHEMA$.getField(HiveColumns.columnFor(term));
+      if (field != null && record.get(field.name()) == null) {
+        String name = field.name();
+        if (DcTerm.abstract_ == term) {
+          name = "abstract$";
+        } else if (DwcTerm.class_ == term) {
+          name = "class$";
+        } else if (DwcTerm.group == term) {
+          name = "group";
+        } else if (DwcTerm.order == term) {
+          name = "order";
+        } else if (DcTerm.date == term) {
+          name = "date";
+        } else if (DcTerm.format == term) {
+          name = "format";
+        }
+        setByReflection(record, field, name, v);
+      }
+    }
+  }
+
+  private static void setByReflection(
+      OccurrenceHdfsRecord record, Schema.Field field, String name, String value) {
+    try {
+      Schema.Type fieldType = field.schema().getType();
+      if (Schema.Type.UNION == fieldType) {
+        fieldType = field.schema().getTypes().get(0).getType();
+      }
+      switch (fieldType) {
+        case INT:
+          PropertyUtils.setProperty(record, name, Integer.valueOf(value));
+          break;
+        case LONG:
+          PropertyUtils.setProperty(record, name, Long.valueOf(value));
+          break;
+        case BOOLEAN:
+          PropertyUtils.setProperty(record, name, Boolean.valueOf(value));
+          break;
+        case DOUBLE:
+          PropertyUtils.setProperty(record, name, Double.valueOf(value));
+          break;
+        case FLOAT:
+          PropertyUtils.setProperty(record, name, Float.valueOf(value));
+          break;
+        default:
+          PropertyUtils.setProperty(record, name, value);
+          break;
+      }
+    } catch (Exception ex) {
+      // Invalid values are ignored
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(OccurrenceHdfsRecordConverterBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
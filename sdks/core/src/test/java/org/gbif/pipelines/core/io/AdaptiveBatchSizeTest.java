@@ -0,0 +1,62 @@
+package org.gbif.pipelines.core.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveBatchSizeTest {
+
+  @Test
+  public void rejectedShrinkTest() {
+    // State
+    AdaptiveBatchSize size = new AdaptiveBatchSize(100L, 1_000L, 1_000L);
+
+    // When
+    long first = size.update(10L, 5);
+    long second = size.update(10L, 5);
+    long third = size.update(10L, 5);
+    long fourth = size.update(10L, 5);
+
+    // Should
+    Assert.assertEquals(500L, first);
+    Assert.assertEquals(250L, second);
+    Assert.assertEquals(125L, third);
+    Assert.assertEquals(100L, fourth);
+  }
+
+  @Test
+  public void latencyTest() {
+    // State
+    AdaptiveBatchSize size = new AdaptiveBatchSize(100L, 1_000L, 1_000L);
+
+    // When
+    long slow = size.update(2_000L, 0);
+    long normal = size.update(700L, 0);
+    long fast = size.update(100L, 0);
+
+    // Should
+    Assert.assertEquals(750L, slow);
+    Assert.assertEquals(750L, normal);
+    Assert.assertEquals(825L, fast);
+  }
+
+  @Test
+  public void growLimitTest() {
+    // State
+    AdaptiveBatchSize size = new AdaptiveBatchSize(100L, 1_000L, 1_000L);
+
+    // When
+    size.update(10L, 1);
+    for (int i = 0; i < 100; i++) {
+      size.update(10L, 0);
+    }
+
+    // Should
+    Assert.assertEquals(1_000L, size.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wrongRangeTest() {
+    // When
+    new AdaptiveBatchSize(10L, 1L, 1_000L);
+  }
+}
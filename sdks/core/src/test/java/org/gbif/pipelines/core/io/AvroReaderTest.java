@@ -3,8 +3,10 @@ package org.gbif.pipelines.core.io;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import lombok.SneakyThrows;
 import org.apache.hadoop.fs.FileSystem;
@@ -201,6 +203,40 @@ public class AvroReaderTest {
     Files.deleteIfExists(Paths.get(verbatimPath1.toString()));
   }
 
+  @Test
+  public void batchesWildcardTest() throws IOException {
+
+    // State
+    ExtendedRecord expectedOne = ExtendedRecord.newBuilder().setId("1").build();
+    ExtendedRecord expectedTwo = ExtendedRecord.newBuilder().setId("2").build();
+    ExtendedRecord expectedThree = ExtendedRecord.newBuilder().setId("3").build();
+    ExtendedRecord expectedFour = ExtendedRecord.newBuilder().setId("4").build();
+    ExtendedRecord expectedFive = ExtendedRecord.newBuilder().setId("5").build();
+    writeExtendedRecords(verbatimPath1, expectedOne, expectedTwo, expectedThree);
+    writeExtendedRecords(verbatimPath2, expectedFour, expectedFive);
+
+    // When
+    List<Integer> batchSizes = new ArrayList<>();
+    List<ExtendedRecord> result = new ArrayList<>();
+    AvroReader.readBatches(
+        hdfsConfigs,
+        ExtendedRecord.class,
+        new Path("target/verbatim*.avro").toString(),
+        2,
+        batch -> {
+          batchSizes.add(batch.size());
+          result.addAll(batch);
+        });
+
+    // Should
+    Assert.assertEquals(Arrays.asList(2, 2, 1), batchSizes);
+    Assert.assertEquals(5, result.size());
+
+    // Post
+    Files.deleteIfExists(Paths.get(verbatimPath1.toString()));
+    Files.deleteIfExists(Paths.get(verbatimPath2.toString()));
+  }
+
   private void assertMap(Map<String, ExtendedRecord> result, ExtendedRecord... expected) {
     Assert.assertEquals(expected.length, result.size());
     Arrays.stream(expected)
@@ -0,0 +1,122 @@
+package org.gbif.pipelines.core.io;
+
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.ES_FAILED_DOCUMENTS_COUNT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ElasticsearchWriterTest {
+
+  @Test
+  public void sharedClientTest() {
+    // State
+    String[] hosts = {"http://localhost:9200"};
+
+    // When
+    RestHighLevelClient first = ElasticsearchWriter.acquireSharedClient(hosts);
+    RestHighLevelClient second = ElasticsearchWriter.acquireSharedClient(hosts);
+    ElasticsearchWriter.releaseSharedClient(hosts);
+    RestHighLevelClient third = ElasticsearchWriter.acquireSharedClient(hosts);
+    ElasticsearchWriter.releaseSharedClient(hosts);
+    ElasticsearchWriter.releaseSharedClient(hosts);
+    RestHighLevelClient afterClose = ElasticsearchWriter.acquireSharedClient(hosts);
+    ElasticsearchWriter.releaseSharedClient(hosts);
+
+    // Should
+    Assert.assertSame(first, second);
+    Assert.assertSame(first, third);
+    Assert.assertNotSame(first, afterClose);
+    Assert.assertFalse(first.getLowLevelClient().isRunning());
+    Assert.assertFalse(afterClose.getLowLevelClient().isRunning());
+  }
+
+  @Test
+  public void failedDocumentTest() throws Exception {
+    try (MockWebServer server = new MockWebServer();
+        RestHighLevelClient client = client(server)) {
+
+      // State
+      server.enqueue(bulkResponse(created("1"), failed("2", 400), failed("3", 429)));
+      server.enqueue(bulkResponse(created("3")));
+      List<String> counters = new ArrayList<>();
+
+      // When
+      writer(client, false, counters).write();
+
+      // Should
+      Assert.assertEquals(2, server.getRequestCount());
+      Assert.assertEquals(1, counters.size());
+      Assert.assertEquals(ES_FAILED_DOCUMENTS_COUNT, counters.get(0));
+      server.takeRequest();
+      Assert.assertTrue(server.takeRequest().getBody().readUtf8().contains("\"_id\":\"3\""));
+    }
+  }
+
+  @Test(expected = ElasticsearchException.class)
+  public void failFastTest() throws Exception {
+    try (MockWebServer server = new MockWebServer();
+        RestHighLevelClient client = client(server)) {
+
+      // State
+      server.enqueue(bulkResponse(created("1"), failed("2", 400), failed("3", 429)));
+
+      // When
+      writer(client, true, new ArrayList<>()).write();
+    }
+  }
+
+  private static ElasticsearchWriter<String> writer(
+      RestHighLevelClient client, boolean failFast, List<String> counters) {
+    return ElasticsearchWriter.<String>builder()
+        .client(client)
+        .esMaxBatchSize(10L)
+        .esMaxBatchSizeBytes(10_000L)
+        .esRetryInitialDelayMs(1L)
+        .esFailFast(failFast)
+        .counterFn(counters::add)
+        .executor(Executors.newSingleThreadExecutor())
+        .syncModeThreshold(Integer.MAX_VALUE)
+        .indexRequestFn(id -> new IndexRequest("idx").id(id).source("{}", XContentType.JSON))
+        .records(Arrays.asList("1", "2", "3"))
+        .build();
+  }
+
+  private static RestHighLevelClient client(MockWebServer server) {
+    return new RestHighLevelClient(RestClient.builder(HttpHost.create(server.url("/").toString())));
+  }
+
+  private static MockResponse bulkResponse(String... items) {
+    boolean errors = Arrays.stream(items).anyMatch(i -> i.contains("\"error\""));
+    return new MockResponse()
+        .setHeader("Content-Type", "application/json")
+        .setBody(
+            "{\"took\":1,\"errors\":" + errors + ",\"items\":[" + String.join(",", items) + "]}");
+  }
+
+  private static String created(String id) {
+    return "{\"index\":{\"_index\":\"idx\",\"_type\":\"_doc\",\"_id\":\""
+        + id
+        + "\",\"_version\":1,\"result\":\"created\",\"_shards\":{\"total\":1,"
+        + "\"successful\":1,\"failed\":0},\"_seq_no\":0,\"_primary_term\":1,\"status\":201}}";
+  }
+
+  private static String failed(String id, int status) {
+    return "{\"index\":{\"_index\":\"idx\",\"_type\":\"_doc\",\"_id\":\""
+        + id
+        + "\",\"status\":"
+        + status
+        + ",\"error\":{\"type\":\"exception\",\"reason\":\"failed\"}}}";
+  }
+}
@@ -0,0 +1,81 @@
+package org.gbif.pipelines.core.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FingerprintIndexTest {
+
+  @Test
+  public void fingerprintTermsOrderTest() {
+
+    // State
+    Map<String, String> terms = new LinkedHashMap<>();
+    terms.put("dwc:a", "1");
+    terms.put("dwc:b", "2");
+    Map<String, String> reversed = new LinkedHashMap<>();
+    reversed.put("dwc:b", "2");
+    reversed.put("dwc:a", "1");
+
+    // When
+    long fingerprint = FingerprintIndex.fingerprint(create("1", terms));
+    long reversedFingerprint = FingerprintIndex.fingerprint(create("1", reversed));
+
+    // Should
+    Assert.assertEquals(fingerprint, reversedFingerprint);
+  }
+
+  @Test
+  public void fingerprintChangedRecordTest() {
+
+    // State
+    ExtendedRecord er = create("1", Collections.singletonMap("dwc:a", "1"));
+    ExtendedRecord changedValue = create("1", Collections.singletonMap("dwc:a", "2"));
+    ExtendedRecord changedId = create("2", Collections.singletonMap("dwc:a", "1"));
+    ExtendedRecord changedExtension = create("1", Collections.singletonMap("dwc:a", "1"));
+    changedExtension.setExtensions(
+        Collections.singletonMap(
+            "ext", Collections.singletonList(Collections.singletonMap("dwc:a", null))));
+
+    // When
+    long fingerprint = FingerprintIndex.fingerprint(er);
+
+    // Should
+    Assert.assertNotEquals(fingerprint, FingerprintIndex.fingerprint(changedValue));
+    Assert.assertNotEquals(fingerprint, FingerprintIndex.fingerprint(changedId));
+    Assert.assertNotEquals(fingerprint, FingerprintIndex.fingerprint(changedExtension));
+  }
+
+  @Test
+  public void writeReadTest() throws IOException {
+
+    // State
+    FingerprintIndex index = new FingerprintIndex(42L);
+    for (int i = 0; i < 1_000; i++) {
+      index.add(Integer.toString(i), i * 31L);
+    }
+
+    // When
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.write(out);
+    FingerprintIndex result = FingerprintIndex.read(new ByteArrayInputStream(out.toByteArray()));
+
+    // Should
+    Assert.assertEquals(42L, result.getContext());
+    Assert.assertEquals(1_000, result.size());
+    Assert.assertTrue(result.contains("0", 0L));
+    Assert.assertTrue(result.contains("999", 999 * 31L));
+    Assert.assertFalse(result.contains("999", 1L));
+    Assert.assertFalse(result.contains("1000", 1_000 * 31L));
+  }
+
+  private static ExtendedRecord create(String id, Map<String, String> terms) {
+    return ExtendedRecord.newBuilder().setId(id).setCoreTerms(terms).build();
+  }
+}
@@ -0,0 +1,195 @@
+package org.gbif.pipelines.core.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShardedDataFileWriterTest {
+
+  private final File dir = new File("target/sharded");
+
+  @Test
+  public void multiThreadWriterTest() throws Exception {
+
+    // State
+    dir.mkdirs();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    // When
+    List<ShardedDataFileWriter.ShardStats> stats;
+    try (ShardedDataFileWriter<ExtendedRecord> writer = createWriter("multi", 2)) {
+      CompletableFuture<?>[] futures =
+          IntStream.range(0, 1_000)
+              .mapToObj(i -> ExtendedRecord.newBuilder().setId(Integer.toString(i)).build())
+              .map(er -> CompletableFuture.runAsync(() -> writer.append(er), executor))
+              .toArray(CompletableFuture[]::new);
+      CompletableFuture.allOf(futures).get();
+      stats = writer.getStats();
+    } finally {
+      executor.shutdown();
+    }
+
+    // Should
+    Assert.assertTrue(stats.size() <= 2);
+    Assert.assertEquals(
+        1_000L, stats.stream().mapToLong(ShardedDataFileWriter.ShardStats::getRecords).sum());
+
+    Set<String> ids = new HashSet<>();
+    for (int i = 0; i < 2; i++) {
+      File shard = new File(dir, "multi-" + i + ".avro");
+      if (shard.exists()) {
+        readIds(shard, ids);
+        shard.delete();
+      }
+    }
+    Assert.assertEquals(1_000, ids.size());
+  }
+
+  @Test
+  public void emptyWriterTest() throws IOException {
+
+    // State
+    dir.mkdirs();
+
+    // When
+    try (ShardedDataFileWriter<ExtendedRecord> writer = createWriter("empty", 4)) {
+      // Nothing
+    }
+
+    // Should
+    File shard = new File(dir, "empty-0.avro");
+    Assert.assertTrue(shard.exists());
+    Set<String> ids = new HashSet<>();
+    readIds(shard, ids);
+    Assert.assertTrue(ids.isEmpty());
+    Assert.assertFalse(new File(dir, "empty-1.avro").exists());
+    shard.delete();
+  }
+
+  @Test
+  public void sortedWriterTest() throws IOException {
+
+    // State
+    dir.mkdirs();
+    File tmpDir = new File(dir, "tmp-sorted");
+    tmpDir.mkdirs();
+    List<String> input = createIds(1_000);
+
+    // When
+    try (ShardedDataFileWriter<ExtendedRecord> writer = createSortedWriter("sorted", tmpDir, 64)) {
+      input.forEach(id -> writer.append(ExtendedRecord.newBuilder().setId(id).build()));
+    }
+
+    // Should, one thread uses one shard, 10 runs of 100 records are merged into the shard file
+    File[] files = dir.listFiles((d, name) -> name.startsWith("sorted-"));
+    Assert.assertEquals(1, files.length);
+    Assert.assertEquals(0, tmpDir.listFiles().length);
+
+    Collections.sort(input);
+    Assert.assertEquals(input, readSortedIds(files));
+
+    Arrays.stream(files).forEach(File::delete);
+    tmpDir.delete();
+  }
+
+  @Test
+  public void sortedWriterMultiPassMergeTest() throws Exception {
+
+    // State
+    dir.mkdirs();
+    File tmpDir = new File(dir, "tmp-multipass");
+    tmpDir.mkdirs();
+    List<String> input = createIds(2_000);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    // When, about 10 runs of 100 records per shard are merged in passes of 3 runs
+    try (ShardedDataFileWriter<ExtendedRecord> writer =
+        createSortedWriter("multipass", tmpDir, 3)) {
+      CompletableFuture<?>[] futures =
+          input.stream()
+              .map(id -> ExtendedRecord.newBuilder().setId(id).build())
+              .map(er -> CompletableFuture.runAsync(() -> writer.append(er), executor))
+              .toArray(CompletableFuture[]::new);
+      CompletableFuture.allOf(futures).get();
+    } finally {
+      executor.shutdown();
+    }
+
+    // Should
+    File[] files = dir.listFiles((d, name) -> name.startsWith("multipass-"));
+    Assert.assertTrue(files.length <= 2);
+    Assert.assertEquals(0, tmpDir.listFiles().length);
+
+    Collections.sort(input);
+    Assert.assertEquals(input, readSortedIds(files));
+
+    Arrays.stream(files).forEach(File::delete);
+    tmpDir.delete();
+  }
+
+  private ShardedDataFileWriter<ExtendedRecord> createSortedWriter(
+      String prefix, File tmpDir, int maxFanIn) {
+    return ShardedDataFileWriter.<ExtendedRecord>builder()
+        .schema(ExtendedRecord.getClassSchema())
+        .codec("snappy")
+        .maxShards(2)
+        .comparator(Comparator.comparing(ExtendedRecord::getId))
+        .sortBufferSize(200)
+        .tmpDir(tmpDir)
+        .maxFanIn(maxFanIn)
+        .outputStreamFactory(i -> new FileOutputStream(new File(dir, prefix + "-" + i + ".avro")))
+        .create();
+  }
+
+  private static List<String> createIds(int count) {
+    List<String> ids = new ArrayList<>();
+    IntStream.range(0, count).forEach(i -> ids.add(String.format("%05d", i)));
+    Collections.shuffle(ids, new Random(7));
+    return ids;
+  }
+
+  private static List<String> readSortedIds(File[] files) throws IOException {
+    List<DataFileReader<ExtendedRecord>> readers = new ArrayList<>();
+    for (File file : files) {
+      readers.add(new DataFileReader<>(file, new SpecificDatumReader<>(ExtendedRecord.class)));
+    }
+    List<String> result = new ArrayList<>();
+    try (SortedMergeIterator<ExtendedRecord> iterator = SortedMergeIterator.create(readers)) {
+      iterator.forEachRemaining(er -> result.add(er.getId()));
+    }
+    return result;
+  }
+
+  private ShardedDataFileWriter<ExtendedRecord> createWriter(String prefix, int maxShards) {
+    return ShardedDataFileWriter.<ExtendedRecord>builder()
+        .schema(ExtendedRecord.getClassSchema())
+        .codec("snappy")
+        .maxShards(maxShards)
+        .outputStreamFactory(i -> new FileOutputStream(new File(dir, prefix + "-" + i + ".avro")))
+        .create();
+  }
+
+  private void readIds(File file, Set<String> ids) throws IOException {
+    try (DataFileReader<ExtendedRecord> reader =
+        new DataFileReader<>(file, new SpecificDatumReader<>(ExtendedRecord.class))) {
+      reader.forEach(er -> ids.add(er.getId()));
+    }
+  }
+}
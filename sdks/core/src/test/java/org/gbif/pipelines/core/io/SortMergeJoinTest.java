@@ -0,0 +1,137 @@
+package org.gbif.pipelines.core.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.IdentifierRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SortMergeJoinTest {
+
+  @Test
+  public void joinTest() throws Exception {
+
+    // State
+    Iterator<IdentifierRecord> ids = ids("1", "2", "3", "5");
+    Iterator<ExtendedRecord> ers = ers("0", "1", "3", "4", "5", "6");
+
+    // When
+    List<JoinedRecords> result = new ArrayList<>();
+    try (SortMergeJoin join =
+        SortMergeJoin.create(IdentifierRecord.class, ids).join(ExtendedRecord.class, ers)) {
+      join.forEachRemaining(result::add);
+    }
+
+    // Should
+    Assert.assertEquals(4, result.size());
+    Assert.assertEquals("1", result.get(0).getId());
+    Assert.assertEquals("1", result.get(0).get(IdentifierRecord.class).getId());
+    Assert.assertEquals("1", result.get(0).get(ExtendedRecord.class).getId());
+    Assert.assertEquals("2", result.get(1).getId());
+    Assert.assertTrue(result.get(1).contains(ExtendedRecord.class));
+    Assert.assertNull(result.get(1).get(ExtendedRecord.class));
+    Assert.assertEquals("3", result.get(2).get(ExtendedRecord.class).getId());
+    Assert.assertEquals("5", result.get(3).get(ExtendedRecord.class).getId());
+  }
+
+  @Test
+  public void emptyInputTest() {
+
+    // State
+    Iterator<IdentifierRecord> ids = ids("1", "2");
+    Iterator<ExtendedRecord> ers = Collections.emptyIterator();
+
+    // When
+    SortMergeJoin join =
+        SortMergeJoin.create(IdentifierRecord.class, ids).join(ExtendedRecord.class, ers);
+    JoinedRecords first = join.next();
+    JoinedRecords second = join.next();
+
+    // Should
+    Assert.assertFalse(join.hasNext());
+    Assert.assertNull(first.get(ExtendedRecord.class));
+    Assert.assertEquals("2", second.getId());
+    Assert.assertEquals(
+        "2",
+        second
+            .getOrDefault(
+                ExtendedRecord.class, () -> ExtendedRecord.newBuilder().setId("2").build())
+            .getId());
+  }
+
+  @Test
+  public void duplicatesTest() {
+
+    // State
+    Iterator<IdentifierRecord> ids = ids("1", "1", "2");
+    Iterator<ExtendedRecord> ers =
+        Arrays.asList(
+                ExtendedRecord.newBuilder().setId("1").setCoreId("a").build(),
+                ExtendedRecord.newBuilder().setId("1").setCoreId("b").build())
+            .iterator();
+
+    // When
+    List<JoinedRecords> result = new ArrayList<>();
+    SortMergeJoin.create(IdentifierRecord.class, ids)
+        .join(ExtendedRecord.class, ers)
+        .forEachRemaining(result::add);
+
+    // Should
+    Assert.assertEquals(2, result.size());
+    Assert.assertEquals("b", result.get(0).get(ExtendedRecord.class).getCoreId());
+    Assert.assertNull(result.get(1).get(ExtendedRecord.class));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void notSortedTest() {
+
+    // State
+    Iterator<IdentifierRecord> ids = ids("1", "2", "3");
+    Iterator<ExtendedRecord> ers = ers("2", "1", "3");
+
+    // When
+    SortMergeJoin.create(IdentifierRecord.class, ids)
+        .join(ExtendedRecord.class, ers)
+        .forEachRemaining(jr -> {});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sameClassTest() {
+    // When
+    SortMergeJoin.create(IdentifierRecord.class, ids("1")).join(IdentifierRecord.class, ids("1"));
+  }
+
+  @Test
+  public void sortedMergeIteratorTest() {
+
+    // State
+    List<Iterator<ExtendedRecord>> runs = Arrays.asList(ers("1", "4"), ers(), ers("0", "2", "5"));
+
+    // When
+    List<String> result = new ArrayList<>();
+    SortedMergeIterator.create(runs).forEachRemaining(er -> result.add(er.getId()));
+
+    // Should
+    Assert.assertEquals(Arrays.asList("0", "1", "2", "4", "5"), result);
+  }
+
+  private static Iterator<IdentifierRecord> ids(String... ids) {
+    List<IdentifierRecord> records = new ArrayList<>();
+    for (String id : ids) {
+      records.add(IdentifierRecord.newBuilder().setId(id).build());
+    }
+    return records.iterator();
+  }
+
+  private static Iterator<ExtendedRecord> ers(String... ids) {
+    List<ExtendedRecord> records = new ArrayList<>();
+    for (String id : ids) {
+      records.add(ExtendedRecord.newBuilder().setId(id).build());
+    }
+    return records.iterator();
+  }
+}
@@ -0,0 +1,72 @@
+package org.gbif.pipelines.core.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.avro.AvroReadSupport;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SyncParquetWriterTest {
+
+  private final Path parquetPath = new Path("target/parquet/verbatim.parquet");
+
+  @Test
+  public void writeReadTest() throws IOException {
+
+    // State
+    Configuration configuration = new Configuration();
+    ParquetSettings settings =
+        ParquetSettings.builder()
+            .tables(Collections.singleton(RecordType.ALL.name()))
+            .pageSize(8 * 1024)
+            .build();
+
+    List<ExtendedRecord> expected = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      expected.add(
+          ExtendedRecord.newBuilder()
+              .setId(Integer.toString(i))
+              .setCoreRowType("occurrence")
+              .setCoreTerms(Collections.singletonMap("term", "value" + (i % 10)))
+              .build());
+    }
+
+    // When
+    try (SyncRecordWriter<ExtendedRecord> writer =
+        SyncParquetWriterBuilder.builder()
+            .schema(ExtendedRecord.getClassSchema())
+            .settings(settings)
+            .path(parquetPath)
+            .configuration(configuration)
+            .build()
+            .createSyncParquetWriter()) {
+      expected.forEach(writer::append);
+    }
+
+    List<ExtendedRecord> result = new ArrayList<>();
+    AvroReadSupport.setAvroReadSchema(configuration, ExtendedRecord.getClassSchema());
+    try (ParquetReader<ExtendedRecord> reader =
+        AvroParquetReader.<ExtendedRecord>builder(parquetPath).withConf(configuration).build()) {
+      for (ExtendedRecord r = reader.read(); r != null; r = reader.read()) {
+        result.add(r);
+      }
+    }
+
+    // Should
+    Assert.assertTrue(settings.isParquet(RecordType.OCCURRENCE));
+    Assert.assertEquals(expected, result);
+
+    // Post
+    Files.deleteIfExists(Paths.get(parquetPath.toString()));
+  }
+}
@@ -0,0 +1,223 @@
+package org.gbif.pipelines.core.kvs;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gbif.kvs.KeyValueStore;
+import org.gbif.pipelines.core.config.model.KvCacheConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CachedKeyValueStoreTest {
+
+  @Test
+  public void caffeineTest() {
+    // State
+    KvCacheConfig config = new KvCacheConfig();
+    config.setType(KvCacheConfig.Type.CAFFEINE);
+    CountingStore store = new CountingStore();
+
+    // When
+    KeyValueStore<String, String> kvStore = CachedKeyValueStore.wrap("caffeine", store, config);
+    String first = kvStore.get("a");
+    String second = kvStore.get("a");
+    String absent = kvStore.get("null");
+    String absentSecond = kvStore.get("null");
+
+    // Should
+    Assert.assertEquals("A", first);
+    Assert.assertEquals("A", second);
+    Assert.assertNull(absent);
+    Assert.assertNull(absentSecond);
+    Assert.assertEquals(2, store.calls.get());
+
+    KvCacheStats stats = getStats("caffeine");
+    Assert.assertEquals(2, stats.getHits());
+    Assert.assertEquals(2, stats.getMisses());
+    Assert.assertEquals(2, stats.getSize());
+    Assert.assertEquals(0.5d, stats.getHitRatio(), 0d);
+  }
+
+  @Test
+  public void offHeapTest() {
+    // State
+    KvCacheConfig config = new KvCacheConfig();
+    config.setType(KvCacheConfig.Type.OFF_HEAP);
+    config.setMaxSizeMb(16L);
+    CountingStore store = new CountingStore();
+
+    // When
+    KeyValueStore<String, String> kvStore = CachedKeyValueStore.wrap("offHeap", store, config);
+    String first = kvStore.get("a");
+    String second = kvStore.get("a");
+    String absent = kvStore.get("null");
+    String absentSecond = kvStore.get("null");
+
+    // Should
+    Assert.assertEquals("A", first);
+    Assert.assertEquals("A", second);
+    Assert.assertNull(absent);
+    Assert.assertNull(absentSecond);
+    Assert.assertEquals(2, store.calls.get());
+    Assert.assertEquals(2, getStats("offHeap").getHits());
+  }
+
+  @Test
+  public void offHeapHashCollisionTest() {
+    // State
+    KvCacheConfig config = new KvCacheConfig();
+    config.setType(KvCacheConfig.Type.OFF_HEAP);
+    config.setMaxSizeMb(16L);
+    CountingStore store = new CountingStore();
+    store.values.put("Aa", "first");
+    store.values.put("BB", "second");
+
+    // When
+    KeyValueStore<String, String> kvStore =
+        CachedKeyValueStore.wrap("offHeapCollision", store, config);
+    String first = kvStore.get("Aa");
+    String second = kvStore.get("BB");
+    String firstAgain = kvStore.get("Aa");
+
+    // Should
+    Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+    Assert.assertEquals("first", first);
+    Assert.assertEquals("second", second);
+    Assert.assertEquals("first", firstAgain);
+    Assert.assertEquals(3, store.calls.get());
+  }
+
+  @Test
+  public void sizeOfTest() {
+    // Should
+    Assert.assertEquals(0, CaffeineKvCacheTier.sizeOf(null));
+    Assert.assertEquals(52, CaffeineKvCacheTier.sizeOf("abcdefghij"));
+    Assert.assertEquals(16, CaffeineKvCacheTier.sizeOf(1L));
+    Assert.assertEquals(
+        CaffeineKvCacheTier.DEFAULT_SIZE_BYTES, CaffeineKvCacheTier.sizeOf(new Object()));
+  }
+
+  @Test
+  public void sharedCacheTest() {
+    // State
+    KvCacheConfig config = new KvCacheConfig();
+    CountingStore storeOne = new CountingStore();
+    CountingStore storeTwo = new CountingStore();
+
+    // When
+    CachedKeyValueStore.wrap("shared", storeOne, config).get("a");
+    String result = CachedKeyValueStore.wrap("shared", storeTwo, config).get("a");
+
+    // Should
+    Assert.assertEquals("A", result);
+    Assert.assertEquals(1, storeOne.calls.get());
+    Assert.assertEquals(0, storeTwo.calls.get());
+  }
+
+  @Test
+  public void coalescingTest() throws Exception {
+    // State
+    KvCacheConfig config = new KvCacheConfig();
+    CountDownLatch latch = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    KeyValueStore<String, String> store =
+        new KeyValueStore<String, String>() {
+          @Override
+          public String get(String key) {
+            calls.incrementAndGet();
+            try {
+              latch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+            }
+            return key.toUpperCase();
+          }
+
+          @Override
+          public void close() {}
+        };
+    KeyValueStore<String, String> kvStore = CachedKeyValueStore.wrap("coalescing", store, config);
+
+    // When
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    Future<String> first = executor.submit(() -> kvStore.get("a"));
+    while (calls.get() == 0) {
+      TimeUnit.MILLISECONDS.sleep(5);
+    }
+    Future<String> second = executor.submit(() -> kvStore.get("a"));
+    Future<String> third = executor.submit(() -> kvStore.get("a"));
+    while (getStats("coalescing").getCoalesced() < 2) {
+      TimeUnit.MILLISECONDS.sleep(5);
+    }
+    latch.countDown();
+
+    // Should
+    Assert.assertEquals("A", first.get());
+    Assert.assertEquals("A", second.get());
+    Assert.assertEquals("A", third.get());
+    Assert.assertEquals(1, calls.get());
+    executor.shutdown();
+  }
+
+  @Test
+  public void statsSinceTest() {
+    // State
+    KvCacheConfig config = new KvCacheConfig();
+    CountingStore store = new CountingStore();
+    Map<String, Long> counters = new ConcurrentHashMap<>();
+    KeyValueStore<String, String> kvStore =
+        CachedKeyValueStore.wrap(
+            "since", store, config, (name, value) -> counters.merge(name, value, Long::sum));
+    kvStore.get("a");
+    kvStore.get("a");
+
+    // When
+    List<KvCacheStats> snapshot = CachedKeyValueStore.getStats();
+    kvStore.get("a");
+    kvStore.get("b");
+    List<KvCacheStats> since = CachedKeyValueStore.getStatsSince(snapshot);
+
+    // Should
+    Assert.assertEquals(1, since.size());
+    KvCacheStats stats = since.get(0);
+    Assert.assertEquals("since", stats.getName());
+    Assert.assertEquals(1, stats.getHits());
+    Assert.assertEquals(1, stats.getMisses());
+    Assert.assertEquals(2, stats.getSize());
+
+    Assert.assertEquals(Long.valueOf(2L), counters.get("sinceKvCacheHits"));
+    Assert.assertEquals(Long.valueOf(2L), counters.get("sinceKvCacheMisses"));
+    Assert.assertNull(counters.get("sinceKvCacheCoalesced"));
+    Assert.assertTrue(counters.containsKey("sinceKvCacheLoadTimeMicros"));
+  }
+
+  private static KvCacheStats getStats(String name) {
+    List<KvCacheStats> stats = CachedKeyValueStore.getStats();
+    return stats.stream().filter(s -> s.getName().equals(name)).findFirst().get();
+  }
+
+  private static class CountingStore implements KeyValueStore<String, String> {
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private CountingStore() {
+      values.put("a", "A");
+    }
+
+    @Override
+    public String get(String key) {
+      calls.incrementAndGet();
+      return values.get(key);
+    }
+
+    @Override
+    public void close() {}
+  }
+}
@@ -0,0 +1,172 @@
+package org.gbif.pipelines.core.parsers.clustering;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CandidateBlockingTest {
+
+  @Test
+  public void geoHashTest() {
+    // Should
+    Assert.assertEquals("ezs42", GeoHash.encode(42.6, -5.6, 5));
+    Assert.assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+    Assert.assertEquals(GeoHash.encode(10d, 10d, 4), GeoHash.encode(10d, 10d, 7).substring(0, 4));
+    Assert.assertEquals(360d / 8192, GeoHash.cellWidth(5), 0d);
+    Assert.assertEquals(180d / 4096, GeoHash.cellHeight(5), 0d);
+  }
+
+  @Test
+  public void shiftedGridTest() {
+
+    // State
+    CandidateBlocking blocking = CandidateBlocking.create(BlockingConfig.builder().build());
+    double border = 45d;
+    OccurrenceFeaturesPojo o1 = point("1", border - 0.0001, 10.01);
+    OccurrenceFeaturesPojo o2 = point("2", border + 0.0001, 10.01);
+
+    // When
+    Set<String> k1 = coarsestKeys(blocking.blockKeys(o1));
+    Set<String> k2 = coarsestKeys(blocking.blockKeys(o2));
+
+    // Should
+    Assert.assertNotEquals(
+        GeoHash.encode(o1.getDecimalLatitude(), 10.01, 4),
+        GeoHash.encode(o2.getDecimalLatitude(), 10.01, 4));
+    k1.retainAll(k2);
+    Assert.assertEquals(1, k1.size());
+    Assert.assertTrue(k1.iterator().next().startsWith("grids|4|"));
+  }
+
+  @Test
+  public void lshTest() {
+
+    // State
+    CandidateBlocking blocking = CandidateBlocking.create(BlockingConfig.builder().build());
+    OccurrenceFeaturesPojo o1 = identifier("1", "MNHN-P-P00512345", "J. Smith");
+    OccurrenceFeaturesPojo o2 = identifier("2", "MNHN P P00512345", "Smith, J.");
+    OccurrenceFeaturesPojo o3 = identifier("3", "K000123987", "A. Jones");
+    OccurrenceFeaturesPojo numeric = identifier("4", "12345", null);
+
+    // When
+    Set<String> k1 = coarsestKeys(blocking.blockKeys(o1));
+    Set<String> k2 = coarsestKeys(blocking.blockKeys(o2));
+    Set<String> k3 = coarsestKeys(blocking.blockKeys(o3));
+
+    // Should
+    Assert.assertEquals(10, k1.size());
+    Assert.assertEquals(k1, k2);
+    k1.retainAll(k3);
+    Assert.assertTrue(k1.isEmpty());
+    Assert.assertTrue(blocking.blockKeys(numeric).isEmpty());
+  }
+
+  @Test
+  public void splitByLevelsTest() {
+
+    // State
+    CandidateBlocking blocking =
+        CandidateBlocking.create(BlockingConfig.builder().maxBlockSize(3).build());
+    List<OccurrenceFeaturesPojo> records = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      records.add(
+          OccurrenceFeaturesPojo.builder()
+              .id(Integer.toString(i))
+              .speciesKey("1")
+              .decimalLatitude(10d)
+              .decimalLongitude(10d)
+              .year(2000)
+              .month(1 + i % 2)
+              .build());
+    }
+    String key = blocking.blockKeys(records.get(0)).get(0).getKey();
+
+    // When
+    List<CandidateBlock<OccurrenceFeaturesPojo>> blocks = blocking.split(key, records);
+
+    // Should
+    Assert.assertEquals(2, blocks.size());
+    Assert.assertEquals(3, blocks.get(0).getRecords().size());
+    Assert.assertEquals(3L, blocks.get(0).getPairs());
+    Assert.assertTrue(blocks.get(0).getKey().startsWith("grid|5|"));
+    Assert.assertTrue(blocks.get(1).getKey().endsWith("|2000-2"));
+  }
+
+  @Test
+  public void dropOversizedTest() {
+
+    // State
+    CandidateBlocking blocking =
+        CandidateBlocking.create(BlockingConfig.builder().maxBlockSize(3).build());
+    List<OccurrenceFeaturesPojo> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      records.add(
+          OccurrenceFeaturesPojo.builder()
+              .id(Integer.toString(i))
+              .speciesKey("1")
+              .decimalLatitude(10d)
+              .decimalLongitude(10d)
+              .year(2000)
+              .month(1)
+              .day(i < 8 ? 1 : 2)
+              .build());
+    }
+    String key = blocking.blockKeys(records.get(0)).get(0).getKey();
+
+    // When
+    List<CandidateBlock<OccurrenceFeaturesPojo>> exact = blocking.split("1|ABC", records);
+    List<CandidateBlock<OccurrenceFeaturesPojo>> grid = blocking.split(key, records);
+
+    // Should
+    Assert.assertTrue(exact.isEmpty());
+    Assert.assertFalse(blocking.nextLevelKey("1|ABC", records.get(0)).isPresent());
+    // the 8 records of the finest cell and day can't be split and are dropped
+    Assert.assertEquals(1, grid.size());
+    Assert.assertTrue(grid.get(0).getKey().endsWith("|2000-1-2"));
+    String month = blocking.nextLevelKey(key, records.get(8)).get();
+    Assert.assertEquals(grid.get(0).getKey(), blocking.nextLevelKey(month, records.get(8)).get());
+  }
+
+  @Test
+  public void smallBlockTest() {
+
+    // State
+    CandidateBlocking blocking = CandidateBlocking.create(BlockingConfig.builder().build());
+    List<OccurrenceFeaturesPojo> one =
+        Collections.singletonList(OccurrenceFeaturesPojo.builder().id("1").build());
+
+    // When
+    List<CandidateBlock<OccurrenceFeaturesPojo>> blocks = blocking.split("key", one);
+
+    // Should
+    Assert.assertTrue(blocks.isEmpty());
+  }
+
+  private static Set<String> coarsestKeys(List<BlockKey> keys) {
+    return keys.stream().map(BlockKey::getKey).collect(Collectors.toSet());
+  }
+
+  private static OccurrenceFeaturesPojo point(String id, double lat, double lng) {
+    return OccurrenceFeaturesPojo.builder()
+        .id(id)
+        .speciesKey("1")
+        .decimalLatitude(lat)
+        .decimalLongitude(lng)
+        .year(2000)
+        .build();
+  }
+
+  private static OccurrenceFeaturesPojo identifier(
+      String id, String catalogNumber, String recordedBy) {
+    return OccurrenceFeaturesPojo.builder()
+        .id(id)
+        .speciesKey("1")
+        .catalogNumber(catalogNumber)
+        .recordedBy(recordedBy == null ? null : Collections.singletonList(recordedBy))
+        .build();
+  }
+}
@@ -0,0 +1,145 @@
+package org.gbif.pipelines.core.parsers.clustering;
+
+import static org.gbif.pipelines.core.parsers.clustering.RelationshipAssertion.FeatureAssertion.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompiledOccurrenceFeaturesTest {
+
+  @Test
+  public void sameAsGenerateTest() {
+
+    // State
+    List<OccurrenceFeatures> records = randomRecords(new Random(42), 400);
+    List<CompiledOccurrenceFeatures<OccurrenceFeatures>> compiled =
+        CompiledOccurrenceFeatures.compile(records);
+
+    // When
+    int related = 0;
+    for (int i = 0; i < records.size(); i++) {
+      for (int j = i + 1; j < records.size(); j++) {
+        RelationshipAssertion<OccurrenceFeatures> expected =
+            OccurrenceRelationships.generate(records.get(i), records.get(j));
+        RelationshipAssertion<OccurrenceFeatures> result =
+            OccurrenceRelationships.generate(compiled.get(i), compiled.get(j));
+
+        // Should
+        if (expected == null) {
+          Assert.assertNull(result);
+        } else {
+          related++;
+          Assert.assertNotNull(result);
+          Assert.assertSame(records.get(i), result.getOcc1());
+          Assert.assertEquals(
+              expected.getJustificationAsDelimited(), result.getJustificationAsDelimited());
+        }
+      }
+    }
+    Assert.assertTrue(related > 100);
+  }
+
+  @Test
+  public void approximateDateTest() {
+
+    // State
+    OccurrenceFeatures o1 = dated("o1", 2020, 3, 31);
+    OccurrenceFeatures o2 = dated("o2", 2020, 4, 1);
+    OccurrenceFeatures o3 = dated("o3", 2020, 4, 30);
+    OccurrenceFeatures invalid = dated("o4", 2020, 2, 31);
+
+    // When
+    int mask12 = mask(o1, o2);
+    int mask23 = mask(o2, o3);
+    int mask2i = mask(o2, invalid);
+
+    // Should
+    Assert.assertNotEquals(0, mask12 & APPROXIMATE_DATE.mask());
+    Assert.assertEquals(0, mask23 & APPROXIMATE_DATE.mask());
+    Assert.assertEquals(0, mask2i & APPROXIMATE_DATE.mask());
+    Assert.assertNotNull(OccurrenceRelationships.generate(o1, o2));
+    Assert.assertNull(OccurrenceRelationships.generate(o2, o3));
+  }
+
+  @Test
+  public void foldCaseTest() {
+    // Should
+    Assert.assertEquals(
+        CompiledOccurrenceFeatures.foldCase("Smith, J."),
+        CompiledOccurrenceFeatures.foldCase("SMITH, j."));
+    Assert.assertNotEquals(
+        CompiledOccurrenceFeatures.foldCase("Smith"), CompiledOccurrenceFeatures.foldCase("Smyth"));
+  }
+
+  private static int mask(OccurrenceFeatures o1, OccurrenceFeatures o2) {
+    return OccurrenceRelationships.assertionMask(
+        CompiledOccurrenceFeatures.compile(o1), CompiledOccurrenceFeatures.compile(o2));
+  }
+
+  private static OccurrenceFeatures dated(String id, int year, int month, int day) {
+    return OccurrenceFeaturesPojo.builder()
+        .id(id)
+        .speciesKey("1")
+        .decimalLatitude(44d)
+        .decimalLongitude(44d)
+        .recordedBy(Collections.singletonList("Tim"))
+        .year(year)
+        .month(month)
+        .day(day)
+        .build();
+  }
+
+  /** Records drawn from small pools of values, so many pairs share facts */
+  static List<OccurrenceFeatures> randomRecords(Random random, int size) {
+    List<String> ids = Arrays.asList("A-1", "a 1", "B2", "123", "NA", "s.n.", "X/99");
+    List<String> names = Arrays.asList("Tim Robertson", "TIM ROBERTSON", "J. Smith", "Müller");
+    List<String> bors = Arrays.asList("PRESERVED_SPECIMEN", "HUMAN_OBSERVATION");
+    List<String> types = Arrays.asList("HOLOTYPE", "holotype", "ISOTYPE");
+    List<OccurrenceFeatures> records = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      records.add(
+          OccurrenceFeaturesPojo.builder()
+              .id(Integer.toString(i))
+              .datasetKey(Integer.toString(random.nextInt(3)))
+              .speciesKey(orNull(random, Integer.toString(random.nextInt(2))))
+              .taxonKey(orNull(random, Integer.toString(random.nextInt(2))))
+              .scientificName(orNull(random, "Puma concolor"))
+              .basisOfRecord(pick(random, bors))
+              .decimalLatitude(random.nextBoolean() ? 44d + random.nextInt(3) * 0.001 : null)
+              .decimalLongitude(random.nextBoolean() ? 44d + random.nextInt(3) * 0.001 : null)
+              .year(random.nextBoolean() ? 2020 : null)
+              .month(random.nextBoolean() ? 1 + random.nextInt(2) : null)
+              .day(random.nextBoolean() ? 30 + random.nextInt(2) : null)
+              .eventDate(random.nextInt(4) == 0 ? "2020-01-3" + random.nextInt(2) : null)
+              .countryCode(random.nextInt(3) == 0 ? null : pick(random, Arrays.asList("DK", "ES")))
+              .typeStatus(
+                  random.nextInt(4) == 0 ? Collections.singletonList(pick(random, types)) : null)
+              .occurrenceID(orNull(random, pick(random, ids)))
+              .catalogNumber(orNull(random, pick(random, ids)))
+              .institutionCode(orNull(random, "K"))
+              .collectionCode(orNull(random, "HERB"))
+              .otherCatalogNumbers(
+                  random.nextBoolean()
+                      ? Arrays.asList("Cat#K:HERB:" + pick(random, ids), pick(random, ids))
+                      : null)
+              .recordedBy(
+                  random.nextBoolean() ? Collections.singletonList(pick(random, names)) : null)
+              .isFromSequenceRepository(random.nextInt(5) == 0)
+              .build());
+    }
+    return records;
+  }
+
+  private static String orNull(Random random, String value) {
+    return random.nextBoolean() ? value : null;
+  }
+
+  private static <T> T pick(Random random, List<T> values) {
+    return values.get(random.nextInt(values.size()));
+  }
+}
@@ -0,0 +1,81 @@
+package org.gbif.pipelines.core.parsers.clustering;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares pairwise comparison of a candidate group by {@link
+ * OccurrenceRelationships#generate(OccurrenceFeatures, OccurrenceFeatures)} with {@link
+ * CompiledOccurrenceFeatures}, including the time to compile the group.
+ *
+ * <p>Run the main method using the test classpath, it isn't a part of the unit tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class OccurrenceRelationshipsBenchmark {
+
+  @Param({"50", "500"})
+  private int groupSize;
+
+  private List<OccurrenceFeatures> group;
+
+  @Setup
+  public void setup() {
+    group = CompiledOccurrenceFeaturesTest.randomRecords(new Random(42), groupSize);
+  }
+
+  @Benchmark
+  public int generate() {
+    int related = 0;
+    for (int i = 0; i < group.size(); i++) {
+      for (int j = i + 1; j < group.size(); j++) {
+        if (OccurrenceRelationships.generate(group.get(i), group.get(j)) != null) {
+          related++;
+        }
+      }
+    }
+    return related;
+  }
+
+  @Benchmark
+  public int compiled() {
+    List<CompiledOccurrenceFeatures<OccurrenceFeatures>> compiled =
+        CompiledOccurrenceFeatures.compile(group);
+    int related = 0;
+    for (int i = 0; i < compiled.size(); i++) {
+      for (int j = i + 1; j < compiled.size(); j++) {
+        if (OccurrenceRelationships.assertionMask(compiled.get(i), compiled.get(j)) != 0) {
+          related++;
+        }
+      }
+    }
+    return related;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(OccurrenceRelationshipsBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
@@ -0,0 +1,65 @@
+package org.gbif.pipelines.core.parsers.location;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.gbif.kvs.geocode.LatLng;
+import org.gbif.pipelines.core.parsers.location.cache.RasterIndexBuilder.Region;
+import org.gbif.rest.client.geocode.GeocodeResponse;
+import org.gbif.rest.client.geocode.Location;
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.jts.io.WKTReader;
+
+public class EmbeddedGeocoderTest {
+
+  @Test
+  public void getTest() throws Exception {
+
+    // State
+    EmbeddedGeocoder geocoder =
+        EmbeddedGeocoder.create(
+            Arrays.asList(
+                Arrays.asList(
+                    region(
+                        "AA",
+                        "Political",
+                        "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (4 4, 6 4, 6 6, 4 6, 4 4))"),
+                    region("BB", "Political", "POLYGON ((10 0, 20 0, 20 10, 10 10, 10 0))")),
+                Collections.singletonList(
+                    region("AA.1_1", "GADM1", "POLYGON ((0 0, 4 0, 4 4, 0 4, 0 0))"))));
+
+    // When
+    List<String> inside = ids(geocoder.get(latLng(2d, 2d)));
+    List<String> hole = ids(geocoder.get(latLng(5d, 5d)));
+    List<String> border = ids(geocoder.get(latLng(5d, 10d)));
+    List<String> outside = ids(geocoder.get(latLng(-5d, -5d)));
+    List<String> invalid = ids(geocoder.get(latLng(95d, 5d)));
+
+    // Should
+    Assert.assertEquals(Arrays.asList("AA", "AA.1_1"), inside);
+    Assert.assertTrue(hole.isEmpty());
+    Assert.assertEquals(
+        Arrays.asList("AA", "BB"), border.stream().sorted().collect(Collectors.toList()));
+    Assert.assertTrue(outside.isEmpty());
+    Assert.assertTrue(invalid.isEmpty());
+    Assert.assertEquals(0d, geocoder.get(latLng(2d, 2d)).getLocations().get(0).getDistance(), 0d);
+  }
+
+  private static List<String> ids(GeocodeResponse response) {
+    return response.getLocations().stream().map(Location::getId).collect(Collectors.toList());
+  }
+
+  private static Region region(String id, String type, String wkt) throws Exception {
+    Location location = new Location();
+    location.setId(id);
+    location.setName(id);
+    location.setType(type);
+    return Region.create(location, new WKTReader().read(wkt));
+  }
+
+  private static LatLng latLng(double lat, double lng) {
+    return LatLng.builder().withLatitude(lat).withLongitude(lng).build();
+  }
+}
@@ -0,0 +1,57 @@
+package org.gbif.pipelines.core.parsers.location;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.gbif.kvs.geocode.LatLng;
+import org.gbif.pipelines.core.parsers.location.cache.RasterIndex;
+import org.gbif.pipelines.core.parsers.location.cache.RasterIndexBuilder;
+import org.gbif.pipelines.core.parsers.location.cache.RasterIndexBuilder.Region;
+import org.gbif.rest.client.geocode.GeocodeResponse;
+import org.gbif.rest.client.geocode.Location;
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.jts.io.WKTReader;
+
+public class GeocodeKvStoreTest {
+
+  @Test
+  public void rasterIndexLayersTest() throws Exception {
+
+    // State
+    Location political = new Location();
+    political.setId("AA");
+    political.setType("Political");
+    RasterIndexBuilder builder = RasterIndexBuilder.create(1, 2);
+    builder.layer(
+        Collections.singletonList(
+            Region.create(
+                political, new WKTReader().read("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))"))));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    builder.write(out);
+    RasterIndex index = RasterIndex.wrap(ByteBuffer.wrap(out.toByteArray()));
+
+    Location eez = new Location();
+    eez.setId("BB");
+    eez.setType("EEZ");
+    LatLng sea = LatLng.builder().withLatitude(-5d).withLongitude(-5d).build();
+    KeyValueTestStore kvStore = new KeyValueTestStore();
+    kvStore.put(sea, new GeocodeResponse(Collections.singletonList(eez)));
+
+    GeocodeKvStore politicalStore =
+        GeocodeKvStore.create(kvStore, null, index, Collections.singleton("Political"));
+    GeocodeKvStore allStore =
+        GeocodeKvStore.create(
+            kvStore, null, index, new HashSet<>(Arrays.asList("Political", "EEZ")));
+
+    // When
+    GeocodeResponse fromIndex = politicalStore.get(sea);
+    GeocodeResponse fromKvStore = allStore.get(sea);
+
+    // Should
+    Assert.assertTrue(fromIndex.getLocations().isEmpty());
+    Assert.assertEquals("BB", fromKvStore.getLocations().get(0).getId());
+  }
+}
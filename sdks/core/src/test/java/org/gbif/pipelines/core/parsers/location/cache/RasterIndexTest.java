@@ -0,0 +1,119 @@
+package org.gbif.pipelines.core.parsers.location.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.gbif.kvs.geocode.LatLng;
+import org.gbif.pipelines.core.parsers.location.cache.RasterIndexBuilder.Region;
+import org.gbif.rest.client.geocode.GeocodeResponse;
+import org.gbif.rest.client.geocode.Location;
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.jts.io.WKTReader;
+
+public class RasterIndexTest {
+
+  @Test
+  public void lookupTest() throws Exception {
+
+    // State
+    RasterIndex index =
+        build(
+            2,
+            Arrays.asList(
+                region("AA", "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))"),
+                region("BB", "POLYGON ((10 0, 20 0, 20 10.3, 10 10.3, 10 0))")),
+            Collections.singletonList(
+                region("OO", "EEZ", "POLYGON ((-1 -1, 30 -1, 30 30, -1 30, -1 -1))")));
+
+    // When
+    GeocodeResponse inside = index.get(latLng(5d, 5d));
+    GeocodeResponse east = index.get(latLng(5d, 15d));
+    GeocodeResponse outside = index.get(latLng(-5d, -5d));
+    GeocodeResponse border = index.get(latLng(10.28d, 15d));
+    GeocodeResponse invalid = index.get(latLng(95d, 15d));
+
+    // Should
+    Assert.assertEquals(2, inside.getLocations().size());
+    Assert.assertEquals("AA", inside.getLocations().get(0).getId());
+    Assert.assertEquals("OO", inside.getLocations().get(1).getId());
+    Assert.assertEquals(0d, inside.getLocations().get(0).getDistance(), 0d);
+    Assert.assertEquals("BB", east.getLocations().get(0).getId());
+    Assert.assertTrue(outside.getLocations().isEmpty());
+    Assert.assertNull(border);
+    Assert.assertNull(invalid);
+    Assert.assertTrue(index.covers(Arrays.asList("EEZ", "Political")));
+    Assert.assertFalse(index.covers(Arrays.asList("Political", "GADM0")));
+  }
+
+  @Test
+  public void emptyLayerTest() throws Exception {
+
+    // State
+    RasterIndexBuilder builder = RasterIndexBuilder.create(10, 0);
+    builder.layer(
+        Collections.singletonList(region("AA", "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))")));
+    builder.layer("GADM0", Collections.emptyList());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // When
+    builder.write(out);
+    RasterIndex index = RasterIndex.wrap(ByteBuffer.wrap(out.toByteArray()));
+
+    // Should
+    Assert.assertEquals(
+        new LinkedHashSet<>(Arrays.asList("Political", "GADM0")), index.getLayerTypes());
+  }
+
+  @Test
+  public void depthTest() throws Exception {
+
+    // State
+    RasterIndex index =
+        build(
+            10,
+            Collections.singletonList(region("AA", "POLYGON ((0 0, 10.3 0, 10.3 10, 0 10, 0 0))")));
+
+    // When
+    int inside = index.node(5d, 10.29d);
+    int border = index.node(5d, 10.2999d);
+    int touching = index.node(10.001d, 5d);
+    int edge = index.node(9.9999d, 5d);
+
+    // Should
+    Assert.assertEquals(0, inside);
+    Assert.assertEquals(RasterIndex.UNKNOWN, border);
+    Assert.assertEquals(RasterIndex.EMPTY, touching);
+    Assert.assertEquals(0, edge);
+  }
+
+  @SafeVarargs
+  private static RasterIndex build(int maxDepth, List<Region>... layers) throws Exception {
+    RasterIndexBuilder builder = RasterIndexBuilder.create(1, maxDepth);
+    for (List<Region> layer : layers) {
+      builder.layer(layer);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    builder.write(out);
+    return RasterIndex.wrap(ByteBuffer.wrap(out.toByteArray()));
+  }
+
+  private static Region region(String id, String wkt) throws Exception {
+    return region(id, "Political", wkt);
+  }
+
+  private static Region region(String id, String type, String wkt) throws Exception {
+    Location location = new Location();
+    location.setId(id);
+    location.setName(id);
+    location.setType(type);
+    return Region.create(location, new WKTReader().read(wkt));
+  }
+
+  private static LatLng latLng(double lat, double lng) {
+    return LatLng.builder().withLatitude(lat).withLongitude(lng).build();
+  }
+}
@@ -0,0 +1,130 @@
+package org.gbif.pipelines.core.parsers.temporal;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures {@link TemporalParser#parseRecordedDate(String, String, String, String)} and {@link
+ * TemporalRangeParser#parse(String, String, String, String)} over a batch of records with and
+ * without the parser cache.
+ *
+ * <p>Records are drawn from a pool of {@code distinctDates} dates with a skewed distribution, most
+ * of them are ISO dates, the rest are date times, ranges and free text dates, about a third of
+ * records have year, month and day too.
+ *
+ * <p>Run the main method using the test classpath, it isn't a part of the unit tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class TemporalParserBenchmark {
+
+  private static final int RECORDS = 10_000;
+
+  @Param({"0", "10000"})
+  private int cacheSize;
+
+  @Param({"100", "100000"})
+  private int distinctDates;
+
+  private TemporalParser temporalParser;
+  private TemporalRangeParser temporalRangeParser;
+  private List<String[]> records;
+
+  @Setup
+  public void setup() {
+    temporalParser = TemporalParser.create(Collections.emptyList(), cacheSize);
+    temporalRangeParser = TemporalRangeParser.builder().temporalParser(temporalParser).create();
+
+    Random random = new Random(42);
+    List<String[]> pool = new ArrayList<>(distinctDates);
+    for (int i = 0; i < distinctDates; i++) {
+      pool.add(randomRecord(random));
+    }
+    records = new ArrayList<>(RECORDS);
+    for (int i = 0; i < RECORDS; i++) {
+      // Squared uniform value skews towards the head of the pool
+      double skewed = random.nextDouble() * random.nextDouble();
+      records.add(pool.get((int) (skewed * distinctDates)));
+    }
+  }
+
+  @Benchmark
+  public int parseRecordedDate() {
+    int parsed = 0;
+    for (String[] r : records) {
+      if (temporalParser.parseRecordedDate(r[0], r[1], r[2], r[3]).isSuccessful()) {
+        parsed++;
+      }
+    }
+    return parsed;
+  }
+
+  @Benchmark
+  public int parseRange() {
+    int parsed = 0;
+    for (String[] r : records) {
+      if (temporalRangeParser.parse(r[0], r[1], r[2], r[3]).getFrom().isPresent()) {
+        parsed++;
+      }
+    }
+    return parsed;
+  }
+
+  /** Year, month, day and event date */
+  private static String[] randomRecord(Random random) {
+    LocalDate date = LocalDate.of(1850, 1, 1).plusDays(random.nextInt(60_000));
+    int shape = random.nextInt(100);
+    String eventDate;
+    if (shape < 55) {
+      eventDate = date.toString();
+    } else if (shape < 65) {
+      eventDate = date.toString().substring(0, 7);
+    } else if (shape < 70) {
+      eventDate = String.valueOf(date.getYear());
+    } else if (shape < 80) {
+      eventDate = date + "T" + String.format("%02d:00:00Z", random.nextInt(24));
+    } else if (shape < 88) {
+      eventDate = date + "/" + date.plusDays(random.nextInt(30));
+    } else if (shape < 95) {
+      eventDate = date.getDayOfMonth() + "/" + date.getMonthValue() + "/" + date.getYear();
+    } else {
+      eventDate = date.getDayOfMonth() + " " + date.getMonth() + " " + date.getYear();
+    }
+    if (random.nextInt(3) == 0) {
+      return new String[] {
+        String.valueOf(date.getYear()),
+        String.valueOf(date.getMonthValue()),
+        String.valueOf(date.getDayOfMonth()),
+        eventDate
+      };
+    }
+    return new String[] {null, null, null, eventDate};
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(TemporalParserBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
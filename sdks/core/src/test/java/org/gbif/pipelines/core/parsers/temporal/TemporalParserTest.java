@@ -1,17 +1,24 @@
 package org.gbif.pipelines.core.parsers.temporal;
 
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.TEMPORAL_PARSER_CACHE_HITS;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.TEMPORAL_PARSER_CACHE_MISSES;
 import static org.junit.Assert.*;
 
 import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.time.DateFormatUtils;
 import org.gbif.api.vocabulary.OccurrenceIssue;
 import org.gbif.common.parsers.core.OccurrenceParseResult;
 import org.gbif.common.parsers.core.ParseResult;
+import org.gbif.common.parsers.date.DateParsers;
 import org.junit.Test;
 
 public class TemporalParserTest {
@@ -325,6 +332,84 @@ public class TemporalParserTest {
             null, null, null, "2004-12-30T00:00:00+0000/2005-03-13T24:00:00+0000"));
   }
 
+  @Test
+  public void isoFastPathTest() {
+
+    // State
+    org.gbif.common.parsers.date.TemporalParser gbifParser = DateParsers.defaultTemporalParser();
+    String[] dates = {
+      "2005",
+      "1600",
+      "2005-01",
+      "2005-12",
+      "2005-01-01",
+      "2004-02-29",
+      "2005-02-29",
+      "2005-13-01",
+      "2005-00-10",
+      "2005-04-31",
+      "0999",
+      "2005/01/01",
+      "2005-1-01",
+      "20050101",
+      "2005-01-01T10:00"
+    };
+
+    for (String date : dates) {
+      // When
+      TemporalAccessor iso = IsoDateParser.parse(date);
+      ParseResult<TemporalAccessor> expected = gbifParser.parse(date);
+
+      // Should
+      if (iso != null) {
+        assertTrue(date, expected.isSuccessful());
+        assertEquals(date, expected.getPayload(), iso);
+        assertEquals(date, ParseResult.CONFIDENCE.DEFINITE, expected.getConfidence());
+      }
+    }
+    assertEquals(LocalDate.of(2004, 2, 29), IsoDateParser.parse("2004-02-29"));
+    assertNull(IsoDateParser.parse("2005-02-29"));
+    assertNull(IsoDateParser.parse("2005-01-01T10:00"));
+  }
+
+  @Test
+  public void cacheTest() {
+
+    // State
+    TemporalParser temporalParser = TemporalParser.create(Collections.emptyList(), 10);
+
+    // When
+    OccurrenceParseResult<TemporalAccessor> first =
+        temporalParser.parseRecordedDate("2005", "1", "2", "2005-01-05");
+    first.addIssue(OccurrenceIssue.RECORDED_DATE_UNLIKELY);
+    OccurrenceParseResult<TemporalAccessor> second =
+        temporalParser.parseRecordedDate("2005", "1", "2", "2005-01-05");
+    OccurrenceParseResult<TemporalAccessor> other =
+        temporalParser.parseRecordedDate("2005", "1", "5", "2005-01-05");
+
+    // Should
+    assertEquals(Collections.singleton(OccurrenceIssue.RECORDED_DATE_MISMATCH), second.getIssues());
+    assertEquals(LocalDate.of(2005, 1, 5), other.getPayload());
+    assertEquals(1L, temporalParser.getCacheStats().hitCount());
+    assertEquals(2L, temporalParser.getCacheStats().missCount());
+  }
+
+  @Test
+  public void cacheCounterTest() {
+
+    // State
+    List<String> counters = new ArrayList<>();
+    TemporalParser temporalParser =
+        TemporalParser.create(Collections.emptyList(), 10, counters::add);
+
+    // When
+    temporalParser.parseRecordedDate("2005-01-05");
+    temporalParser.parseRecordedDate("2005-01-05");
+
+    // Should
+    assertEquals(Arrays.asList(TEMPORAL_PARSER_CACHE_MISSES, TEMPORAL_PARSER_CACHE_HITS), counters);
+  }
+
   private void assertInts(Integer expected, Integer x) {
     if (expected == null) {
       assertNull(x);
@@ -31,4 +31,17 @@ public class HashUtilsTest {
     // Should
     Assert.assertEquals(expected, result);
   }
+
+  @Test
+  public void sha1LongTest() {
+    // State
+    String value = "af91c6ca-da34-4e49-ace3-3b125dbeab3c";
+    long expected = 0x3521a4e173f1c42aL;
+
+    // When
+    long result = HashConverter.getSha1Long(value);
+
+    // Should
+    Assert.assertEquals(expected, result);
+  }
 }
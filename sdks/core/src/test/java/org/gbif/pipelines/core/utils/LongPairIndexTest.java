@@ -0,0 +1,95 @@
+package org.gbif.pipelines.core.utils;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongPairIndexTest {
+
+  @Test
+  public void sortTest() {
+    // State
+    LongPairIndex index = new LongPairIndex();
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      index.add(random.nextInt(1_000), random.nextLong());
+    }
+
+    // When
+    index.sort();
+
+    // Should
+    Assert.assertEquals(10_000, index.size());
+    for (int i = 1; i < index.size(); i++) {
+      long prevKey = index.getKey(i - 1);
+      long key = index.getKey(i);
+      Assert.assertTrue(prevKey <= key);
+      if (prevKey == key) {
+        Assert.assertTrue(Long.compareUnsigned(index.getValue(i - 1), index.getValue(i)) <= 0);
+      }
+    }
+  }
+
+  @Test(timeout = 10_000L)
+  public void equalPairsTest() {
+    // State
+    LongPairIndex index = new LongPairIndex();
+    for (int i = 0; i < 200_000; i++) {
+      index.add(7L, 42L);
+    }
+    index.add(9L, 1L);
+    index.add(1L, 1L);
+    for (int i = 0; i < 100_000; i++) {
+      index.add(7L, i % 2);
+    }
+
+    // When
+    index.sort();
+    int seven = index.lowerBound(7L);
+
+    // Should
+    Assert.assertEquals(300_002, index.size());
+    Assert.assertEquals(1L, index.getKey(0));
+    Assert.assertEquals(1, seven);
+    Assert.assertEquals(300_000, index.countKey(seven));
+    Assert.assertEquals(0L, index.getValue(seven));
+    Assert.assertEquals(1L, index.getValue(seven + 50_000));
+    Assert.assertEquals(42L, index.getValue(seven + 100_000));
+    Assert.assertEquals(42L, index.getValue(seven + 299_999));
+    Assert.assertEquals(9L, index.getKey(index.size() - 1));
+  }
+
+  @Test
+  public void lowerBoundTest() {
+    // State
+    LongPairIndex index = new LongPairIndex();
+    index.add(5L, 2L);
+    index.add(1L, 1L);
+    index.add(5L, -1L);
+    index.add(5L, 1L);
+    index.add(9L, 1L);
+
+    // When
+    index.sort();
+    int five = index.lowerBound(5L);
+    int absent = index.lowerBound(3L);
+
+    // Should
+    Assert.assertEquals(1, five);
+    Assert.assertEquals(3, index.countKey(five));
+    Assert.assertEquals(1L, index.getValue(five));
+    Assert.assertEquals(-1L, index.getValue(five + 2));
+    Assert.assertEquals(-1, absent);
+    Assert.assertEquals(0, index.countKey(absent));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void notSortedTest() {
+    // State
+    LongPairIndex index = new LongPairIndex();
+    index.add(1L, 1L);
+
+    // When
+    index.lowerBound(1L);
+  }
+}
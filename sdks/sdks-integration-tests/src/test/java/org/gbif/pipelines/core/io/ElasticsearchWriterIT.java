@@ -6,6 +6,7 @@ import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -278,6 +279,43 @@ public class ElasticsearchWriterIT {
         basicRecordList.size(), EsService.countIndexDocuments(ES_SERVER.getEsClient(), idxName));
   }
 
+  @Test
+  public void wrongMappingAsyncFailFastTest() {
+    // State
+    String idxName = "wrong-mapping-async-fail-fast-test";
+    List<BasicRecord> basicRecordList = generateBrList(9_999);
+    createIndex(idxName, WRONG_MAPPINGS_PATH);
+    AtomicInteger converted = new AtomicInteger();
+    Function<BasicRecord, IndexRequest> indexRequestFn = createindexRequestFn(idxName);
+
+    // When
+    ElasticsearchException exception = null;
+    try {
+      ElasticsearchWriter.<BasicRecord>builder()
+          .esHosts(ES_SERVER.getEsConfig().getRawHosts())
+          .esMinBatchSize(10L)
+          .esMaxBatchSize(10L)
+          .esMaxBatchSizeBytes(250_000L)
+          .executor(Executors.newSingleThreadExecutor())
+          .syncModeThreshold(0)
+          .indexRequestFn(
+              br -> {
+                converted.incrementAndGet();
+                return indexRequestFn.apply(br);
+              })
+          .records(basicRecordList)
+          .backPressure(1)
+          .build()
+          .write();
+    } catch (ElasticsearchException ex) {
+      exception = ex;
+    }
+
+    // Should
+    Assert.assertNotNull(exception);
+    Assert.assertTrue(converted.get() < basicRecordList.size());
+  }
+
   private static List<BasicRecord> generateBrList(int count) {
     return IntStream.rangeClosed(0, count)
         .boxed()
@@ -4,14 +4,17 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Optional;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
-import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.converters.converter.ConverterToVerbatim;
+import org.gbif.converters.dwca.ParallelDwcaConverter;
+import org.gbif.dwc.Archive;
+import org.gbif.dwc.DwcFiles;
 import org.gbif.pipelines.core.converters.ExtendedRecordConverter;
 import org.gbif.pipelines.core.io.DwcaReader;
 import org.gbif.pipelines.core.io.SyncDataFileWriter;
@@ -22,9 +25,19 @@ import org.gbif.utils.file.spreadsheet.ExcelXmlConverter;
 /** Converts DWC archive into {@link ExtendedRecord} AVRO file */
 @Slf4j
 @NoArgsConstructor(staticName = "create")
-@Builder
 public class DwcaToAvroConverter extends ConverterToVerbatim {
 
+  private int parallelism = 1;
+
+  /**
+   * @param parallelism number of threads for reading the core file, if it is greater than 1 and the
+   *     core file can be split, {@link ParallelDwcaConverter} is used
+   */
+  public DwcaToAvroConverter parallelism(int parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
   public static void main(String... args) {
     if (args.length < 2) {
       throw new IllegalArgumentException("You must specify input and output paths");
@@ -58,7 +71,7 @@ public class DwcaToAvroConverter extends ConverterToVerbatim {
             .orElse(inputPath)
             .toString();
 
-    DwcaReader reader;
+    Archive archive;
     if (inputPath.toString().endsWith(".zip") || inputPath.toString().endsWith(".dwca")) {
       String tmp;
       if (Files.isDirectory(inputPath)) {
@@ -66,11 +79,24 @@ public class DwcaToAvroConverter extends ConverterToVerbatim {
       } else {
         tmp = inputPath.getParent().resolve("tmp").toString();
       }
-      reader = DwcaReader.fromCompressed(realPath, tmp);
+      archive = DwcFiles.fromCompressed(Paths.get(realPath), Paths.get(tmp));
     } else {
-      reader = DwcaReader.fromLocation(realPath);
+      archive = DwcFiles.fromLocation(Paths.get(realPath));
+    }
+
+    if (parallelism > 1 && ParallelDwcaConverter.isSplittable(archive.getCore())) {
+      return ParallelDwcaConverter.builder()
+          .archive(archive)
+          .workingDir(archive.getCore().getLocationFile().toPath().getParent())
+          .codecFactory(getCodecFactory())
+          .syncInterval(getSyncInterval())
+          .parallelism(parallelism)
+          .create()
+          .convert(dataFileWriter);
     }
 
+    DwcaReader reader = DwcaReader.fromArchive(archive);
+
     log.info("Exporting the DwC Archive to Avro started {}", realPath);
 
     // Read all records
@@ -16,6 +16,7 @@ import org.gbif.pipelines.io.avro.ExtendedRecord;
 public class XmlToAvroConverter extends ConverterToVerbatim {
 
   private ExecutorService executor = Executors.newWorkStealingPool();
+  private boolean useDigester = false;
 
   /** @param executor to use provided ExecutorService */
   public XmlToAvroConverter executor(ExecutorService executor) {
@@ -29,6 +30,12 @@ public class XmlToAvroConverter extends ConverterToVerbatim {
     return this;
   }
 
+  /** @param useDigester use the Digester parser instead of the streaming StAX parser */
+  public XmlToAvroConverter useDigester(boolean useDigester) {
+    this.useDigester = useDigester;
+    return this;
+  }
+
   public static void main(String... args) {
     if (args.length < 2) {
       throw new IllegalArgumentException("You must specify input and output paths");
@@ -48,6 +55,7 @@ public class XmlToAvroConverter extends ConverterToVerbatim {
    */
   @Override
   public long convert(Path inputPath, SyncDataFileWriter<ExtendedRecord> dataFileWriter) {
-    return ExtendedRecordConverter.create(executor).toAvro(inputPath.toString(), dataFileWriter);
+    return ExtendedRecordConverter.create(executor, useDigester)
+        .toAvro(inputPath.toString(), dataFileWriter);
   }
 }
@@ -81,6 +81,14 @@ public abstract class ConverterToVerbatim {
     return this;
   }
 
+  protected CodecFactory getCodecFactory() {
+    return codecFactory;
+  }
+
+  protected int getSyncInterval() {
+    return syncInterval;
+  }
+
   public boolean convert() {
 
     Objects.requireNonNull(inputPath, "inputPath cannot be null");
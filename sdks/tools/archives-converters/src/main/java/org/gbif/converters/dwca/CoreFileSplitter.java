@@ -0,0 +1,199 @@
+package org.gbif.converters.dwca;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.Value;
+
+/**
+ * Splits a delimited text file into byte ranges, every range starts at the beginning of a record
+ * and ends after a record line terminator, header lines and the UTF-8 BOM are excluded.
+ *
+ * <p>Without an enclosing (quote) character a line terminator always ends a record, so boundaries
+ * are found by seeking to the target offset and reading up to the next {@code '\n'}. With an
+ * enclosing character a line terminator can be a part of a quoted value, in this case the file is
+ * scanned once from the beginning using the same rules as a CSV parser: a quote opens a value only
+ * at the beginning of a field and a doubled quote inside a quoted value is an escaped quote.
+ *
+ * <p>Only encodings where {@code '\n'}, the delimiter and the quote are single bytes that can't be
+ * a part of a multibyte character are supported (UTF-8, US-ASCII, ISO-8859-*, etc.).
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CoreFileSplitter {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final byte LF = '\n';
+  private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+  private enum State {
+    FIELD_START,
+    UNQUOTED,
+    QUOTED,
+    QUOTE_IN_QUOTED
+  }
+
+  /** Byte range of a file, start is inclusive and end is exclusive */
+  @Value
+  public static class ByteRange {
+    long start;
+    long end;
+
+    public long length() {
+      return end - start;
+    }
+  }
+
+  /**
+   * @param file delimited text file
+   * @param delimiter fields delimiter
+   * @param quote fields enclosing character, can be null
+   * @param ignoreHeaderLines number of header lines to skip
+   * @param rangeBytes approximate size of a range, the last range can be smaller
+   */
+  public static List<ByteRange> split(
+      Path file, byte delimiter, Byte quote, int ignoreHeaderLines, long rangeBytes)
+      throws IOException {
+    if (rangeBytes < 1) {
+      throw new IllegalArgumentException("rangeBytes must be greater than 0");
+    }
+    long size = Files.size(file);
+    if (quote == null) {
+      return splitUnquoted(file, size, ignoreHeaderLines, rangeBytes);
+    }
+    return splitQuoted(file, size, delimiter, quote, ignoreHeaderLines, rangeBytes);
+  }
+
+  private static List<ByteRange> splitUnquoted(
+      Path file, long size, int ignoreHeaderLines, long rangeBytes) throws IOException {
+    List<ByteRange> ranges = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long start = dataStart(channel, size, ignoreHeaderLines);
+      while (start < size) {
+        long end = start + rangeBytes >= size ? size : nextLine(channel, start + rangeBytes, size);
+        ranges.add(new ByteRange(start, end));
+        start = end;
+      }
+    }
+    return ranges;
+  }
+
+  private static List<ByteRange> splitQuoted(
+      Path file, long size, byte delimiter, byte quote, int ignoreHeaderLines, long rangeBytes)
+      throws IOException {
+    List<ByteRange> ranges = new ArrayList<>();
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+      long start = -1L;
+      if (ignoreHeaderLines <= 0) {
+        start = skipBom(in);
+      }
+      long pos = Math.max(start, 0L);
+      int lines = 0;
+      State state = State.FIELD_START;
+      int b;
+      while ((b = in.read()) != -1) {
+        pos++;
+        if (b == LF && state != State.QUOTED) {
+          state = State.FIELD_START;
+          if (start < 0) {
+            if (++lines >= ignoreHeaderLines) {
+              start = pos;
+            }
+          } else if (pos - start >= rangeBytes && pos < size) {
+            ranges.add(new ByteRange(start, pos));
+            start = pos;
+          }
+        } else {
+          state = next(state, (byte) b, delimiter, quote);
+        }
+      }
+      if (start >= 0 && start < size) {
+        ranges.add(new ByteRange(start, size));
+      }
+    }
+    return ranges;
+  }
+
+  private static State next(State state, byte b, byte delimiter, byte quote) {
+    switch (state) {
+      case FIELD_START:
+        if (b == quote) {
+          return State.QUOTED;
+        }
+        return b == delimiter ? State.FIELD_START : State.UNQUOTED;
+      case UNQUOTED:
+        return b == delimiter ? State.FIELD_START : State.UNQUOTED;
+      case QUOTED:
+        return b == quote ? State.QUOTE_IN_QUOTED : State.QUOTED;
+      default:
+        // QUOTE_IN_QUOTED: an escaped quote, the end of a field or a malformed value
+        if (b == quote) {
+          return State.QUOTED;
+        }
+        if (b == delimiter) {
+          return State.FIELD_START;
+        }
+        return b == '\r' ? State.QUOTE_IN_QUOTED : State.UNQUOTED;
+    }
+  }
+
+  /** Position of the first data byte, after the BOM and header lines */
+  private static long dataStart(FileChannel channel, long size, int ignoreHeaderLines)
+      throws IOException {
+    long start = 0L;
+    if (ignoreHeaderLines <= 0) {
+      ByteBuffer bom = ByteBuffer.allocate(UTF8_BOM.length);
+      channel.read(bom, 0L);
+      if (bom.position() == UTF8_BOM.length && isBom(bom.array())) {
+        start = UTF8_BOM.length;
+      }
+    }
+    for (int i = 0; i < ignoreHeaderLines && start < size; i++) {
+      start = nextLine(channel, start, size);
+    }
+    return start;
+  }
+
+  /** Position after the next {@code '\n'} at or after the position, or the file size */
+  private static long nextLine(FileChannel channel, long position, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    long pos = position;
+    while (pos < size) {
+      buffer.clear();
+      int read = channel.read(buffer, pos);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == LF) {
+          return pos + i + 1;
+        }
+      }
+      pos += read;
+    }
+    return size;
+  }
+
+  private static long skipBom(InputStream in) throws IOException {
+    in.mark(UTF8_BOM.length);
+    byte[] bytes = new byte[UTF8_BOM.length];
+    int read = in.read(bytes);
+    if (read == UTF8_BOM.length && isBom(bytes)) {
+      return UTF8_BOM.length;
+    }
+    in.reset();
+    return 0L;
+  }
+
+  private static boolean isBom(byte[] bytes) {
+    return bytes[0] == UTF8_BOM[0] && bytes[1] == UTF8_BOM[1] && bytes[2] == UTF8_BOM[2];
+  }
+}
@@ -0,0 +1,170 @@
+package org.gbif.converters.dwca;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.dwc.Archive;
+import org.gbif.dwc.ArchiveFile;
+import org.gbif.dwc.record.Record;
+import org.gbif.pipelines.core.converters.ExtendedRecordConverter;
+import org.gbif.utils.file.ClosableIterator;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+
+/**
+ * Extension records of an archive grouped by core id, the same structure as {@link
+ * org.gbif.pipelines.io.avro.ExtendedRecord#getExtensions()}. The index is built once by reading
+ * every extension file and then can be read by many threads.
+ *
+ * <p>If the total size of extension files is below the in-memory limit, the index is a {@link
+ * HashMap}, otherwise it is spilled to a temp file backed map (http://www.mapdb.org/). Extension
+ * rows are buffered and merged into the file map in chunks, so a core id is rewritten once per
+ * chunk instead of once per row.
+ *
+ * <p>Keep in mind that {@link ExtensionIndex#close()} has to be called to release the temp file.
+ */
+@Slf4j
+public class ExtensionIndex implements Closeable {
+
+  private static final int SPILL_ROWS = 200_000;
+
+  private final Set<String> rowTypes;
+  private final Map<String, Map<String, List<Map<String, String>>>> memory;
+  private final DB db;
+  private final HTreeMap<String, Object> disk;
+
+  private ExtensionIndex(Set<String> rowTypes, boolean inMemory) {
+    this.rowTypes = rowTypes;
+    this.memory = new HashMap<>();
+    if (inMemory) {
+      this.db = null;
+      this.disk = null;
+    } else {
+      this.db =
+          DBMaker.tempFileDB()
+              .fileMmapEnableIfSupported()
+              .cleanerHackEnable()
+              .fileChannelEnable()
+              .make();
+      this.disk = db.hashMap("extensions", Serializer.STRING, Serializer.JAVA).createOrOpen();
+    }
+  }
+
+  /**
+   * Reads all extension files of the archive
+   *
+   * @param archive DwC archive
+   * @param inMemoryLimitBytes max total size of extension files to keep the index in memory
+   */
+  public static ExtensionIndex create(Archive archive, long inMemoryLimitBytes) {
+    Set<ArchiveFile> extensions = archive.getExtensions();
+
+    long totalBytes =
+        extensions.stream().map(ArchiveFile::getLocationFile).mapToLong(File::length).sum();
+    boolean inMemory = totalBytes <= inMemoryLimitBytes;
+
+    Set<String> rowTypes =
+        extensions.stream().map(x -> x.getRowType().qualifiedName()).collect(Collectors.toSet());
+
+    log.info(
+        "Indexing {} extensions, {} bytes, in memory - {}", rowTypes.size(), totalBytes, inMemory);
+
+    ExtensionIndex index = new ExtensionIndex(rowTypes, inMemory);
+    try {
+      for (ArchiveFile extension : extensions) {
+        index.add(extension);
+      }
+      index.spill();
+    } catch (RuntimeException ex) {
+      index.close();
+      throw ex;
+    }
+    return index;
+  }
+
+  /** Extension records of the core id, all extension row types are present, can be empty */
+  public Map<String, List<Map<String, String>>> get(String coreId) {
+    Map<String, List<Map<String, String>>> found = null;
+    if (coreId != null) {
+      found = disk == null ? memory.get(coreId) : getFromDisk(coreId);
+    }
+    Map<String, List<Map<String, String>>> result = new HashMap<>(rowTypes.size());
+    for (String rowType : rowTypes) {
+      List<Map<String, String>> rows = found == null ? null : found.get(rowType);
+      result.put(rowType, rows == null ? new ArrayList<>() : rows);
+    }
+    return result;
+  }
+
+  public boolean isEmpty() {
+    return rowTypes.isEmpty();
+  }
+
+  @Override
+  public void close() {
+    memory.clear();
+    if (db != null && !db.isClosed()) {
+      db.close();
+    }
+  }
+
+  private void add(ArchiveFile extension) {
+    String rowType = extension.getRowType().qualifiedName();
+    long rows = 0;
+    int buffered = 0;
+    try (ClosableIterator<Record> iterator = extension.iterator()) {
+      while (iterator.hasNext()) {
+        Record record = iterator.next();
+        String coreId = record.id();
+        if (coreId != null) {
+          memory
+              .computeIfAbsent(coreId, k -> new HashMap<>())
+              .computeIfAbsent(rowType, k -> new ArrayList<>())
+              .add(ExtendedRecordConverter.convertToMap(record));
+          rows++;
+          if (disk != null && ++buffered >= SPILL_ROWS) {
+            spill();
+            buffered = 0;
+          }
+        }
+      }
+    } catch (Exception ex) {
+      throw new IllegalStateException("Failed reading extension " + rowType, ex);
+    }
+    log.info("Indexed {} rows of extension {}", rows, rowType);
+  }
+
+  /** Merges buffered rows into the file map */
+  private void spill() {
+    if (disk == null || memory.isEmpty()) {
+      return;
+    }
+    for (Entry<String, Map<String, List<Map<String, String>>>> entry : memory.entrySet()) {
+      Map<String, List<Map<String, String>>> value = getFromDisk(entry.getKey());
+      if (value == null) {
+        value = entry.getValue();
+      } else {
+        for (Entry<String, List<Map<String, String>>> rows : entry.getValue().entrySet()) {
+          value.computeIfAbsent(rows.getKey(), k -> new ArrayList<>()).addAll(rows.getValue());
+        }
+      }
+      disk.put(entry.getKey(), value);
+    }
+    memory.clear();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, List<Map<String, String>>> getFromDisk(String coreId) {
+    Object value = disk.get(coreId);
+    return value == null ? null : (Map<String, List<Map<String, String>>>) value;
+  }
+}
@@ -0,0 +1,287 @@
+package org.gbif.converters.dwca;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.gbif.converters.dwca.CoreFileSplitter.ByteRange;
+import org.gbif.dwc.Archive;
+import org.gbif.dwc.ArchiveFile;
+import org.gbif.dwc.record.RecordImpl;
+import org.gbif.pipelines.core.converters.ExtendedRecordConverter;
+import org.gbif.pipelines.core.io.SyncDataFileWriter;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.utils.file.tabular.TabularDataFileReader;
+import org.gbif.utils.file.tabular.TabularFiles;
+
+/**
+ * Converts DWC archive into {@link ExtendedRecord} AVRO file using many threads:
+ *
+ * <ul>
+ *   <li>The core data file is split into byte ranges on record boundaries by {@link
+ *       CoreFileSplitter}, there are a few ranges per thread to balance the load
+ *   <li>Extensions are joined using {@link ExtensionIndex} keyed by core id, instead of the star
+ *       record iterator which requires one sequential pass over all files
+ *   <li>Every range is parsed by a worker thread into its own avro part file in a local temp
+ *       directory, using the same codec as the output file
+ *   <li>Part files are appended to the output file in the range order by copying compressed avro
+ *       blocks, so the output has the same records in the same order as the sequential reader
+ * </ul>
+ *
+ * <p>Use {@link #isSplittable(ArchiveFile)} to check that the core file can be split, otherwise
+ * {@link org.gbif.pipelines.core.io.DwcaReader} must be used.
+ */
+@Slf4j
+@Builder(buildMethodName = "create")
+public class ParallelDwcaConverter {
+
+  private static final int RANGES_PER_THREAD = 4;
+
+  @NonNull private final Archive archive;
+  @NonNull private final Path workingDir;
+  @Builder.Default private final CodecFactory codecFactory = CodecFactory.snappyCodec();
+  @Builder.Default private final int syncInterval = 2 * 1024 * 1024;
+  @Builder.Default private final int parallelism = Runtime.getRuntime().availableProcessors();
+  @Builder.Default private final long minRangeBytes = 8L * 1024L * 1024L;
+  @Builder.Default private final long extensionsInMemoryBytes = 256L * 1024L * 1024L;
+
+  /**
+   * A core file can be split if it is an uncompressed delimited text file, with a single byte
+   * delimiter and quote, {@code '\n'} line terminator and an encoding where these characters are
+   * never a part of a multibyte character
+   */
+  public static boolean isSplittable(ArchiveFile core) {
+    if (core.getLocationFile() == null || !core.getLocationFile().isFile()) {
+      return false;
+    }
+    String delimiter = core.getFieldsTerminatedBy();
+    if (delimiter == null || delimiter.length() != 1 || delimiter.charAt(0) > 127) {
+      return false;
+    }
+    Character quote = core.getFieldsEnclosedBy();
+    if (quote != null && quote > 127) {
+      return false;
+    }
+    String lines = core.getLinesTerminatedBy();
+    if (lines != null && !lines.endsWith("\n")) {
+      return false;
+    }
+    try {
+      Charset charset = getCharset(core);
+      return charset.equals(StandardCharsets.UTF_8)
+          || charset.newEncoder().maxBytesPerChar() == 1.0f;
+    } catch (IllegalArgumentException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Converts the archive and appends records to the writer
+   *
+   * @return number of read core records, including records without id
+   */
+  public long convert(SyncDataFileWriter<ExtendedRecord> dataFileWriter) throws IOException {
+    ArchiveFile core = archive.getCore();
+    if (!isSplittable(core)) {
+      throw new IllegalArgumentException("Core file can't be split - " + core.getLocationFile());
+    }
+    core.getHeader().stream()
+        .flatMap(Collection::stream)
+        .forEach(
+            x -> Objects.requireNonNull(x, "One of the terms is NULL, please check meta.xml file"));
+
+    Path coreFile = core.getLocationFile().toPath();
+    long rangeBytes =
+        Math.max(minRangeBytes, Files.size(coreFile) / ((long) parallelism * RANGES_PER_THREAD));
+    Character quote = core.getFieldsEnclosedBy();
+    List<ByteRange> ranges =
+        CoreFileSplitter.split(
+            coreFile,
+            (byte) core.getFieldsTerminatedBy().charAt(0),
+            quote == null ? null : (byte) quote.charValue(),
+            Math.max(0, Optional.ofNullable(core.getIgnoreHeaderLines()).orElse(0)),
+            rangeBytes);
+
+    log.info(
+        "Exporting the DwC Archive to Avro started, {} ranges of {}, {} threads",
+        ranges.size(),
+        coreFile,
+        parallelism);
+
+    Path partsDir = Files.createTempDirectory(workingDir, "dwca-parts-");
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try (ExtensionIndex index = ExtensionIndex.create(archive, extensionsInMemoryBytes)) {
+
+      List<Future<Long>> futures = new ArrayList<>(ranges.size());
+      for (int i = 0; i < ranges.size(); i++) {
+        ByteRange range = ranges.get(i);
+        Path part = partsDir.resolve("part-" + i + ".avro");
+        futures.add(executor.submit(() -> convertRange(core, range, index, part)));
+      }
+
+      // Parts are merged in the range order while the next ranges are being converted
+      long records = 0;
+      for (int i = 0; i < futures.size(); i++) {
+        records += futures.get(i).get();
+        Path part = partsDir.resolve("part-" + i + ".avro");
+        try (DataFileStream<ExtendedRecord> stream =
+            new DataFileStream<>(
+                Files.newInputStream(part), new SpecificDatumReader<>(ExtendedRecord.class))) {
+          dataFileWriter.appendAllFrom(stream, false);
+        }
+        Files.delete(part);
+        log.info("Merged range {} of {}, read [{}] records", i + 1, ranges.size(), records);
+      }
+      return records;
+
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IOException(ex);
+    } catch (ExecutionException ex) {
+      throw new IOException("Failed converting a range of " + coreFile, ex.getCause());
+    } finally {
+      executor.shutdownNow();
+      deleteDirectory(partsDir);
+    }
+  }
+
+  /** Parses the range of the core file into the avro part file */
+  private long convertRange(ArchiveFile core, ByteRange range, ExtensionIndex index, Path part)
+      throws Exception {
+    RecordImpl record =
+        new RecordImpl(core.getId(), core.getFields().values(), core.getRowType(), true, true);
+    String idError = ExtendedRecordConverter.getRecordIdError();
+    long records = 0;
+    try (InputStream in = new RangeInputStream(core.getLocationFile().toPath(), range);
+        TabularDataFileReader<List<String>> reader =
+            TabularFiles.newTabularFileReader(
+                new InputStreamReader(in, getCharset(core)),
+                core.getFieldsTerminatedBy().charAt(0),
+                core.getLinesTerminatedBy(),
+                core.getFieldsEnclosedBy(),
+                false);
+        DataFileWriter<ExtendedRecord> writer = createPartWriter(part)) {
+
+      List<String> row;
+      while ((row = reader.read()) != null) {
+        record.setRow(row.toArray(new String[0]));
+        ExtendedRecord extendedRecord =
+            ExtendedRecordConverter.from(record, Collections.emptyMap());
+        if (!index.isEmpty()) {
+          extendedRecord.setExtensions(index.get(record.id()));
+        }
+        if (!extendedRecord.getId().equals(idError)) {
+          writer.append(extendedRecord);
+        }
+        records++;
+      }
+    }
+    return records;
+  }
+
+  private DataFileWriter<ExtendedRecord> createPartWriter(Path part) throws IOException {
+    DataFileWriter<ExtendedRecord> writer =
+        new DataFileWriter<>(new SpecificDatumWriter<>(ExtendedRecord.class));
+    writer.setCodec(codecFactory);
+    writer.setSyncInterval(syncInterval);
+    writer.create(
+        ExtendedRecord.getClassSchema(), new BufferedOutputStream(Files.newOutputStream(part)));
+    return writer;
+  }
+
+  private static Charset getCharset(ArchiveFile core) {
+    return core.getEncoding() == null
+        ? StandardCharsets.UTF_8
+        : Charset.forName(core.getEncoding());
+  }
+
+  private static void deleteDirectory(Path dir) {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    } catch (IOException ex) {
+      log.warn("Can't delete temp directory {}", dir, ex);
+    }
+  }
+
+  /** Reads bytes of the range only */
+  private static class RangeInputStream extends FilterInputStream {
+
+    private long remaining;
+
+    private RangeInputStream(Path file, ByteRange range) throws IOException {
+      super(
+          Channels.newInputStream(
+              FileChannel.open(file, StandardOpenOption.READ).position(range.getStart())));
+      this.remaining = range.length();
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int b = super.read();
+      if (b != -1) {
+        remaining--;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int read = super.read(b, off, (int) Math.min(len, remaining));
+      if (read > 0) {
+        remaining -= read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(Math.min(n, remaining));
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+  }
+}
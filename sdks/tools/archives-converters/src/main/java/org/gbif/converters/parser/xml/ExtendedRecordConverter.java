@@ -1,43 +1,74 @@
 package org.gbif.converters.parser.xml;
 
 import com.google.common.base.Strings;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.compress.utils.IOUtils;
 import org.gbif.converters.parser.xml.parsing.extendedrecord.ConverterTask;
 import org.gbif.converters.parser.xml.parsing.extendedrecord.ExecutorPoolFactory;
 import org.gbif.converters.parser.xml.parsing.extendedrecord.ParserFileUtils;
+import org.gbif.converters.parser.xml.parsing.extendedrecord.StaxConverterTask;
 import org.gbif.converters.parser.xml.parsing.validators.UniquenessValidator;
 import org.gbif.converters.utils.XmlFilesReader;
 import org.gbif.pipelines.core.io.SyncDataFileWriter;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 
-/** Parsing xml response files or tar.xz archive and convert to ExtendedRecord avro file */
+/**
+ * Parsing xml response files or tar.xz archive and convert to ExtendedRecord avro file.
+ *
+ * <p>By default responses are parsed by the streaming StAX parser and a tar.xz archive is read
+ * entry by entry without uncompressing it to disk. The Digester parser is used if useDigester is
+ * true.
+ */
 @Slf4j
 @AllArgsConstructor(staticName = "create")
 public class ExtendedRecordConverter {
 
+  // Max number of archive entries read into memory and waiting for a thread
+  private static final int ENTRIES_IN_FLIGHT = Runtime.getRuntime().availableProcessors() * 2;
+
   private final Executor executor;
+  private final boolean useDigester;
 
   private ExtendedRecordConverter(int parallelism) {
     this.executor = ExecutorPoolFactory.getInstance(parallelism);
+    this.useDigester = false;
   }
 
   public static ExtendedRecordConverter create(int parallelism) {
     return new ExtendedRecordConverter(parallelism);
   }
 
+  public static ExtendedRecordConverter create(Executor executor) {
+    return new ExtendedRecordConverter(executor, false);
+  }
+
   /** @param inputPath path to directory with response files or a tar.xz archive */
   public long toAvro(String inputPath, SyncDataFileWriter<ExtendedRecord> writer) {
     if (Strings.isNullOrEmpty(inputPath)) {
       throw new ParsingException("Input or output stream must not be empty or null!");
     }
 
+    File archive = new File(inputPath);
+    if (!useDigester && archive.isFile() && ParserFileUtils.isArchive(archive)) {
+      return archiveToAvro(archive, writer);
+    }
+
     File inputFile = ParserFileUtils.uncompressAndGetInputFile(inputPath);
 
     try (UniquenessValidator validator = UniquenessValidator.getNewInstance()) {
@@ -45,7 +76,11 @@ public class ExtendedRecordConverter {
 
       AtomicLong counter = new AtomicLong(0);
 
-      Function<File, ConverterTask> taskFn = f -> new ConverterTask(f, writer, validator, counter);
+      Function<File, Runnable> taskFn =
+          f ->
+              useDigester
+                  ? new ConverterTask(f, writer, validator, counter)
+                  : new StaxConverterTask(Files.asByteSource(f), writer, validator, counter);
 
       // Run async process - read a file, convert to ExtendedRecord and write to Avro
       CompletableFuture<?>[] futures =
@@ -63,4 +98,47 @@ public class ExtendedRecordConverter {
       throw new ParsingException(ex);
     }
   }
+
+  /**
+   * Reads response files directly from the tar.xz entry stream, an entry is read into memory by the
+   * reading thread and parsed by the executor, the number of entries in memory is limited
+   */
+  private long archiveToAvro(File archive, SyncDataFileWriter<ExtendedRecord> writer) {
+    log.info("Reading the tar.xz archive {}", archive);
+    Semaphore permits = new Semaphore(ENTRIES_IN_FLIGHT);
+    try (UniquenessValidator validator = UniquenessValidator.getNewInstance();
+        TarArchiveInputStream tar =
+            new TarArchiveInputStream(
+                new XZCompressorInputStream(
+                    new BufferedInputStream(new FileInputStream(archive))))) {
+
+      AtomicLong counter = new AtomicLong(0);
+      List<CompletableFuture<?>> futures = new ArrayList<>();
+
+      TarArchiveEntry entry;
+      while ((entry = tar.getNextTarEntry()) != null) {
+        if (!entry.isFile() || !XmlFilesReader.isXmlFile(entry.getName())) {
+          continue;
+        }
+        ByteSource content = ByteSource.wrap(IOUtils.toByteArray(tar));
+        permits.acquire();
+        futures.add(
+            CompletableFuture.runAsync(
+                    new StaxConverterTask(content, writer, validator, counter), executor)
+                .whenComplete((r, ex) -> permits.release()));
+      }
+
+      // Wait all threads
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+      return counter.get();
+
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ParsingException(ex);
+    } catch (Exception ex) {
+      log.error(ex.getMessage(), ex);
+      throw new ParsingException(ex);
+    }
+  }
 }
@@ -32,7 +32,7 @@ public class ParserFileUtils {
 
     // Uncompress if it is a tar.xz
     if (inputFile.isFile()) {
-      if (!inputFile.getPath().endsWith(ARCHIVE_PREFIX)) {
+      if (!isArchive(inputFile)) {
         throw new ParsingException("Wrong archive extension -" + inputFile.getAbsolutePath());
       }
       return uncompress(inputFile);
@@ -41,6 +41,11 @@ public class ParserFileUtils {
     return inputFile;
   }
 
+  /** @return true if the file has tar.xz extension */
+  public static boolean isArchive(File inputFile) {
+    return inputFile.getPath().endsWith(ARCHIVE_PREFIX);
+  }
+
   /**
    * Uncompress a tar.xz archive
    *
@@ -0,0 +1,45 @@
+package org.gbif.converters.parser.xml.parsing.extendedrecord;
+
+import com.google.common.io.ByteSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AllArgsConstructor;
+import org.gbif.converters.parser.xml.ParsingException;
+import org.gbif.converters.parser.xml.parsing.stax.StaxOccurrenceParser;
+import org.gbif.converters.parser.xml.parsing.validators.UniquenessValidator;
+import org.gbif.pipelines.core.io.SyncDataFileWriter;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+
+/**
+ * The task for CompletableFuture which reads a xml response file or a tar.xz archive entry, parses
+ * it with {@link StaxOccurrenceParser} and converts to ExtendedRecord avro file, records are
+ * appended as soon as they are parsed
+ */
+@AllArgsConstructor
+public class StaxConverterTask implements Runnable {
+
+  private final ByteSource input;
+  private final SyncDataFileWriter<ExtendedRecord> dataFileWriter;
+  private final UniquenessValidator validator;
+  private final AtomicLong counter;
+
+  @Override
+  public void run() {
+    try (InputStream is = input.openBufferedStream()) {
+      new StaxOccurrenceParser()
+          .parse(
+              is,
+              rawRecord -> {
+                ExtendedRecord er = ExtendedRecordConverter.from(rawRecord);
+                if (validator.isUnique(er.getId())
+                    && !er.getId().equals(ExtendedRecordConverter.getRecordIdError())) {
+                  dataFileWriter.append(er);
+                  counter.incrementAndGet();
+                }
+              });
+    } catch (IOException ex) {
+      throw new ParsingException("Parsing failed", ex);
+    }
+  }
+}
@@ -72,6 +72,25 @@ public class ResponseSchemaDetector {
     return result;
   }
 
+  /**
+   * The same detection as {@link #detectSchema(String)}, but uses local names of all elements of a
+   * record instead of the serialized xml, "{@code <Unit}" matches every element name starting with
+   * "Unit"
+   */
+  public OccurrenceSchemaType detectSchema(Collection<String> elementNames) {
+    for (OccurrenceSchemaType schema : schemaSearchOrder) {
+      boolean success =
+          distinctiveElements.get(schema).values().stream()
+              .map(elem -> elem.substring(1))
+              .allMatch(elem -> elementNames.stream().anyMatch(name -> name.startsWith(elem)));
+      if (success) {
+        return schema;
+      }
+    }
+    log.warn("Could not determine schema for elements [{}]", elementNames);
+    return null;
+  }
+
   public Map<ResponseElementEnum, String> getResponseElements(OccurrenceSchemaType schemaType) {
     return distinctiveElements.get(schemaType);
   }
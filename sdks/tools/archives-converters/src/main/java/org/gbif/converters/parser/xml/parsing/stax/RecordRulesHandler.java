@@ -0,0 +1,150 @@
+package org.gbif.converters.parser.xml.parsing.stax;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import org.gbif.converters.parser.xml.model.RawOccurrenceRecord;
+import org.gbif.converters.parser.xml.parsing.stax.RuleTree.Node;
+import org.gbif.converters.parser.xml.parsing.stax.RuleTree.StaxRule;
+import org.gbif.converters.parser.xml.parsing.stax.RuleTree.Type;
+import org.gbif.converters.parser.xml.parsing.xml.RawOccurrenceRecordBuilder;
+import org.gbif.converters.parser.xml.parsing.xml.XmlFragmentParser;
+
+/**
+ * Applies {@link RuleTree} rules to the elements of one record and fills {@link
+ * RawOccurrenceRecordBuilder}, with the same semantics as Digester has:
+ *
+ * <ul>
+ *   <li>Object create, call method and attribute call param rules are fired at the element start in
+ *       the order of rules
+ *   <li>Body call param, call method, set literal, set next rules are fired at the element end in
+ *       the reverse order of rules
+ *   <li>The body of an element is its own trimmed text, the text of child elements is excluded
+ *   <li>A method with one parameter isn't called if the parameter is null
+ * </ul>
+ *
+ * <p>Only text of elements with body rules is collected. Elements without rules for themselves and
+ * their descendants are skipped by one null check.
+ */
+class RecordRulesHandler {
+
+  private static final UnaryOperator<String> NO_ATTRIBUTES = name -> null;
+
+  private final RawOccurrenceRecordBuilder builder = new RawOccurrenceRecordBuilder();
+  private final List<Node> nodes = new ArrayList<>();
+  private final List<StringBuilder> bodies = new ArrayList<>();
+  private final List<Object> objects = new ArrayList<>();
+  private final Deque<Object[]> params = new ArrayDeque<>();
+  private final Node root;
+
+  RecordRulesHandler(RuleTree tree) {
+    this.root = tree.getRoot();
+    objects.add(builder);
+  }
+
+  void start(String localName) {
+    start(localName, NO_ATTRIBUTES);
+  }
+
+  /**
+   * @param localName element local name
+   * @param attributes attribute value by the attribute local name
+   */
+  void start(String localName, UnaryOperator<String> attributes) {
+    Node parent = nodes.isEmpty() ? root : nodes.get(nodes.size() - 1);
+    Node node = parent == null ? null : parent.child(localName);
+    nodes.add(node);
+    bodies.add(node != null && node.isBodyRequired() ? new StringBuilder() : null);
+    if (node == null) {
+      return;
+    }
+    for (StaxRule rule : node.getRules()) {
+      if (rule.getType() == Type.OBJECT_CREATE) {
+        objects.add(newInstance(rule.getObjectClass()));
+      } else if (rule.getType() == Type.CALL_METHOD && rule.getParamCount() > 0) {
+        params.push(new Object[rule.getParamCount()]);
+      } else if (rule.getType() == Type.CALL_PARAM && rule.getAttributeName() != null) {
+        String value = attributes.apply(rule.getAttributeName());
+        if (value != null) {
+          params.peek()[rule.getParamIndex()] = value;
+        }
+      }
+    }
+  }
+
+  void characters(char[] text, int start, int length) {
+    StringBuilder body = bodies.get(bodies.size() - 1);
+    if (body != null) {
+      body.append(text, start, length);
+    }
+  }
+
+  void end() {
+    Node node = nodes.remove(nodes.size() - 1);
+    StringBuilder body = bodies.remove(bodies.size() - 1);
+    if (node == null) {
+      return;
+    }
+    String text = body == null ? null : body.toString();
+    List<StaxRule> rules = node.getRules();
+    for (int i = rules.size() - 1; i >= 0; i--) {
+      StaxRule rule = rules.get(i);
+      switch (rule.getType()) {
+        case CALL_PARAM:
+          if (rule.getAttributeName() == null) {
+            params.peek()[rule.getParamIndex()] = text.trim();
+          }
+          break;
+        case CALL_METHOD:
+          Object[] args = rule.getParamCount() > 0 ? params.pop() : new Object[] {text.trim()};
+          if (args.length > 1 || args[0] != null) {
+            invoke(rule, peek(0), args, String.class);
+          }
+          break;
+        case SET_LITERAL:
+          invoke(rule, peek(0), new Object[] {rule.getValue()}, rule.getValue().getClass());
+          break;
+        case SET_NEXT:
+          Object child = peek(0);
+          invoke(rule, peek(1), new Object[] {child}, child.getClass());
+          break;
+        case OBJECT_CREATE:
+          objects.remove(objects.size() - 1);
+          break;
+        default:
+          throw new IllegalStateException("Unsupported rule type - " + rule.getType());
+      }
+    }
+  }
+
+  /**
+   * Builds records the same way as {@link XmlFragmentParser} does, records without ids are skipped
+   */
+  List<RawOccurrenceRecord> finish() {
+    builder.resolvePriorities();
+    return XmlFragmentParser.forceIdentifiers(builder.generateRawOccurrenceRecords());
+  }
+
+  private Object peek(int offset) {
+    return objects.get(objects.size() - 1 - offset);
+  }
+
+  private static Object newInstance(Class<?> clazz) {
+    try {
+      return clazz.newInstance();
+    } catch (ReflectiveOperationException ex) {
+      throw new IllegalStateException("Can't create an instance of " + clazz.getName(), ex);
+    }
+  }
+
+  private static void invoke(StaxRule rule, Object target, Object[] args, Class<?> argClass) {
+    try {
+      rule.getMethod(target.getClass(), argClass).invoke(target, args);
+    } catch (ReflectiveOperationException ex) {
+      throw new IllegalStateException(
+          "Failed calling " + rule.getMethodName() + " on " + target.getClass().getName(), ex);
+    }
+  }
+}
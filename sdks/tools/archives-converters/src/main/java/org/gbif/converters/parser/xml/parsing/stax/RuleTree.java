@@ -0,0 +1,201 @@
+package org.gbif.converters.parser.xml.parsing.stax;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.digester.Digester;
+import org.apache.commons.digester.Rule;
+import org.apache.commons.digester.RuleSet;
+import org.gbif.api.vocabulary.OccurrenceSchemaType;
+import org.gbif.converters.parser.xml.parsing.xml.XmlFragmentParser;
+import org.gbif.converters.parser.xml.parsing.xml.rules.SetLiteralRule;
+
+/**
+ * Rules of a Digester {@link RuleSet} compiled into a tree of element local names. The rules of an
+ * element are found by one map lookup from the rules of its parent, instead of matching the whole
+ * element path against all patterns.
+ *
+ * <p>The rules are recorded from the same rule sets and mapping files as {@link XmlFragmentParser}
+ * uses, so both parsers always have the same mapping. Only rules used by the rule sets are
+ * supported: call method, call param, object create, set next and {@link SetLiteralRule}, and only
+ * exact patterns without wildcards.
+ */
+public class RuleTree {
+
+  private static final Map<OccurrenceSchemaType, RuleTree> TREES =
+      new EnumMap<>(OccurrenceSchemaType.class);
+
+  static {
+    for (OccurrenceSchemaType schemaType : OccurrenceSchemaType.values()) {
+      RuleSet ruleSet = XmlFragmentParser.getRuleSet(schemaType);
+      if (ruleSet != null) {
+        TREES.put(schemaType, compile(ruleSet));
+      }
+    }
+  }
+
+  @Getter private final Node root = new Node();
+
+  private RuleTree() {}
+
+  /** Compiled rules of the schema or null if the schema is not supported */
+  public static RuleTree get(OccurrenceSchemaType schemaType) {
+    return TREES.get(schemaType);
+  }
+
+  public static RuleTree compile(RuleSet ruleSet) {
+    RuleTree tree = new RuleTree();
+    ruleSet.addRuleInstances(new RuleRecorder(tree));
+    return tree;
+  }
+
+  private void add(String pattern, StaxRule rule) {
+    if (pattern.startsWith("*") || pattern.startsWith("/")) {
+      throw new IllegalArgumentException("Only exact patterns are supported - " + pattern);
+    }
+    // Digester ignores a trailing slash
+    if (pattern.length() > 1 && pattern.endsWith("/")) {
+      pattern = pattern.substring(0, pattern.length() - 1);
+    }
+    Node node = root;
+    // "a//b" patterns never match in Digester, an empty name can't match an element either
+    for (String name : pattern.split("/", -1)) {
+      node = node.children.computeIfAbsent(name, k -> new Node());
+    }
+    node.rules.add(rule);
+    if (rule.getType() == Type.CALL_PARAM && rule.getAttributeName() == null
+        || rule.getType() == Type.CALL_METHOD && rule.getParamCount() == 0) {
+      node.bodyRequired = true;
+    }
+  }
+
+  /** Element of the tree, contains rules of the element and child elements */
+  public static class Node {
+
+    private final Map<String, Node> children = new HashMap<>();
+    private final List<StaxRule> rules = new ArrayList<>();
+    @Getter private boolean bodyRequired;
+
+    /** Child element or null if there are no rules for the child and its descendants */
+    public Node child(String localName) {
+      return children.get(localName);
+    }
+
+    /** Rules in the order they were added, the same order as Digester fires them */
+    public List<StaxRule> getRules() {
+      return Collections.unmodifiableList(rules);
+    }
+  }
+
+  public enum Type {
+    OBJECT_CREATE,
+    SET_NEXT,
+    SET_LITERAL,
+    CALL_METHOD,
+    CALL_PARAM
+  }
+
+  /**
+   * A recorded Digester rule, caches resolved methods by target class, the argument class of a rule
+   * is always the same
+   */
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  public static class StaxRule {
+
+    private final Type type;
+    private final String methodName;
+    private final int paramCount;
+    private final int paramIndex;
+    private final String attributeName;
+    private final Class<?> objectClass;
+    private final Object value;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<Class<?>, Method> methods = new ConcurrentHashMap<>();
+
+    /**
+     * Finds a method with the same lookup as Digester: String parameters for call method rules, the
+     * class of the value or the child object for set literal and set next rules
+     */
+    public Method getMethod(Class<?> targetClass, Class<?> argClass) {
+      return methods.computeIfAbsent(
+          targetClass,
+          c -> {
+            Class<?>[] types = {argClass};
+            if (type == Type.CALL_METHOD) {
+              types = new Class<?>[Math.max(1, paramCount)];
+              Arrays.fill(types, String.class);
+            }
+            Method method = MethodUtils.getMatchingAccessibleMethod(c, methodName, types);
+            if (method == null) {
+              throw new IllegalStateException(
+                  "No method " + methodName + " in " + c.getName() + " for rule " + type);
+            }
+            return method;
+          });
+    }
+  }
+
+  /**
+   * Records rules added by a {@link RuleSet}, the recorder is never used for parsing, Digester
+   * rules aren't created
+   */
+  private static class RuleRecorder extends Digester {
+
+    private final RuleTree tree;
+
+    private RuleRecorder(RuleTree tree) {
+      this.tree = tree;
+    }
+
+    @Override
+    public void addCallMethod(String pattern, String methodName, int paramCount) {
+      tree.add(
+          pattern, new StaxRule(Type.CALL_METHOD, methodName, paramCount, 0, null, null, null));
+    }
+
+    @Override
+    public void addCallParam(String pattern, int paramIndex) {
+      tree.add(pattern, new StaxRule(Type.CALL_PARAM, null, 0, paramIndex, null, null, null));
+    }
+
+    @Override
+    public void addCallParam(String pattern, int paramIndex, String attributeName) {
+      tree.add(
+          pattern, new StaxRule(Type.CALL_PARAM, null, 0, paramIndex, attributeName, null, null));
+    }
+
+    @Override
+    public void addObjectCreate(String pattern, Class<?> clazz) {
+      tree.add(pattern, new StaxRule(Type.OBJECT_CREATE, null, 0, 0, null, clazz, null));
+    }
+
+    @Override
+    public void addSetNext(String pattern, String methodName) {
+      tree.add(pattern, new StaxRule(Type.SET_NEXT, methodName, 0, 0, null, null, null));
+    }
+
+    @Override
+    public void addRule(String pattern, Rule rule) {
+      if (!(rule instanceof SetLiteralRule)) {
+        throw new IllegalArgumentException("Unsupported rule - " + rule);
+      }
+      SetLiteralRule literal = (SetLiteralRule) rule;
+      tree.add(
+          pattern,
+          new StaxRule(
+              Type.SET_LITERAL, literal.getMethodName(), 0, 0, null, null, literal.getValue()));
+    }
+  }
+}
@@ -0,0 +1,293 @@
+package org.gbif.converters.parser.xml.parsing.stax;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.api.vocabulary.OccurrenceSchemaType;
+import org.gbif.converters.parser.xml.ParsingException;
+import org.gbif.converters.parser.xml.model.RawOccurrenceRecord;
+import org.gbif.converters.parser.xml.parsing.response.file.ResponseSchemaDetector;
+
+/**
+ * Streaming (StAX) parser of ABCD and DwC xml responses, the result is the same as {@link
+ * org.gbif.converters.parser.xml.OccurrenceParser} and {@link
+ * org.gbif.converters.parser.xml.parsing.xml.XmlFragmentParser} produce, but records are parsed in
+ * one pass over the response, without a DOM per record, serializing it to a string and parsing the
+ * string again with Digester.
+ *
+ * <p>Records are found by the same element names as the Digester parser uses: {@code Unit}, {@code
+ * record}, {@code DarwinRecord} and {@code SimpleDarwinRecord}, ABCD 1.2 {@code OriginalSource}
+ * header is applied to every following record as {@code occurrence/DataSource/OriginalSource}.
+ * Elements are matched by local names, namespaces are ignored.
+ *
+ * <p>The schema is detected from the element names of the first records. Records are buffered as
+ * light events until the schema is known, after that record elements are applied to {@link
+ * RuleTree} rules as soon as they are read.
+ *
+ * <p>The parser isn't thread-safe, use one instance per thread.
+ */
+@Slf4j
+public class StaxOccurrenceParser {
+
+  private static final Set<String> RECORD_ELEMENTS =
+      new HashSet<>(Arrays.asList("Unit", "record", "DarwinRecord", "SimpleDarwinRecord"));
+  private static final String ABCD1_HEADER_ELEMENT = "OriginalSource";
+  private static final String ABCD1_ROOT_ELEMENT = "occurrence";
+  private static final String ABCD1_HEADER_PARENT_ELEMENT = "DataSource";
+
+  private static final XMLInputFactory FACTORY = createFactory();
+
+  private final ResponseSchemaDetector schemaDetector = new ResponseSchemaDetector();
+
+  /**
+   * Parses a response stream, records without ids are skipped
+   *
+   * @param is xml response stream, the encoding is detected from the xml declaration
+   * @param consumer consumer of parsed records
+   * @throws ParsingException if the stream is not a well-formed xml
+   */
+  public void parse(InputStream is, Consumer<RawOccurrenceRecord> consumer) {
+    Objects.requireNonNull(is, "is can't be null");
+    XMLStreamReader reader = null;
+    try {
+      reader = FACTORY.createXMLStreamReader(is);
+      new ResponseReader(reader, consumer).read();
+    } catch (XMLStreamException ex) {
+      throw new ParsingException("Parsing failed", ex);
+    } finally {
+      close(reader);
+    }
+  }
+
+  /** Parses a response stream into a list, see {@link #parse(InputStream, Consumer)} */
+  public List<RawOccurrenceRecord> parse(InputStream is) {
+    List<RawOccurrenceRecord> records = new ArrayList<>();
+    parse(is, records::add);
+    return records;
+  }
+
+  private static XMLInputFactory createFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+  private static void close(XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (XMLStreamException ex) {
+        log.warn("Can't close xml stream reader", ex);
+      }
+    }
+  }
+
+  /** State of one response */
+  private class ResponseReader {
+
+    private final XMLStreamReader reader;
+    private final Consumer<RawOccurrenceRecord> consumer;
+    private final UnaryOperator<String> attributes;
+
+    private RuleTree rules;
+    private EventBuffer header;
+
+    // Only one of them is used for a record, the buffer is used until the schema is detected
+    private EventBuffer buffer;
+    private RecordRulesHandler handler;
+    private boolean failed;
+
+    private ResponseReader(XMLStreamReader reader, Consumer<RawOccurrenceRecord> consumer) {
+      this.reader = reader;
+      this.consumer = consumer;
+      this.attributes = name -> reader.getAttributeValue(null, name);
+    }
+
+    private void read() throws XMLStreamException {
+      int depth = 0;
+      boolean isHeader = false;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          String name = reader.getLocalName();
+          if (depth == 0) {
+            isHeader = ABCD1_HEADER_ELEMENT.equals(name);
+            if (!isHeader && !RECORD_ELEMENTS.contains(name)) {
+              continue;
+            }
+            startRecord(isHeader);
+          }
+          depth++;
+          if (isHeader || buffer != null) {
+            (isHeader ? header : buffer).start(name, reader);
+          } else if (!failed) {
+            apply(() -> handler.start(name, attributes));
+          }
+        } else if (depth > 0 && isText(event)) {
+          if (isHeader || buffer != null) {
+            (isHeader ? header : buffer).characters(reader);
+          } else if (!failed) {
+            handler.characters(
+                reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+          }
+        } else if (depth > 0 && event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+          if (isHeader || buffer != null) {
+            (isHeader ? header : buffer).end();
+          } else if (!failed) {
+            apply(() -> handler.end());
+          }
+          if (depth == 0 && !isHeader) {
+            endRecord();
+          }
+        }
+      }
+    }
+
+    private void startRecord(boolean isHeader) {
+      if (isHeader) {
+        header = new EventBuffer();
+        return;
+      }
+      failed = false;
+      if (rules == null) {
+        buffer = new EventBuffer();
+      } else {
+        apply(() -> handler = newHandler());
+      }
+    }
+
+    private void endRecord() {
+      if (buffer != null) {
+        if (rules == null) {
+          Set<String> names = new HashSet<>(buffer.names);
+          if (header != null) {
+            names.addAll(header.names);
+            names.add(ABCD1_ROOT_ELEMENT);
+            names.add(ABCD1_HEADER_PARENT_ELEMENT);
+          }
+          OccurrenceSchemaType schemaType = schemaDetector.detectSchema(names);
+          rules = schemaType == null ? null : RuleTree.get(schemaType);
+          log.debug("Setting schema to [{}]", schemaType);
+        }
+        if (rules != null) {
+          apply(
+              () -> {
+                handler = newHandler();
+                buffer.replay(handler);
+              });
+        }
+        buffer = null;
+        if (rules == null) {
+          return;
+        }
+      }
+      if (header != null) {
+        apply(() -> handler.end());
+      }
+      if (!failed) {
+        handler.finish().forEach(consumer);
+      }
+      handler = null;
+    }
+
+    private RecordRulesHandler newHandler() {
+      RecordRulesHandler h = new RecordRulesHandler(rules);
+      if (header != null) {
+        h.start(ABCD1_ROOT_ELEMENT);
+        h.start(ABCD1_HEADER_PARENT_ELEMENT);
+        header.replay(h);
+        h.end();
+      }
+      return h;
+    }
+
+    /** A failed rule drops the whole record, the same as Digester does */
+    private void apply(Runnable action) {
+      if (failed) {
+        return;
+      }
+      try {
+        action.run();
+      } catch (RuntimeException ex) {
+        log.warn("Failed parsing a record, the record is skipped", ex);
+        failed = true;
+      }
+    }
+
+    private boolean isText(int event) {
+      return event == XMLStreamConstants.CHARACTERS
+          || event == XMLStreamConstants.CDATA
+          || event == XMLStreamConstants.SPACE;
+    }
+  }
+
+  /** Compact copy of record events, used before the schema is detected and for ABCD 1.2 header */
+  private static class EventBuffer {
+
+    private final Set<String> names = new HashSet<>();
+    private final List<Event> events = new ArrayList<>();
+
+    private void start(String name, XMLStreamReader reader) {
+      names.add(name);
+      String[] attributes = new String[reader.getAttributeCount() * 2];
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+        attributes[i * 2] = reader.getAttributeLocalName(i);
+        attributes[i * 2 + 1] = reader.getAttributeValue(i);
+      }
+      events.add(new Event(name, null, attributes));
+    }
+
+    private void characters(XMLStreamReader reader) {
+      events.add(new Event(null, reader.getText(), null));
+    }
+
+    private void end() {
+      events.add(new Event(null, null, null));
+    }
+
+    private void replay(RecordRulesHandler handler) {
+      for (Event event : events) {
+        if (event.name != null) {
+          handler.start(event.name, event::getAttribute);
+        } else if (event.text != null) {
+          handler.characters(event.text.toCharArray(), 0, event.text.length());
+        } else {
+          handler.end();
+        }
+      }
+    }
+  }
+
+  /** Element start if the name is set, text if the text is set, element end otherwise */
+  @AllArgsConstructor
+  private static class Event {
+
+    private final String name;
+    private final String text;
+    private final String[] attributes;
+
+    private String getAttribute(String localName) {
+      for (int i = 0; i < attributes.length; i += 2) {
+        if (attributes[i].equals(localName)) {
+          return attributes[i + 1];
+        }
+      }
+      return null;
+    }
+  }
+}
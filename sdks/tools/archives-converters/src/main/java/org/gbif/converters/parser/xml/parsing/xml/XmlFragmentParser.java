@@ -71,6 +71,11 @@ public class XmlFragmentParser {
     }
   }
 
+  /** Digester rules of the schema, the same rules are used by the streaming StAX parser */
+  public static RuleSet getRuleSet(OccurrenceSchemaType schemaType) {
+    return RULE_SETS.get(schemaType);
+  }
+
   public static List<RawOccurrenceRecord> parseRecord(RawXmlOccurrence xmlRecord) {
     return parseRecord(xmlRecord.getXml(), xmlRecord.getSchemaType());
   }
@@ -231,7 +236,7 @@ public class XmlFragmentParser {
   }
 
   /** Filters the records by discarding the ones without ID. */
-  private static List<RawOccurrenceRecord> forceIdentifiers(List<RawOccurrenceRecord> records) {
+  public static List<RawOccurrenceRecord> forceIdentifiers(List<RawOccurrenceRecord> records) {
     if (records == null) {
       return Collections.emptyList();
     }
@@ -1,10 +1,12 @@
 package org.gbif.converters.parser.xml.parsing.xml.rules;
 
+import lombok.Getter;
 import lombok.ToString;
 import org.apache.commons.beanutils.MethodUtils;
 import org.apache.commons.digester.Rule;
 import org.xml.sax.SAXException;
 
+@Getter
 @ToString
 public class SetLiteralRule extends Rule {
 
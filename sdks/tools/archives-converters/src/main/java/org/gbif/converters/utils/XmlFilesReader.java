@@ -19,12 +19,16 @@ public class XmlFilesReader {
 
   /** Traverse the input directory and gets all the files. */
   public static List<File> getInputFiles(File inputhFile) throws IOException {
-    Predicate<Path> prefixPr =
-        x -> x.toString().endsWith(FILE_PREFIX_RESPONSE) || x.toString().endsWith(FILE_PREFIX_XML);
+    Predicate<Path> prefixPr = x -> isXmlFile(x.toString());
     try (Stream<Path> walk =
         Files.walk(inputhFile.toPath())
             .filter(file -> file.toFile().isFile() && prefixPr.test(file))) {
       return walk.map(Path::toFile).collect(Collectors.toList());
     }
   }
+
+  /** @return true if the file name has a response or xml extension */
+  public static boolean isXmlFile(String fileName) {
+    return fileName.endsWith(FILE_PREFIX_RESPONSE) || fileName.endsWith(FILE_PREFIX_XML);
+  }
 }
@@ -3,9 +3,13 @@ package org.gbif.converters;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.avro.file.DataFileReader;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.specific.SpecificDatumReader;
+import org.gbif.dwc.terms.GbifTerm;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 import org.junit.Assert;
 import org.junit.Ignore;
@@ -43,6 +47,31 @@ public class DwcaToAvroConverterTest {
     Files.deleteIfExists(verbatim.toPath());
   }
 
+  @Test
+  public void parallelConverterTest() throws IOException {
+
+    String inpPath = getClass().getResource("/dwca/plants_dwca").getFile();
+    String seqPath = inpPath + "/verbatim-sequential.avro";
+    String parPath = inpPath + "/verbatim-parallel.avro";
+
+    // When
+    DwcaToAvroConverter.create().inputPath(inpPath).outputPath(seqPath).convert();
+    DwcaToAvroConverter.create().parallelism(4).inputPath(inpPath).outputPath(parPath).convert();
+
+    // Should
+    List<ExtendedRecord> sequential = readRecords(new File(seqPath));
+    List<ExtendedRecord> parallel = readRecords(new File(parPath));
+
+    Assert.assertFalse(parallel.isEmpty());
+    Assert.assertEquals(sequential, parallel);
+    Assert.assertTrue(
+        parallel.stream()
+            .anyMatch(r -> !r.getExtensions().get(GbifTerm.Identifier.qualifiedName()).isEmpty()));
+
+    Files.deleteIfExists(Paths.get(seqPath));
+    Files.deleteIfExists(Paths.get(parPath));
+  }
+
   @Test
   public void csvConverterTest() throws Exception {
 
@@ -133,4 +162,13 @@ public class DwcaToAvroConverterTest {
 
     Files.deleteIfExists(verbatim.toPath());
   }
+
+  private List<ExtendedRecord> readRecords(File file) throws IOException {
+    List<ExtendedRecord> records = new ArrayList<>();
+    DatumReader<ExtendedRecord> datumReader = new SpecificDatumReader<>(ExtendedRecord.class);
+    try (DataFileReader<ExtendedRecord> dataFileReader = new DataFileReader<>(file, datumReader)) {
+      dataFileReader.forEach(records::add);
+    }
+    return records;
+  }
 }
@@ -3,6 +3,9 @@ package org.gbif.converters;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import org.apache.avro.file.DataFileReader;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.specific.SpecificDatumReader;
@@ -50,4 +53,43 @@ public class XmlToAvroConverterTest {
 
     Files.deleteIfExists(verbatim.toPath());
   }
+
+  @Test
+  public void archiveStreamingTest() throws IOException {
+
+    // State
+    String inputPath = getTestInputPath() + "61";
+    String archivePath = getTestInputPath() + "61.tar.xz";
+
+    String outPath = inputPath + "digester-verbatim.avro";
+    String archiveOutPath = inputPath + "stax-verbatim.avro";
+
+    // When
+    XmlToAvroConverter.create()
+        .useDigester(true)
+        .inputPath(inputPath)
+        .outputPath(outPath)
+        .convert();
+    XmlToAvroConverter.create().inputPath(archivePath).outputPath(archiveOutPath).convert();
+
+    // Should
+    List<ExtendedRecord> expected = readSorted(new File(outPath));
+    List<ExtendedRecord> result = readSorted(new File(archiveOutPath));
+    Assert.assertFalse(expected.isEmpty());
+    Assert.assertEquals(expected, result);
+
+    Files.deleteIfExists(new File(outPath).toPath());
+    Files.deleteIfExists(new File(archiveOutPath).toPath());
+  }
+
+  private static List<ExtendedRecord> readSorted(File verbatim) throws IOException {
+    List<ExtendedRecord> records = new ArrayList<>();
+    DatumReader<ExtendedRecord> datumReader = new SpecificDatumReader<>(ExtendedRecord.class);
+    try (DataFileReader<ExtendedRecord> dataFileReader =
+        new DataFileReader<>(verbatim, datumReader)) {
+      dataFileReader.forEach(records::add);
+    }
+    records.sort(Comparator.comparing(ExtendedRecord::getId));
+    return records;
+  }
 }
@@ -0,0 +1,93 @@
+package org.gbif.converters.dwca;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.gbif.converters.dwca.CoreFileSplitter.ByteRange;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CoreFileSplitterTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void splitUnquotedTest() throws IOException {
+
+    // State
+    String content = "id\tname\n1\taaaa\n2\tbbbb\n3\tcccc\n4\tdddd\n";
+    Path file = write(content);
+
+    // When
+    List<ByteRange> ranges = CoreFileSplitter.split(file, (byte) '\t', null, 1, 10L);
+
+    // Should
+    Assert.assertEquals(2, ranges.size());
+    Assert.assertEquals("1\taaaa\n2\tbbbb\n", read(content, ranges.get(0)));
+    Assert.assertEquals("3\tcccc\n4\tdddd\n", read(content, ranges.get(1)));
+  }
+
+  @Test
+  public void splitQuotedTest() throws IOException {
+
+    // State
+    String content = "1,\"a\nb\nc\"\n2,\"x\"\"\ny\"\n3,z\n4,\"\"\n";
+    Path file = write(content);
+
+    // When
+    List<ByteRange> ranges = CoreFileSplitter.split(file, (byte) ',', (byte) '"', 0, 1L);
+
+    // Should
+    List<String> records = ranges.stream().map(r -> read(content, r)).collect(Collectors.toList());
+    Assert.assertEquals(4, records.size());
+    Assert.assertEquals("1,\"a\nb\nc\"\n", records.get(0));
+    Assert.assertEquals("2,\"x\"\"\ny\"\n", records.get(1));
+    Assert.assertEquals("3,z\n", records.get(2));
+    Assert.assertEquals("4,\"\"\n", records.get(3));
+  }
+
+  @Test
+  public void splitBomAndNoTrailingLineTest() throws IOException {
+
+    // State
+    String content = "\uFEFF1\ta\n2\tb";
+    Path file = write(content);
+
+    // When
+    List<ByteRange> ranges = CoreFileSplitter.split(file, (byte) '\t', null, 0, 1L);
+
+    // Should
+    Assert.assertEquals(2, ranges.size());
+    Assert.assertEquals(3L, ranges.get(0).getStart());
+    Assert.assertEquals(Files.size(file), ranges.get(1).getEnd());
+  }
+
+  @Test
+  public void splitHeaderOnlyTest() throws IOException {
+
+    // State
+    Path file = write("id,name\n");
+
+    // When
+    List<ByteRange> ranges = CoreFileSplitter.split(file, (byte) ',', (byte) '"', 1, 1L);
+
+    // Should
+    Assert.assertTrue(ranges.isEmpty());
+  }
+
+  private Path write(String content) throws IOException {
+    Path file = folder.newFile().toPath();
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static String read(String content, ByteRange range) {
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    return new String(bytes, (int) range.getStart(), (int) range.length(), StandardCharsets.UTF_8);
+  }
+}
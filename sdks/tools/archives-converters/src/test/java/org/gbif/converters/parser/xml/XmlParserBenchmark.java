@@ -0,0 +1,100 @@
+package org.gbif.converters.parser.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.gbif.converters.parser.xml.parsing.extendedrecord.ExtendedRecordConverter;
+import org.gbif.converters.parser.xml.parsing.stax.StaxOccurrenceParser;
+import org.gbif.converters.parser.xml.parsing.xml.XmlFragmentParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the Digester parser (a DOM per record, serialized and parsed again by Digester) with the
+ * streaming StAX parser. Both benchmarks parse all test responses into {@link
+ * org.gbif.pipelines.io.avro.ExtendedRecord}s, responses are uncompressed into memory beforehand.
+ *
+ * <p>Run the main method using the test classpath, it isn't a part of the unit tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class XmlParserBenchmark {
+
+  private final List<byte[]> responses = new ArrayList<>();
+
+  @Setup
+  public void setup() throws IOException, URISyntaxException {
+    Path root = Paths.get(getClass().getResource("/responses").toURI());
+    try (Stream<Path> paths = Files.walk(root)) {
+      List<Path> files =
+          paths
+              .filter(Files::isRegularFile)
+              .filter(p -> !p.toString().contains("problematic"))
+              .filter(p -> p.toString().endsWith(".gz") || p.toString().endsWith(".response"))
+              .collect(Collectors.toList());
+      for (Path file : files) {
+        try (InputStream is =
+            file.toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(file))
+                : Files.newInputStream(file)) {
+          responses.add(IOUtils.toByteArray(is));
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void digester(Blackhole blackhole) {
+    for (byte[] response : responses) {
+      new OccurrenceParser()
+          .parseStream(new ByteArrayInputStream(response)).stream()
+              .map(XmlFragmentParser::parseRecord)
+              .flatMap(Collection::stream)
+              .map(ExtendedRecordConverter::from)
+              .forEach(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void stax(Blackhole blackhole) {
+    for (byte[] response : responses) {
+      new StaxOccurrenceParser()
+          .parse(
+              new ByteArrayInputStream(response),
+              r -> blackhole.consume(ExtendedRecordConverter.from(r)));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(XmlParserBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
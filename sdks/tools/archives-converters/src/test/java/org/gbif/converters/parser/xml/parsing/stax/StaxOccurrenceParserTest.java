@@ -0,0 +1,113 @@
+package org.gbif.converters.parser.xml.parsing.stax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.gbif.converters.parser.xml.OccurrenceParser;
+import org.gbif.converters.parser.xml.ParsingException;
+import org.gbif.converters.parser.xml.model.RawOccurrenceRecord;
+import org.gbif.converters.parser.xml.parsing.extendedrecord.ExtendedRecordConverter;
+import org.gbif.converters.parser.xml.parsing.xml.XmlFragmentParser;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.junit.Test;
+
+public class StaxOccurrenceParserTest {
+
+  @Test
+  public void sameAsDigesterTest() throws Exception {
+
+    // State
+    List<Path> files = getResponses("/responses", "/response_schema");
+    int records = 0;
+
+    for (Path file : files) {
+      byte[] xml = read(file);
+
+      // When
+      List<ExtendedRecord> expected = null;
+      try {
+        expected =
+            new OccurrenceParser()
+                .parseStream(new ByteArrayInputStream(xml)).stream()
+                    .map(XmlFragmentParser::parseRecord)
+                    .flatMap(Collection::stream)
+                    .map(ExtendedRecordConverter::from)
+                    .collect(Collectors.toList());
+      } catch (ParsingException ex) {
+        // The StAX parser must fail too
+      }
+
+      List<ExtendedRecord> result = null;
+      try {
+        result =
+            new StaxOccurrenceParser()
+                .parse(new ByteArrayInputStream(xml)).stream()
+                    .map(ExtendedRecordConverter::from)
+                    .collect(Collectors.toList());
+      } catch (ParsingException ex) {
+        // Checked below
+      }
+
+      // Should
+      assertEquals(file.toString(), expected, result);
+      records += result == null ? 0 : result.size();
+    }
+    assertTrue(records > 0);
+  }
+
+  @Test
+  public void abcd12HeaderTest() throws Exception {
+
+    // State
+    Path file = getResponses("/responses/abcd12/abcd12_all_simple_fields.gz").get(0);
+
+    // When
+    List<RawOccurrenceRecord> records;
+    try (InputStream is = new ByteArrayInputStream(read(file))) {
+      records = new StaxOccurrenceParser().parse(is);
+    }
+
+    // Should
+    assertFalse(records.isEmpty());
+    assertEquals("TLMF", records.get(0).getInstitutionCode());
+    assertEquals("Tiroler Landesmuseum Ferdinandeum", records.get(0).getCollectionCode());
+  }
+
+  private List<Path> getResponses(String... resources) throws IOException, URISyntaxException {
+    List<Path> files = new ArrayList<>();
+    for (String resource : resources) {
+      try (Stream<Path> paths = Files.walk(Paths.get(getClass().getResource(resource).toURI()))) {
+        paths
+            .filter(Files::isRegularFile)
+            .filter(p -> p.toString().endsWith(".gz") || p.toString().endsWith(".xml"))
+            .sorted()
+            .forEach(files::add);
+      }
+    }
+    return files;
+  }
+
+  private static byte[] read(Path file) throws IOException {
+    try (InputStream is =
+        file.toString().endsWith(".gz")
+            ? new GZIPInputStream(Files.newInputStream(file))
+            : Files.newInputStream(file)) {
+      return IOUtils.toByteArray(is);
+    }
+  }
+}
@@ -17,6 +17,7 @@ public class PipelinesVariables {
 
     public static final String AVRO_EXTENSION = ".avro";
     public static final String ALL_AVRO = "*" + AVRO_EXTENSION;
+    public static final String PARQUET_EXTENSION = ".parquet";
 
     public static final String ARCHIVE_TO_VERBATIM = "archive-to-verbatim";
     public static final String CAMTRAPDP_TO_DWCA = "camtrapdp-to-dwca";
@@ -242,6 +243,7 @@ public class PipelinesVariables {
   public static class Metrics {
 
     public static final String AVRO_TO_JSON_COUNT = "avroToJsonCount";
+    public static final String ES_FAILED_DOCUMENTS_COUNT = "esFailedDocumentsCount";
 
     public static final String EVENTS_AVRO_TO_JSON_COUNT = "eventsAvroToJsonCount";
     public static final String ARCHIVE_TO_ER_COUNT = "archiveToErCount";
@@ -267,6 +269,8 @@ public class PipelinesVariables {
     public static final String GBIF_ID_RECORDS_COUNT = "gbifIdRecordsCount";
     public static final String CLUSTERING_RECORDS_COUNT = "clusteringRecordsCount";
     public static final String TEMPORAL_RECORDS_COUNT = "temporalRecordsCount";
+    public static final String TEMPORAL_PARSER_CACHE_HITS = "temporalParserCacheHits";
+    public static final String TEMPORAL_PARSER_CACHE_MISSES = "temporalParserCacheMisses";
     public static final String LOCATION_RECORDS_COUNT = "locationRecordsCount";
     public static final String TAXON_RECORDS_COUNT = "taxonRecordsCount";
     public static final String GRSCICOLL_RECORDS_COUNT = "grscicollRecordsCount";
@@ -317,6 +321,7 @@ public class PipelinesVariables {
 
     // Fragmenter
     public static final String FRAGMENTER_COUNT = "fragmenterRecordsCount";
+    public static final String FRAGMENTER_UNCHANGED_COUNT = "fragmenterUnchangedRecordsCount";
     // Specific
     public static final String IDENTIFIER_RECORDS_COUNT = "identifierRecordsCount";
     public static final String LOCATION_FEATURE_RECORDS_COUNT = "locationFeatureRecordsCount";